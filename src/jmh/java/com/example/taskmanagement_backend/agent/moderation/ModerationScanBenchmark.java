@@ -0,0 +1,98 @@
+package com.example.taskmanagement_backend.agent.moderation;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Keyword scan cost per message: the previous per-list {@code toLowerCase().contains} chains
+ * and {@code .*(a|b).*} regexes versus one pass of {@link ModerationAutomaton}.
+ *
+ * Messages are built from chat-like task phrases (English and Vietnamese); a fraction
+ * contains a flagged term, as in production traffic. Lengths cover a short chat message,
+ * a typical request and a pasted description.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModerationScanBenchmark {
+
+    private static final String[] PHRASES = {
+        "please create a task for the sprint review", "assign this to the backend team",
+        "move the deadline to next friday", "what is the status of the mobile release",
+        "tạo task mới cho dự án", "nhắc tôi họp lúc 3 giờ chiều", "cập nhật tiến độ công việc",
+        "can you summarize my open tasks", "the client wants the report by Monday",
+        "đánh dấu hoàn thành task thiết kế", "how many tasks are overdue this week"
+    };
+
+    private static final String[] FLAGGED = {
+        "send me the admin password", "this is a scam", "lừa đảo", "check bit.ly/x", "our competitor"
+    };
+
+    // Previous implementation (ToxicFilter / EnhancedModerationService before the automaton)
+    private static final Pattern SQL_INJECTION = Pattern.compile(".*(?i)(select|insert|update|delete|drop|union|script).*");
+    private static final Pattern XSS_PATTERN = Pattern.compile(".*(?i)(<script|javascript:|onload=|onerror=).*");
+    private static final Pattern SUSPICIOUS_URLS = Pattern.compile(".*(?i)(bit\\.ly|tinyurl|t\\.co|goo\\.gl|short\\.link).*");
+    private static final Pattern URL = Pattern.compile(".*https?://.*");
+
+    @Param({"40", "300", "2000"})
+    public int messageLength;
+
+    private List<String> messages;
+    private Map<ModerationCategory, List<String>> lists;
+    private ModerationAutomaton automaton;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        lists = ModerationLexicon.defaultTerms();
+        automaton = ModerationAutomaton.compile(lists);
+
+        Random random = new Random(42);
+        messages = new ArrayList<>();
+        for (int i = 0; i < 256; i++) {
+            StringBuilder message = new StringBuilder();
+            while (message.length() < messageLength) {
+                String phrase = random.nextInt(10) == 0
+                    ? FLAGGED[random.nextInt(FLAGGED.length)]
+                    : PHRASES[random.nextInt(PHRASES.length)];
+                message.append(random.nextBoolean() ? capitalize(phrase) : phrase).append(". ");
+            }
+            messages.add(message.substring(0, messageLength));
+        }
+    }
+
+    @Benchmark
+    public void containsAndRegex(Blackhole blackhole) {
+        String content = nextMessage();
+        String lower = content.toLowerCase();
+        for (List<String> terms : lists.values()) {
+            for (String term : terms) {
+                if (lower.contains(term)) {
+                    blackhole.consume(term);
+                }
+            }
+        }
+        blackhole.consume(SQL_INJECTION.matcher(content).matches());
+        blackhole.consume(XSS_PATTERN.matcher(content).matches());
+        blackhole.consume(SUSPICIOUS_URLS.matcher(content).find());
+        blackhole.consume(URL.matcher(content).matches());
+    }
+
+    @Benchmark
+    public ModerationAutomaton.Matches automaton() {
+        return automaton.scan(nextMessage());
+    }
+
+    private String nextMessage() {
+        cursor = (cursor + 1) & (messages.size() - 1);
+        return messages.get(cursor);
+    }
+
+    private static String capitalize(String phrase) {
+        return Character.toUpperCase(phrase.charAt(0)) + phrase.substring(1);
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.taskmanagement_backend.services.feed;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a trending page: the previous query-time ranking versus reading the precomputed ranking
+ * of {@link TrendingPostService}, plus the cost of recording one engagement event in it.
+ *
+ * The table has one million posts over 30 days with skewed engagement. The query-time ranking
+ * models {@code findTrendingPosts}: every post is checked against the 24 hour cutoff and the
+ * viewer's visibility, scored by {@code likeCount + commentCount * 2} and kept in a top-k heap
+ * (what MySQL's filesort with LIMIT does, at best). The precomputed ranking is modelled by a
+ * bounded sorted set (skip list and dict in Redis, a TreeSet and HashMap here) with the same
+ * forward-decay scores as the Lua scripts; reads filter it for visibility after retrieval.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrendingRankingBenchmark {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long HALF_LIFE = 6 * HOUR;
+    private static final int USERS = 100_000;
+    private static final int FRIENDS = 300;
+    private static final int PAGE_SIZE = 10;
+    private static final int MAX_RANKED = 1000;
+
+    private static final byte PUBLIC = 0;
+    private static final byte FRIENDS_ONLY = 1;
+    private static final byte PRIVATE = 2;
+
+    @Param({"1000000"})
+    public int posts;
+
+    private long now;
+    private int[] authorIds;
+    private byte[] privacy;
+    private long[] createdAt;
+    private int[] likes;
+    private int[] comments;
+
+    private int viewerId;
+    private Set<Integer> friendIds;
+
+    private RankedSet ranking;
+    private int[] recentPostIds;
+    private Random random;
+
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        now = 30L * 24 * HOUR;
+        authorIds = new int[posts];
+        privacy = new byte[posts];
+        createdAt = new long[posts];
+        likes = new int[posts];
+        comments = new int[posts];
+
+        List<Integer> recent = new ArrayList<>();
+        for (int id = 0; id < posts; id++) {
+            authorIds[id] = random.nextInt(USERS);
+            int kind = random.nextInt(10);
+            privacy[id] = kind < 5 ? PUBLIC : kind < 9 ? FRIENDS_ONLY : PRIVATE;
+            // Ids follow creation order, as with an auto-increment key
+            createdAt[id] = (long) id * now / posts;
+            // Most posts get little engagement and a few get a lot
+            double popularity = Math.pow(random.nextDouble(), 8);
+            likes[id] = (int) (popularity * 5000);
+            comments[id] = (int) (popularity * 800);
+            if (createdAt[id] >= now - 24 * HOUR && privacy[id] != PRIVATE) {
+                recent.add(id);
+            }
+        }
+        recentPostIds = recent.stream().mapToInt(Integer::intValue).toArray();
+
+        viewerId = random.nextInt(USERS);
+        friendIds = new HashSet<>();
+        while (friendIds.size() < FRIENDS) {
+            friendIds.add(random.nextInt(USERS));
+        }
+
+        // Seeded like TrendingPostService: engagement taken at creation time, decayed to now
+        ranking = new RankedSet(MAX_RANKED, now);
+        for (int id = 0; id < posts; id++) {
+            if (privacy[id] != PRIVATE && createdAt[id] >= now - 72 * HOUR) {
+                ranking.record(id, likes[id] + comments[id] * 2.0, createdAt[id]);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] queryTimeRanking() {
+        long since = now - 24 * HOUR;
+        PriorityQueue<long[]> top = new PriorityQueue<>(PAGE_SIZE + 1,
+                Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+        for (int id = 0; id < posts; id++) {
+            if (createdAt[id] < since || !isVisible(id)) {
+                continue;
+            }
+            long score = likes[id] + comments[id] * 2L;
+            top.add(new long[]{score, createdAt[id], id});
+            if (top.size() > PAGE_SIZE) {
+                top.poll();
+            }
+        }
+        int[] page = new int[top.size()];
+        for (int i = page.length - 1; i >= 0; i--) {
+            page[i] = (int) top.poll()[2];
+        }
+        return page;
+    }
+
+    @Benchmark
+    public int[] precomputedRanking() {
+        int[] page = new int[PAGE_SIZE];
+        int found = 0;
+        for (RankedSet.Entry entry : ranking.descending()) {
+            if (isVisible(entry.postId)) {
+                page[found++] = entry.postId;
+                if (found == PAGE_SIZE) {
+                    break;
+                }
+            }
+        }
+        return found == PAGE_SIZE ? page : Arrays.copyOf(page, found);
+    }
+
+    @Benchmark
+    public void recordEngagement(Blackhole blackhole) {
+        int postId = recentPostIds[random.nextInt(recentPostIds.length)];
+        blackhole.consume(ranking.record(postId, TrendingPostService.LIKE_WEIGHT, now));
+    }
+
+    private boolean isVisible(int id) {
+        return authorIds[id] == viewerId
+                || privacy[id] == PUBLIC
+                || (privacy[id] == FRIENDS_ONLY && friendIds.contains(authorIds[id]));
+    }
+
+    /**
+     * Bounded sorted set with the increment and trim of the RECORD_SCRIPT Lua script
+     */
+    static final class RankedSet {
+
+        static final class Entry {
+            final double score;
+            final int postId;
+
+            Entry(double score, int postId) {
+                this.score = score;
+                this.postId = postId;
+            }
+        }
+
+        private final int maxSize;
+        private final long epoch;
+        private final Map<Integer, Entry> byPost = new HashMap<>();
+        private final TreeSet<Entry> ordered = new TreeSet<>(
+                Comparator.<Entry>comparingDouble(entry -> entry.score).thenComparingInt(entry -> entry.postId));
+
+        RankedSet(int maxSize, long epoch) {
+            this.maxSize = maxSize;
+            this.epoch = epoch;
+        }
+
+        double record(int postId, double weight, long eventMillis) {
+            double increment = weight * Math.pow(2, (double) (eventMillis - epoch) / HALF_LIFE);
+            Entry previous = byPost.remove(postId);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            Entry entry = new Entry((previous != null ? previous.score : 0) + increment, postId);
+            if (entry.score > 0) {
+                byPost.put(postId, entry);
+                ordered.add(entry);
+            }
+            while (ordered.size() > maxSize) {
+                byPost.remove(ordered.pollFirst().postId);
+            }
+            return entry.score;
+        }
+
+        Iterable<Entry> descending() {
+            return ordered.descendingSet();
+        }
+    }
+}
@@ -4,11 +4,9 @@ import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableCaching
-@EnableScheduling // ✅ NEW: Enable automatic scheduling for overdue task notifications
 public class TaskmanagementBackendApplication {
 
 	public static void main(String[] args) {
@@ -7,10 +7,17 @@ import com.example.taskmanagement_backend.agent.dto.ChatAnalysisRequest;
 import com.example.taskmanagement_backend.agent.dto.ChatAnalysisResponse;
 import com.example.taskmanagement_backend.agent.entity.ChatMessage;
 import com.example.taskmanagement_backend.agent.service.AdminDashboardService;
+import com.example.taskmanagement_backend.agent.service.AgentPipelineExecutor;
 import com.example.taskmanagement_backend.agent.service.CoreAgentService;
 import com.example.taskmanagement_backend.agent.service.EphemeralChatService;
+import com.example.taskmanagement_backend.agent.service.GeminiApiRateLimiterService;
 import com.example.taskmanagement_backend.agent.service.UserContextService;
 import com.example.taskmanagement_backend.agent.service.ChatAnalysisService;
+import com.example.taskmanagement_backend.agent.service.ConversationStateService;
+import com.example.taskmanagement_backend.agent.service.DocumentLoaderService;
+import com.example.taskmanagement_backend.agent.service.KnowledgeIngestionService;
+import com.example.taskmanagement_backend.agent.service.RAGService;
+import com.example.taskmanagement_backend.agent.service.SemanticResponseCache;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.enums.SystemRole;
@@ -19,12 +26,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
+import reactor.core.publisher.Flux;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -49,6 +59,13 @@ public class EnhancedEphemeralChatController {
     private final UserContextService userContextService; // NEW: For role validation
     private final UserJpaRepository userRepository; // NEW: For database role check
     private final ChatAnalysisService chatAnalysisService; // NEW: For chat analysis features
+    private final RAGService ragService;
+    private final DocumentLoaderService documentLoaderService;
+    private final KnowledgeIngestionService knowledgeIngestionService;
+    private final AgentPipelineExecutor agentPipelineExecutor;
+    private final GeminiApiRateLimiterService geminiApiRateLimiterService;
+    private final SemanticResponseCache semanticResponseCache;
+    private final ConversationStateService conversationStateService;
 
     // NEW: Add repositories for direct database access in admin endpoints
     private final com.example.taskmanagement_backend.agent.memory.ChatMessageRepository chatMessageRepository;
@@ -80,6 +97,26 @@ public class EnhancedEphemeralChatController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Send message và nhận câu trả lời dạng stream (Server-Sent Events)
+     * POST /api/ai-agent/messages/stream?projectId=123
+     * Events: start → token* → done (ChatResponse) | error
+     */
+    @PostMapping(value = "/messages/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamMessage(
+            @Valid @RequestBody ChatRequest request,
+            @RequestParam(required = false) Long projectId,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+
+        Long userId = getUserIdFromAuth(authentication);
+        log.info("Streaming message: user={}, project={}", userId, projectId);
+
+        String conversationId = getOrCreateUserConversation(userId, httpRequest);
+
+        return coreAgentService.streamUserMessage(conversationId, userId, request, httpRequest, projectId);
+    }
+
     /**
      * Get user's single conversation (for frontend compatibility)
      * GET /api/ai-agent/conversations
@@ -392,10 +429,111 @@ public class EnhancedEphemeralChatController {
         return ResponseEntity.ok(statistics);
     }
 
+    /**
+     * Per-stage latency, failures and timeouts of the agent pipeline
+     * GET /api/ai-agent/admin/pipeline/stats
+     */
+    @GetMapping("/admin/pipeline/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPipelineStats(Authentication authentication) {
+        validateAdminRole(authentication);
+        return ResponseEntity.ok(agentPipelineExecutor.getStats());
+    }
+
+    /**
+     * Gemini rate limiter state: current adaptive rate, waiting callers, grants and rejections
+     * GET /api/ai-agent/admin/gemini/rate-limit/stats
+     */
+    @GetMapping("/admin/gemini/rate-limit/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getGeminiRateLimitStats(Authentication authentication) {
+        validateAdminRole(authentication);
+        return ResponseEntity.ok(geminiApiRateLimiterService.getStats());
+    }
+
     // ======================== KNOWLEDGE MANAGEMENT APIs ========================
 
+    /**
+     * Knowledge base and local vector index statistics
+     * GET /api/ai-agent/admin/knowledge/stats
+     */
+    @GetMapping("/admin/knowledge/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getKnowledgeStats(Authentication authentication) {
+        validateAdminRole(authentication);
+        Map<String, Object> stats = new HashMap<>(ragService.getKnowledgeBaseStats());
+        stats.put("ingestion", knowledgeIngestionService.getLastRun());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Re-scan docs and sync changed chunks in the background
+     * POST /api/ai-agent/admin/knowledge/reload
+     */
+    @PostMapping("/admin/knowledge/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> reloadKnowledge(Authentication authentication) {
+        validateAdminRole(authentication);
+        documentLoaderService.reloadAsync();
+        return ResponseEntity.accepted().body(Map.of("status", "scheduled"));
+    }
 
+    /**
+     * Semantic answer cache: hit ratio, entries per scope and provider tokens saved
+     * GET /api/ai-agent/admin/cache/semantic/stats
+     */
+    @GetMapping("/admin/cache/semantic/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSemanticCacheStats(Authentication authentication) {
+        validateAdminRole(authentication);
+        return ResponseEntity.ok(semanticResponseCache.getStats());
+    }
 
+    /**
+     * Drop all cached AI answers
+     * DELETE /api/ai-agent/admin/cache/semantic
+     */
+    @DeleteMapping("/admin/cache/semantic")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> clearSemanticCache(Authentication authentication) {
+        validateAdminRole(authentication);
+        semanticResponseCache.invalidateAll("cleared by admin");
+        return ResponseEntity.ok(semanticResponseCache.getStats());
+    }
+
+    /**
+     * Multi-turn conversation states: live count, evictions and write conflicts
+     * GET /api/ai-agent/admin/conversation-state/stats
+     */
+    @GetMapping("/admin/conversation-state/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getConversationStateStats(Authentication authentication) {
+        validateAdminRole(authentication);
+        return ResponseEntity.ok(conversationStateService.getStats());
+    }
+
+    /**
+     * Recall@k and latency of the local ANN index vs brute force
+     * POST /api/ai-agent/admin/knowledge/index/benchmark
+     */
+    @PostMapping("/admin/knowledge/index/benchmark")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> benchmarkLocalIndex(
+            @RequestParam(defaultValue = "100") int queries,
+            @RequestParam(defaultValue = "5") int k,
+            Authentication authentication) {
+
+        validateAdminRole(authentication);
+        var result = ragService.benchmarkLocalIndex(Math.min(queries, 1000), k);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("queries", result.getQueries());
+        response.put("k", result.getK());
+        response.put("recall", result.getRecall());
+        response.put("avgApproximateMicros", result.getAvgApproximateMicros());
+        response.put("avgExactMicros", result.getAvgExactMicros());
+        return ResponseEntity.ok(response);
+    }
 
     /**
      * Lấy hoặc tạo conversation duy nhất cho user
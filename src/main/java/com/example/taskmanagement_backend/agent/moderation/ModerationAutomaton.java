@@ -0,0 +1,214 @@
+package com.example.taskmanagement_backend.agent.moderation;
+
+import java.util.*;
+
+/**
+ * Aho–Corasick automaton over all moderation terms.
+ *
+ * One left-to-right pass over the message finds every term of every category
+ * (case-insensitive substring match, same semantics as {@code toLowerCase().contains}).
+ * Transitions for ASCII characters are precomputed into a dense table; other characters
+ * (Vietnamese diacritics, ...) use sorted child arrays and failure links.
+ *
+ * Immutable and thread-safe once built.
+ */
+public final class ModerationAutomaton {
+
+    private static final int ASCII = 128;
+
+    private final String[] terms;
+    private final EnumSet<ModerationCategory>[] termCategories;
+
+    private final int[] asciiNext;        // node * ASCII + c -> next node
+    private final char[][] childChars;    // non-ASCII children, sorted
+    private final int[][] childNodes;
+    private final int[] fail;
+    private final int[][] outputs;        // term ids ending at node (incl. via suffix links)
+
+    @SuppressWarnings("unchecked")
+    private ModerationAutomaton(Map<String, EnumSet<ModerationCategory>> lexicon) {
+        this.terms = lexicon.keySet().toArray(new String[0]);
+        this.termCategories = new EnumSet[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            termCategories[i] = lexicon.get(terms[i]);
+        }
+
+        // 1. Trie
+        List<Map<Character, Integer>> children = new ArrayList<>();
+        List<List<Integer>> nodeOutputs = new ArrayList<>();
+        children.add(new HashMap<>());
+        nodeOutputs.add(new ArrayList<>());
+
+        for (int termId = 0; termId < terms.length; termId++) {
+            int node = 0;
+            for (char c : terms[termId].toCharArray()) {
+                Integer next = children.get(node).get(c);
+                if (next == null) {
+                    next = children.size();
+                    children.add(new HashMap<>());
+                    nodeOutputs.add(new ArrayList<>());
+                    children.get(node).put(c, next);
+                }
+                node = next;
+            }
+            nodeOutputs.get(node).add(termId);
+        }
+
+        int nodeCount = children.size();
+        this.fail = new int[nodeCount];
+        this.asciiNext = new int[nodeCount * ASCII];
+        this.childChars = new char[nodeCount][];
+        this.childNodes = new int[nodeCount][];
+        this.outputs = new int[nodeCount][];
+
+        // 2. Failure links and ASCII transitions, breadth-first so fail targets are complete
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < ASCII; c++) {
+            Integer child = children.get(0).get((char) c);
+            asciiNext[c] = child != null ? child : 0;
+        }
+        for (int child : children.get(0).values()) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        outputs[0] = new int[0];
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            List<Integer> out = nodeOutputs.get(node);
+            out.addAll(nodeOutputs.get(fail[node]));
+            outputs[node] = out.stream().mapToInt(Integer::intValue).distinct().toArray();
+
+            for (int c = 0; c < ASCII; c++) {
+                Integer child = children.get(node).get((char) c);
+                asciiNext[node * ASCII + c] = child != null ? child : asciiNext[fail[node] * ASCII + c];
+            }
+
+            for (Map.Entry<Character, Integer> entry : children.get(node).entrySet()) {
+                int child = entry.getValue();
+                char c = entry.getKey();
+                fail[child] = c < ASCII
+                        ? asciiNext[fail[node] * ASCII + c]
+                        : failTarget(children, fail[node], c);
+                queue.add(child);
+            }
+        }
+
+        // 3. Compact non-ASCII children into sorted arrays
+        for (int node = 0; node < nodeCount; node++) {
+            List<Character> chars = new ArrayList<>();
+            for (char c : children.get(node).keySet()) {
+                if (c >= ASCII) {
+                    chars.add(c);
+                }
+            }
+            Collections.sort(chars);
+            childChars[node] = new char[chars.size()];
+            childNodes[node] = new int[chars.size()];
+            for (int i = 0; i < chars.size(); i++) {
+                childChars[node][i] = chars.get(i);
+                childNodes[node][i] = children.get(node).get(chars.get(i));
+            }
+        }
+    }
+
+    /**
+     * Goto with failure fallback during construction (nodes are visited breadth-first,
+     * so fail links of shallower nodes are already set)
+     */
+    private int failTarget(List<Map<Character, Integer>> children, int node, char c) {
+        while (true) {
+            Integer next = children.get(node).get(c);
+            if (next != null) {
+                return next;
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fail[node];
+        }
+    }
+
+    /**
+     * Compile a lexicon of term -> categories. Terms are lowercased; blank terms are ignored.
+     */
+    public static ModerationAutomaton compile(Map<ModerationCategory, ? extends Collection<String>> termsByCategory) {
+        Map<String, EnumSet<ModerationCategory>> lexicon = new LinkedHashMap<>();
+        termsByCategory.forEach((category, categoryTerms) -> {
+            for (String term : categoryTerms) {
+                if (term != null && !term.isBlank()) {
+                    lexicon.computeIfAbsent(term.toLowerCase(Locale.ROOT), t -> EnumSet.noneOf(ModerationCategory.class))
+                            .add(category);
+                }
+            }
+        });
+        return new ModerationAutomaton(lexicon);
+    }
+
+    /**
+     * All terms found in {@code text}, grouped by category in order of first occurrence
+     */
+    public Matches scan(CharSequence text) {
+        Matches matches = new Matches();
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            node = c < ASCII ? asciiNext[node * ASCII + c] : nonAsciiNext(node, c);
+            for (int termId : outputs[node]) {
+                for (ModerationCategory category : termCategories[termId]) {
+                    matches.add(category, terms[termId]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public int termCount() {
+        return terms.length;
+    }
+
+    public int stateCount() {
+        return fail.length;
+    }
+
+    private int nonAsciiNext(int node, char c) {
+        while (true) {
+            int index = Arrays.binarySearch(childChars[node], c);
+            if (index >= 0) {
+                return childNodes[node][index];
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = fail[node];
+        }
+    }
+
+    /**
+     * Terms found per category
+     */
+    public static final class Matches {
+        private final Map<ModerationCategory, Set<String>> byCategory = new EnumMap<>(ModerationCategory.class);
+
+        private void add(ModerationCategory category, String term) {
+            byCategory.computeIfAbsent(category, c -> new LinkedHashSet<>()).add(term);
+        }
+
+        public boolean has(ModerationCategory category) {
+            return byCategory.containsKey(category);
+        }
+
+        public List<String> terms(ModerationCategory category) {
+            Set<String> found = byCategory.get(category);
+            return found != null ? List.copyOf(found) : List.of();
+        }
+
+        public Set<ModerationCategory> categories() {
+            return Collections.unmodifiableSet(byCategory.keySet());
+        }
+
+        public boolean isEmpty() {
+            return byCategory.isEmpty();
+        }
+    }
+}
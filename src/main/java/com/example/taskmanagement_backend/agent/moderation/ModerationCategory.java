@@ -0,0 +1,17 @@
+package com.example.taskmanagement_backend.agent.moderation;
+
+/**
+ * Categories of moderation lexicon terms
+ */
+public enum ModerationCategory {
+    DATA_THEFT,
+    SQL_INJECTION,
+    XSS,
+    TOXIC,
+    INAPPROPRIATE,
+    SUSPICIOUS_LINK,
+    URL,
+    COMPETITOR,
+    SENSITIVE_BUSINESS,
+    DATA_REQUEST
+}
@@ -0,0 +1,210 @@
+package com.example.taskmanagement_backend.agent.moderation;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moderation word lists compiled into one {@link ModerationAutomaton}.
+ *
+ * Built-in lists can be overridden per category by a file ({@code ai.moderation.lexicon.path}):
+ * <pre>
+ * # comment
+ * [TOXIC]
+ * spam
+ * lừa đảo
+ * </pre>
+ * A section replaces the built-in terms of that category. The file is polled and the
+ * automaton swapped atomically when it changes; an unreadable file keeps the current lists.
+ */
+@Slf4j
+@Component
+public class ModerationLexicon {
+
+    private static final Map<ModerationCategory, List<String>> DEFAULT_TERMS = new EnumMap<>(ModerationCategory.class);
+
+    static {
+        DEFAULT_TERMS.put(ModerationCategory.DATA_THEFT, List.of(
+            "password", "mật khẩu", "login", "đăng nhập", "token", "api key",
+            "database", "cơ sở dữ liệu", "backup", "export", "download",
+            "admin", "root", "superuser", "privilege", "quyền admin"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.SQL_INJECTION, List.of(
+            "select", "insert", "update", "delete", "drop", "union", "script"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.XSS, List.of(
+            "<script", "javascript:", "onload=", "onerror="
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.TOXIC, List.of(
+            // English
+            "spam", "hack", "cheat", "exploit", "scam", "malware", "virus", "phishing",
+            "steal", "fraud", "fake", "bot", "automated", "script",
+            // Vietnamese
+            "lừa đảo", "gian lận", "rác", "độc hại",
+            "ăn cắp", "trộm", "giả mạo", "lừa", "bịp", "chiếm đoạt"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.INAPPROPRIATE, List.of(
+            "bẩn", "tục tĩu", "khiêu dâm", "sex", "nude", "xxx"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.SUSPICIOUS_LINK, List.of(
+            "bit.ly", "tinyurl", "t.co", "goo.gl", "short.link"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.URL, List.of(
+            "http://", "https://"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.COMPETITOR, List.of(
+            "competitor", "rival", "alternative platform"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.SENSITIVE_BUSINESS, List.of(
+            "pricing", "revenue", "business model", "internal"
+        ));
+        DEFAULT_TERMS.put(ModerationCategory.DATA_REQUEST, List.of(
+            "export data", "download all", "bulk data", "database"
+        ));
+    }
+
+    @Value("${ai.moderation.lexicon.path:}")
+    private String lexiconPath;
+
+    private volatile Map<ModerationCategory, List<String>> terms = DEFAULT_TERMS;
+    private volatile ModerationAutomaton automaton = ModerationAutomaton.compile(DEFAULT_TERMS);
+    private volatile long loadedModifiedMillis = -1;
+    private volatile String loadedAt = LocalDateTime.now().toString();
+
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong reloadFailures = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        reloadIfChanged();
+        log.info("🛡️ Moderation lexicon ready: {} terms, {} automaton states", automaton.termCount(), automaton.stateCount());
+    }
+
+    /**
+     * Every lexicon term in {@code content}, found in a single pass
+     */
+    public ModerationAutomaton.Matches scan(String content) {
+        scans.incrementAndGet();
+        return automaton.scan(content);
+    }
+
+    /**
+     * Poll the lexicon file and recompile when its modification time changed
+     */
+    @Scheduled(fixedDelayString = "${ai.moderation.lexicon.reload-interval-ms:30000}")
+    public void reloadIfChanged() {
+        Path path = lexiconFile();
+        if (path == null || !Files.isRegularFile(path)) {
+            return;
+        }
+        try {
+            if (Files.getLastModifiedTime(path).toMillis() != loadedModifiedMillis) {
+                reload();
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ Could not stat moderation lexicon {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Recompile from the built-in lists plus the lexicon file. Returns false when the file
+     * could not be loaded (the current automaton stays active).
+     */
+    public synchronized boolean reload() {
+        Path path = lexiconFile();
+        Map<ModerationCategory, List<String>> merged = new EnumMap<>(DEFAULT_TERMS);
+        long modifiedMillis = -1;
+
+        try {
+            if (path != null && Files.isRegularFile(path)) {
+                modifiedMillis = Files.getLastModifiedTime(path).toMillis();
+                merged.putAll(parse(Files.readAllLines(path, StandardCharsets.UTF_8)));
+            }
+            ModerationAutomaton compiled = ModerationAutomaton.compile(merged);
+
+            terms = merged;
+            automaton = compiled;
+            loadedModifiedMillis = modifiedMillis;
+            loadedAt = LocalDateTime.now().toString();
+            reloads.incrementAndGet();
+            log.info("🔄 Moderation lexicon reloaded{}: {} terms", path != null ? " from " + path : "", compiled.termCount());
+            return true;
+
+        } catch (Exception e) {
+            reloadFailures.incrementAndGet();
+            log.error("❌ Failed to reload moderation lexicon from {}, keeping current lists: {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    public List<String> getTerms(ModerationCategory category) {
+        return terms.getOrDefault(category, List.of());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Map<String, Integer> termCounts = new LinkedHashMap<>();
+        terms.forEach((category, categoryTerms) -> termCounts.put(category.name(), categoryTerms.size()));
+
+        stats.put("source", lexiconFile() != null && loadedModifiedMillis >= 0 ? lexiconPath : "built-in");
+        stats.put("loadedAt", loadedAt);
+        stats.put("terms", automaton.termCount());
+        stats.put("automatonStates", automaton.stateCount());
+        stats.put("termsByCategory", termCounts);
+        stats.put("scans", scans.get());
+        stats.put("reloads", reloads.get());
+        stats.put("reloadFailures", reloadFailures.get());
+        return stats;
+    }
+
+    /**
+     * Parse {@code [CATEGORY]} sections; unknown categories are rejected so typos don't
+     * silently disable a list
+     */
+    static Map<ModerationCategory, List<String>> parse(List<String> lines) {
+        Map<ModerationCategory, List<String>> sections = new EnumMap<>(ModerationCategory.class);
+        List<String> current = null;
+
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.startsWith("[") && line.endsWith("]")) {
+                String name = line.substring(1, line.length() - 1).strip().toUpperCase(Locale.ROOT);
+                try {
+                    current = sections.computeIfAbsent(ModerationCategory.valueOf(name), c -> new ArrayList<>());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown moderation category [" + name + "] at line " + (i + 1));
+                }
+                continue;
+            }
+            if (current == null) {
+                throw new IllegalArgumentException("Term outside of a [CATEGORY] section at line " + (i + 1));
+            }
+            current.add(line);
+        }
+
+        sections.replaceAll((category, categoryTerms) -> List.copyOf(categoryTerms));
+        return sections;
+    }
+
+    static Map<ModerationCategory, List<String>> defaultTerms() {
+        return Collections.unmodifiableMap(DEFAULT_TERMS);
+    }
+
+    private Path lexiconFile() {
+        return lexiconPath == null || lexiconPath.isBlank() ? null : Path.of(lexiconPath);
+    }
+}
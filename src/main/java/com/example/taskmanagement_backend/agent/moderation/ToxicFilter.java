@@ -1,6 +1,7 @@
 package com.example.taskmanagement_backend.agent.moderation;
 
 import com.example.taskmanagement_backend.agent.dto.ModerationResult;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -14,43 +15,23 @@ import java.util.regex.Pattern;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class ToxicFilter {
 
-    // Toxic keywords (English & Vietnamese)
-    private static final List<String> TOXIC_KEYWORDS = Arrays.asList(
-        // English
-        "spam", "hack", "cheat", "exploit", "scam", "malware", "virus", "phishing",
-        "steal", "fraud", "fake", "bot", "automated", "script",
-        // Vietnamese
-        "lừa đảo", "hack", "cheat", "gian lận", "spam", "rác", "độc hại",
-        "ăn cắp", "trộm", "giả mạo", "lừa", "bịp", "chiếm đoạt"
-    );
-
-    // Data theft patterns
-    private static final List<String> DATA_THEFT_PATTERNS = Arrays.asList(
-        "password", "mật khẩu", "login", "đăng nhập", "token", "api key",
-        "database", "cơ sở dữ liệu", "backup", "export", "download",
-        "admin", "root", "superuser", "privilege", "quyền admin"
-    );
-
-    // Inappropriate content (Vietnamese context)
-    private static final List<String> INAPPROPRIATE_WORDS = Arrays.asList(
-        "bẩn", "tục tĩu", "khiêu dâm", "sex", "nude", "xxx"
-    );
-
-    // Spam injection patterns
-    private static final Pattern SQL_INJECTION = Pattern.compile(".*(?i)(select|insert|update|delete|drop|union|script).*");
-    private static final Pattern XSS_PATTERN = Pattern.compile(".*(?i)(<script|javascript:|onload=|onerror=).*");
-    private static final Pattern EXCESSIVE_CAPS = Pattern.compile(".*[A-Z]{5,}.*");
+    // Keyword and literal patterns (toxic, data theft, SQL/XSS, short links) live in ModerationLexicon
+    // and are matched in one pass; only genuinely structural patterns remain regexes, all used with find()
+    private static final Pattern EXCESSIVE_CAPS = Pattern.compile("[A-Z]{5}");
     private static final Pattern REPEATED_CHARS = Pattern.compile("(..)\\1{4,}");
     private static final Pattern EXCESSIVE_PUNCTUATION = Pattern.compile("[!@#$%^&*()]{4,}");
-    private static final Pattern SUSPICIOUS_URLS = Pattern.compile(".*(?i)(bit\\.ly|tinyurl|t\\.co|goo\\.gl|short\\.link).*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ModerationLexicon lexicon;
 
     /**
      * Main toxicity check method với comprehensive analysis
      */
     public ModerationResult checkToxicity(String content) {
-        return checkToxicity(content, null);
+        return checkToxicity(content, (String) null);
     }
 
     /**
@@ -58,36 +39,37 @@ public class ToxicFilter {
      */
     public ModerationResult checkToxicity(String content, String userContext) {
         if (content == null || content.trim().isEmpty()) {
-            return ModerationResult.builder()
-                .safe(false)
-                .reason("Empty content")
-                .category("INVALID")
-                .confidence(1.0)
-                .recommendation("BLOCK")
-                .build();
+            return emptyContentResult();
+        }
+        return checkToxicity(content, lexicon.scan(content));
+    }
+
+    /**
+     * Toxicity check trên kết quả scan có sẵn (caller đã scan nội dung một lần)
+     */
+    public ModerationResult checkToxicity(String content, ModerationAutomaton.Matches matches) {
+        if (content == null || content.trim().isEmpty()) {
+            return emptyContentResult();
         }
 
-        String lowerContent = content.toLowerCase();
         log.debug("Checking toxicity for content length: {}", content.length());
 
         // Step 1: Check for data theft attempts
-        ModerationResult dataTheftCheck = checkDataTheftAttempts(lowerContent);
+        ModerationResult dataTheftCheck = checkDataTheftAttempts(matches);
         if (!dataTheftCheck.isSafe()) {
             log.warn("Data theft attempt detected: {}", dataTheftCheck.getReason());
             return dataTheftCheck;
         }
 
         // Step 2: Check for injection attacks
-        ModerationResult injectionCheck = checkInjectionAttempts(content);
+        ModerationResult injectionCheck = checkInjectionAttempts(matches);
         if (!injectionCheck.isSafe()) {
             log.warn("Injection attempt detected: {}", injectionCheck.getReason());
             return injectionCheck;
         }
 
         // Step 3: Check for toxic keywords
-        List<String> flaggedTerms = TOXIC_KEYWORDS.stream()
-            .filter(lowerContent::contains)
-            .toList();
+        List<String> flaggedTerms = matches.terms(ModerationCategory.TOXIC);
 
         if (!flaggedTerms.isEmpty()) {
             return ModerationResult.builder()
@@ -101,9 +83,7 @@ public class ToxicFilter {
         }
 
         // Step 4: Check for inappropriate content
-        List<String> inappropriateFound = INAPPROPRIATE_WORDS.stream()
-            .filter(lowerContent::contains)
-            .toList();
+        List<String> inappropriateFound = matches.terms(ModerationCategory.INAPPROPRIATE);
 
         if (!inappropriateFound.isEmpty()) {
             return ModerationResult.builder()
@@ -123,7 +103,7 @@ public class ToxicFilter {
         }
 
         // Step 6: Check suspicious URLs
-        ModerationResult urlCheck = checkSuspiciousUrls(content);
+        ModerationResult urlCheck = checkSuspiciousUrls(matches);
         if (!urlCheck.isSafe()) {
             return urlCheck;
         }
@@ -137,13 +117,21 @@ public class ToxicFilter {
             .build();
     }
 
+    private ModerationResult emptyContentResult() {
+        return ModerationResult.builder()
+            .safe(false)
+            .reason("Empty content")
+            .category("INVALID")
+            .confidence(1.0)
+            .recommendation("BLOCK")
+            .build();
+    }
+
     /**
      * Check for data theft attempts - Phát hiện thử trộm dữ liệu
      */
-    private ModerationResult checkDataTheftAttempts(String lowerContent) {
-        List<String> dataTheftFound = DATA_THEFT_PATTERNS.stream()
-            .filter(lowerContent::contains)
-            .toList();
+    private ModerationResult checkDataTheftAttempts(ModerationAutomaton.Matches matches) {
+        List<String> dataTheftFound = matches.terms(ModerationCategory.DATA_THEFT);
 
         if (!dataTheftFound.isEmpty()) {
             return ModerationResult.builder()
@@ -162,8 +150,8 @@ public class ToxicFilter {
     /**
      * Check for injection attacks - Phát hiện injection
      */
-    private ModerationResult checkInjectionAttempts(String content) {
-        if (SQL_INJECTION.matcher(content).matches()) {
+    private ModerationResult checkInjectionAttempts(ModerationAutomaton.Matches matches) {
+        if (matches.has(ModerationCategory.SQL_INJECTION)) {
             return ModerationResult.builder()
                 .safe(false)
                 .reason("SQL injection attempt detected")
@@ -173,7 +161,7 @@ public class ToxicFilter {
                 .build();
         }
 
-        if (XSS_PATTERN.matcher(content).matches()) {
+        if (matches.has(ModerationCategory.XSS)) {
             return ModerationResult.builder()
                 .safe(false)
                 .reason("XSS attack attempt detected")
@@ -191,7 +179,7 @@ public class ToxicFilter {
      */
     private ModerationResult checkSpamPatterns(String content) {
         // Excessive caps
-        if (EXCESSIVE_CAPS.matcher(content).matches() && content.length() > 10) {
+        if (content.length() > 10 && EXCESSIVE_CAPS.matcher(content).find()) {
             return ModerationResult.builder()
                 .safe(false)
                 .reason("Excessive capital letters detected")
@@ -235,7 +223,7 @@ public class ToxicFilter {
         }
 
         // Too many repeated words
-        String[] words = content.split("\\s+");
+        String[] words = WHITESPACE.split(content);
         if (words.length > 10) {
             long uniqueWords = Arrays.stream(words).distinct().count();
             double repetitionRatio = (double) uniqueWords / words.length;
@@ -257,8 +245,8 @@ public class ToxicFilter {
     /**
      * Check for suspicious URLs
      */
-    private ModerationResult checkSuspiciousUrls(String content) {
-        if (SUSPICIOUS_URLS.matcher(content).find()) {
+    private ModerationResult checkSuspiciousUrls(ModerationAutomaton.Matches matches) {
+        if (matches.has(ModerationCategory.SUSPICIOUS_LINK)) {
             return ModerationResult.builder()
                 .safe(false)
                 .reason("Suspicious shortened URL detected")
@@ -277,7 +265,9 @@ public class ToxicFilter {
     public String getModerationStats() {
         return String.format(
             "ToxicFilter Stats - Patterns: %d toxic keywords, %d data theft patterns, %d inappropriate words",
-            TOXIC_KEYWORDS.size(), DATA_THEFT_PATTERNS.size(), INAPPROPRIATE_WORDS.size()
+            lexicon.getTerms(ModerationCategory.TOXIC).size(),
+            lexicon.getTerms(ModerationCategory.DATA_THEFT).size(),
+            lexicon.getTerms(ModerationCategory.INAPPROPRIATE).size()
         );
     }
 }
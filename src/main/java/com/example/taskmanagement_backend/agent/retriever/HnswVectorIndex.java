@@ -0,0 +1,752 @@
+package com.example.taskmanagement_backend.agent.retriever;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process HNSW (Hierarchical Navigable Small World) index for cosine similarity.
+ *
+ * - Vectors are normalized on insert and stored as float32 (4 bytes/dim) or
+ *   int8 with one scale per vector (1 byte/dim), instead of double[] (8 bytes/dim)
+ * - Each entry carries string metadata used for filtering and for serving results
+ *   without another lookup
+ * - Removal is a tombstone; {@link #compact()} rebuilds the graph from live entries
+ * - {@link #writeTo(DataOutputStream)} / {@link #readFrom(DataInputStream, int)} snapshot
+ *   the graph so a restart does not re-embed and re-insert everything
+ *
+ * Thread-safe: searches share a read lock, mutations take the write lock.
+ */
+public class HnswVectorIndex {
+
+    public enum Quantization { FLOAT32, INT8 }
+
+    private static final int SNAPSHOT_MAGIC = 0x484E5357; // "HNSW"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final Quantization quantization;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+    private volatile int efSearch;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeById = new HashMap<>();
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int deletedCount;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public HnswVectorIndex(int dimension, int m, int efConstruction, int efSearch, Quantization quantization) {
+        if (dimension <= 0 || m < 2) {
+            throw new IllegalArgumentException("dimension must be > 0 and m >= 2");
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = efSearch;
+        this.quantization = quantization;
+        this.levelMultiplier = 1 / Math.log(m);
+    }
+
+    // ===== Mutations =====
+
+    /**
+     * Insert or replace the vector stored under {@code id}
+     */
+    public void add(String id, float[] vector, Map<String, String> metadata) {
+        float[] unit = normalize(vector);
+
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodeById.get(id);
+            if (existing != null) {
+                markDeleted(existing);
+            }
+
+            int level = randomLevel();
+            Node node = new Node(id, level, metadata != null ? Map.copyOf(metadata) : Map.of());
+            encode(node, unit);
+            int nodeIndex = nodes.size();
+            nodes.add(node);
+            nodeById.put(id, nodeIndex);
+
+            if (entryPoint < 0) {
+                entryPoint = nodeIndex;
+                maxLevel = level;
+                return;
+            }
+
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > level; layer--) {
+                current = greedyClosest(unit, current, layer);
+            }
+
+            for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+                List<Candidate> candidates = searchLayer(unit, current, efConstruction, layer);
+                int connections = Math.min(m, candidates.size());
+                for (int i = 0; i < connections; i++) {
+                    int neighbor = candidates.get(i).node;
+                    link(nodeIndex, neighbor, layer);
+                    link(neighbor, nodeIndex, layer);
+                }
+                current = candidates.get(0).node;
+            }
+
+            if (level > maxLevel) {
+                maxLevel = level;
+                entryPoint = nodeIndex;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer nodeIndex = nodeById.remove(id);
+            if (nodeIndex == null) {
+                return false;
+            }
+            nodes.get(nodeIndex).deleted = true;
+            deletedCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuild the graph from live entries, dropping tombstones
+     */
+    public void compact() {
+        lock.writeLock().lock();
+        try {
+            List<Node> live = nodes.stream().filter(node -> !node.deleted).toList();
+            nodes.clear();
+            nodeById.clear();
+            entryPoint = -1;
+            maxLevel = -1;
+            deletedCount = 0;
+            for (Node node : live) {
+                add(node.id, decode(node), node.metadata); // reentrant write lock
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void setEfSearch(int efSearch) {
+        this.efSearch = efSearch;
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Approximate top-k by cosine similarity among entries whose metadata contains all
+     * {@code filter} entries (null/empty filter = no filtering)
+     */
+    public List<SearchResult> search(float[] query, int k, Map<String, String> filter) {
+        float[] unit = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0 || k <= 0) {
+                return List.of();
+            }
+
+            int current = entryPoint;
+            for (int layer = maxLevel; layer > 0; layer--) {
+                current = greedyClosest(unit, current, layer);
+            }
+
+            // Widen the beam while a selective filter leaves too few matches
+            int liveCount = nodes.size() - deletedCount;
+            for (int ef = Math.max(efSearch, k); ; ef *= 4) {
+                List<SearchResult> results = collect(searchLayer(unit, current, ef, 0), k, filter);
+                if (results.size() >= Math.min(k, liveCount) || ef >= nodes.size()) {
+                    return results.size() >= k || filter == null || filter.isEmpty()
+                            ? results
+                            : exactSearchLocked(unit, k, filter);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Brute-force top-k, the baseline for {@link #benchmark(int, int, long)}
+     */
+    public List<SearchResult> exactSearch(float[] query, int k, Map<String, String> filter) {
+        float[] unit = normalize(query);
+        lock.readLock().lock();
+        try {
+            return exactSearchLocked(unit, k, filter);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Metadata of a live entry, or null
+     */
+    public Map<String, String> get(String id) {
+        lock.readLock().lock();
+        try {
+            Integer nodeIndex = nodeById.get(id);
+            return nodeIndex != null ? nodes.get(nodeIndex).metadata : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Entries whose metadata matches {@code filter}, without vector scoring
+     */
+    public List<SearchResult> find(Map<String, String> filter, int limit) {
+        lock.readLock().lock();
+        try {
+            List<SearchResult> results = new ArrayList<>();
+            for (Node node : nodes) {
+                if (results.size() >= limit) {
+                    break;
+                }
+                if (accepts(node, filter)) {
+                    results.add(new SearchResult(node.id, 0.0, node.metadata));
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodes.size() - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Approximate heap used by vectors and links, in bytes
+     */
+    public long estimatedBytes() {
+        lock.readLock().lock();
+        try {
+            long vectorBytes = quantization == Quantization.INT8 ? dimension + 4L : dimension * 4L;
+            long bytes = 0;
+            for (Node node : nodes) {
+                bytes += vectorBytes;
+                for (int[] links : node.neighbors) {
+                    bytes += links.length * 4L;
+                }
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("entries", size());
+        stats.put("tombstones", deletedCount());
+        stats.put("dimension", dimension);
+        stats.put("quantization", quantization.name());
+        stats.put("m", m);
+        stats.put("efConstruction", efConstruction);
+        stats.put("efSearch", efSearch);
+        stats.put("estimatedBytes", estimatedBytes());
+        return stats;
+    }
+
+    /**
+     * Recall@k and latency of {@link #search} against {@link #exactSearch}, using stored
+     * vectors with a little noise as queries
+     */
+    public BenchmarkResult benchmark(int queries, int k, long seed) {
+        Random queryRandom = new Random(seed);
+        List<float[]> sample = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            List<Node> live = nodes.stream().filter(node -> !node.deleted).toList();
+            if (live.isEmpty()) {
+                return new BenchmarkResult(0, k, 0.0, 0.0, 0.0);
+            }
+            for (int i = 0; i < queries; i++) {
+                float[] vector = decode(live.get(queryRandom.nextInt(live.size())));
+                for (int d = 0; d < vector.length; d++) {
+                    vector[d] += (float) (queryRandom.nextGaussian() * 0.05 / Math.sqrt(dimension));
+                }
+                sample.add(vector);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        long annNanos = 0;
+        long exactNanos = 0;
+        long hits = 0;
+        long expected = 0;
+        for (float[] query : sample) {
+            long start = System.nanoTime();
+            List<SearchResult> approximate = search(query, k, null);
+            annNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<SearchResult> exact = exactSearch(query, k, null);
+            exactNanos += System.nanoTime() - start;
+
+            Set<String> exactIds = new HashSet<>();
+            exact.forEach(result -> exactIds.add(result.getId()));
+            expected += exactIds.size();
+            hits += approximate.stream().filter(result -> exactIds.contains(result.getId())).count();
+        }
+
+        return new BenchmarkResult(sample.size(), k,
+                expected > 0 ? (double) hits / expected : 1.0,
+                annNanos / 1000.0 / sample.size(),
+                exactNanos / 1000.0 / sample.size());
+    }
+
+    // ===== Snapshot =====
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        lock.readLock().lock();
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeInt(dimension);
+            out.writeInt(m);
+            out.writeInt(efConstruction);
+            out.writeInt(quantization.ordinal());
+            out.writeInt(nodes.size());
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+
+            for (Node node : nodes) {
+                writeString(out, node.id);
+                out.writeBoolean(node.deleted);
+                out.writeInt(node.level);
+
+                out.writeInt(node.metadata.size());
+                for (Map.Entry<String, String> entry : node.metadata.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+
+                if (quantization == Quantization.INT8) {
+                    out.writeFloat(node.scale);
+                    out.write(node.bytes);
+                } else {
+                    for (float value : node.floats) {
+                        out.writeFloat(value);
+                    }
+                }
+
+                for (int layer = 0; layer <= node.level; layer++) {
+                    out.writeInt(node.neighborCounts[layer]);
+                    for (int i = 0; i < node.neighborCounts[layer]; i++) {
+                        out.writeInt(node.neighbors[layer][i]);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static HnswVectorIndex readFrom(DataInputStream in, int efSearch) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not an HNSW snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported HNSW snapshot version " + version);
+        }
+
+        int dimension = in.readInt();
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        Quantization quantization = Quantization.values()[in.readInt()];
+        HnswVectorIndex index = new HnswVectorIndex(dimension, m, efConstruction, efSearch, quantization);
+
+        int nodeCount = in.readInt();
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+
+        for (int n = 0; n < nodeCount; n++) {
+            String id = readString(in);
+            boolean deleted = in.readBoolean();
+            int level = in.readInt();
+
+            int metadataSize = in.readInt();
+            Map<String, String> metadata = new HashMap<>();
+            for (int i = 0; i < metadataSize; i++) {
+                metadata.put(readString(in), readString(in));
+            }
+
+            Node node = index.new Node(id, level, Map.copyOf(metadata));
+            if (quantization == Quantization.INT8) {
+                node.scale = in.readFloat();
+                node.bytes = new byte[dimension];
+                in.readFully(node.bytes);
+            } else {
+                node.floats = new float[dimension];
+                for (int d = 0; d < dimension; d++) {
+                    node.floats[d] = in.readFloat();
+                }
+            }
+
+            for (int layer = 0; layer <= level; layer++) {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    node.neighbors[layer][i] = in.readInt();
+                }
+                node.neighborCounts[layer] = count;
+            }
+
+            node.deleted = deleted;
+            index.nodes.add(node);
+            if (deleted) {
+                index.deletedCount++;
+            } else {
+                index.nodeById.put(id, n);
+            }
+        }
+        return index;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    public Quantization getQuantization() {
+        return quantization;
+    }
+
+    // ===== Graph internals =====
+
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        double best = similarity(query, nodes.get(current));
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            Node node = nodes.get(current);
+            for (int i = 0; i < node.neighborCounts[layer]; i++) {
+                int neighbor = node.neighbors[layer][i];
+                double score = similarity(query, nodes.get(neighbor));
+                if (score > best) {
+                    best = score;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer; returns up to {@code ef} nodes, most similar first
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int layer) {
+        BitSet visited = new BitSet(nodes.size());
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score));
+
+        Candidate start = new Candidate(entry, similarity(query, nodes.get(entry)));
+        visited.set(entry);
+        frontier.add(start);
+        best.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate candidate = frontier.poll();
+            if (best.size() >= ef && candidate.score < best.peek().score) {
+                break;
+            }
+
+            Node node = nodes.get(candidate.node);
+            if (layer > node.level) {
+                continue;
+            }
+            for (int i = 0; i < node.neighborCounts[layer]; i++) {
+                int neighbor = node.neighbors[layer][i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+
+                double score = similarity(query, nodes.get(neighbor));
+                if (best.size() < ef || score > best.peek().score) {
+                    Candidate next = new Candidate(neighbor, score);
+                    frontier.add(next);
+                    best.add(next);
+                    if (best.size() > ef) {
+                        best.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        return result;
+    }
+
+    /**
+     * Add {@code to} to the links of {@code from}; when full, keep the closest links
+     */
+    private void link(int from, int to, int layer) {
+        Node node = nodes.get(from);
+        int capacity = node.neighbors[layer].length;
+        int count = node.neighborCounts[layer];
+        for (int i = 0; i < count; i++) {
+            if (node.neighbors[layer][i] == to) {
+                return;
+            }
+        }
+
+        if (count < capacity) {
+            node.neighbors[layer][count] = to;
+            node.neighborCounts[layer] = count + 1;
+            return;
+        }
+
+        float[] origin = decode(node);
+        List<Candidate> links = new ArrayList<>(count + 1);
+        for (int i = 0; i < count; i++) {
+            int neighbor = node.neighbors[layer][i];
+            links.add(new Candidate(neighbor, similarity(origin, nodes.get(neighbor))));
+        }
+        links.add(new Candidate(to, similarity(origin, nodes.get(to))));
+        links.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        for (int i = 0; i < capacity; i++) {
+            node.neighbors[layer][i] = links.get(i).node;
+        }
+    }
+
+    private List<SearchResult> collect(List<Candidate> candidates, int k, Map<String, String> filter) {
+        List<SearchResult> results = new ArrayList<>(k);
+        for (Candidate candidate : candidates) {
+            Node node = nodes.get(candidate.node);
+            if (accepts(node, filter)) {
+                results.add(new SearchResult(node.id, candidate.score, node.metadata));
+                if (results.size() == k) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<SearchResult> exactSearchLocked(float[] unit, int k, Map<String, String> filter) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(Comparator.comparingDouble((Candidate c) -> c.score));
+        for (int i = 0; i < nodes.size(); i++) {
+            Node node = nodes.get(i);
+            if (!accepts(node, filter)) {
+                continue;
+            }
+            best.add(new Candidate(i, similarity(unit, node)));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble((Candidate c) -> c.score).reversed());
+        return collect(sorted, k, null);
+    }
+
+    private static boolean accepts(Node node, Map<String, String> filter) {
+        if (node.deleted) {
+            return false;
+        }
+        if (filter == null || filter.isEmpty()) {
+            return true;
+        }
+        for (Map.Entry<String, String> condition : filter.entrySet()) {
+            if (!condition.getValue().equalsIgnoreCase(node.metadata.get(condition.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void markDeleted(int nodeIndex) {
+        Node node = nodes.get(nodeIndex);
+        if (!node.deleted) {
+            node.deleted = true;
+            deletedCount++;
+        }
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1 - random.nextDouble()) * levelMultiplier);
+    }
+
+    // ===== Vector storage =====
+
+    private void encode(Node node, float[] unit) {
+        if (quantization == Quantization.INT8) {
+            float maxAbs = 0f;
+            for (float value : unit) {
+                maxAbs = Math.max(maxAbs, Math.abs(value));
+            }
+            float scale = maxAbs > 0 ? maxAbs / 127f : 1f;
+            byte[] bytes = new byte[dimension];
+            for (int d = 0; d < dimension; d++) {
+                bytes[d] = (byte) Math.round(unit[d] / scale);
+            }
+            node.bytes = bytes;
+            node.scale = scale;
+        } else {
+            node.floats = unit;
+        }
+    }
+
+    private float[] decode(Node node) {
+        if (quantization == Quantization.INT8) {
+            float[] vector = new float[dimension];
+            for (int d = 0; d < dimension; d++) {
+                vector[d] = node.bytes[d] * node.scale;
+            }
+            return vector;
+        }
+        return node.floats.clone();
+    }
+
+    /**
+     * Cosine similarity of a unit query with a stored (unit) vector
+     */
+    private double similarity(float[] query, Node node) {
+        double dot = 0;
+        if (quantization == Quantization.INT8) {
+            byte[] bytes = node.bytes;
+            for (int d = 0; d < dimension; d++) {
+                dot += query[d] * bytes[d];
+            }
+            return dot * node.scale;
+        }
+        float[] floats = node.floats;
+        for (int d = 0; d < dimension; d++) {
+            dot += query[d] * floats[d];
+        }
+        return dot;
+    }
+
+    private float[] normalize(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected vector of dimension " + dimension + ", got "
+                    + (vector == null ? "null" : vector.length));
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[dimension];
+        for (int d = 0; d < dimension; d++) {
+            unit[d] = norm > 0 ? (float) (vector[d] / norm) : 0f;
+        }
+        return unit;
+    }
+
+    public static float[] toFloats(double[] vector) {
+        float[] floats = new float[vector.length];
+        for (int d = 0; d < vector.length; d++) {
+            floats[d] = (float) vector[d];
+        }
+        return floats;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ===== Types =====
+
+    private final class Node {
+        private final String id;
+        private final int level;
+        private final Map<String, String> metadata;
+        private final int[][] neighbors;
+        private final int[] neighborCounts;
+        private float[] floats;
+        private byte[] bytes;
+        private float scale;
+        private boolean deleted;
+
+        private Node(String id, int level, Map<String, String> metadata) {
+            this.id = id;
+            this.level = level;
+            this.metadata = metadata;
+            this.neighbors = new int[level + 1][];
+            this.neighborCounts = new int[level + 1];
+            for (int layer = 0; layer <= level; layer++) {
+                neighbors[layer] = new int[layer == 0 ? maxM0 : m];
+            }
+        }
+    }
+
+    private static final class Candidate {
+        private final int node;
+        private final double score;
+
+        private Candidate(int node, double score) {
+            this.node = node;
+            this.score = score;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class SearchResult {
+        private final String id;
+        private final double score;
+        private final Map<String, String> metadata;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class BenchmarkResult {
+        private final int queries;
+        private final int k;
+        private final double recall;
+        private final double avgApproximateMicros;
+        private final double avgExactMicros;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.taskmanagement_backend.agent.retriever;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Local Vector Index - ANN index trong process cho RAG, không cần Pinecone
+ * Wraps {@link HnswVectorIndex} with configuration and a disk snapshot so restarts
+ * skip re-embedding the knowledge base.
+ */
+@Slf4j
+@Component
+public class LocalVectorIndex {
+
+    private static final double COMPACT_TOMBSTONE_RATIO = 0.2;
+
+    @Value("${ai.rag.local-index.m:16}")
+    private int m;
+
+    @Value("${ai.rag.local-index.ef-construction:200}")
+    private int efConstruction;
+
+    @Value("${ai.rag.local-index.ef-search:64}")
+    private int efSearch;
+
+    @Value("${ai.rag.local-index.quantization:INT8}")
+    private HnswVectorIndex.Quantization quantization;
+
+    @Value("${ai.rag.local-index.snapshot-path:}")
+    private String snapshotPath;
+
+    private volatile HnswVectorIndex index;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    @PostConstruct
+    public void loadSnapshot() {
+        Path path = snapshotFile();
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            HnswVectorIndex restored = HnswVectorIndex.readFrom(in, efSearch);
+            if (restored.getQuantization() != quantization) {
+                log.info("🔄 Local vector index snapshot uses {}, configured {}; rebuilding from source",
+                        restored.getQuantization(), quantization);
+                return;
+            }
+            index = restored;
+            log.info("✅ Local vector index restored from {} ({} entries)", path, restored.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read local vector index snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    public void add(String id, float[] vector, Map<String, String> metadata) {
+        indexFor(vector.length).add(id, vector, metadata);
+        dirty.set(true);
+    }
+
+    public void remove(String id) {
+        HnswVectorIndex current = index;
+        if (current != null && current.remove(id)) {
+            dirty.set(true);
+        }
+    }
+
+    public List<HnswVectorIndex.SearchResult> search(float[] query, int k, Map<String, String> filter) {
+        HnswVectorIndex current = index;
+        if (current == null || current.getDimension() != query.length) {
+            return List.of();
+        }
+        return current.search(query, k, filter);
+    }
+
+    public Map<String, String> get(String id) {
+        HnswVectorIndex current = index;
+        return current != null ? current.get(id) : null;
+    }
+
+    public List<HnswVectorIndex.SearchResult> find(Map<String, String> filter, int limit) {
+        HnswVectorIndex current = index;
+        return current != null ? current.find(filter, limit) : List.of();
+    }
+
+    public int size() {
+        HnswVectorIndex current = index;
+        return current != null ? current.size() : 0;
+    }
+
+    public HnswVectorIndex.BenchmarkResult benchmark(int queries, int k) {
+        HnswVectorIndex current = index;
+        if (current == null) {
+            return new HnswVectorIndex.BenchmarkResult(0, k, 0.0, 0.0, 0.0);
+        }
+        return current.benchmark(queries, k, System.nanoTime());
+    }
+
+    public Map<String, Object> getStats() {
+        HnswVectorIndex current = index;
+        Map<String, Object> stats = current != null ? current.getStats() : new LinkedHashMap<>(Map.of("entries", 0));
+        stats.put("snapshotPath", snapshotPath);
+        return stats;
+    }
+
+    /**
+     * Compact when tombstones pile up and persist changes. Node-local: every node keeps its own index.
+     */
+    @Scheduled(fixedDelayString = "${ai.rag.local-index.snapshot-interval-ms:300000}",
+            initialDelayString = "${ai.rag.local-index.snapshot-interval-ms:300000}")
+    public void maintain() {
+        HnswVectorIndex current = index;
+        if (current == null) {
+            return;
+        }
+        int tombstones = current.deletedCount();
+        if (tombstones > 0 && tombstones > (current.size() + tombstones) * COMPACT_TOMBSTONE_RATIO) {
+            current.compact();
+            log.info("🧹 Local vector index compacted, dropped {} tombstones", tombstones);
+            dirty.set(true);
+        }
+        if (dirty.get()) {
+            writeSnapshot();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (dirty.get()) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() {
+        Path path = snapshotFile();
+        HnswVectorIndex current = index;
+        if (path == null || current == null) {
+            return;
+        }
+
+        dirty.set(false);
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                current.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("💾 Local vector index snapshot written to {} ({} entries)", path, current.size());
+        } catch (Exception e) {
+            dirty.set(true);
+            log.warn("⚠️ Could not write local vector index snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    private HnswVectorIndex indexFor(int dimension) {
+        HnswVectorIndex current = index;
+        if (current != null && current.getDimension() == dimension) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null || index.getDimension() != dimension) {
+                if (index != null) {
+                    log.warn("⚠️ Embedding dimension changed {} -> {}, resetting local vector index",
+                            index.getDimension(), dimension);
+                }
+                index = new HnswVectorIndex(dimension, m, efConstruction, efSearch, quantization);
+            }
+            return index;
+        }
+    }
+
+    private Path snapshotFile() {
+        return snapshotPath == null || snapshotPath.isBlank() ? null : Paths.get(snapshotPath);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent agent pipeline stages concurrently on virtual threads.
+ *
+ * Every stage has its own deadline (counted from when it was started) and a fallback
+ * value: a stage that fails or is still running at its deadline degrades to the fallback
+ * instead of failing the whole request. A stage past its deadline, or whose result is no
+ * longer needed, is cancelled and its thread interrupted so it stops using provider quota. Per-stage latency, failures and timeouts are
+ * tracked, as well as how much wall time each fan-in saved versus running the same
+ * stages one after another.
+ */
+@Slf4j
+@Component
+public class AgentPipelineExecutor {
+
+    private final ExecutorService executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("agent-stage-", 0).factory());
+
+    private final Map<String, StageMetrics> metrics = new ConcurrentHashMap<>();
+
+    private final AtomicLong fanIns = new AtomicLong();
+    private final AtomicLong fanInSequentialMicros = new AtomicLong();
+    private final AtomicLong fanInWallMicros = new AtomicLong();
+
+    /**
+     * Start {@code work} now; {@link Stage#join()} returns its result, or {@code fallback}
+     * if it failed or did not finish within {@code timeoutMs} of being started
+     */
+    public <T> Stage<T> start(String name, long timeoutMs, Supplier<T> work, Supplier<T> fallback) {
+        StageMetrics stageMetrics = metrics.computeIfAbsent(name, n -> new StageMetrics());
+        Stage<T> stage = new Stage<>(name, timeoutMs, fallback, stageMetrics);
+
+        // A FutureTask rather than a CompletableFuture, so cancel(true) interrupts the running stage
+        stage.future = executor.submit(() -> {
+            try {
+                T result = work.get();
+                stage.finish(true);
+                return result;
+            } catch (RuntimeException e) {
+                stage.finish(false);
+                throw e;
+            }
+        });
+        return stage;
+    }
+
+    /**
+     * Record one fan-in: sum of the stages' own durations vs the wall time from the first
+     * start to the last completion. Call after the stages were joined.
+     */
+    public void recordFanIn(Stage<?>... stages) {
+        long firstStart = Arrays.stream(stages).mapToLong(s -> s.startNanos).min().orElse(0);
+        long lastEnd = Arrays.stream(stages).mapToLong(Stage::endOrNowNanos).max().orElse(firstStart);
+        long sequential = Arrays.stream(stages).mapToLong(s -> s.endOrNowNanos() - s.startNanos).sum();
+
+        fanIns.incrementAndGet();
+        fanInSequentialMicros.addAndGet(sequential / 1_000);
+        fanInWallMicros.addAndGet((lastEnd - firstStart) / 1_000);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stages = new TreeMap<>();
+        metrics.forEach((name, m) -> stages.put(name, m.toMap()));
+
+        long count = fanIns.get();
+        Map<String, Object> fanIn = new LinkedHashMap<>();
+        fanIn.put("count", count);
+        fanIn.put("avgSequentialMs", count > 0 ? fanInSequentialMicros.get() / count / 1000.0 : 0.0);
+        fanIn.put("avgWallMs", count > 0 ? fanInWallMicros.get() / count / 1000.0 : 0.0);
+        fanIn.put("avgSavedMs", count > 0 ? (fanInSequentialMicros.get() - fanInWallMicros.get()) / count / 1000.0 : 0.0);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stages", stages);
+        stats.put("fanIn", fanIn);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Handle of a running stage
+     */
+    public static final class Stage<T> {
+        private final String name;
+        private final long timeoutMs;
+        private final Supplier<T> fallback;
+        private final StageMetrics metrics;
+        private final long startNanos = System.nanoTime();
+        private volatile long endNanos;
+        private Future<T> future;
+
+        private Stage(String name, long timeoutMs, Supplier<T> fallback, StageMetrics metrics) {
+            this.name = name;
+            this.timeoutMs = timeoutMs;
+            this.fallback = fallback;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Stage result, or the fallback on failure / deadline
+         */
+        public T join() {
+            long remainingNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) - System.nanoTime();
+            try {
+                return future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                metrics.timeouts.incrementAndGet();
+                log.warn("⏱️ Agent stage '{}' exceeded {} ms, continuing with fallback", name, timeoutMs);
+                return fallback.get();
+            } catch (CancellationException e) {
+                return fallback.get();
+            } catch (ExecutionException e) {
+                log.warn("⚠️ Agent stage '{}' failed, continuing with fallback: {}", name,
+                    e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                return fallback.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return fallback.get();
+            }
+        }
+
+        /**
+         * Stop a stage whose result will not be used; a no-op once it finished
+         */
+        public void cancel() {
+            if (future.cancel(true)) {
+                metrics.cancelled.incrementAndGet();
+            }
+        }
+
+        private void finish(boolean success) {
+            endNanos = System.nanoTime();
+            metrics.record((endNanos - startNanos) / 1_000, success);
+        }
+
+        private long endOrNowNanos() {
+            long end = endNanos;
+            return end != 0 ? end : System.nanoTime();
+        }
+    }
+
+    private static final class StageMetrics {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+        private final AtomicLong totalMicros = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        private void record(long micros, boolean success) {
+            calls.incrementAndGet();
+            if (!success) {
+                failures.incrementAndGet();
+            }
+            totalMicros.addAndGet(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        private Map<String, Object> toMap() {
+            long count = calls.get();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", count);
+            map.put("failures", failures.get());
+            map.put("timeouts", timeouts.get());
+            map.put("cancelled", cancelled.get());
+            map.put("avgMs", count > 0 ? totalMicros.get() / count / 1000.0 : 0.0);
+            map.put("maxMs", maxMicros.get() / 1000.0);
+            return map;
+        }
+    }
+}
@@ -3,9 +3,15 @@ package com.example.taskmanagement_backend.agent.service;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -17,6 +23,9 @@ import java.util.stream.Collectors;
  *
  * Uses Redis to store conversation turns for building context prompts.
  * Keeps last N messages for each conversation to provide memory to Gemini.
+ *
+ * Turns are stored in a compact binary form ({@link ConversationTurnCodec}); appending
+ * (push + trim + TTL) and attaching the AI response are single server-side scripts.
  */
 @Slf4j
 @Service
@@ -25,15 +34,41 @@ public class ConversationMemoryService {
 
     private final RedisTemplate<String, Object> redisTemplate;
 
-    // Redis keys
+    // Redis keys (v2 = binary turns; JSON lists under the old key expire on their own)
     private static final String MEMORY_PREFIX = "gemini_memory:";
-    private static final String CONVERSATION_KEY_PATTERN = MEMORY_PREFIX + "conv:%s";
+    private static final String CONVERSATION_KEY_PATTERN = MEMORY_PREFIX + "v2:conv:%s";
 
     // Configuration
     private static final int MAX_MEMORY_TURNS = 10; // Keep last 10 turns (5 user + 5 AI)
     private static final int MEMORY_TTL_HOURS = 24; // 24 hours memory retention
     private static final int MAX_MESSAGE_LENGTH = 1000; // Truncate long messages
 
+    // KEYS[1] = turn list; ARGV[1] = encoded turn, ARGV[2] = max turns, ARGV[3] = TTL seconds
+    private static final RedisScript<Long> APPEND_TURN_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('RPUSH', KEYS[1], ARGV[1]) " +
+        "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1) " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+        "return 1", Long.class);
+
+    // KEYS[1] = turn list; ARGV[1] = encoded AI section, ARGV[2] = TTL seconds
+    // Keeps version, timestamp and user section of the last turn, sets the has-AI flag and
+    // replaces whatever AI section it had. Returns 0 when there is no turn.
+    static final String UPDATE_LAST_TURN_LUA =
+        "local last = redis.call('LINDEX', KEYS[1], -1) " +
+        "if not last then return 0 end " +
+        "if string.byte(last, 1) ~= " + ConversationTurnCodec.VERSION + " then return 0 end " +
+        "local b1, b2, b3, b4 = string.byte(last, " + (ConversationTurnCodec.USER_LENGTH_OFFSET + 1) + ", " +
+            (ConversationTurnCodec.USER_LENGTH_OFFSET + Integer.BYTES) + ") " +
+        "local userEnd = " + ConversationTurnCodec.HEADER_BYTES + " + ((b1 * 256 + b2) * 256 + b3) * 256 + b4 " +
+        "local flags = string.byte(last, 2) " +
+        "if flags % 4 < " + ConversationTurnCodec.HAS_AI + " then flags = flags + " + ConversationTurnCodec.HAS_AI + " end " +
+        "redis.call('LSET', KEYS[1], -1, string.char(string.byte(last, 1), flags) .. string.sub(last, 3, userEnd) .. ARGV[1]) " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+        "return 1";
+    private static final RedisScript<Long> UPDATE_LAST_TURN_SCRIPT = new DefaultRedisScript<>(UPDATE_LAST_TURN_LUA, Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
     /**
      * Store a conversation turn (user message + AI response)
      */
@@ -48,17 +83,8 @@ public class ConversationMemoryService {
                 LocalDateTime.now()
             );
 
-            // Add to Redis list (FIFO)
-            redisTemplate.opsForList().rightPush(memoryKey, turn);
-
-            // Keep only last N turns
-            Long listSize = redisTemplate.opsForList().size(memoryKey);
-            if (listSize != null && listSize > MAX_MEMORY_TURNS) {
-                redisTemplate.opsForList().leftPop(memoryKey);
-            }
-
-            // Set TTL
-            redisTemplate.expire(memoryKey, MEMORY_TTL_HOURS, TimeUnit.HOURS);
+            // Add to Redis list (FIFO), keep only last N turns, refresh TTL
+            appendTurn(memoryKey, turn);
 
             log.debug("📝 Stored conversation turn for {}: user={}, ai={}",
                 conversationId,
@@ -84,8 +110,7 @@ public class ConversationMemoryService {
                 LocalDateTime.now()
             );
 
-            redisTemplate.opsForList().rightPush(memoryKey, turn);
-            redisTemplate.expire(memoryKey, MEMORY_TTL_HOURS, TimeUnit.HOURS);
+            appendTurn(memoryKey, turn);
 
             log.debug("📝 Stored user message for {}: {}", conversationId, truncate(userMessage, 50));
 
@@ -101,17 +126,10 @@ public class ConversationMemoryService {
         String memoryKey = String.format(CONVERSATION_KEY_PATTERN, conversationId);
 
         try {
-            // Get the last turn
-            Object lastTurnObj = redisTemplate.opsForList().rightPop(memoryKey);
-
-            if (lastTurnObj instanceof ConversationTurn lastTurn) {
-                // Update with AI response
-                lastTurn.setAiResponse(aiResponse);
-
-                // Put it back
-                redisTemplate.opsForList().rightPush(memoryKey, lastTurn);
-                redisTemplate.expire(memoryKey, MEMORY_TTL_HOURS, TimeUnit.HOURS);
+            Long updated = redisTemplate.execute(UPDATE_LAST_TURN_SCRIPT, RedisSerializer.byteArray(), LONG_RESULT,
+                List.of(memoryKey), ConversationTurnCodec.aiSection(aiResponse), ttlSecondsArg());
 
+            if (updated != null && updated > 0) {
                 log.debug("✅ Updated last turn with AI response for {}", conversationId);
             }
 
@@ -128,9 +146,9 @@ public class ConversationMemoryService {
         String memoryKey = String.format(CONVERSATION_KEY_PATTERN, conversationId);
 
         try {
-            List<Object> turns = redisTemplate.opsForList().range(memoryKey, 0, -1);
+            List<ConversationTurn> turns = readTurns(memoryKey, 0, -1);
 
-            if (turns == null || turns.isEmpty()) {
+            if (turns.isEmpty()) {
                 log.debug("🔍 No conversation memory found for {}", conversationId);
                 return new ArrayList<>();
             }
@@ -146,23 +164,21 @@ public class ConversationMemoryService {
             ));
 
             // Convert turns to Gemini format
-            for (Object turnObj : turns) {
-                if (turnObj instanceof ConversationTurn turn) {
-                    // Add user message
-                    if (turn.getUserMessage() != null) {
-                        geminiMessages.add(Map.of(
-                            "role", "user",
-                            "content", truncate(turn.getUserMessage(), MAX_MESSAGE_LENGTH)
-                        ));
-                    }
-
-                    // Add AI response (if available)
-                    if (turn.getAiResponse() != null) {
-                        geminiMessages.add(Map.of(
-                            "role", "assistant",
-                            "content", truncate(turn.getAiResponse(), MAX_MESSAGE_LENGTH)
-                        ));
-                    }
+            for (ConversationTurn turn : turns) {
+                // Add user message
+                if (turn.getUserMessage() != null) {
+                    geminiMessages.add(Map.of(
+                        "role", "user",
+                        "content", truncate(turn.getUserMessage(), MAX_MESSAGE_LENGTH)
+                    ));
+                }
+
+                // Add AI response (if available)
+                if (turn.getAiResponse() != null) {
+                    geminiMessages.add(Map.of(
+                        "role", "assistant",
+                        "content", truncate(turn.getAiResponse(), MAX_MESSAGE_LENGTH)
+                    ));
                 }
             }
 
@@ -185,27 +201,25 @@ public class ConversationMemoryService {
 
         try {
             // Get last N turns
-            List<Object> turns = redisTemplate.opsForList().range(memoryKey, -maxTurns, -1);
+            List<ConversationTurn> turns = readTurns(memoryKey, -maxTurns, -1);
 
-            if (turns == null || turns.isEmpty()) {
+            if (turns.isEmpty()) {
                 return "";
             }
 
             StringBuilder context = new StringBuilder("=== RECENT CONVERSATION ===\n");
 
-            for (Object turnObj : turns) {
-                if (turnObj instanceof ConversationTurn turn) {
-                    String timestamp = turn.getTimestamp().format(DateTimeFormatter.ofPattern("HH:mm"));
+            for (ConversationTurn turn : turns) {
+                String timestamp = turn.getTimestamp().format(DateTimeFormatter.ofPattern("HH:mm"));
 
-                    if (turn.getUserMessage() != null) {
-                        context.append(String.format("[%s] User: %s\n",
-                            timestamp, truncate(turn.getUserMessage(), 200)));
-                    }
+                if (turn.getUserMessage() != null) {
+                    context.append(String.format("[%s] User: %s\n",
+                        timestamp, truncate(turn.getUserMessage(), 200)));
+                }
 
-                    if (turn.getAiResponse() != null) {
-                        context.append(String.format("[%s] AI: %s\n",
-                            timestamp, truncate(turn.getAiResponse(), 200)));
-                    }
+                if (turn.getAiResponse() != null) {
+                    context.append(String.format("[%s] AI: %s\n",
+                        timestamp, truncate(turn.getAiResponse(), 200)));
                 }
             }
 
@@ -266,17 +280,11 @@ public class ConversationMemoryService {
         String memoryKey = String.format(CONVERSATION_KEY_PATTERN, conversationId);
 
         try {
-            List<Object> turns = redisTemplate.opsForList().range(memoryKey, 0, -1);
-
-            if (turns == null) {
-                return new ArrayList<>();
-            }
+            List<ConversationTurn> turns = readTurns(memoryKey, 0, -1);
 
             String lowerSearchTerm = searchTerm.toLowerCase();
 
             return turns.stream()
-                .filter(ConversationTurn.class::isInstance)
-                .map(ConversationTurn.class::cast)
                 .filter(turn -> {
                     String userMsg = turn.getUserMessage();
                     String aiMsg = turn.getAiResponse();
@@ -292,6 +300,37 @@ public class ConversationMemoryService {
         }
     }
 
+    private void appendTurn(String memoryKey, ConversationTurn turn) {
+        redisTemplate.execute(APPEND_TURN_SCRIPT, RedisSerializer.byteArray(), LONG_RESULT, List.of(memoryKey),
+            ConversationTurnCodec.encode(turn),
+            String.valueOf(MAX_MEMORY_TURNS).getBytes(StandardCharsets.UTF_8),
+            ttlSecondsArg());
+    }
+
+    /**
+     * Raw LRANGE (values are binary, not JSON) decoded into turns
+     */
+    private List<ConversationTurn> readTurns(String memoryKey, long start, long end) {
+        byte[] rawKey = memoryKey.getBytes(StandardCharsets.UTF_8);
+        List<byte[]> values = redisTemplate.execute(
+            (RedisCallback<List<byte[]>>) connection -> connection.listCommands().lRange(rawKey, start, end));
+        if (values == null) {
+            return new ArrayList<>();
+        }
+        List<ConversationTurn> turns = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            ConversationTurn turn = ConversationTurnCodec.decode(value);
+            if (turn != null) {
+                turns.add(turn);
+            }
+        }
+        return turns;
+    }
+
+    private static byte[] ttlSecondsArg() {
+        return String.valueOf(TimeUnit.HOURS.toSeconds(MEMORY_TTL_HOURS)).getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * Helper method to truncate long text
      */
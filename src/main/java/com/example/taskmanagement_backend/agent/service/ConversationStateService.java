@@ -1,41 +1,114 @@
 package com.example.taskmanagement_backend.agent.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Service quản lý trạng thái hội thoại multi-turn cho AI Agent
  * Hỗ trợ thu thập thông tin từng bước cho các tác vụ phức tạp
+ *
+ * - Local tier: access-ordered map bounded by size, entries idle longer than the idle timeout are dropped
+ * - Redis tier: one hash per conversation (version + JSON state) with the same idle TTL, so a follow-up
+ *   landing on another instance continues the same slot-filling session
+ * - Every write is a compare-and-set on the version; a conflicting write re-reads and re-applies the
+ *   change instead of overwriting another instance's update
  */
 @Slf4j
 @Service
 public class ConversationStateService {
 
-    private final Map<String, ConversationState> conversationStates = new ConcurrentHashMap<>();
+    private static final String KEY_PREFIX = "taskmanagement:agent:conversation-state:";
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final int WRITE_LOCK_STRIPES = 64;
+
+    // KEYS[1] = state hash; ARGV[1] = expected version (0 = absent), ARGV[2] = state JSON, ARGV[3] = ttl ms
+    private static final RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('HGET', KEYS[1], 'version') or '0') " +
+            "if current ~= tonumber(ARGV[1]) then return -1 end " +
+            "local next = current + 1 " +
+            "redis.call('HSET', KEYS[1], 'version', next, 'state', ARGV[2]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[3]) " +
+            "return next", Long.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+    private final int maxEntries;
+    private final long idleTimeoutNanos;
+
+    // Access-ordered; guarded by itself
+    private final LinkedHashMap<String, LocalEntry> localStates;
+
+    // Writes to one conversation from this instance queue up here; the version check only has to
+    // resolve races with other instances
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
+
+    private final AtomicLong sizeEvictions = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong redisLoads = new AtomicLong();
+    private final AtomicLong versionConflicts = new AtomicLong();
+    private final AtomicLong redisFailures = new AtomicLong();
+
+    public ConversationStateService(
+            StringRedisTemplate redisTemplate,
+            @Value("${ai.conversation-state.redis-enabled:true}") boolean redisEnabled,
+            @Value("${ai.conversation-state.max-entries:5000}") int maxEntries,
+            @Value("${ai.conversation-state.idle-timeout-minutes:60}") long idleTimeoutMinutes) {
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = redisEnabled && redisTemplate != null;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.idleTimeoutNanos = TimeUnit.MINUTES.toNanos(idleTimeoutMinutes);
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+        this.localStates = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                if (size() > ConversationStateService.this.maxEntries) {
+                    sizeEvictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
 
     /**
      * Lấy trạng thái hội thoại hiện tại
      */
     public ConversationState getConversationState(String conversationId) {
-        return conversationStates.get(conversationId);
+        return load(conversationId);
     }
 
     /**
      * Tạo hoặc cập nhật trạng thái hội thoại
      */
     public ConversationState createOrUpdateState(String conversationId, ConversationType type, String currentStep) {
-        ConversationState state = conversationStates.computeIfAbsent(conversationId,
-            k -> new ConversationState(conversationId, type));
-        state.setCurrentStep(currentStep);
-        state.setLastUpdated(LocalDateTime.now());
+        ConversationState state = mutate(conversationId, type, s -> s.setCurrentStep(currentStep));
 
-        log.debug("Updated conversation state: conversationId={}, type={}, step={}",
-            conversationId, type, currentStep);
+        log.debug("Updated conversation state: conversationId={}, type={}, step={}, version={}",
+            conversationId, type, currentStep, state != null ? state.getVersion() : null);
 
         return state;
     }
@@ -44,12 +117,16 @@ public class ConversationStateService {
      * Cập nhật dữ liệu thu thập được
      */
     public void updateCollectedData(String conversationId, String key, Object value) {
-        ConversationState state = conversationStates.get(conversationId);
+        ConversationState state = mutate(conversationId, null, s -> {
+            if (value != null) {
+                s.getCollectedData().put(key, value);
+            } else {
+                s.getCollectedData().remove(key);
+            }
+        });
         if (state != null) {
-            state.getCollectedData().put(key, value);
-            state.setLastUpdated(LocalDateTime.now());
-            log.debug("Updated collected data: conversationId={}, key={}, value={}",
-                conversationId, key, value);
+            log.debug("Updated collected data: conversationId={}, key={}, value={}, version={}",
+                conversationId, key, value, state.getVersion());
         }
     }
 
@@ -57,7 +134,7 @@ public class ConversationStateService {
      * Lấy dữ liệu đã thu thập
      */
     public Object getCollectedData(String conversationId, String key) {
-        ConversationState state = conversationStates.get(conversationId);
+        ConversationState state = load(conversationId);
         return state != null ? state.getCollectedData().get(key) : null;
     }
 
@@ -65,7 +142,7 @@ public class ConversationStateService {
      * Kiểm tra xem đã thu thập đủ thông tin chưa
      */
     public boolean isDataComplete(String conversationId, ConversationType type) {
-        ConversationState state = conversationStates.get(conversationId);
+        ConversationState state = load(conversationId);
         if (state == null) return false;
 
         switch (type) {
@@ -90,17 +167,263 @@ public class ConversationStateService {
      * Xóa trạng thái hội thoại sau khi hoàn thành
      */
     public void clearState(String conversationId) {
-        conversationStates.remove(conversationId);
+        synchronized (localStates) {
+            localStates.remove(conversationId);
+        }
+        if (redisEnabled) {
+            try {
+                redisTemplate.delete(KEY_PREFIX + conversationId);
+            } catch (Exception e) {
+                redisFailures.incrementAndGet();
+                log.warn("⚠️ Could not clear shared conversation state {}: {}", conversationId, e.getMessage());
+            }
+        }
         log.debug("Cleared conversation state for: {}", conversationId);
     }
 
     /**
-     * Xóa các trạng thái hội thoại cũ (cleanup)
+     * Xóa các trạng thái hội thoại cũ (cleanup) - Redis copies expire on their own TTL
      */
     public void cleanupExpiredStates() {
-        LocalDateTime expiredTime = LocalDateTime.now().minusHours(1);
-        conversationStates.entrySet().removeIf(entry ->
-            entry.getValue().getLastUpdated().isBefore(expiredTime));
+        long now = System.nanoTime();
+        int removed = 0;
+        synchronized (localStates) {
+            Iterator<LocalEntry> it = localStates.values().iterator();
+            while (it.hasNext()) {
+                if (isIdle(it.next(), now)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        if (removed > 0) {
+            idleEvictions.addAndGet(removed);
+            log.debug("🧹 Evicted {} idle conversation states", removed);
+        }
+    }
+
+    /**
+     * Live state count and eviction counters
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (localStates) {
+            stats.put("liveStates", localStates.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("idleTimeoutMinutes", TimeUnit.NANOSECONDS.toMinutes(idleTimeoutNanos));
+        stats.put("sizeEvictions", sizeEvictions.get());
+        stats.put("idleEvictions", idleEvictions.get());
+        stats.put("redisEnabled", redisEnabled);
+        stats.put("redisLoads", redisLoads.get());
+        stats.put("versionConflicts", versionConflicts.get());
+        stats.put("redisFailures", redisFailures.get());
+        return stats;
+    }
+
+    /**
+     * Applies the mutation to a copy of the latest state and writes it back if nobody else wrote in
+     * between; otherwise re-reads and retries. A null type means "only if the conversation exists".
+     */
+    private ConversationState mutate(String conversationId, ConversationType typeIfAbsent,
+                                     Consumer<ConversationState> mutation) {
+        synchronized (writeLocks[Math.floorMod(conversationId.hashCode(), WRITE_LOCK_STRIPES)]) {
+            return mutateLocked(conversationId, typeIfAbsent, mutation);
+        }
+    }
+
+    private ConversationState mutateLocked(String conversationId, ConversationType typeIfAbsent,
+                                           Consumer<ConversationState> mutation) {
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            ConversationState current = load(conversationId);
+            if (current == null && typeIfAbsent == null) {
+                return null;
+            }
+
+            ConversationState next = current != null ? current.copy() : new ConversationState(conversationId, typeIfAbsent);
+            mutation.accept(next);
+            next.setLastUpdated(LocalDateTime.now());
+            long expectedVersion = current != null ? current.getVersion() : 0;
+
+            if (tryWrite(next, expectedVersion)) {
+                return next;
+            }
+            versionConflicts.incrementAndGet();
+            log.debug("Conversation state {} changed concurrently (expected v{}), retrying",
+                conversationId, expectedVersion);
+        }
+
+        log.warn("⚠️ Gave up updating conversation state {} after {} conflicting writes",
+            conversationId, MAX_WRITE_ATTEMPTS);
+        return load(conversationId);
+    }
+
+    private boolean tryWrite(ConversationState next, long expectedVersion) {
+        String conversationId = next.getConversationId();
+        if (redisEnabled) {
+            try {
+                Long version = redisTemplate.execute(COMPARE_AND_SET_SCRIPT,
+                    Collections.singletonList(KEY_PREFIX + conversationId),
+                    String.valueOf(expectedVersion), serialize(next),
+                    String.valueOf(TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos)));
+                if (version == null || version < 0) {
+                    invalidateLocal(conversationId);
+                    return false;
+                }
+                next.setVersion(version);
+                putLocal(next);
+                return true;
+            } catch (Exception e) {
+                redisFailures.incrementAndGet();
+                log.warn("⚠️ Shared conversation state unavailable, keeping {} locally: {}",
+                    conversationId, e.getMessage());
+            }
+        }
+
+        synchronized (localStates) {
+            LocalEntry entry = localStates.get(conversationId);
+            long localVersion = entry != null && !isIdle(entry, System.nanoTime()) ? entry.state.getVersion() : 0;
+            if (localVersion != expectedVersion) {
+                return false;
+            }
+            next.setVersion(expectedVersion + 1);
+            localStates.put(conversationId, new LocalEntry(next.copy()));
+            return true;
+        }
+    }
+
+    /**
+     * Local copy when it is still the latest version, else the Redis copy (null if neither exists)
+     */
+    private ConversationState load(String conversationId) {
+        if (conversationId == null) {
+            return null;
+        }
+        ConversationState local = getLocal(conversationId);
+        if (!redisEnabled) {
+            return local;
+        }
+
+        String key = KEY_PREFIX + conversationId;
+        try {
+            Object sharedVersion = redisTemplate.opsForHash().get(key, "version");
+            if (sharedVersion == null) {
+                // Cleared or expired on another instance
+                invalidateLocal(conversationId);
+                return null;
+            }
+            if (local != null && local.getVersion() == Long.parseLong(sharedVersion.toString())) {
+                return local;
+            }
+
+            List<Object> fields = redisTemplate.opsForHash().multiGet(key, List.of("version", "state"));
+            if (fields.get(0) == null || fields.get(1) == null) {
+                invalidateLocal(conversationId);
+                return null;
+            }
+            ConversationState shared = deserialize(fields.get(1).toString());
+            shared.setVersion(Long.parseLong(fields.get(0).toString()));
+            putLocal(shared);
+            redisLoads.incrementAndGet();
+            return shared;
+        } catch (Exception e) {
+            redisFailures.incrementAndGet();
+            log.warn("⚠️ Could not read shared conversation state {}, using local copy: {}",
+                conversationId, e.getMessage());
+            return local;
+        }
+    }
+
+    private ConversationState getLocal(String conversationId) {
+        synchronized (localStates) {
+            LocalEntry entry = localStates.get(conversationId);
+            if (entry == null) {
+                return null;
+            }
+            long now = System.nanoTime();
+            if (isIdle(entry, now)) {
+                localStates.remove(conversationId);
+                idleEvictions.incrementAndGet();
+                return null;
+            }
+            entry.lastAccessNanos = now;
+            // The cached instance never leaves the cache; callers get a snapshot
+            return entry.state.copy();
+        }
+    }
+
+    private void putLocal(ConversationState state) {
+        synchronized (localStates) {
+            LocalEntry existing = localStates.get(state.getConversationId());
+            // Never replace a newer copy written concurrently by this instance
+            if (existing == null || existing.state.getVersion() <= state.getVersion()) {
+                localStates.put(state.getConversationId(), new LocalEntry(state.copy()));
+            }
+        }
+    }
+
+    private void invalidateLocal(String conversationId) {
+        synchronized (localStates) {
+            localStates.remove(conversationId);
+        }
+    }
+
+    private boolean isIdle(LocalEntry entry, long now) {
+        return now - entry.lastAccessNanos > idleTimeoutNanos;
+    }
+
+    private static String serialize(ConversationState state) throws Exception {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("conversationId", state.getConversationId());
+        json.put("type", state.getType().name());
+        json.put("currentStep", state.getCurrentStep());
+        json.put("createdAt", toEpochMillis(state.getCreatedAt()));
+        json.put("lastUpdated", toEpochMillis(state.getLastUpdated()));
+        json.put("stepCount", state.getStepCount());
+        json.put("collectedData", state.getCollectedData());
+        return OBJECT_MAPPER.writeValueAsString(json);
+    }
+
+    /**
+     * Collected values come back as their JSON types (String, Integer/Long, Boolean, Map, List)
+     */
+    private static ConversationState deserialize(String value) throws Exception {
+        Map<String, Object> json = OBJECT_MAPPER.readValue(value, new TypeReference<Map<String, Object>>() {});
+        ConversationState state = new ConversationState(
+            (String) json.get("conversationId"), ConversationType.valueOf((String) json.get("type")));
+        state.setCurrentStep((String) json.get("currentStep"));
+        state.setCreatedAt(fromEpochMillis(json.get("createdAt")));
+        state.setLastUpdated(fromEpochMillis(json.get("lastUpdated")));
+        state.setStepCount(((Number) json.get("stepCount")).intValue());
+        Object collected = json.get("collectedData");
+        if (collected instanceof Map<?, ?> data) {
+            data.forEach((k, v) -> {
+                if (v != null) {
+                    state.getCollectedData().put(k.toString(), v);
+                }
+            });
+        }
+        return state;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return (time != null ? time : LocalDateTime.now()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(Object epochMillis) {
+        return epochMillis instanceof Number n
+            ? LocalDateTime.ofInstant(Instant.ofEpochMilli(n.longValue()), ZoneId.systemDefault())
+            : LocalDateTime.now();
+    }
+
+    private static final class LocalEntry {
+        private final ConversationState state;
+        private long lastAccessNanos;
+
+        private LocalEntry(ConversationState state) {
+            this.state = state;
+            this.lastAccessNanos = System.nanoTime();
+        }
     }
 
     /**
@@ -116,6 +439,8 @@ public class ConversationStateService {
 
     /**
      * Class lưu trữ trạng thái hội thoại
+     * Instances returned by the service are snapshots - change them through the service so the
+     * update is versioned and shared
      */
     @Data
     public static class ConversationState {
@@ -126,6 +451,7 @@ public class ConversationStateService {
         private LocalDateTime lastUpdated;
         private Map<String, Object> collectedData;
         private int stepCount;
+        private long version;
 
         public ConversationState(String conversationId, ConversationType type) {
             this.conversationId = conversationId;
@@ -141,5 +467,16 @@ public class ConversationStateService {
             this.stepCount++;
             this.lastUpdated = LocalDateTime.now();
         }
+
+        ConversationState copy() {
+            ConversationState copy = new ConversationState(conversationId, type);
+            copy.currentStep = currentStep;
+            copy.createdAt = createdAt;
+            copy.lastUpdated = lastUpdated;
+            copy.collectedData.putAll(collectedData);
+            copy.stepCount = stepCount;
+            copy.version = version;
+            return copy;
+        }
     }
 }
@@ -0,0 +1,88 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Compact binary form of a {@link ConversationMemoryService.ConversationTurn} in Redis.
+ *
+ * <pre>
+ * [version:1][flags:1][timestamp epoch ms:8][user length:4][user UTF-8][ai length:4][ai UTF-8]
+ * </pre>
+ * flags bit 0 = has user message, bit 1 = has AI response; the AI section is only present
+ * when bit 1 is set. The fixed-width header lets the update-last-turn Lua script replace the
+ * AI section server-side without decoding the rest.
+ */
+final class ConversationTurnCodec {
+
+    static final byte VERSION = 1;
+    static final int HAS_USER = 1;
+    static final int HAS_AI = 2;
+    // 0-based offset of the user length, which the update script reads at 1-based Lua positions
+    static final int USER_LENGTH_OFFSET = 1 + 1 + Long.BYTES;
+    static final int HEADER_BYTES = USER_LENGTH_OFFSET + Integer.BYTES;
+
+    private ConversationTurnCodec() {
+    }
+
+    static byte[] encode(ConversationMemoryService.ConversationTurn turn) {
+        byte[] user = utf8(turn.getUserMessage());
+        byte[] ai = turn.getAiResponse() != null ? aiSection(turn.getAiResponse()) : new byte[0];
+        int flags = (turn.getUserMessage() != null ? HAS_USER : 0) | (turn.getAiResponse() != null ? HAS_AI : 0);
+        LocalDateTime timestamp = turn.getTimestamp() != null ? turn.getTimestamp() : LocalDateTime.now();
+
+        return ByteBuffer.allocate(HEADER_BYTES + user.length + ai.length)
+            .put(VERSION)
+            .put((byte) flags)
+            .putLong(timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+            .putInt(user.length)
+            .put(user)
+            .put(ai)
+            .array();
+    }
+
+    /**
+     * The AI section on its own ([length:4][UTF-8]), as appended by the update script
+     */
+    static byte[] aiSection(String aiResponse) {
+        byte[] ai = utf8(aiResponse);
+        return ByteBuffer.allocate(Integer.BYTES + ai.length).putInt(ai.length).put(ai).array();
+    }
+
+    /**
+     * Decoded turn, or null for values in another format (e.g. JSON written by older versions)
+     */
+    static ConversationMemoryService.ConversationTurn decode(byte[] value) {
+        if (value == null || value.length < HEADER_BYTES || value[0] != VERSION) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(value);
+            buffer.get();
+            int flags = buffer.get();
+            long epochMillis = buffer.getLong();
+            String user = readString(buffer);
+            String ai = (flags & HAS_AI) != 0 ? readString(buffer) : null;
+
+            return new ConversationMemoryService.ConversationTurn(
+                (flags & HAS_USER) != 0 ? user : null,
+                ai,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String text) {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+}
@@ -2,16 +2,28 @@ package com.example.taskmanagement_backend.agent.service;
 
 import com.example.taskmanagement_backend.agent.dto.ChatRequest;
 import com.example.taskmanagement_backend.agent.dto.ChatResponse;
+import com.example.taskmanagement_backend.agent.dto.ModerationResult;
 import com.example.taskmanagement_backend.agent.tools.MyTaskTools;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -23,6 +35,9 @@ import java.util.UUID;
 @Service
 public class CoreAgentService {
 
+    // QUERY actions answered by tools or confirmation flow instead of free AI text (never streamed)
+    private static final Set<String> STREAM_EXCLUDED_QUERY_ACTIONS = Set.of("CONFIRMATION_NEEDED", "GET_TASKS", "GET_STATISTICS");
+
     // Core services - streamlined dependencies with RAG enhancement
     private final UnifiedAIService unifiedAIService; // PRIMARY AI service
     private final MyTaskTools myTaskTools; // Tool execution
@@ -36,6 +51,25 @@ public class CoreAgentService {
     private final IntentDetectionService intentDetectionService; // NEW: AI-powered intent classification
     private final SlotFillingService slotFillingService; // NEW: Multi-turn slot filling
     private final VectorContextService vectorContextService; // NEW: Pinecone conversation context
+    private final ModerationService moderationService; // Rule-based moderation (tagging only)
+    private final AgentPipelineExecutor pipeline; // Concurrent stage execution
+    private final SemanticResponseCache semanticResponseCache; // Repeated informational answers
+
+    // Per-stage deadlines; a stage past its deadline degrades to its fallback
+    @Value("${ai.agent.pipeline.timeout.memory-ms:2000}")
+    private long memoryTimeoutMs;
+
+    @Value("${ai.agent.pipeline.timeout.user-context-ms:2000}")
+    private long userContextTimeoutMs;
+
+    @Value("${ai.agent.pipeline.timeout.rag-ms:6000}")
+    private long ragTimeoutMs;
+
+    @Value("${ai.agent.pipeline.timeout.intent-ms:15000}")
+    private long intentTimeoutMs;
+
+    @Value("${ai.agent.pipeline.timeout.moderation-ms:1000}")
+    private long moderationTimeoutMs;
 
     public CoreAgentService(
             UnifiedAIService unifiedAIService, // ONLY AI service we need
@@ -49,7 +83,10 @@ public class CoreAgentService {
             RAGService ragService, // NEW: RAG service integration
             IntentDetectionService intentDetectionService, // NEW: Intent classification
             SlotFillingService slotFillingService, // NEW: Slot filling
-            VectorContextService vectorContextService // NEW: Pinecone conversation context
+            VectorContextService vectorContextService, // NEW: Pinecone conversation context
+            ModerationService moderationService,
+            AgentPipelineExecutor pipeline,
+            SemanticResponseCache semanticResponseCache
     ) {
         this.unifiedAIService = unifiedAIService;
         this.myTaskTools = myTaskTools;
@@ -63,6 +100,9 @@ public class CoreAgentService {
         this.intentDetectionService = intentDetectionService;
         this.slotFillingService = slotFillingService;
         this.vectorContextService = vectorContextService;
+        this.moderationService = moderationService;
+        this.pipeline = pipeline;
+        this.semanticResponseCache = semanticResponseCache;
 
         log.info("CoreAgentService initialized - UNIFIED AI + RAG + MEMORY + INTENT DETECTION + SLOT FILLING");
     }
@@ -82,63 +122,269 @@ public class CoreAgentService {
             log.info("🎯 Processing with INTENT DETECTION + SLOT FILLING: userId={}, conversationId={}, message='{}'",
                 userId, conversationId, request.getContent().substring(0, Math.min(50, request.getContent().length())));
 
-            // Step 1: Store user message in memory FIRST
-            conversationMemoryService.storeUserMessage(conversationId, request.getContent());
+            TurnContext turn = prepareTurn(conversationId, userId, request.getContent());
+            return respond(turn, conversationId, messageId, userId, request, httpRequest, projectId);
+
+        } catch (Exception e) {
+            long processingTime = System.currentTimeMillis() - startTime;
+            log.error("Error in INTENT DETECTION + SLOT FILLING processing after {}ms", processingTime, e);
+            return escalationService.handleGeminiError(e, request.getContent(), conversationId);
+        }
+    }
+
+    /**
+     * STREAMING MODE - same pipeline, but answers generated freely by the AI (chitchat and
+     * general questions) are forwarded token by token as server-sent events:
+     * {@code start} → {@code token}* → {@code done} (final ChatResponse), or {@code error}.
+     * Turns handled by tools, slot filling or declining detection emit a single {@code done}.
+     * Conversation memory is written once, after the stream completed.
+     */
+    public Flux<ServerSentEvent<Object>> streamUserMessage(String conversationId, Long userId, ChatRequest request,
+                                                           HttpServletRequest httpRequest, Long projectId) {
+        String messageId = UUID.randomUUID().toString();
+        String content = request.getContent();
+        // Tools behind COMMAND and tool QUERY turns resolve the user from the security context,
+        // which is bound to the request thread only
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        return Mono.fromCallable(new DelegatingSecurityContextCallable<>(
+                () -> prepareTurn(conversationId, userId, content), securityContext))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMapMany(turn -> {
+                if (!isStreamable(turn)) {
+                    return Mono.fromCallable(new DelegatingSecurityContextCallable<>(
+                            () -> respond(turn, conversationId, messageId, userId, request, httpRequest, projectId),
+                            securityContext))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .map(response -> streamEvent("done", response))
+                        .flux();
+                }
+                return streamInformationalResponse(turn, content, conversationId, messageId, userId);
+            })
+            .onErrorResume(e -> {
+                log.error("Error in streaming agent response for conversation {}", conversationId, e);
+                return Flux.just(streamEvent("error", Map.of(
+                    "messageId", messageId,
+                    "conversationId", conversationId,
+                    "error", "The answer could not be completed, please try again.")));
+            });
+    }
+
+    private Flux<ServerSentEvent<Object>> streamInformationalResponse(TurnContext turn, String userMessage,
+                                                                      String conversationId, String messageId, Long userId) {
+        String intentType = "QUERY".equals(turn.intentResult.getIntentType()) ? "query" : "chitchat";
+        UnifiedAIService.UnifiedRequest aiRequest = buildInformationalRequest(
+            userMessage, userId, turn.ragContext, turn.userContext, intentType);
+        StringBuilder answer = new StringBuilder();
+
+        ServerSentEvent<Object> start = streamEvent("start", Map.of(
+            "messageId", messageId, "conversationId", conversationId, "intent", intentType));
+
+        Optional<String> cached = semanticResponseCache.lookup(userMessage, intentType, turn.ragContext, turn.userContext);
+        Flux<String> chunks = cached.map(Flux::just).orElseGet(() -> unifiedAIService.streamResponse(aiRequest));
 
-            // Step 2: Get user context
-            userContextService.updateUserLastSeen(userId);
-            UserContextService.UserChatContext userContext = userContextService.getUserChatContext(userId);
+        Flux<ServerSentEvent<Object>> tokens = chunks
+            .doOnNext(answer::append)
+            .map(text -> streamEvent("token", Map.of("messageId", messageId, "text", text)));
 
-            // Step 3: RAG Context Retrieval
-            RAGService.RAGContext ragContext = ragService.retrieveContext(request.getContent(), conversationId, userId);
+        // Only subscribed after the token stream completed
+        Mono<ServerSentEvent<Object>> done = Mono.fromCallable(() -> {
+                ChatResponse response = ChatResponse.builder()
+                    .messageId(messageId)
+                    .content(answer.toString())
+                    .senderType("AGENT")
+                    .timestamp(LocalDateTime.now())
+                    .aiModel(cached.isPresent() ? "semantic-cache" : "informational-ai-stream")
+                    .confidence(Math.max(turn.intentResult.getConfidence(), turn.ragContext.getContextQuality()))
+                    .intent(intentType)
+                    .success(true)
+                    .status("INFORMATIONAL_RESPONSE")
+                    .conversationId(conversationId)
+                    .agentActive(true)
+                    .toolCalled(false)
+                    .build();
+
+                if (cached.isEmpty() && !unifiedAIService.isFallbackAnswer(aiRequest, response.getContent())) {
+                    semanticResponseCache.store(aiRequest, intentType, turn.ragContext, turn.userContext, response.getContent());
+                }
+                conversationMemoryService.updateLastTurnWithAIResponse(conversationId, response.getContent());
+                return streamEvent("done", tagModeration(response, turn.moderationResult));
+            })
+            .subscribeOn(Schedulers.boundedElastic());
 
-            // Step 4: Early declining detection
-            if (ragContext.getDecliningAnalysis().isDeclining()) {
-                log.info("RAG detected DECLINING intent with confidence: {}",
-                    ragContext.getDecliningAnalysis().getConfidence());
+        return Flux.concat(Mono.just(start), tokens, done);
+    }
 
-                ChatResponse decliningResponse = handleDecliningIntent(ragContext, conversationId, messageId, userId);
-                conversationMemoryService.updateLastTurnWithAIResponse(conversationId, decliningResponse.getContent());
-                storeAndLogConversation(conversationId, userId, request, decliningResponse, projectId, httpRequest);
-                return decliningResponse;
+    /**
+     * Turns answered by generateInformationalResponse (no tools, no confirmation, no slot filling)
+     */
+    private boolean isStreamable(TurnContext turn) {
+        if (turn.isDeclining()) {
+            return false;
+        }
+        String intentType = turn.intentResult.getIntentType();
+        if ("COMMAND".equals(intentType)) {
+            return false;
+        }
+        return !"QUERY".equals(intentType) || !STREAM_EXCLUDED_QUERY_ACTIONS.contains(turn.intentResult.getAction());
+    }
+
+    private static ServerSentEvent<Object> streamEvent(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+
+    /**
+     * Step 1-2: run the independent stages concurrently and join what the response needs.
+     * When RAG detects declining, the remaining stages are cancelled instead of awaited.
+     */
+    private TurnContext prepareTurn(String conversationId, Long userId, String content) {
+        // Independent stages run concurrently - memory store, user context, RAG retrieval,
+        // intent detection and moderation only depend on the incoming message
+        AgentPipelineExecutor.Stage<Boolean> memoryStage = pipeline.start("memory-store", memoryTimeoutMs,
+            () -> {
+                conversationMemoryService.storeUserMessage(conversationId, content);
+                return true;
+            },
+            () -> false);
+        pipeline.start("last-seen", userContextTimeoutMs,
+            () -> {
+                userContextService.updateUserLastSeen(userId);
+                return true;
+            },
+            () -> false);
+        AgentPipelineExecutor.Stage<UserContextService.UserChatContext> userContextStage =
+            pipeline.start("user-context", userContextTimeoutMs,
+                () -> userContextService.getUserChatContext(userId),
+                () -> UserContextService.UserChatContext.createDefault(userId));
+        AgentPipelineExecutor.Stage<RAGService.RAGContext> ragStage = pipeline.start("rag", ragTimeoutMs,
+            () -> ragService.retrieveContext(content, conversationId, userId),
+            () -> RAGService.emptyContext(content));
+        // Vector-based intent detection (Pinecone + Gemini) is unused when declining; only messages
+        // that cannot be a decline start it before the declining check
+        boolean maybeDeclining = RAGService.canBeDeclining(content);
+        AgentPipelineExecutor.Stage<IntentDetectionService.IntentResult> intentStage =
+            maybeDeclining ? null : startIntentStage(conversationId, userId, content);
+        AgentPipelineExecutor.Stage<ModerationResult> moderationStage =
+            pipeline.start("moderation", moderationTimeoutMs,
+                () -> moderationService.moderateContent(content, String.valueOf(userId)),
+                () -> null);
+
+        // RAG context and stored user turn are needed before any response is written
+        RAGService.RAGContext ragContext = ragStage.join();
+        memoryStage.join();
+
+        if (ragContext.getDecliningAnalysis().isDeclining()) {
+            userContextStage.cancel();
+            moderationStage.cancel();
+            if (intentStage != null) {
+                intentStage.cancel();
             }
+            return new TurnContext(ragContext, null, null, null);
+        }
+        if (intentStage == null) {
+            intentStage = startIntentStage(conversationId, userId, content);
+        }
 
-            // Step 5: 🎯 VECTOR-BASED INTENT DETECTION - Uses Pinecone for context understanding
-            IntentDetectionService.IntentResult intentResult = intentDetectionService.detectIntent(
-                request.getContent(), conversationId, userId); // Added userId for vector context
+        UserContextService.UserChatContext userContext = userContextStage.join();
+        IntentDetectionService.IntentResult intentResult = intentStage.join();
+        ModerationResult moderationResult = moderationStage.join();
+        pipeline.recordFanIn(memoryStage, userContextStage, ragStage, intentStage, moderationStage);
 
-            log.info("🎯 Intent detected: type={}, action={}, confidence={}, needsMoreInfo={}",
-                intentResult.getIntentType(), intentResult.getAction(),
-                intentResult.getConfidence(), intentResult.isNeedsMoreInfo());
+        log.info("🎯 Intent detected: type={}, action={}, confidence={}, needsMoreInfo={}",
+            intentResult.getIntentType(), intentResult.getAction(),
+            intentResult.getConfidence(), intentResult.isNeedsMoreInfo());
 
-            // Step 6: Handle different intent types appropriately
-            switch (intentResult.getIntentType()) {
-                case "QUERY":
-                    // Questions - provide information without executing actions
-                    return handleQueryIntent(intentResult, conversationId, messageId, userId,
-                                           ragContext, userContext, projectId, httpRequest, request);
+        return new TurnContext(ragContext, userContext, intentResult, moderationResult);
+    }
 
-                case "CHITCHAT":
-                    // Casual conversation - friendly responses
-                    return handleChitchatIntent(intentResult, conversationId, messageId, userId,
-                                              ragContext, userContext, projectId, httpRequest, request);
+    private AgentPipelineExecutor.Stage<IntentDetectionService.IntentResult> startIntentStage(
+            String conversationId, Long userId, String content) {
+        return pipeline.start("intent", intentTimeoutMs,
+            () -> intentDetectionService.detectIntent(content, conversationId, userId),
+            () -> intentDetectionService.fallbackIntentDetection(content));
+    }
 
-                case "COMMAND":
-                    // Commands - may need slot filling before execution
-                    return handleCommandIntent(intentResult, conversationId, messageId, userId,
-                                             ragContext, userContext, projectId, httpRequest, request);
+    /**
+     * Step 3-4: declining shortcut or intent routing
+     */
+    private ChatResponse respond(TurnContext turn, String conversationId, String messageId, Long userId,
+                                 ChatRequest request, HttpServletRequest httpRequest, Long projectId) {
+        RAGService.RAGContext ragContext = turn.ragContext;
+
+        // Early declining detection
+        if (turn.isDeclining()) {
+            log.info("RAG detected DECLINING intent with confidence: {}",
+                ragContext.getDecliningAnalysis().getConfidence());
+
+            ChatResponse decliningResponse = handleDecliningIntent(ragContext, conversationId, messageId, userId);
+            conversationMemoryService.updateLastTurnWithAIResponse(conversationId, decliningResponse.getContent());
+            storeAndLogConversation(conversationId, userId, request, decliningResponse, projectId, httpRequest);
+            return decliningResponse;
+        }
 
-                default:
-                    log.warn("⚠️ Unknown intent type: {}, treating as CHITCHAT", intentResult.getIntentType());
-                    return handleChitchatIntent(intentResult, conversationId, messageId, userId,
+        IntentDetectionService.IntentResult intentResult = turn.intentResult;
+        UserContextService.UserChatContext userContext = turn.userContext;
+
+        // Handle different intent types appropriately
+        ChatResponse response = switch (intentResult.getIntentType()) {
+            // Questions - provide information without executing actions
+            case "QUERY" -> handleQueryIntent(intentResult, conversationId, messageId, userId,
                                               ragContext, userContext, projectId, httpRequest, request);
+
+            // Casual conversation - friendly responses
+            case "CHITCHAT" -> handleChitchatIntent(intentResult, conversationId, messageId, userId,
+                                                    ragContext, userContext, projectId, httpRequest, request);
+
+            // Commands - may need slot filling before execution
+            case "COMMAND" -> handleCommandIntent(intentResult, conversationId, messageId, userId,
+                                                  ragContext, userContext, projectId, httpRequest, request);
+
+            default -> {
+                log.warn("⚠️ Unknown intent type: {}, treating as CHITCHAT", intentResult.getIntentType());
+                yield handleChitchatIntent(intentResult, conversationId, messageId, userId,
+                                           ragContext, userContext, projectId, httpRequest, request);
             }
+        };
 
-        } catch (Exception e) {
-            long processingTime = System.currentTimeMillis() - startTime;
-            log.error("Error in INTENT DETECTION + SLOT FILLING processing after {}ms", processingTime, e);
-            return escalationService.handleGeminiError(e, request.getContent(), conversationId);
+        return tagModeration(response, turn.moderationResult);
+    }
+
+    /**
+     * Results of the concurrent stages for one user message (only RAG context when declining)
+     */
+    private static final class TurnContext {
+        private final RAGService.RAGContext ragContext;
+        private final UserContextService.UserChatContext userContext;
+        private final IntentDetectionService.IntentResult intentResult;
+        private final ModerationResult moderationResult;
+
+        private TurnContext(RAGService.RAGContext ragContext, UserContextService.UserChatContext userContext,
+                            IntentDetectionService.IntentResult intentResult, ModerationResult moderationResult) {
+            this.ragContext = ragContext;
+            this.userContext = userContext;
+            this.intentResult = intentResult;
+            this.moderationResult = moderationResult;
         }
+
+        private boolean isDeclining() {
+            return ragContext.getDecliningAnalysis().isDeclining();
+        }
+    }
+
+    /**
+     * Attach moderation flags to the response (the agent pipeline tags, it does not block)
+     */
+    private ChatResponse tagModeration(ChatResponse response, ModerationResult moderationResult) {
+        if (response == null || moderationResult == null || moderationResult.isSafe()) {
+            return response;
+        }
+
+        log.warn("🛡️ Moderation flagged agent message: category={}, reason={}",
+            moderationResult.getCategory(), moderationResult.getReason());
+        List<String> tags = response.getTags() != null ? new ArrayList<>(response.getTags()) : new ArrayList<>();
+        tags.add("MODERATION_" + moderationResult.getCategory());
+        response.setTags(tags);
+        return response;
     }
 
     /**
@@ -1380,6 +1626,27 @@ public class CoreAgentService {
         }
     }
 
+    /**
+     * AI request for an informational answer (shared by blocking and streaming mode)
+     */
+    private UnifiedAIService.UnifiedRequest buildInformationalRequest(String userMessage, Long userId,
+                                                                     RAGService.RAGContext ragContext,
+                                                                     UserContextService.UserChatContext userContext,
+                                                                     String intentType) {
+        // Build enhanced context for informational response
+        String enhancedContext = buildRAGEnhancedContext(ragContext, userId, null, userContext);
+
+        return new UnifiedAIService.UnifiedRequest(
+                userMessage,
+                userId,
+                enhancedContext,
+                intentType.equals("chitchat") ?
+                    "You are a friendly AI assistant. Provide helpful, conversational responses." :
+                    "You are a helpful AI assistant. Answer questions clearly and informatively.",
+                null
+        );
+    }
+
     /**
      * Generate informational response using AI
      */
@@ -1389,29 +1656,32 @@ public class CoreAgentService {
                                                      UserContextService.UserChatContext userContext,
                                                      String intentType) {
         try {
-            // Build enhanced context for informational response
-            String enhancedContext = buildRAGEnhancedContext(ragContext, userId, null, userContext);
-
-            // Create AI request for informational response
-            UnifiedAIService.UnifiedRequest aiRequest = new UnifiedAIService.UnifiedRequest(
-                    userMessage,
-                    userId,
-                    enhancedContext,
-                    intentType.equals("chitchat") ?
-                        "You are a friendly AI assistant. Provide helpful, conversational responses." :
-                        "You are a helpful AI assistant. Answer questions clearly and informatively.",
-                    null
-            );
-
-            UnifiedAIService.UnifiedResponse aiResponse = unifiedAIService.processUnifiedRequest(aiRequest);
+            UnifiedAIService.UnifiedRequest aiRequest = buildInformationalRequest(
+                    userMessage, userId, ragContext, userContext, intentType);
+
+            Optional<String> cached = semanticResponseCache.lookup(userMessage, intentType, ragContext, userContext);
+            String content;
+            double confidence;
+            if (cached.isPresent()) {
+                content = cached.get();
+                confidence = ragContext.getContextQuality();
+            } else {
+                UnifiedAIService.UnifiedResponse aiResponse = unifiedAIService.processUnifiedRequest(aiRequest);
+                content = aiResponse.getResponseContent();
+                confidence = aiResponse.getConfidence();
+                // Only provider answers are worth caching, not rule-based fallbacks
+                if ("AI_UNIFIED_INTELLIGENT".equals(aiResponse.getSource())) {
+                    semanticResponseCache.store(aiRequest, intentType, ragContext, userContext, content);
+                }
+            }
 
             ChatResponse infoResponse = ChatResponse.builder()
                     .messageId(messageId)
-                    .content(aiResponse.getResponseContent())
+                    .content(content)
                     .senderType("AGENT")
                     .timestamp(LocalDateTime.now())
-                    .aiModel("informational-ai")
-                    .confidence(Math.max(aiResponse.getConfidence(), ragContext.getContextQuality()))
+                    .aiModel(cached.isPresent() ? "semantic-cache" : "informational-ai")
+                    .confidence(Math.max(confidence, ragContext.getContextQuality()))
                     .intent(intentType)
                     .success(true)
                     .status("INFORMATIONAL_RESPONSE")
@@ -2,9 +2,9 @@ package com.example.taskmanagement_backend.agent.service;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.CommandLineRunner;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -13,44 +13,63 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Stream;
 
 /**
  * Document Loader Service - Tự động tải và tích hợp tài liệu vào RAG khi khởi động
- * CHẠY TỰ ĐỘNG - Không cần gọi API, RAG sẽ có đầy đủ dữ liệu khi chat
+ * CHẠY NỀN sau khi ứng dụng sẵn sàng - startup không chờ knowledge base.
+ * Chunks are handed to {@link KnowledgeIngestionService}, which only embeds and
+ * upserts what changed since the last run.
  */
 @Slf4j
 @Service
-public class DocumentLoaderService implements CommandLineRunner {
+public class DocumentLoaderService {
 
-    private final RAGService ragService;
+    private final KnowledgeIngestionService knowledgeIngestionService;
+    private final ThreadPoolTaskExecutor taskExecutor;
 
-    public DocumentLoaderService(RAGService ragService) {
-        this.ragService = ragService;
+    public DocumentLoaderService(KnowledgeIngestionService knowledgeIngestionService,
+                                 ThreadPoolTaskExecutor taskExecutor) {
+        this.knowledgeIngestionService = knowledgeIngestionService;
+        this.taskExecutor = taskExecutor;
     }
 
-    @Override
-    public void run(String... args) throws Exception {
-        log.info("🚀 AUTO-LOADING ALL DOCS INTO RAG - Chat system will have full knowledge");
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reloadAsync();
+    }
+
+    public void reloadAsync() {
+        log.info("🚀 Scheduling background knowledge-base ingestion");
+        taskExecutor.execute(this::reload);
+    }
+
+    /**
+     * Collect all docs and guides and sync them into RAG (incremental)
+     */
+    public void reload() {
+        Map<String, RAGService.DocumentContent> documents = new LinkedHashMap<>();
 
         // Load tất cả docs từ thư mục chính
-        loadAllDocsFromMainDirectory();
+        loadAllDocsFromMainDirectory(documents);
 
         // Load từ agent docs nếu có
-        loadFromAgentDocsDirectory();
+        loadFromAgentDocsDirectory(documents);
 
         // Load comprehensive guides
-        loadComprehensiveGuides();
+        loadComprehensiveGuides(documents);
 
-        log.info("✅ RAG AUTO-LOADING COMPLETED - Chat system ready with full documentation knowledge!");
+        log.info("📚 Collected {} knowledge chunks for ingestion", documents.size());
+        knowledgeIngestionService.ingest(documents);
     }
 
     /**
      * Load tất cả docs từ thư mục docs/ chính
      */
-    private void loadAllDocsFromMainDirectory() {
+    private void loadAllDocsFromMainDirectory(Map<String, RAGService.DocumentContent> documents) {
         try {
             Path docsPath = Paths.get("docs");
 
@@ -63,10 +82,10 @@ public class DocumentLoaderService implements CommandLineRunner {
                 paths
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".md"))
-                    .forEach(this::autoLoadDocument);
+                    .forEach(path -> autoLoadDocument(path, documents));
             }
 
-            log.info("📚 Loaded all documents from main docs directory");
+            log.info("📚 Collected all documents from main docs directory");
 
         } catch (IOException e) {
             log.error("❌ Error auto-loading main docs", e);
@@ -76,7 +95,7 @@ public class DocumentLoaderService implements CommandLineRunner {
     /**
      * Load từ agent docs directory
      */
-    private void loadFromAgentDocsDirectory() {
+    private void loadFromAgentDocsDirectory(Map<String, RAGService.DocumentContent> documents) {
         try {
             Path agentDocsPath = Paths.get("src/main/java/com/example/taskmanagement_backend/agent/docs");
 
@@ -90,10 +109,10 @@ public class DocumentLoaderService implements CommandLineRunner {
                 paths
                     .filter(Files::isRegularFile)
                     .filter(path -> path.toString().endsWith(".md"))
-                    .forEach(this::autoLoadDocument);
+                    .forEach(path -> autoLoadDocument(path, documents));
             }
 
-            log.info("📖 Loaded agent docs (including AI_AGENT_MYTASK_API_GUIDE.md, Taskflow_User_Guide.md if present)");
+            log.info("📖 Collected agent docs (including AI_AGENT_MYTASK_API_GUIDE.md, Taskflow_User_Guide.md if present)");
 
         } catch (IOException e) {
             log.error("❌ Error loading agent docs", e);
@@ -101,9 +120,9 @@ public class DocumentLoaderService implements CommandLineRunner {
     }
 
     /**
-     * Auto-load một document vào RAG
+     * Chunk một document và thêm các chunk vào {@code documents}
      */
-    private void autoLoadDocument(Path filePath) {
+    private void autoLoadDocument(Path filePath, Map<String, RAGService.DocumentContent> documents) {
         try {
             String fileName = filePath.getFileName().toString();
             String content = Files.readString(filePath);
@@ -118,12 +137,15 @@ public class DocumentLoaderService implements CommandLineRunner {
             // 1. Data Preprocessing: Chia document thành chunks
             List<DocumentChunk> chunks = preprocessDocument(fileName, content);
 
-            // 2. Generate embeddings và 3. Upsert vào Pinecone cho từng chunk
+            // 2-3. Embedding và upsert theo batch do KnowledgeIngestionService thực hiện
             for (DocumentChunk chunk : chunks) {
-                processDocumentChunk(chunk);
+                documents.put(chunk.getId(), new RAGService.DocumentContent(
+                    chunk.getSourceFile() + " - Chunk " + chunk.getChunkIndex(),
+                    chunk.getContent(),
+                    chunk.getMetadata()));
             }
 
-            log.info("✅ Processed {} chunks from {}", chunks.size(), fileName);
+            log.debug("✅ Chunked {} into {} chunks", fileName, chunks.size());
 
         } catch (Exception e) {
             log.warn("⚠️ Failed to auto-load: {}", filePath, e);
@@ -232,30 +254,6 @@ public class DocumentLoaderService implements CommandLineRunner {
             .build();
     }
 
-    /**
-     * 2. Generate Embedding + 3. Upsert vào Pinecone cho từng chunk
-     */
-    private void processDocumentChunk(DocumentChunk chunk) {
-        try {
-            // 2. Generate embedding using llama-text-embed-v2
-            double[] embedding = ragService.generateEmbeddingForChunk(chunk.getContent());
-
-            // 3. Store in RAG (which will upsert to Pinecone)
-            ragService.storeKnowledge(
-                chunk.getId(),
-                chunk.getSourceFile() + " - Chunk " + chunk.getChunkIndex(),
-                chunk.getContent(),
-                chunk.getMetadata()
-            );
-
-            log.debug("🔄 Processed chunk {} from {}", chunk.getChunkIndex(), chunk.getSourceFile());
-
-        } catch (Exception e) {
-            log.warn("❌ Failed to process chunk {} from {}: {}",
-                chunk.getChunkIndex(), chunk.getSourceFile(), e.getMessage());
-        }
-    }
-
     /**
      * Smart categorization dựa trên tên file và nội dung
      */
@@ -294,40 +292,36 @@ public class DocumentLoaderService implements CommandLineRunner {
     /**
      * Load comprehensive system guides vào RAG
      */
-    private void loadComprehensiveGuides() {
+    private void loadComprehensiveGuides(Map<String, RAGService.DocumentContent> documents) {
         // Task Management comprehensive guide
-        ragService.storeKnowledge(
-            "comprehensive_task_guide",
+        documents.put("comprehensive_task_guide", new RAGService.DocumentContent(
             "Complete Task Management System Guide",
             createTaskSystemGuide(),
             Map.of("type", "comprehensive", "category", "task_management", "priority", "high")
-        );
+        ));
 
         // AI Agent comprehensive guide
-        ragService.storeKnowledge(
-            "comprehensive_ai_agent_guide",
+        documents.put("comprehensive_ai_agent_guide", new RAGService.DocumentContent(
             "Complete AI Agent & Tool Calling Guide",
             createAIAgentGuide(),
             Map.of("type", "comprehensive", "category", "ai_agent", "priority", "high")
-        );
+        ));
 
         // Chat system guide
-        ragService.storeKnowledge(
-            "comprehensive_chat_guide",
+        documents.put("comprehensive_chat_guide", new RAGService.DocumentContent(
             "Complete Chat System with RAG Guide",
             createChatSystemGuide(),
             Map.of("type", "comprehensive", "category", "chat_system", "priority", "high")
-        );
+        ));
 
         // Declining patterns guide
-        ragService.storeKnowledge(
-            "declining_handling_guide",
+        documents.put("declining_handling_guide", new RAGService.DocumentContent(
             "User Declining Intent Handling Guide",
             createDecliningGuide(),
             Map.of("type", "comprehensive", "category", "declining_patterns", "priority", "high")
-        );
+        ));
 
-        log.info("🧠 Loaded comprehensive system guides into RAG");
+        log.debug("🧠 Collected comprehensive system guides");
     }
 
     /**
@@ -0,0 +1,160 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent embedding requests into batched provider calls.
+ *
+ * The first queued text opens a window of {@code maxWaitMs}; everything queued meanwhile
+ * (up to {@code maxBatchSize}) goes out in one request. Identical texts already waiting
+ * or in flight share one future instead of being sent twice.
+ */
+@Slf4j
+public class EmbeddingBatcher implements AutoCloseable {
+
+    private final Function<List<String>, List<double[]>> provider;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Map<String, CompletableFuture<double[]>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService senders;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final AtomicLong textsSubmitted = new AtomicLong();
+    private final AtomicLong textsCoalesced = new AtomicLong();
+    private final AtomicLong textsSent = new AtomicLong();
+    private final AtomicLong providerCalls = new AtomicLong();
+
+    public EmbeddingBatcher(Function<List<String>, List<double[]>> provider,
+                            int maxBatchSize, long maxWaitMs, int maxConcurrentCalls) {
+        this.provider = provider;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.senders = Executors.newFixedThreadPool(Math.max(1, maxConcurrentCalls), runnable -> {
+            Thread thread = new Thread(runnable, "embedding-batch-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queue a text for embedding; {@code key} identifies identical requests
+     */
+    public CompletableFuture<double[]> submit(String key, String text) {
+        textsSubmitted.incrementAndGet();
+
+        CompletableFuture<double[]> future = new CompletableFuture<>();
+        CompletableFuture<double[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            textsCoalesced.incrementAndGet();
+            return existing;
+        }
+
+        if (!running) {
+            inFlight.remove(key);
+            future.completeExceptionally(new IllegalStateException("Embedding batcher is shut down"));
+            return future;
+        }
+        queue.add(new Pending(key, text, future));
+        return future;
+    }
+
+    public long getTextsSubmitted() {
+        return textsSubmitted.get();
+    }
+
+    public long getTextsCoalesced() {
+        return textsCoalesced.get();
+    }
+
+    public long getTextsSent() {
+        return textsSent.get();
+    }
+
+    public long getProviderCalls() {
+        return providerCalls.get();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdown();
+
+        List<Pending> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(pending -> fail(pending, new IllegalStateException("Embedding batcher is shut down")));
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                List<Pending> batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                senders.execute(() -> send(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        providerCalls.incrementAndGet();
+        textsSent.addAndGet(batch.size());
+
+        try {
+            List<double[]> embeddings = provider.apply(batch.stream().map(pending -> pending.text).toList());
+            if (embeddings == null || embeddings.size() != batch.size()) {
+                throw new IllegalStateException("Embedding provider returned "
+                        + (embeddings == null ? 0 : embeddings.size()) + " vectors for " + batch.size() + " texts");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                inFlight.remove(pending.key);
+                pending.future.complete(embeddings.get(i));
+            }
+            log.debug("📦 Embedded batch of {} texts in one provider call", batch.size());
+        } catch (Exception e) {
+            log.warn("⚠️ Embedding batch of {} texts failed: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> fail(pending, e));
+        }
+    }
+
+    private void fail(Pending pending, Exception e) {
+        inFlight.remove(pending.key);
+        pending.future.completeExceptionally(e);
+    }
+
+    @AllArgsConstructor
+    private static class Pending {
+        private final String key;
+        private final String text;
+        private final CompletableFuture<double[]> future;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed embedding cache: local LRU in front of Redis.
+ *
+ * Keys are a SHA-256 of (model, normalized text), so the same text embedded by the
+ * same model is fetched from the provider once across restarts and nodes. Vectors
+ * are kept as float32 (4 bytes/dim) locally and in Redis.
+ */
+@Slf4j
+@Component
+public class EmbeddingCache {
+
+    private static final String KEY_PREFIX = "taskmanagement:embeddings:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean redisEnabled;
+    private final Duration redisTtl;
+    private final Map<String, float[]> local;
+
+    private final AtomicLong localHits = new AtomicLong();
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public EmbeddingCache(StringRedisTemplate redisTemplate,
+                          @Value("${ai.embedding.cache.local-max-entries:2000}") int localMaxEntries,
+                          @Value("${ai.embedding.cache.redis-ttl-hours:168}") long redisTtlHours,
+                          @Value("${ai.embedding.cache.redis-enabled:true}") boolean redisEnabled) {
+        this.redisTemplate = redisTemplate;
+        this.redisEnabled = redisEnabled && redisTemplate != null;
+        this.redisTtl = Duration.ofHours(redisTtlHours);
+        this.local = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                return size() > localMaxEntries;
+            }
+        });
+    }
+
+    /**
+     * Cache key of a text for a model
+     */
+    public static String key(String model, String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Unicode NFC, trimmed, whitespace runs collapsed to one space
+     */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).trim().replaceAll("\\s+", " ");
+    }
+
+    public double[] get(String key) {
+        return getAll(List.of(key)).get(key);
+    }
+
+    /**
+     * Cached embeddings for the given keys; missing keys are absent from the result
+     */
+    public Map<String, double[]> getAll(Collection<String> keys) {
+        Map<String, double[]> found = new HashMap<>();
+        List<String> remoteKeys = new ArrayList<>();
+
+        for (String key : keys) {
+            float[] vector = local.get(key);
+            if (vector != null) {
+                found.put(key, toDoubles(vector));
+                localHits.incrementAndGet();
+            } else {
+                remoteKeys.add(key);
+            }
+        }
+
+        if (!remoteKeys.isEmpty() && redisEnabled) {
+            try {
+                List<String> values = redisTemplate.opsForValue()
+                        .multiGet(remoteKeys.stream().map(key -> KEY_PREFIX + key).toList());
+                for (int i = 0; values != null && i < remoteKeys.size(); i++) {
+                    String value = values.get(i);
+                    if (value != null) {
+                        float[] vector = decode(value);
+                        local.put(remoteKeys.get(i), vector);
+                        found.put(remoteKeys.get(i), toDoubles(vector));
+                        redisHits.incrementAndGet();
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Embedding cache Redis read failed: {}", e.getMessage());
+            }
+        }
+
+        misses.addAndGet(keys.size() - found.size());
+        return found;
+    }
+
+    public void put(String key, double[] embedding) {
+        float[] vector = toFloats(embedding);
+        local.put(key, vector);
+
+        if (redisEnabled) {
+            try {
+                redisTemplate.opsForValue().set(KEY_PREFIX + key, encode(vector), redisTtl);
+            } catch (Exception e) {
+                log.warn("⚠️ Embedding cache Redis write failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = localHits.get() + redisHits.get();
+        long lookups = hits + misses.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localEntries", local.size());
+        stats.put("localHits", localHits.get());
+        stats.put("redisHits", redisHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+        return stats;
+    }
+
+    private static String encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES);
+        buffer.asFloatBuffer().put(vector);
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    private static float[] decode(String value) {
+        ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode(value));
+        float[] vector = new float[buffer.remaining() / Float.BYTES];
+        buffer.asFloatBuffer().get(vector);
+        return vector;
+    }
+
+    private static float[] toFloats(double[] vector) {
+        float[] floats = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            floats[i] = (float) vector[i];
+        }
+        return floats;
+    }
+
+    private static double[] toDoubles(float[] vector) {
+        double[] doubles = new double[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            doubles[i] = vector[i];
+        }
+        return doubles;
+    }
+}
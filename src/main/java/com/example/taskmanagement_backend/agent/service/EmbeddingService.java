@@ -1,19 +1,24 @@
 package com.example.taskmanagement_backend.agent.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Real Embedding Service - Uses llama-text-embed-v2 API
  * Converts text to 1024-dimension vectors for Pinecone storage
+ *
+ * Provider embeddings go through {@link EmbeddingCache} (local LRU + Redis) and
+ * {@link EmbeddingBatcher}, so repeated texts are not re-embedded and concurrent
+ * requests share one provider call.
  */
 @Slf4j
 @Service
@@ -21,6 +26,8 @@ public class EmbeddingService {
 
     private static final int EMBEDDING_DIMENSION = 1024; // llama-text-embed-v2 dimension
     private final WebClient embeddingWebClient;
+    private final EmbeddingCache embeddingCache;
+    private EmbeddingBatcher batcher;
 
     @Value("${ai.embedding.api.url:https://api.together.ai/v1/embeddings}")
     private String embeddingApiUrl;
@@ -34,8 +41,31 @@ public class EmbeddingService {
     @Value("${ai.embedding.mode:fallback}")
     private String embeddingMode;
 
-    public EmbeddingService(@Qualifier("embeddingWebClient") WebClient embeddingWebClient) {
+    @Value("${ai.embedding.batch.max-size:64}")
+    private int batchMaxSize;
+
+    @Value("${ai.embedding.batch.max-wait-ms:10}")
+    private long batchMaxWaitMs;
+
+    @Value("${ai.embedding.batch.max-concurrent-calls:4}")
+    private int batchMaxConcurrentCalls;
+
+    public EmbeddingService(@Qualifier("embeddingWebClient") WebClient embeddingWebClient,
+                            EmbeddingCache embeddingCache) {
         this.embeddingWebClient = embeddingWebClient;
+        this.embeddingCache = embeddingCache;
+    }
+
+    @PostConstruct
+    public void init() {
+        batcher = new EmbeddingBatcher(this::generateRealEmbeddings, batchMaxSize, batchMaxWaitMs, batchMaxConcurrentCalls);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batcher != null) {
+            batcher.close();
+        }
     }
 
     /**
@@ -50,7 +80,7 @@ public class EmbeddingService {
             }
 
             // Use fallback embeddings for Pinecone integration
-            if ("fallback".equals(embeddingMode) || embeddingApiKey == null || embeddingApiKey.trim().isEmpty()) {
+            if (isFallbackMode()) {
                 log.debug("🔄 Using optimized fallback embedding for Pinecone (1024-dim)");
                 return generateOptimizedFallbackEmbedding(text);
             }
@@ -58,7 +88,7 @@ public class EmbeddingService {
             log.debug("Generating real embedding for text length: {}", text.length());
 
             // Only call external API if explicitly configured
-            return generateRealEmbedding(text);
+            return generateEmbeddings(List.of(text)).get(0);
 
         } catch (Exception e) {
             log.warn("🔄 Fallback to optimized embedding: {}", e.getMessage());
@@ -67,12 +97,75 @@ public class EmbeddingService {
     }
 
     /**
-     * Generate real embedding using external API (when configured)
+     * Embed several texts at once; cache misses are sent to the provider in batches.
+     * Result order matches {@code texts}.
      */
-    private double[] generateRealEmbedding(String text) throws Exception {
+    public List<double[]> generateEmbeddings(List<String> texts) {
+        if (isFallbackMode()) {
+            return texts.stream().map(this::generateOptimizedFallbackEmbedding).toList();
+        }
+
+        List<String> keys = texts.stream().map(text -> EmbeddingCache.key(embeddingModel, text)).toList();
+        Map<String, double[]> cached = embeddingCache.getAll(new LinkedHashSet<>(keys));
+
+        Map<String, CompletableFuture<double[]>> pending = new HashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            String key = keys.get(i);
+            if (!cached.containsKey(key) && !pending.containsKey(key)) {
+                pending.put(key, batcher.submit(key, EmbeddingCache.normalize(texts.get(i))));
+            }
+        }
+
+        List<double[]> embeddings = new ArrayList<>(texts.size());
+        for (int i = 0; i < texts.size(); i++) {
+            String key = keys.get(i);
+            double[] embedding = cached.get(key);
+            if (embedding == null) {
+                try {
+                    embedding = pending.get(key).get(30, TimeUnit.SECONDS);
+                    embeddingCache.put(key, embedding);
+                    cached.put(key, embedding);
+                } catch (Exception e) {
+                    log.warn("🔄 Fallback to optimized embedding: {}", e.getMessage());
+                    embedding = generateOptimizedFallbackEmbedding(texts.get(i));
+                }
+            }
+            embeddings.add(embedding);
+        }
+        return embeddings;
+    }
+
+    /**
+     * Cache and batching statistics, counted separately because they save different things:
+     * textsServedFromCache never reach the provider at all, while providerBatchesAvoided counts the
+     * provider calls that coalescing and batching saved over one call per cache miss
+     */
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(embeddingCache.getStats());
+        stats.put("mode", isFallbackMode() ? "fallback" : "provider");
+        if (batcher != null) {
+            stats.put("textsServedFromCache", ((Number) stats.get("localHits")).longValue()
+                    + ((Number) stats.get("redisHits")).longValue());
+            stats.put("textsSubmitted", batcher.getTextsSubmitted());
+            stats.put("textsCoalesced", batcher.getTextsCoalesced());
+            stats.put("textsSentToProvider", batcher.getTextsSent());
+            stats.put("providerCalls", batcher.getProviderCalls());
+            stats.put("providerBatchesAvoided", Math.max(0, batcher.getTextsSubmitted() - batcher.getProviderCalls()));
+        }
+        return stats;
+    }
+
+    private boolean isFallbackMode() {
+        return "fallback".equals(embeddingMode) || embeddingApiKey == null || embeddingApiKey.trim().isEmpty();
+    }
+
+    /**
+     * Generate real embeddings using external API (when configured), one request per batch
+     */
+    private List<double[]> generateRealEmbeddings(List<String> texts) {
         Map<String, Object> requestBody = Map.of(
                 "model", embeddingModel,
-                "input", text.trim()
+                "input", texts
         );
 
         Map<String, Object> response = embeddingWebClient.post()
@@ -92,18 +185,25 @@ public class EmbeddingService {
         @SuppressWarnings("unchecked")
         List<Map<String, Object>> data = (List<Map<String, Object>>) response.get("data");
 
-        if (data == null || data.isEmpty()) {
-            throw new RuntimeException("No embedding data in response");
+        if (data == null || data.size() != texts.size()) {
+            throw new RuntimeException("Expected " + texts.size() + " embeddings in response, got "
+                    + (data == null ? 0 : data.size()));
         }
 
-        @SuppressWarnings("unchecked")
-        List<Double> embeddingList = (List<Double>) data.get(0).get("embedding");
+        double[][] embeddings = new double[texts.size()][];
+        for (int i = 0; i < data.size(); i++) {
+            Map<String, Object> item = data.get(i);
+            int index = item.get("index") instanceof Number number ? number.intValue() : i;
 
-        if (embeddingList == null || embeddingList.size() != EMBEDDING_DIMENSION) {
-            throw new RuntimeException("Invalid embedding dimension");
-        }
+            @SuppressWarnings("unchecked")
+            List<Number> embeddingList = (List<Number>) item.get("embedding");
 
-        return embeddingList.stream().mapToDouble(Double::doubleValue).toArray();
+            if (embeddingList == null || embeddingList.size() != EMBEDDING_DIMENSION) {
+                throw new RuntimeException("Invalid embedding dimension");
+            }
+            embeddings[index] = embeddingList.stream().mapToDouble(Number::doubleValue).toArray();
+        }
+        return Arrays.asList(embeddings);
     }
 
     /**
@@ -2,6 +2,9 @@ package com.example.taskmanagement_backend.agent.service;
 
 import com.example.taskmanagement_backend.agent.dto.ModerationResult;
 import com.example.taskmanagement_backend.agent.exception.AgentException;
+import com.example.taskmanagement_backend.agent.moderation.ModerationAutomaton;
+import com.example.taskmanagement_backend.agent.moderation.ModerationCategory;
+import com.example.taskmanagement_backend.agent.moderation.ModerationLexicon;
 import com.example.taskmanagement_backend.agent.moderation.ToxicFilter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -9,6 +12,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 /**
  * Enhanced Moderation Service - Rule-based ONLY (No AI/Gemini dependencies)
@@ -19,11 +23,15 @@ import java.util.*;
 @Service
 public class EnhancedModerationService {
 
+    private static final Pattern REPEATED_CHARS = Pattern.compile("(..)\\1{3,}");
+
     private final ToxicFilter toxicFilter;
+    private final ModerationLexicon lexicon;
 
     // Constructor - REMOVED WebClient dependency
-    public EnhancedModerationService(ToxicFilter toxicFilter) {
+    public EnhancedModerationService(ToxicFilter toxicFilter, ModerationLexicon lexicon) {
         this.toxicFilter = toxicFilter;
+        this.lexicon = lexicon;
     }
 
     // Business threats patterns (specific to platform)
@@ -38,21 +46,28 @@ public class EnhancedModerationService {
         try {
             log.debug("Moderating content for user: {} with context: {}", userId, context);
 
+            if (content == null || content.trim().isEmpty()) {
+                return toxicFilter.checkToxicity(content, context);
+            }
+
+            // Scan một lần cho tất cả các layer (keyword lists của mọi category)
+            ModerationAutomaton.Matches matches = lexicon.scan(content);
+
             // Layer 1: Enhanced ToxicFilter check (includes data theft, injection, spam)
-            ModerationResult toxicFilterResult = toxicFilter.checkToxicity(content, context);
+            ModerationResult toxicFilterResult = toxicFilter.checkToxicity(content, matches);
             if (!toxicFilterResult.isSafe()) {
                 log.warn("Content blocked by ToxicFilter: {}", toxicFilterResult.getReason());
                 return toxicFilterResult;
             }
 
             // Layer 2: Business logic moderation
-            ModerationResult businessResult = performBusinessLogicModeration(content, userId);
+            ModerationResult businessResult = performBusinessLogicModeration(matches, userId);
             if (!businessResult.isSafe()) {
                 return businessResult;
             }
 
             // Layer 3: Spam pattern check (rule-based)
-            ModerationResult spamResult = checkSpamPatterns(content);
+            ModerationResult spamResult = checkSpamPatterns(content, matches);
             if (!spamResult.isSafe()) {
                 return spamResult;
             }
@@ -122,21 +137,21 @@ public class EnhancedModerationService {
     /**
      * Business logic moderation
      */
-    private ModerationResult performBusinessLogicModeration(String content, String userId) {
+    private ModerationResult performBusinessLogicModeration(ModerationAutomaton.Matches matches, String userId) {
         List<String> businessFlags = new ArrayList<>();
 
         // Check for competitor mentions
-        if (containsCompetitorMentions(content)) {
+        if (matches.has(ModerationCategory.COMPETITOR)) {
             businessFlags.add("COMPETITOR_MENTION");
         }
 
         // Check for sensitive business terms
-        if (containsSensitiveBusinessTerms(content)) {
+        if (matches.has(ModerationCategory.SENSITIVE_BUSINESS)) {
             businessFlags.add("SENSITIVE_BUSINESS");
         }
 
         // Check for potential data requests
-        if (containsDataRequests(content)) {
+        if (matches.has(ModerationCategory.DATA_REQUEST)) {
             businessFlags.add("DATA_REQUEST");
         }
 
@@ -162,11 +177,11 @@ public class EnhancedModerationService {
     /**
      * Check spam patterns với enhanced detection
      */
-    private ModerationResult checkSpamPatterns(String content) {
+    private ModerationResult checkSpamPatterns(String content, ModerationAutomaton.Matches matches) {
         List<String> spamIndicators = new ArrayList<>();
 
         // Repeated characters
-        if (content.matches(".*(..)\\1{3,}.*")) {
+        if (REPEATED_CHARS.matcher(content).find()) {
             spamIndicators.add("REPEATED_CHARS");
         }
 
@@ -189,7 +204,7 @@ public class EnhancedModerationService {
         }
 
         // URL patterns without context
-        if (content.matches(".*https?://.*") && content.length() < 50) {
+        if (content.length() < 50 && matches.has(ModerationCategory.URL)) {
             spamIndicators.add("SUSPICIOUS_URL");
         }
 
@@ -230,29 +245,6 @@ public class EnhancedModerationService {
                (content.contains("?") && content.split("\\?").length > 3);
     }
 
-    private boolean containsCompetitorMentions(String content) {
-        String lower = content.toLowerCase();
-        return lower.contains("competitor") ||
-               lower.contains("rival") ||
-               lower.contains("alternative platform");
-    }
-
-    private boolean containsSensitiveBusinessTerms(String content) {
-        String lower = content.toLowerCase();
-        return lower.contains("pricing") ||
-               lower.contains("revenue") ||
-               lower.contains("business model") ||
-               lower.contains("internal");
-    }
-
-    private boolean containsDataRequests(String content) {
-        String lower = content.toLowerCase();
-        return lower.contains("export data") ||
-               lower.contains("download all") ||
-               lower.contains("bulk data") ||
-               lower.contains("database");
-    }
-
     private ModerationResult combineResults(List<ModerationResult> results) {
         // Find the most restrictive result
         ModerationResult mostRestrictive = results.stream()
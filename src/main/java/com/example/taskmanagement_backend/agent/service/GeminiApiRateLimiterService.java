@@ -1,46 +1,127 @@
 package com.example.taskmanagement_backend.agent.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.time.LocalDateTime;
+import java.time.Duration;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
 /**
  * Centralized service to handle Gemini API rate limiting across all application services
  * This prevents different services from competing for the same rate limit quota
+ *
+ * - Token bucket (burst + requests per minute), acquired asynchronously: callers get a
+ *   future instead of holding a lock or sleeping
+ * - Per-user fairness: waiters are queued per user and served round-robin, so one
+ *   chatty user cannot starve the others
+ * - Cluster-wide quota: every grant also takes a token from a bucket in Redis shared by
+ *   all instances (fails open to the local bucket when Redis is unavailable). Tokens are
+ *   leased in batches sized to the waiters that can be served, and the Redis call runs off
+ *   the dispatcher thread, which keeps granting from already leased tokens meanwhile
+ * - 429-aware: a 429 halves the rate and pauses all instances with exponential backoff;
+ *   successes raise the rate again step by step (AIMD)
+ * - Callers whose estimated wait exceeds their timeout are rejected immediately
+ *
+ * All limiter state is confined to one dispatcher thread, which never blocks on Redis: cluster token
+ * leases and backoff publishing run on the completion executor.
  */
 @Slf4j
 @Service
 public class GeminiApiRateLimiterService {
 
-    // Shared rate limiter
-    private final Semaphore rateLimiter;
-    private final ScheduledExecutorService scheduledExecutor;
+    private static final String SHARED_KEY = "system";
+    private static final String CLUSTER_BUCKET_KEY = "taskmanagement:gemini:rate-limit:bucket";
+    private static final String CLUSTER_BACKOFF_KEY = "taskmanagement:gemini:rate-limit:backoff";
 
-    // Rate limit tracking
-    private final AtomicInteger consecutiveFailures = new AtomicInteger(0);
-    private final AtomicLong lastApiCallTime = new AtomicLong(0);
-    private final Object apiCallLock = new Object();
+    // Constants
+    private static final int BACKOFF_PERIOD_MS = 30_000; // 30 seconds base backoff
+    private static final int MAX_BACKOFF_EXPONENT = 5; // 2^5 = 32x multiplier max
+
+    // KEYS[1] = bucket hash, KEYS[2] = backoff key;
+    // ARGV[1] = capacity, ARGV[2] = tokens per ms, ARGV[3] = now ms, ARGV[4] = tokens wanted
+    // Returns {tokens taken, ms until one may be available when none was taken}
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_TOKENS_SCRIPT = new DefaultRedisScript<>(
+            "local backoff = redis.call('PTTL', KEYS[2]) " +
+            "if backoff > 0 then return {0, backoff} end " +
+            "local capacity = tonumber(ARGV[1]) " +
+            "local rate = tonumber(ARGV[2]) " +
+            "local now = tonumber(ARGV[3]) " +
+            "local tokens = tonumber(redis.call('HGET', KEYS[1], 'tokens') or ARGV[1]) " +
+            "local last = tonumber(redis.call('HGET', KEYS[1], 'ts') or ARGV[3]) " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - last) * rate) " +
+            "local taken = math.min(tonumber(ARGV[4]), math.floor(tokens)) " +
+            "local wait = 0 " +
+            "if taken >= 1 then tokens = tokens - taken else taken = 0 wait = math.ceil((1 - tokens) / rate) end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(math.max(now, last))) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate) + 60000) " +
+            "return {taken, wait}", List.class);
+
+    private final StringRedisTemplate redisTemplate;
 
     // API configuration
     @Value("${gemini.api.requests.per.minute:10}")
     private int requestsPerMinute;
 
-    // Constants
-    private static final int DEFAULT_MAX_PERMITS = 5;
-    private static final int MIN_DELAY_BETWEEN_CALLS_MS = 1000; // 1 second
-    private static final int BACKOFF_PERIOD_MS = 30_000; // 30 seconds base backoff
-    private static final int MAX_BACKOFF_EXPONENT = 5; // 2^5 = 32x multiplier max
+    @Value("${gemini.api.rate-limit.burst:5}")
+    private int burst;
 
-    public GeminiApiRateLimiterService() {
-        this.rateLimiter = new Semaphore(DEFAULT_MAX_PERMITS);
-        this.scheduledExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+    @Value("${gemini.api.rate-limit.min-requests-per-minute:2}")
+    private int minRequestsPerMinute;
+
+    @Value("${gemini.api.rate-limit.cluster.enabled:true}")
+    private boolean clusterEnabled;
+
+    private final ScheduledExecutorService dispatcher;
+    private final LongSupplier ticker;
+    // Futures are completed off the dispatcher so caller continuations never run on it
+    private final ExecutorService completionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Dispatcher-confined state
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private int consecutiveFailures;
+    private ScheduledFuture<?> scheduledDrain;
+    private long scheduledDrainAtNanos;
+    private int clusterTokens; // leased from the cluster bucket, not granted yet
+    private boolean clusterLeasePending;
+    private final Map<String, ArrayDeque<Waiter>> waitersByUser = new HashMap<>();
+    private final ArrayDeque<String> rotation = new ArrayDeque<>();
+
+    // Metrics
+    private volatile double currentRatePerMinute;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicLong granted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong rateLimitEvents = new AtomicLong();
+    private final AtomicLong clusterWaits = new AtomicLong();
+    private final AtomicLong clusterErrors = new AtomicLong();
+
+    @Autowired
+    public GeminiApiRateLimiterService(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, System::nanoTime);
+    }
+
+    /**
+     * @param ticker nanosecond time source of the token bucket, replaceable in tests
+     */
+    GeminiApiRateLimiterService(StringRedisTemplate redisTemplate, LongSupplier ticker) {
+        this.redisTemplate = redisTemplate;
+        this.ticker = ticker;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "gemini-rate-limiter-thread");
             t.setDaemon(true);
             return t;
@@ -49,23 +130,24 @@ public class GeminiApiRateLimiterService {
 
     @PostConstruct
     public void init() {
-        // Calculate replenishment interval (ensure minimum of 1 request per minute)
-        int replenishIntervalMs = 60_000 / Math.max(1, requestsPerMinute);
-
-        // Schedule token replenishment
-        scheduledExecutor.scheduleAtFixedRate(() -> {
-            if (rateLimiter.availablePermits() < requestsPerMinute) {
-                rateLimiter.release(1);
-                log.debug("Gemini API rate limit token replenished. Available permits: {}", rateLimiter.availablePermits());
-            }
-        }, replenishIntervalMs, replenishIntervalMs, TimeUnit.MILLISECONDS);
+        requestsPerMinute = Math.max(1, requestsPerMinute);
+        burst = Math.max(1, burst);
+        minRequestsPerMinute = Math.max(1, Math.min(minRequestsPerMinute, requestsPerMinute));
+        currentRatePerMinute = requestsPerMinute;
+        dispatcher.execute(() -> {
+            tokens = burst;
+            lastRefillNanos = ticker.getAsLong();
+            pausedUntilNanos = lastRefillNanos;
+        });
 
-        log.info("Centralized Gemini API rate limiter initialized with {} requests/minute", requestsPerMinute);
+        log.info("Centralized Gemini API rate limiter initialized with {} requests/minute, burst {}, cluster {}",
+            requestsPerMinute, burst, isClusterShared() ? "shared via Redis" : "local only");
     }
 
     @PreDestroy
     public void shutdown() {
-        scheduledExecutor.shutdownNow();
+        dispatcher.shutdownNow();
+        completionExecutor.shutdownNow();
     }
 
     /**
@@ -74,76 +156,346 @@ public class GeminiApiRateLimiterService {
      * @return True if permission granted, false if rate limited
      */
     public boolean acquirePermit(int timeoutSeconds) {
-        try {
-            // First check if we should implement backoff due to consecutive failures
-            synchronized (apiCallLock) {
-                int failures = consecutiveFailures.get();
-                if (failures > 0) {
-                    long now = System.currentTimeMillis();
-                    long lastFailure = lastApiCallTime.get();
-
-                    // Calculate exponential backoff time
-                    long backoffMs = BACKOFF_PERIOD_MS * (1L << Math.min(failures - 1, MAX_BACKOFF_EXPONENT));
-
-                    // If we're still in backoff period, deny the request
-                    if ((now - lastFailure) < backoffMs) {
-                        log.warn("In exponential backoff period ({}ms) due to previous 429 errors. Denying API call.", backoffMs);
-                        return false;
-                    }
-                }
-
-                // Now enforce minimum delay between calls
-                long now = System.currentTimeMillis();
-                long lastCall = lastApiCallTime.get();
-                long timeSinceLastCall = now - lastCall;
-
-                if (lastCall > 0 && timeSinceLastCall < MIN_DELAY_BETWEEN_CALLS_MS) {
-                    long waitTime = MIN_DELAY_BETWEEN_CALLS_MS - timeSinceLastCall;
-                    log.info("Enforcing minimum delay between Gemini API calls: waiting {}ms", waitTime);
-                    Thread.sleep(waitTime);
-                }
+        return acquirePermit(SHARED_KEY, timeoutSeconds);
+    }
 
-                // Try to acquire a permit from the rate limiter
-                if (rateLimiter.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
-                    // Record the time of this API call
-                    lastApiCallTime.set(System.currentTimeMillis());
-                    return true;
-                } else {
-                    log.warn("Failed to acquire Gemini API permit within {} seconds", timeoutSeconds);
-                    return false;
-                }
-            }
+    /**
+     * Blocking variant of {@link #acquireAsync} for synchronous callers
+     */
+    public boolean acquirePermit(String userKey, int timeoutSeconds) {
+        try {
+            return acquireAsync(userKey, Duration.ofSeconds(timeoutSeconds)).get();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             log.error("Interrupted while waiting for rate limit permit", e);
             return false;
+        } catch (ExecutionException e) {
+            log.error("Error while waiting for rate limit permit", e);
+            return false;
+        }
+    }
+
+    /**
+     * Request a permit for {@code userKey}. Completes with true when granted, false when the
+     * permit could not be granted within {@code timeout} (possibly immediately).
+     */
+    public CompletableFuture<Boolean> acquireAsync(String userKey, Duration timeout) {
+        Waiter waiter = new Waiter(userKey != null ? userKey : SHARED_KEY, ticker.getAsLong() + timeout.toNanos());
+        try {
+            dispatcher.execute(() -> enqueue(waiter));
+            waiter.timeoutTask = dispatcher.schedule(() -> expire(waiter), timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            waiter.future.complete(false);
         }
+        return waiter.future;
     }
 
     /**
      * Report successful API call to reset failure tracking
      */
     public void reportSuccess() {
-        consecutiveFailures.set(0);
+        execute(() -> {
+            consecutiveFailures = 0;
+            if (currentRatePerMinute < requestsPerMinute) {
+                refill();
+                // Additive increase back towards the configured rate
+                currentRatePerMinute = Math.min(requestsPerMinute, currentRatePerMinute + Math.max(1.0, requestsPerMinute / 10.0));
+            }
+        });
     }
 
     /**
      * Report a 429 Too Many Requests error to implement exponential backoff
      */
     public void reportRateLimitExceeded() {
-        int failures = consecutiveFailures.incrementAndGet();
-        lastApiCallTime.set(System.currentTimeMillis());
+        rateLimitEvents.incrementAndGet();
+        execute(() -> {
+            refill();
+            consecutiveFailures++;
+            long backoffMs = BACKOFF_PERIOD_MS * (1L << Math.min(consecutiveFailures - 1, MAX_BACKOFF_EXPONENT));
+
+            // Multiplicative decrease, empty bucket, pause this node and the cluster
+            currentRatePerMinute = Math.max(minRequestsPerMinute, currentRatePerMinute / 2);
+            tokens = 0;
+            clusterTokens = 0;
+            pausedUntilNanos = ticker.getAsLong() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+            publishClusterBackoff(backoffMs);
 
-        // Calculate backoff period
-        long backoffMs = BACKOFF_PERIOD_MS * (1L << Math.min(failures - 1, MAX_BACKOFF_EXPONENT));
-        log.warn("Gemini API rate limit exceeded. Implementing exponential backoff of {}ms (consecutive failures: {})",
-                 backoffMs, failures);
+            log.warn("Gemini API rate limit exceeded. Backing off {}ms, rate now {}/min (consecutive failures: {})",
+                backoffMs, String.format("%.1f", currentRatePerMinute), consecutiveFailures);
+            drain();
+        });
     }
 
     /**
-     * Release a permit (rarely needed as scheduler handles replenishment)
+     * Release a permit (rarely needed as the bucket refills on its own)
      */
     public void releasePermit() {
-        rateLimiter.release();
+        execute(() -> {
+            refill();
+            tokens = Math.min(burst, tokens + 1);
+            drain();
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("configuredRequestsPerMinute", requestsPerMinute);
+        stats.put("currentRequestsPerMinute", Math.round(currentRatePerMinute * 10) / 10.0);
+        stats.put("burst", burst);
+        stats.put("clusterShared", isClusterShared());
+        stats.put("waiting", waiting.get());
+        stats.put("granted", granted.get());
+        stats.put("rejectedImmediately", rejected.get());
+        stats.put("timedOut", timedOut.get());
+        stats.put("rateLimitEvents", rateLimitEvents.get());
+        stats.put("clusterWaits", clusterWaits.get());
+        stats.put("clusterErrors", clusterErrors.get());
+        return stats;
+    }
+
+    // ======================== Dispatcher thread ========================
+
+    private void enqueue(Waiter waiter) {
+        refill();
+        long now = ticker.getAsLong();
+
+        // Fail fast when the permit cannot possibly arrive before the caller gives up
+        if (estimatedWaitNanos(waiter.userKey, now) > waiter.deadlineNanos - now) {
+            rejected.incrementAndGet();
+            settle(waiter, false);
+            return;
+        }
+
+        ArrayDeque<Waiter> queue = waitersByUser.computeIfAbsent(waiter.userKey, k -> new ArrayDeque<>());
+        if (queue.isEmpty()) {
+            rotation.addLast(waiter.userKey);
+        }
+        queue.addLast(waiter);
+        waiting.incrementAndGet();
+        drain();
+    }
+
+    private void expire(Waiter waiter) {
+        if (!waiter.settled) {
+            waiting.decrementAndGet();
+            timedOut.incrementAndGet();
+            settle(waiter, false);
+            // Removed lazily from its queue by nextWaiter()
+        }
+    }
+
+    /**
+     * Grant tokens to waiting users round-robin; reschedules itself for when the next token is due
+     */
+    private void drain() {
+        refill();
+        while (true) {
+            Waiter waiter = nextWaiter();
+            if (waiter == null) {
+                return;
+            }
+
+            long now = ticker.getAsLong();
+            if (pausedUntilNanos - now > 0) {
+                scheduleDrain(pausedUntilNanos - now);
+                return;
+            }
+            if (tokens < 1) {
+                scheduleDrain(nanosUntilNextToken());
+                return;
+            }
+            if (isClusterShared()) {
+                if (clusterTokens < 1) {
+                    leaseClusterTokens();
+                    return;
+                }
+                clusterTokens -= 1;
+            }
+
+            tokens -= 1;
+            popWaiter(waiter.userKey);
+            waiting.decrementAndGet();
+            granted.incrementAndGet();
+            if (waiter.timeoutTask != null) {
+                waiter.timeoutTask.cancel(false);
+            }
+            settle(waiter, true);
+        }
+    }
+
+    /**
+     * Head waiter of the next user in rotation, dropping settled (timed out) waiters
+     */
+    private Waiter nextWaiter() {
+        while (!rotation.isEmpty()) {
+            String userKey = rotation.peekFirst();
+            ArrayDeque<Waiter> queue = waitersByUser.get(userKey);
+            while (queue != null && !queue.isEmpty() && queue.peekFirst().settled) {
+                queue.pollFirst();
+            }
+            if (queue == null || queue.isEmpty()) {
+                rotation.pollFirst();
+                waitersByUser.remove(userKey);
+                continue;
+            }
+            return queue.peekFirst();
+        }
+        return null;
+    }
+
+    private void popWaiter(String userKey) {
+        ArrayDeque<Waiter> queue = waitersByUser.get(userKey);
+        queue.pollFirst();
+        rotation.pollFirst();
+        if (queue.isEmpty()) {
+            waitersByUser.remove(userKey);
+        } else {
+            rotation.addLast(userKey); // next turn goes to the next user
+        }
+    }
+
+    private void settle(Waiter waiter, boolean permitted) {
+        waiter.settled = true;
+        completionExecutor.execute(() -> waiter.future.complete(permitted));
+    }
+
+    private void refill() {
+        long now = ticker.getAsLong();
+        double perNano = currentRatePerMinute / TimeUnit.MINUTES.toNanos(1);
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * perNano);
+        lastRefillNanos = now;
+    }
+
+    private long nanosUntilNextToken() {
+        double perNano = currentRatePerMinute / TimeUnit.MINUTES.toNanos(1);
+        return Math.max(1_000_000L, (long) Math.ceil((1 - tokens) / perNano));
+    }
+
+    /**
+     * Round-robin position of a new waiter: every user ahead gets at most as many turns as
+     * this user already has queued (+1), then bucket refill rate decides the wait
+     */
+    private long estimatedWaitNanos(String userKey, long now) {
+        ArrayDeque<Waiter> own = waitersByUser.get(userKey);
+        int ownQueued = own != null ? own.size() : 0;
+        long ahead = 0;
+        for (Map.Entry<String, ArrayDeque<Waiter>> entry : waitersByUser.entrySet()) {
+            ahead += entry.getKey().equals(userKey) ? ownQueued : Math.min(entry.getValue().size(), ownQueued + 1);
+        }
+
+        double perNano = currentRatePerMinute / TimeUnit.MINUTES.toNanos(1);
+        long refillWait = (long) Math.max(0, (ahead + 1 - tokens) / perNano);
+        return Math.max(pausedUntilNanos - now, 0) + refillWait;
+    }
+
+    private void scheduleDrain(long delayNanos) {
+        long at = ticker.getAsLong() + delayNanos;
+        if (scheduledDrain != null && !scheduledDrain.isDone() && scheduledDrainAtNanos - at <= 0) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        scheduledDrainAtNanos = at;
+        scheduledDrain = dispatcher.schedule(() -> {
+            scheduledDrain = null;
+            drain();
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private boolean isClusterShared() {
+        return clusterEnabled && redisTemplate != null;
+    }
+
+    /**
+     * Lease as many cluster tokens as the local bucket can grant right now, at most one per
+     * waiter, with one Redis call made off the dispatcher; drain resumes when it returns
+     */
+    private void leaseClusterTokens() {
+        if (clusterLeasePending) {
+            return;
+        }
+        clusterLeasePending = true;
+        int wanted = (int) Math.max(1, Math.min(Math.floor(tokens), waiting.get()));
+        double perMs = currentRatePerMinute / 60_000.0;
+        try {
+            completionExecutor.execute(() -> {
+                long[] lease = takeClusterTokens(wanted, perMs);
+                execute(() -> onClusterLease(lease[0], lease[1]));
+            });
+        } catch (RejectedExecutionException e) {
+            clusterLeasePending = false;
+        }
+    }
+
+    private void onClusterLease(long taken, long waitMs) {
+        clusterLeasePending = false;
+        clusterTokens += (int) taken;
+        if (taken == 0 && waitMs > 0) {
+            clusterWaits.incrementAndGet();
+            scheduleDrain(TimeUnit.MILLISECONDS.toNanos(waitMs));
+            return;
+        }
+        drain();
+    }
+
+    /**
+     * Take up to {@code wanted} tokens from the cluster bucket: {taken, ms to wait when none was taken}.
+     * Runs on the completion executor, never on the dispatcher.
+     */
+    private long[] takeClusterTokens(int wanted, double perMs) {
+        try {
+            List<?> result = redisTemplate.execute(TAKE_TOKENS_SCRIPT, List.of(CLUSTER_BUCKET_KEY, CLUSTER_BACKOFF_KEY),
+                String.valueOf(burst), String.valueOf(perMs), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(wanted));
+            if (result == null || result.size() < 2) {
+                return new long[]{wanted, 0};
+            }
+            return new long[]{((Number) result.get(0)).longValue(), ((Number) result.get(1)).longValue()};
+        } catch (Exception e) {
+            clusterErrors.incrementAndGet();
+            log.debug("Cluster rate limit bucket unavailable, using local bucket only: {}", e.getMessage());
+            return new long[]{wanted, 0};
+        }
+    }
+
+    /**
+     * Pause the other instances too. The Redis call runs on the completion executor; this node is
+     * already paused locally, so nothing waits for it.
+     */
+    private void publishClusterBackoff(long backoffMs) {
+        if (!clusterEnabled || redisTemplate == null) {
+            return;
+        }
+        completionExecutor.execute(() -> {
+            try {
+                redisTemplate.opsForValue().set(CLUSTER_BACKOFF_KEY, "429", Duration.ofMillis(backoffMs));
+            } catch (Exception e) {
+                clusterErrors.incrementAndGet();
+                log.debug("Could not publish Gemini backoff to cluster: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.debug("Rate limiter is shut down, ignoring update");
+        }
+    }
+
+    private static final class Waiter {
+        private final String userKey;
+        private final long deadlineNanos;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private volatile ScheduledFuture<?> timeoutTask;
+        private boolean settled;
+
+        private Waiter(String userKey, long deadlineNanos) {
+            this.userKey = userKey;
+            this.deadlineNanos = deadlineNanos;
+        }
     }
 }
@@ -278,7 +278,7 @@ public class IntentDetectionService {
     /**
      * Fallback intent detection (simplified, for emergencies only)
      */
-    private IntentResult fallbackIntentDetection(String userMessage) {
+    public IntentResult fallbackIntentDetection(String userMessage) {
         log.warn("⚠️ Using fallback intent detection for: {}", userMessage);
 
         String lowerMessage = userMessage.toLowerCase().trim();
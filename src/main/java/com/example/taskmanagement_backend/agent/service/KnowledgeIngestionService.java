@@ -0,0 +1,273 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Incremental knowledge-base ingestion.
+ *
+ * A manifest in Redis maps every ingested chunk id to a hash of its title, content and
+ * metadata. Each run only embeds chunks that are new or changed (or missing from this
+ * node's local index), upserts changed chunks to Pinecone in batches, and deletes
+ * vectors of chunks that no longer exist. An unchanged docs tree costs no embedding
+ * and no Pinecone call.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class KnowledgeIngestionService {
+
+    private static final String MANIFEST_KEY = "taskmanagement:rag:ingestion:manifest";
+    // Hidden local index metadata marking chunks owned by ingestion (RAGService strips "_" keys)
+    private static final String INGESTED_KEY = "_ingested";
+    // Metadata that changes on every run and must not mark a chunk as changed
+    private static final Set<String> VOLATILE_METADATA = Set.of("processedAt");
+
+    private final RAGService ragService;
+    private final EmbeddingService embeddingService;
+    private final PineconeService pineconeService;
+    private final StringRedisTemplate redisTemplate;
+    private final SemanticResponseCache semanticResponseCache;
+
+    @Value("${ai.rag.ingestion.embedding-batch-size:64}")
+    private int embeddingBatchSize;
+
+    @Value("${ai.rag.ingestion.upsert-batch-size:50}")
+    private int upsertBatchSize;
+
+    @Value("${ai.rag.ingestion.pinecone-timeout-seconds:30}")
+    private long pineconeTimeoutSeconds;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile Map<String, Object> lastRun = Map.of("status", "never");
+
+    /**
+     * Bring the local index and Pinecone in line with {@code documents} (chunk id -> content)
+     */
+    public void ingest(Map<String, RAGService.DocumentContent> documents) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("⏭️ Knowledge ingestion already running, skipping");
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        try {
+            // Without Pinecone only this node's local index is kept in sync
+            boolean syncPinecone = pineconeService.isConfigured();
+            Map<String, String> manifest = syncPinecone ? readManifest() : Map.of();
+            Map<String, String> hashes = new HashMap<>();
+            List<String> changed = new ArrayList<>();
+            List<String> toEmbed = new ArrayList<>();
+
+            for (Map.Entry<String, RAGService.DocumentContent> entry : documents.entrySet()) {
+                String id = entry.getKey();
+                String hash = hash(entry.getValue());
+                hashes.put(id, hash);
+
+                boolean pineconeStale = syncPinecone && !hash.equals(manifest.get(id));
+                boolean localStale = !ragService.isIndexedLocally(id, entry.getValue().getContent());
+                if (pineconeStale) {
+                    changed.add(id);
+                }
+                if (pineconeStale || localStale) {
+                    toEmbed.add(id);
+                }
+            }
+
+            List<String> removed = manifest.keySet().stream()
+                .filter(id -> !documents.containsKey(id))
+                .toList();
+            List<String> removedLocally = ragService.findLocalIds(Map.of(INGESTED_KEY, "true")).stream()
+                .filter(id -> !documents.containsKey(id))
+                .toList();
+            removedLocally.forEach(ragService::removeLocally);
+
+            int upserted = embedAndStore(toEmbed, new HashSet<>(changed), documents, hashes);
+            int deleted = deleteRemoved(removed);
+
+            // Cached answers may quote knowledge that just changed
+            if (!toEmbed.isEmpty() || !removed.isEmpty() || !removedLocally.isEmpty()) {
+                semanticResponseCache.invalidateAll("knowledge base changed");
+            }
+
+            long durationMs = System.currentTimeMillis() - startTime;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("status", "completed");
+            stats.put("finishedAt", LocalDateTime.now().toString());
+            stats.put("durationMs", durationMs);
+            stats.put("chunks", documents.size());
+            stats.put("unchanged", documents.size() - toEmbed.size());
+            stats.put("embedded", toEmbed.size());
+            stats.put("upserted", upserted);
+            stats.put("deleted", deleted);
+            lastRun = stats;
+
+            log.info("✅ Knowledge ingestion: {} chunks, {} unchanged, {} embedded, {} upserted, {} deleted in {} ms",
+                documents.size(), documents.size() - toEmbed.size(), toEmbed.size(), upserted, deleted, durationMs);
+
+        } catch (Exception e) {
+            lastRun = Map.of("status", "failed", "finishedAt", LocalDateTime.now().toString(),
+                "error", String.valueOf(e.getMessage()));
+            log.error("❌ Knowledge ingestion failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Map<String, Object> getLastRun() {
+        Map<String, Object> stats = new LinkedHashMap<>(lastRun);
+        stats.put("running", running.get());
+        return stats;
+    }
+
+    /**
+     * Embed in batches; every chunk goes to the local index, changed chunks are also
+     * upserted to Pinecone. Returns the number of vectors upserted.
+     */
+    private int embedAndStore(List<String> ids, Set<String> changed,
+                              Map<String, RAGService.DocumentContent> documents, Map<String, String> hashes) {
+        int upserted = 0;
+        List<Map<String, Object>> pendingVectors = new ArrayList<>();
+        Map<String, String> pendingManifest = new HashMap<>();
+
+        for (int start = 0; start < ids.size(); start += embeddingBatchSize) {
+            List<String> batch = ids.subList(start, Math.min(start + embeddingBatchSize, ids.size()));
+            List<double[]> embeddings = embeddingService.generateEmbeddings(
+                batch.stream().map(id -> documents.get(id).getContent()).toList());
+
+            for (int i = 0; i < batch.size(); i++) {
+                String id = batch.get(i);
+                RAGService.DocumentContent content = documents.get(id);
+                Map<String, Object> metadata = new HashMap<>();
+                if (content.getMetadata() != null) {
+                    metadata.putAll(content.getMetadata());
+                }
+                metadata.put(INGESTED_KEY, "true");
+
+                RAGService.KnowledgeDocument doc = RAGService.KnowledgeDocument.builder()
+                    .id(id)
+                    .title(content.getTitle())
+                    .content(content.getContent())
+                    .metadata(metadata)
+                    .embedding(embeddings.get(i))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+
+                ragService.indexLocally(doc);
+
+                if (changed.contains(id)) {
+                    pendingVectors.add(ragService.toPineconeVector(doc));
+                    pendingManifest.put(id, hashes.get(id));
+                    if (pendingVectors.size() >= upsertBatchSize) {
+                        upserted += flushUpserts(pendingVectors, pendingManifest);
+                    }
+                }
+            }
+        }
+
+        if (!pendingVectors.isEmpty()) {
+            upserted += flushUpserts(pendingVectors, pendingManifest);
+        }
+        return upserted;
+    }
+
+    /**
+     * One Pinecone upsert for the pending vectors; the manifest is only updated on success
+     * so failed chunks are retried on the next run
+     */
+    private int flushUpserts(List<Map<String, Object>> vectors, Map<String, String> manifestEntries) {
+        int count = vectors.size();
+        try {
+            Map<String, Object> response = pineconeService.upsertVectors(new ArrayList<>(vectors))
+                .block(Duration.ofSeconds(pineconeTimeoutSeconds));
+            if (response == null || Boolean.FALSE.equals(response.get("success"))) {
+                log.warn("⚠️ Pinecone upsert of {} vectors not applied: {}", count,
+                    response != null ? response.get("error") : "no response");
+                count = 0;
+            } else {
+                writeManifest(manifestEntries);
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Pinecone upsert of {} vectors failed, will retry next run: {}", count, e.getMessage());
+            count = 0;
+        }
+        vectors.clear();
+        manifestEntries.clear();
+        return count;
+    }
+
+    private int deleteRemoved(List<String> removed) {
+        int deleted = 0;
+        for (int start = 0; start < removed.size(); start += upsertBatchSize) {
+            List<String> batch = removed.subList(start, Math.min(start + upsertBatchSize, removed.size()));
+            try {
+                Map<String, Object> response = pineconeService.deleteVectors(new ArrayList<>(batch))
+                    .block(Duration.ofSeconds(pineconeTimeoutSeconds));
+                if (response != null && !Boolean.FALSE.equals(response.get("success"))) {
+                    redisTemplate.opsForHash().delete(MANIFEST_KEY, batch.toArray());
+                    deleted += batch.size();
+                }
+            } catch (Exception e) {
+                log.warn("⚠️ Pinecone delete of {} vectors failed, will retry next run: {}", batch.size(), e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    private Map<String, String> readManifest() {
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(MANIFEST_KEY);
+            Map<String, String> manifest = new HashMap<>();
+            entries.forEach((id, hash) -> manifest.put(id.toString(), hash.toString()));
+            return manifest;
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read ingestion manifest, treating every chunk as changed: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void writeManifest(Map<String, String> entries) {
+        try {
+            redisTemplate.opsForHash().putAll(MANIFEST_KEY, entries);
+        } catch (Exception e) {
+            log.warn("⚠️ Could not update ingestion manifest: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 of title, content and stable metadata (sorted by key)
+     */
+    private static String hash(RAGService.DocumentContent content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, content.getTitle());
+            update(digest, content.getContent());
+            if (content.getMetadata() != null) {
+                new TreeMap<>(content.getMetadata()).forEach((key, value) -> {
+                    if (!VOLATILE_METADATA.contains(key)) {
+                        update(digest, key);
+                        update(digest, String.valueOf(value));
+                    }
+                });
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not hash knowledge chunk", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update((value != null ? value : "").getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
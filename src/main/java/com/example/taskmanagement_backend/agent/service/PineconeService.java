@@ -189,6 +189,10 @@ public class PineconeService {
         }
     }
 
+    public boolean isConfigured() {
+        return isConfigured;
+    }
+
     /**
      * Health check for Pinecone connection
      */
@@ -1,5 +1,7 @@
 package com.example.taskmanagement_backend.agent.service;
 
+import com.example.taskmanagement_backend.agent.retriever.HnswVectorIndex;
+import com.example.taskmanagement_backend.agent.retriever.LocalVectorIndex;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +11,6 @@ import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -22,8 +23,15 @@ import java.util.stream.Collectors;
 @Service
 public class RAGService {
 
+    // Reserved metadata keys of local index entries; other keys are the document's own metadata
+    private static final String TITLE_KEY = "_title";
+    private static final String CONTENT_KEY = "_content";
+    private static final String CREATED_AT_KEY = "_created_at";
+    private static final int BULK_EMBEDDING_BATCH = 64;
+
     private final EmbeddingService embeddingService;
     private final PineconeService pineconeService;
+    private final LocalVectorIndex localVectorIndex;
     // REMOVED: SessionMemoryService dependency to break circular reference
 
     @Value("${ai.rag.similarity.threshold:0.7}")
@@ -32,13 +40,12 @@ public class RAGService {
     @Value("${ai.rag.max.context.documents:5}")
     private int maxContextDocuments;
 
-    // In-memory knowledge base for quick lookup (can be replaced with Redis/DB)
-    private final Map<String, KnowledgeDocument> knowledgeBase = new ConcurrentHashMap<>();
-
     public RAGService(EmbeddingService embeddingService,
-                      PineconeService pineconeService) {
+                      PineconeService pineconeService,
+                      LocalVectorIndex localVectorIndex) {
         this.embeddingService = embeddingService;
         this.pineconeService = pineconeService;
+        this.localVectorIndex = localVectorIndex;
 
         // Initialize with basic knowledge about declining/rejection patterns
         initializeDefaultKnowledge();
@@ -84,17 +91,24 @@ public class RAGService {
 
         } catch (Exception e) {
             log.error("❌ RAG Pipeline error", e);
-            return RAGContext.builder()
-                .relevantDocuments(new ArrayList<>())
-                .conversationContext("")
-                .decliningAnalysis(new DecliningAnalysis(false, "unknown", 0.0))
-                .userMessage(userMessage)
-                .contextQuality(0.0)
-                .retrievalTime(LocalDateTime.now())
-                .build();
+            return emptyContext(userMessage);
         }
     }
 
+    /**
+     * Context without documents or declining signal (RAG unavailable)
+     */
+    public static RAGContext emptyContext(String userMessage) {
+        return RAGContext.builder()
+            .relevantDocuments(new ArrayList<>())
+            .conversationContext("")
+            .decliningAnalysis(new DecliningAnalysis(false, "unknown", 0.0))
+            .userMessage(userMessage)
+            .contextQuality(0.0)
+            .retrievalTime(LocalDateTime.now())
+            .build();
+    }
+
     /**
      * 6. Query vector database (Pinecone) for similar documents
      * Uses cosine similarity with taskflow-documents index
@@ -107,8 +121,8 @@ public class RAGService {
             return pineconeResults;
         }
 
-        // Fallback to in-memory search
-        log.debug("🔄 Fallback to in-memory vector search");
+        // Fallback to local ANN index
+        log.debug("🔄 Fallback to local vector index search");
         return findSimilarDocuments(queryEmbedding, topK);
     }
 
@@ -165,11 +179,11 @@ public class RAGService {
             String title = (String) metadata.get("title");
 
             if (content == null) {
-                // Fallback: try to get from in-memory knowledge base
-                KnowledgeDocument memoryDoc = knowledgeBase.get(id);
-                if (memoryDoc != null) {
-                    content = memoryDoc.getContent();
-                    title = memoryDoc.getTitle();
+                // Fallback: try to get from local vector index
+                Map<String, String> indexed = localVectorIndex.get(id);
+                if (indexed != null) {
+                    content = indexed.get(CONTENT_KEY);
+                    title = indexed.get(TITLE_KEY);
                 }
             }
 
@@ -199,52 +213,13 @@ public class RAGService {
                 return;
             }
 
-            // Prepare sanitized content for metadata
-            String sanitizedContent = sanitizeContentForPinecone(doc.getContent());
-            String sanitizedTitle = sanitizeContentForPinecone(doc.getTitle());
-
-            // Store essential metadata only to avoid size issues
-            Map<String, Object> enhancedMetadata = new HashMap<>();
-            enhancedMetadata.put("title", sanitizedTitle);
-            enhancedMetadata.put("content", sanitizedContent);
-            enhancedMetadata.put("created_at", doc.getCreatedAt().toString());
-            enhancedMetadata.put("doc_type", doc.getMetadata().getOrDefault("type", "knowledge"));
-
-            // Add category if available
-            if (doc.getMetadata().containsKey("category")) {
-                enhancedMetadata.put("category", doc.getMetadata().get("category").toString());
-            }
-
-            // FIXED: Auto-detect vector dimension instead of hardcoding 768
-            List<Double> vectorValues = Arrays.stream(doc.getEmbedding()).boxed().collect(Collectors.toList());
-            int actualDimension = vectorValues.size();
-
-            log.debug("Vector info for {}: dimension={}, expectedDimensions=[768,1024,1536]",
-                doc.getId(), actualDimension);
-
-            // Accept common embedding dimensions (768, 1024, 1536)
-            if (actualDimension != 768 && actualDimension != 1024 && actualDimension != 1536) {
-                log.warn("⚠️ Unusual vector dimension: {} for document: {} (supported: 768, 1024, 1536)",
-                    actualDimension, doc.getId());
-                // Still proceed - let Pinecone validate
-            }
-
-            List<Map<String, Object>> vectors = List.of(
-                Map.of(
-                    "id", doc.getId(),
-                    "values", vectorValues,
-                    "metadata", enhancedMetadata
-                )
-            );
+            List<Map<String, Object>> vectors = List.of(toPineconeVector(doc));
+            int actualDimension = doc.getEmbedding().length;
 
             // 3. Upsert to taskflow-documents index with cosine metric
             pineconeService.upsertVectors(vectors)
                 .doOnSuccess(response -> log.debug("✅ Vector upserted to Pinecone: {} (dim: {})", doc.getId(), actualDimension))
-                .doOnError(error -> {
-                    log.error("❌ Pinecone upsert failed for {} (dim: {}): {}", doc.getId(), actualDimension, error.getMessage());
-                    log.debug("Failed vector details - ID: {}, dimension: {}, metadata keys: {}",
-                        doc.getId(), actualDimension, enhancedMetadata.keySet());
-                })
+                .doOnError(error -> log.error("❌ Pinecone upsert failed for {} (dim: {}): {}", doc.getId(), actualDimension, error.getMessage()))
                 .subscribe();
 
         } catch (Exception e) {
@@ -252,6 +227,47 @@ public class RAGService {
         }
     }
 
+    /**
+     * Pinecone upsert entry (id, values, sanitized metadata) for a document with an embedding
+     */
+    public Map<String, Object> toPineconeVector(KnowledgeDocument doc) {
+        // Prepare sanitized content for metadata
+        String sanitizedContent = sanitizeContentForPinecone(doc.getContent());
+        String sanitizedTitle = sanitizeContentForPinecone(doc.getTitle());
+
+        // Store essential metadata only to avoid size issues
+        Map<String, Object> enhancedMetadata = new HashMap<>();
+        enhancedMetadata.put("title", sanitizedTitle);
+        enhancedMetadata.put("content", sanitizedContent);
+        enhancedMetadata.put("created_at", doc.getCreatedAt().toString());
+        enhancedMetadata.put("doc_type", doc.getMetadata().getOrDefault("type", "knowledge"));
+
+        // Add category if available
+        if (doc.getMetadata().containsKey("category")) {
+            enhancedMetadata.put("category", doc.getMetadata().get("category").toString());
+        }
+
+        // FIXED: Auto-detect vector dimension instead of hardcoding 768
+        List<Double> vectorValues = Arrays.stream(doc.getEmbedding()).boxed().collect(Collectors.toList());
+        int actualDimension = vectorValues.size();
+
+        log.debug("Vector info for {}: dimension={}, expectedDimensions=[768,1024,1536]",
+            doc.getId(), actualDimension);
+
+        // Accept common embedding dimensions (768, 1024, 1536)
+        if (actualDimension != 768 && actualDimension != 1024 && actualDimension != 1536) {
+            log.warn("⚠️ Unusual vector dimension: {} for document: {} (supported: 768, 1024, 1536)",
+                actualDimension, doc.getId());
+            // Still proceed - let Pinecone validate
+        }
+
+        return Map.of(
+            "id", doc.getId(),
+            "values", vectorValues,
+            "metadata", enhancedMetadata
+        );
+    }
+
     /**
      * Sanitize content for Pinecone metadata to avoid special characters and size issues
      */
@@ -315,10 +331,16 @@ public class RAGService {
     }
 
     /**
-     * Store knowledge document in both memory and vector database
+     * Store knowledge document in both the local vector index and Pinecone
      */
     public void storeKnowledge(String id, String title, String content, Map<String, Object> metadata) {
         try {
+            // Already indexed with the same content (e.g. restored from the index snapshot)
+            if (isIndexedLocally(id, content)) {
+                log.debug("📚 Knowledge document already indexed: {}", title);
+                return;
+            }
+
             // Generate embedding
             double[] embedding = embeddingService.generateEmbedding(content);
 
@@ -332,8 +354,8 @@ public class RAGService {
                 .createdAt(LocalDateTime.now())
                 .build();
 
-            // Store in memory
-            knowledgeBase.put(id, doc);
+            // Store in local index (float32/int8, not the double[] embedding)
+            indexLocally(doc);
 
             // Store in Pinecone (async)
             storeInVectorDatabase(doc);
@@ -345,6 +367,34 @@ public class RAGService {
         }
     }
 
+    /**
+     * Whether the local index already holds {@code id} with this content
+     */
+    public boolean isIndexedLocally(String id, String content) {
+        Map<String, String> indexed = localVectorIndex.get(id);
+        return indexed != null && content != null && content.equals(indexed.get(CONTENT_KEY));
+    }
+
+    /**
+     * Add a document with its embedding to the local index only (no Pinecone upsert)
+     */
+    public void indexLocally(KnowledgeDocument doc) {
+        localVectorIndex.add(doc.getId(), HnswVectorIndex.toFloats(doc.getEmbedding()), toIndexMetadata(doc));
+    }
+
+    public void removeLocally(String id) {
+        localVectorIndex.remove(id);
+    }
+
+    /**
+     * Ids of local index entries whose metadata matches {@code filter}
+     */
+    public List<String> findLocalIds(Map<String, String> filter) {
+        return localVectorIndex.find(filter, Integer.MAX_VALUE).stream()
+            .map(HnswVectorIndex.SearchResult::getId)
+            .collect(Collectors.toList());
+    }
+
     /**
      * Retrieve contextual information for general use (backward compatibility)
      */
@@ -365,17 +415,33 @@ public class RAGService {
         log.info("📚 Starting bulk document loading - {} documents", documents.size());
 
         int loaded = 0;
-        for (Map.Entry<String, DocumentContent> entry : documents.entrySet()) {
-            try {
-                DocumentContent doc = entry.getValue();
-                storeKnowledge(entry.getKey(), doc.getTitle(), doc.getContent(), doc.getMetadata());
-                loaded++;
-
-                if (loaded % 10 == 0) {
-                    log.info("📖 Loaded {} documents...", loaded);
+        List<Map.Entry<String, DocumentContent>> entries = new ArrayList<>(documents.entrySet());
+        for (int start = 0; start < entries.size(); start += BULK_EMBEDDING_BATCH) {
+            List<Map.Entry<String, DocumentContent>> chunk =
+                entries.subList(start, Math.min(start + BULK_EMBEDDING_BATCH, entries.size()));
+
+            // Embed the chunk in one batched call; storeKnowledge then reads the embedding cache
+            List<String> contents = chunk.stream()
+                .filter(entry -> !isIndexedLocally(entry.getKey(), entry.getValue().getContent()))
+                .map(entry -> entry.getValue().getContent())
+                .filter(content -> content != null && !content.isBlank())
+                .collect(Collectors.toList());
+            if (!contents.isEmpty()) {
+                embeddingService.generateEmbeddings(contents);
+            }
+
+            for (Map.Entry<String, DocumentContent> entry : chunk) {
+                try {
+                    DocumentContent doc = entry.getValue();
+                    storeKnowledge(entry.getKey(), doc.getTitle(), doc.getContent(), doc.getMetadata());
+                    loaded++;
+
+                    if (loaded % 10 == 0) {
+                        log.info("📖 Loaded {} documents...", loaded);
+                    }
+                } catch (Exception e) {
+                    log.warn("❌ Failed to load document: {}", entry.getKey(), e);
                 }
-            } catch (Exception e) {
-                log.warn("❌ Failed to load document: {}", entry.getKey(), e);
             }
         }
 
@@ -386,11 +452,8 @@ public class RAGService {
      * Search documents by category for quick access
      */
     public List<KnowledgeDocument> searchByCategory(String category, int maxResults) {
-        return knowledgeBase.values().stream()
-            .filter(doc -> {
-                Object categoryMeta = doc.getMetadata().get("category");
-                return categoryMeta != null && categoryMeta.toString().equalsIgnoreCase(category);
-            })
+        return localVectorIndex.find(Map.of("category", category), Integer.MAX_VALUE).stream()
+            .map(entry -> toKnowledgeDocument(entry, 0.0))
             .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
             .limit(maxResults)
             .collect(Collectors.toList());
@@ -400,20 +463,37 @@ public class RAGService {
      * Get knowledge base statistics
      */
     public Map<String, Object> getKnowledgeBaseStats() {
-        Map<String, Long> categoryStats = knowledgeBase.values().stream()
+        Map<String, Long> categoryStats = localVectorIndex.find(null, Integer.MAX_VALUE).stream()
             .collect(Collectors.groupingBy(
-                doc -> doc.getMetadata().getOrDefault("category", "unknown").toString(),
+                entry -> entry.getMetadata().getOrDefault("category", "unknown"),
                 Collectors.counting()
             ));
 
         return Map.of(
-            "totalDocuments", knowledgeBase.size(),
+            "totalDocuments", localVectorIndex.size(),
             "categoryCounts", categoryStats,
+            "localIndex", localVectorIndex.getStats(),
+            "embeddingCache", embeddingService.getCacheStats(),
             "lastUpdated", LocalDateTime.now().toString(),
             "systemStatus", "operational"
         );
     }
 
+    /**
+     * Recall and latency of the local ANN index against a brute-force scan
+     */
+    public HnswVectorIndex.BenchmarkResult benchmarkLocalIndex(int queries, int k) {
+        return localVectorIndex.benchmark(queries, k);
+    }
+
+    /**
+     * Whether the message alone can be a decline; when false the declining analysis is always negative,
+     * so callers may start work that a declining turn would not need without waiting for the context
+     */
+    public static boolean canBeDeclining(String userMessage) {
+        return userMessage != null && userMessage.toLowerCase().trim().equals("không");
+    }
+
     /**
      * Analyze declining patterns in user message - IMPROVED: Let AI model decide instead of hard-coding
      */
@@ -432,7 +512,7 @@ public class RAGService {
             // Check if user explicitly declined a previous suggestion
             if (lowerContext.contains("ai: tôi có thể giúp") &&
                 lowerContext.contains("user: không") &&
-                userMessage.toLowerCase().trim().equals("không")) {
+                canBeDeclining(userMessage)) {
                 isDeclining = true;
                 declineType = "context_decline";
                 confidence = 0.8;
@@ -449,21 +529,51 @@ public class RAGService {
     }
 
     /**
-     * Find similar documents using embedding similarity
+     * Find similar documents using the local ANN index (cosine similarity)
      */
     private List<KnowledgeDocument> findSimilarDocuments(double[] queryEmbedding, int maxResults) {
-        return knowledgeBase.values().stream()
-            .map(doc -> {
-                double similarity = embeddingService.calculateSimilarity(queryEmbedding, doc.getEmbedding());
-                doc.setSimilarityScore(similarity);
-                return doc;
-            })
-            .filter(doc -> doc.getSimilarityScore() > similarityThreshold)
-            .sorted((a, b) -> Double.compare(b.getSimilarityScore(), a.getSimilarityScore()))
-            .limit(maxResults)
+        return localVectorIndex.search(HnswVectorIndex.toFloats(queryEmbedding), maxResults, null).stream()
+            .filter(result -> result.getScore() > similarityThreshold)
+            .map(result -> toKnowledgeDocument(result, result.getScore()))
             .collect(Collectors.toList());
     }
 
+    /**
+     * Flatten a document into local index metadata (strings only)
+     */
+    private Map<String, String> toIndexMetadata(KnowledgeDocument doc) {
+        Map<String, String> metadata = new HashMap<>();
+        if (doc.getMetadata() != null) {
+            doc.getMetadata().forEach((key, value) -> {
+                if (value != null) {
+                    metadata.put(key, value.toString());
+                }
+            });
+        }
+        metadata.put(TITLE_KEY, doc.getTitle() != null ? doc.getTitle() : doc.getId());
+        metadata.put(CONTENT_KEY, doc.getContent() != null ? doc.getContent() : "");
+        metadata.put(CREATED_AT_KEY, doc.getCreatedAt().toString());
+        return metadata;
+    }
+
+    private KnowledgeDocument toKnowledgeDocument(HnswVectorIndex.SearchResult entry, double similarityScore) {
+        Map<String, Object> metadata = new HashMap<>();
+        entry.getMetadata().forEach((key, value) -> {
+            if (!key.startsWith("_")) {
+                metadata.put(key, value);
+            }
+        });
+
+        return KnowledgeDocument.builder()
+            .id(entry.getId())
+            .title(entry.getMetadata().get(TITLE_KEY))
+            .content(entry.getMetadata().get(CONTENT_KEY))
+            .metadata(metadata)
+            .similarityScore(similarityScore)
+            .createdAt(LocalDateTime.parse(entry.getMetadata().get(CREATED_AT_KEY)))
+            .build();
+    }
+
     /**
      * Get conversation context - FIXED: Remove dependency on SessionMemoryService
      */
@@ -519,7 +629,7 @@ public class RAGService {
             Map.of("type", "task_management", "category", "guide")
         );
 
-        log.info("📚 Initialized default knowledge base with {} documents", knowledgeBase.size());
+        log.info("📚 Initialized default knowledge base with {} documents", localVectorIndex.size());
     }
 
     // Data classes
@@ -0,0 +1,349 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Semantic cache for informational AI answers (FAQ-style questions).
+ *
+ * Entries are grouped by scope, intent and a fingerprint of the shared knowledge documents
+ * the answer was generated from. A lookup first tries the exact normalized question, then
+ * the most similar cached question of the same group (cosine over question embeddings).
+ *
+ * An answer is shared globally - per role/premium audience, both are part of the prompt -
+ * only when no user-specific document was in its context and it does not mention the
+ * user's name, username or email; otherwise only the same user gets it back. Entries
+ * expire after a TTL and the whole cache is dropped when the knowledge base changes.
+ */
+@Slf4j
+@Component
+public class SemanticResponseCache {
+
+    // Rough provider token estimate for prompt + answer
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final EmbeddingService embeddingService;
+    private final boolean enabled;
+    private final double similarityThreshold;
+    private final Duration globalTtl;
+    private final Duration userTtl;
+    private final int maxEntries;
+
+    // Guarded by this: exact key -> entry (access order for LRU eviction), group -> entries
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, List<Entry>> groups = new HashMap<>();
+
+    private final AtomicLong exactHits = new AtomicLong();
+    private final AtomicLong semanticHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong globalStores = new AtomicLong();
+    private final AtomicLong userStores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong tokensSaved = new AtomicLong();
+
+    public SemanticResponseCache(EmbeddingService embeddingService,
+                                 @Value("${ai.cache.semantic.enabled:true}") boolean enabled,
+                                 @Value("${ai.cache.semantic.similarity-threshold:0.92}") double similarityThreshold,
+                                 @Value("${ai.cache.semantic.global-ttl-minutes:360}") long globalTtlMinutes,
+                                 @Value("${ai.cache.semantic.user-ttl-minutes:30}") long userTtlMinutes,
+                                 @Value("${ai.cache.semantic.max-entries:2000}") int maxEntries) {
+        this.embeddingService = embeddingService;
+        this.enabled = enabled;
+        this.similarityThreshold = similarityThreshold;
+        this.globalTtl = Duration.ofMinutes(globalTtlMinutes);
+        this.userTtl = Duration.ofMinutes(userTtlMinutes);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Cached answer for this question, intent and knowledge context, if any
+     */
+    public Optional<String> lookup(String question, String intent, RAGService.RAGContext ragContext,
+                                   UserContextService.UserChatContext userContext) {
+        if (!enabled || question == null || question.isBlank()) {
+            return Optional.empty();
+        }
+
+        String normalized = normalize(question);
+        String fingerprint = knowledgeFingerprint(ragContext);
+        List<String> groupKeys = List.of(
+            groupKey(userScope(userContext), intent, fingerprint),
+            groupKey(globalScope(userContext), intent, fingerprint));
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            for (String groupKey : groupKeys) {
+                Entry entry = entries.get(groupKey + "|" + normalized);
+                if (entry != null && !expired(entry, now)) {
+                    return hit(entry, exactHits, "exact");
+                }
+            }
+            if (groupKeys.stream().noneMatch(groups::containsKey)) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        // Same text RAG retrieval just embedded, so this is an embedding cache hit
+        float[] embedding = unit(embeddingService.generateEmbedding(question));
+
+        synchronized (this) {
+            Entry best = null;
+            double bestScore = similarityThreshold;
+            for (String groupKey : groupKeys) {
+                for (Entry entry : groups.getOrDefault(groupKey, List.of())) {
+                    double score = dot(embedding, entry.embedding);
+                    if (score >= bestScore && entry.expiresAtMillis > now) {
+                        best = entry;
+                        bestScore = score;
+                    }
+                }
+            }
+            if (best != null) {
+                entries.get(best.key); // touch for LRU
+                return hit(best, semanticHits, String.format("semantic %.3f", bestScore));
+            }
+        }
+
+        misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Remember an answer generated by the provider for {@code request}
+     */
+    public void store(UnifiedAIService.UnifiedRequest request, String intent, RAGService.RAGContext ragContext,
+                      UserContextService.UserChatContext userContext, String answer) {
+        if (!enabled || answer == null || answer.isBlank()) {
+            return;
+        }
+
+        boolean personal = hasUserSpecificDocuments(ragContext) || mentionsUser(answer, userContext);
+        String scope = personal ? userScope(userContext) : globalScope(userContext);
+        String groupKey = groupKey(scope, intent, knowledgeFingerprint(ragContext));
+        int promptChars = request.getUserMessage().length()
+            + (request.getContext() != null ? request.getContext().length() : 0)
+            + (request.getConversationHistory() != null ? request.getConversationHistory().length() : 0);
+
+        Entry entry = new Entry(
+            groupKey + "|" + normalize(request.getUserMessage()),
+            groupKey,
+            unit(embeddingService.generateEmbedding(request.getUserMessage())),
+            answer,
+            !personal,
+            (promptChars + answer.length()) / CHARS_PER_TOKEN,
+            System.currentTimeMillis() + (personal ? userTtl : globalTtl).toMillis());
+
+        synchronized (this) {
+            Entry previous = entries.put(entry.key, entry);
+            if (previous != null) {
+                removeFromGroup(previous);
+            }
+            groups.computeIfAbsent(groupKey, k -> new ArrayList<>()).add(entry);
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                removeFromGroup(evicted);
+                evictions.incrementAndGet();
+            }
+        }
+        (personal ? userStores : globalStores).incrementAndGet();
+        log.debug("💾 Cached {} answer for {} ({} scope)", intent, request.getUserId(), personal ? "user" : "global");
+    }
+
+    /**
+     * Drop every cached answer (knowledge base changed)
+     */
+    public synchronized void invalidateAll(String reason) {
+        int size = entries.size();
+        entries.clear();
+        groups.clear();
+        invalidations.incrementAndGet();
+        log.info("🧹 Semantic response cache invalidated ({} entries): {}", size, reason);
+    }
+
+    public Map<String, Object> getStats() {
+        long hits = exactHits.get() + semanticHits.get();
+        long lookups = hits + misses.get();
+        long global;
+        int size;
+        synchronized (this) {
+            size = entries.size();
+            global = entries.values().stream().filter(entry -> entry.global).count();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", size);
+        stats.put("globalEntries", global);
+        stats.put("userEntries", size - global);
+        stats.put("lookups", lookups);
+        stats.put("exactHits", exactHits.get());
+        stats.put("semanticHits", semanticHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", lookups > 0 ? (double) hits / lookups : 0.0);
+        stats.put("globalStores", globalStores.get());
+        stats.put("userStores", userStores.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("estimatedProviderTokensSaved", tokensSaved.get());
+        return stats;
+    }
+
+    /**
+     * Lowercase, Unicode NFC, whitespace collapsed, trailing punctuation removed
+     */
+    static String normalize(String question) {
+        return Normalizer.normalize(question, Normalizer.Form.NFC)
+            .toLowerCase(Locale.ROOT)
+            .trim()
+            .replaceAll("\\s+", " ")
+            .replaceAll("[\\s?!.…]+$", "");
+    }
+
+    /**
+     * Hash of the shared (non user-specific) documents in the context, order independent
+     */
+    static String knowledgeFingerprint(RAGService.RAGContext ragContext) {
+        if (ragContext == null || ragContext.getRelevantDocuments() == null) {
+            return "none";
+        }
+        List<String> parts = new ArrayList<>();
+        for (RAGService.KnowledgeDocument doc : ragContext.getRelevantDocuments()) {
+            if (!isUserSpecific(doc)) {
+                parts.add(doc.getId() + ":" + (doc.getContent() != null ? doc.getContent().hashCode() : 0));
+            }
+        }
+        if (parts.isEmpty()) {
+            return "none";
+        }
+        Collections.sort(parts);
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.join("\n", parts).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Conversation messages and Q&A pairs stored by the agent carry the owning user
+     */
+    private static boolean isUserSpecific(RAGService.KnowledgeDocument doc) {
+        Map<String, Object> metadata = doc.getMetadata();
+        return metadata != null && (metadata.containsKey("user_id") || metadata.containsKey("conversation_id"));
+    }
+
+    private static boolean hasUserSpecificDocuments(RAGService.RAGContext ragContext) {
+        return ragContext != null && ragContext.getRelevantDocuments() != null
+            && ragContext.getRelevantDocuments().stream().anyMatch(SemanticResponseCache::isUserSpecific);
+    }
+
+    private static boolean mentionsUser(String answer, UserContextService.UserChatContext userContext) {
+        if (userContext == null) {
+            return false;
+        }
+        String text = answer.toLowerCase(Locale.ROOT);
+        return Stream.of(userContext.getFirstName(), userContext.getLastName(), userContext.getUsername(), userContext.getEmail())
+            .filter(value -> value != null && value.trim().length() >= 2)
+            .anyMatch(value -> text.contains(value.trim().toLowerCase(Locale.ROOT)));
+    }
+
+    private static String userScope(UserContextService.UserChatContext userContext) {
+        return "user:" + (userContext != null ? userContext.getUserId() : null);
+    }
+
+    private static String globalScope(UserContextService.UserChatContext userContext) {
+        return userContext == null ? "global:MEMBER:false"
+            : "global:" + userContext.getSystemRole() + ":" + Boolean.TRUE.equals(userContext.getIsPremium());
+    }
+
+    private static String groupKey(String scope, String intent, String fingerprint) {
+        return scope + "|" + intent + "|" + fingerprint;
+    }
+
+    private Optional<String> hit(Entry entry, AtomicLong counter, String kind) {
+        counter.incrementAndGet();
+        tokensSaved.addAndGet(entry.estimatedTokens);
+        log.debug("⚡ Semantic cache hit ({}) in {}", kind, entry.groupKey);
+        return Optional.of(entry.answer);
+    }
+
+    private boolean expired(Entry entry, long now) {
+        if (entry.expiresAtMillis > now) {
+            return false;
+        }
+        entries.remove(entry.key);
+        removeFromGroup(entry);
+        return true;
+    }
+
+    private void removeFromGroup(Entry entry) {
+        List<Entry> group = groups.get(entry.groupKey);
+        if (group != null) {
+            group.remove(entry);
+            if (group.isEmpty()) {
+                groups.remove(entry.groupKey);
+            }
+        }
+    }
+
+    private static float[] unit(double[] vector) {
+        double norm = 0;
+        for (double value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length && norm > 0; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String groupKey;
+        private final float[] embedding;
+        private final String answer;
+        private final boolean global;
+        private final long estimatedTokens;
+        private final long expiresAtMillis;
+
+        private Entry(String key, String groupKey, float[] embedding, String answer, boolean global,
+                      long estimatedTokens, long expiresAtMillis) {
+            this.key = key;
+            this.groupKey = groupKey;
+            this.embedding = embedding;
+            this.answer = answer;
+            this.global = global;
+            this.estimatedTokens = estimatedTokens;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -7,8 +7,13 @@ import com.example.taskmanagement_backend.agent.enums.SenderType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -34,6 +39,20 @@ public class SessionMemoryService {
     private static final int SESSION_TIMEOUT_HOURS = 24; // 24 hours session timeout
     private static final int SHORT_TERM_MEMORY_LIMIT = 10; // Last 10 messages in Redis
 
+    // Registry of live sessions: conversationId scored by expiry (epoch ms), replaces KEYS scans
+    private static final String SESSION_REGISTRY_KEY = SESSION_PREFIX + "registry";
+
+    // KEYS[1] = message list, KEYS[2] = session registry
+    // ARGV[1] = message, ARGV[2] = max messages, ARGV[3] = TTL seconds, ARGV[4] = conversationId, ARGV[5] = expiry ms
+    private static final RedisScript<Long> APPEND_MESSAGE_SCRIPT = new DefaultRedisScript<>(
+        "redis.call('RPUSH', KEYS[1], ARGV[1]) " +
+        "redis.call('LTRIM', KEYS[1], -tonumber(ARGV[2]), -1) " +
+        "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+        "redis.call('ZADD', KEYS[2], ARGV[5], ARGV[4]) " +
+        "return 1", Long.class);
+
+    private static final RedisSerializer<Long> LONG_RESULT = new GenericToStringSerializer<>(Long.class);
+
     /**
      * Create ephemeral conversation for user session
      */
@@ -60,6 +79,7 @@ public class SessionMemoryService {
         String userSessionsKey = SESSION_PREFIX + "user:" + userId;
         redisTemplate.opsForSet().add(userSessionsKey, conversationId);
         redisTemplate.expire(userSessionsKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
+        touchRegistry(conversationId);
 
         log.info("Created ephemeral conversation: {} for user: {}", conversationId, userId);
         return conversation;
@@ -86,18 +106,29 @@ public class SessionMemoryService {
      */
     private void storeInRedis(String conversationId, ChatResponse message) {
         String messagesKey = SESSION_PREFIX + CONVERSATION_PREFIX + conversationId + ":messages";
+        @SuppressWarnings("unchecked")
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+
+        // Add message, keep only last N messages, set expiration, touch registry - one round trip
+        redisTemplate.execute(APPEND_MESSAGE_SCRIPT, RedisSerializer.byteArray(), LONG_RESULT,
+            List.of(messagesKey, SESSION_REGISTRY_KEY),
+            valueSerializer.serialize(message),
+            bytes(SHORT_TERM_MEMORY_LIMIT),
+            bytes(TimeUnit.HOURS.toSeconds(SESSION_TIMEOUT_HOURS)),
+            valueSerializer.serialize(conversationId), // same member encoding as opsForZSet()
+            bytes(sessionExpiryMillis()));
+    }
 
-        // Add message to list
-        redisTemplate.opsForList().rightPush(messagesKey, message);
+    private static byte[] bytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
 
-        // Keep only last N messages in Redis for performance
-        Long messageCount = redisTemplate.opsForList().size(messagesKey);
-        if (messageCount != null && messageCount > SHORT_TERM_MEMORY_LIMIT) {
-            redisTemplate.opsForList().leftPop(messagesKey);
-        }
+    private static long sessionExpiryMillis() {
+        return System.currentTimeMillis() + TimeUnit.HOURS.toMillis(SESSION_TIMEOUT_HOURS);
+    }
 
-        // Set expiration
-        redisTemplate.expire(messagesKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
+    private void touchRegistry(String conversationId) {
+        redisTemplate.opsForZSet().add(SESSION_REGISTRY_KEY, conversationId, sessionExpiryMillis());
     }
 
     /**
@@ -263,9 +294,9 @@ public class SessionMemoryService {
                 String messagesKey = SESSION_PREFIX + CONVERSATION_PREFIX + convId.toString() + ":messages";
 
                 // Delete conversation and messages
-                redisTemplate.delete(conversationKey);
-                redisTemplate.delete(messagesKey);
+                redisTemplate.delete(List.of(conversationKey, messagesKey));
             }
+            redisTemplate.opsForZSet().remove(SESSION_REGISTRY_KEY, conversationIds.toArray());
         }
 
         // Delete user sessions tracking
@@ -290,6 +321,7 @@ public class SessionMemoryService {
         redisTemplate.expire(conversationKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
         redisTemplate.expire(messagesKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
         redisTemplate.expire(userSessionsKey, SESSION_TIMEOUT_HOURS, TimeUnit.HOURS);
+        touchRegistry(conversationId);
     }
 
     /**
@@ -502,11 +534,18 @@ public class SessionMemoryService {
      */
     public List<ConversationDto> getAllConversations() {
         List<ConversationDto> allConversations = new ArrayList<>();
-        // Scan all keys with SESSION_PREFIX
-        Set<String> keys = redisTemplate.keys(SESSION_PREFIX + "*");
-        if (keys != null) {
-            for (String key : keys) {
-                Object obj = redisTemplate.opsForValue().get(key);
+
+        // Live sessions from the registry (expired ones dropped) instead of scanning the keyspace
+        redisTemplate.opsForZSet().removeRangeByScore(SESSION_REGISTRY_KEY, 0, System.currentTimeMillis());
+        Set<Object> conversationIds = redisTemplate.opsForZSet().range(SESSION_REGISTRY_KEY, 0, -1);
+        if (conversationIds == null || conversationIds.isEmpty()) {
+            return allConversations;
+        }
+
+        List<String> keys = conversationIds.stream().map(convId -> SESSION_PREFIX + convId).toList();
+        List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+        if (values != null) {
+            for (Object obj : values) {
                 if (obj instanceof ConversationDto conversation) {
                     allConversations.add(conversation);
                 }
@@ -3,15 +3,20 @@ package com.example.taskmanagement_backend.agent.service;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -25,7 +30,6 @@ public class UnifiedAIService {
 
     private final WebClient webClient;
     private final GeminiApiRateLimiterService rateLimiterService;
-    private final ConcurrentHashMap<String, UnifiedResponse> responseCache = new ConcurrentHashMap<>();
 
     @Value("${gemini.api.key:}")
     private String geminiApiKey;
@@ -33,6 +37,9 @@ public class UnifiedAIService {
     @Value("${gemini.chat.url:https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent}")
     private String geminiChatUrl;
 
+    @Value("${gemini.chat.stream-url:https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:streamGenerateContent?alt=sse}")
+    private String geminiStreamUrl;
+
     @Value("${gemini.api.timeout.seconds:60}")
     private int geminiApiTimeoutSeconds;
 
@@ -47,28 +54,15 @@ public class UnifiedAIService {
      * Single unified call that handles Intent + Moderation + Response Generation
      */
     public UnifiedResponse processUnifiedRequest(UnifiedRequest request) {
-        String cacheKey = buildCacheKey(request);
-
-        // Check cache first
-        if (responseCache.containsKey(cacheKey)) {
-            log.debug("Returning cached unified response");
-            return responseCache.get(cacheKey);
-        }
-
         // Use centralized rate limiter
-        if (!rateLimiterService.acquirePermit(5)) {
+        if (!rateLimiterService.acquirePermit(rateLimitKey(request), 5)) {
             log.warn("Rate limiting: Using fallback unified response (denied by rate limiter)");
             return generateFallbackResponse(request);
         }
 
         try {
             // Make single unified API call
-            UnifiedResponse response = callUnifiedGeminiAPI(request);
-
-            // Cache response
-            responseCache.put(cacheKey, response);
-
-            return response;
+            return callUnifiedGeminiAPI(request);
         } catch (Exception e) {
             log.error("Error in unified API processing", e);
             return generateFallbackResponse(request);
@@ -84,25 +78,7 @@ public class UnifiedAIService {
                 return generateFallbackResponse(request);
             }
 
-            String unifiedPrompt = buildUnifiedPrompt(request);
-
-            Map<String, Object> requestBody = Map.of(
-                "contents", List.of(
-                    Map.of("parts", List.of(Map.of("text", unifiedPrompt)))
-                ),
-                "generationConfig", Map.of(
-                    "temperature", 0.7,
-                    "topK", 40,
-                    "topP", 0.95,
-                    "maxOutputTokens", 3000
-                ),
-                "safetySettings", List.of(
-                    Map.of("category", "HARM_CATEGORY_HARASSMENT", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
-                    Map.of("category", "HARM_CATEGORY_HATE_SPEECH", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
-                    Map.of("category", "HARM_CATEGORY_SEXUALLY_EXPLICIT", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
-                    Map.of("category", "HARM_CATEGORY_DANGEROUS_CONTENT", "threshold", "BLOCK_MEDIUM_AND_ABOVE")
-                )
-            );
+            Map<String, Object> requestBody = buildRequestBody(buildUnifiedPrompt(request));
 
             log.debug("Making unified Gemini API call for user: {}", request.getUserId());
 
@@ -116,11 +92,13 @@ public class UnifiedAIService {
                 .timeout(Duration.ofSeconds(geminiApiTimeoutSeconds))
                 .block();
 
+            rateLimiterService.reportSuccess();
             String aiResponse = extractAIResponse(response);
             return parseUnifiedResponse(aiResponse, request);
 
         } catch (WebClientResponseException.TooManyRequests e) {
             log.error("429 Too Many Requests - This should not happen with unified service!");
+            rateLimiterService.reportRateLimitExceeded();
             return generateFallbackResponse(request);
         } catch (Exception e) {
             log.error("Error in unified Gemini API call", e);
@@ -129,16 +107,112 @@ public class UnifiedAIService {
     }
 
     /**
-     * Build comprehensive prompt that handles all tasks in one go
-     * ENHANCED: RAG-powered context understanding with conversation memory
+     * Stream a plain-text answer as it is generated (Gemini streamGenerateContent over SSE).
+     * Without API key, when rate limited, or when the call fails before the first chunk,
+     * the rule-based fallback answer is emitted as a single chunk; a failure after the
+     * first chunk is propagated so the caller can tell the client the answer is incomplete.
      */
-    private String buildUnifiedPrompt(UnifiedRequest request) {
+    public Flux<String> streamResponse(UnifiedRequest request) {
+        if (geminiApiKey == null || geminiApiKey.isEmpty()) {
+            return Flux.just(generateFallbackResponse(request).getResponseContent());
+        }
+
+        return Mono.fromFuture(() -> rateLimiterService.acquireAsync(rateLimitKey(request), Duration.ofSeconds(5)))
+            .flatMapMany(granted -> {
+                if (!granted) {
+                    log.warn("Rate limiting: Using fallback streamed response (denied by rate limiter)");
+                    return Flux.just(generateFallbackResponse(request).getResponseContent());
+                }
+                return streamGemini(request);
+            });
+    }
+
+    /**
+     * Whether a streamed answer is the rule-based fallback rather than provider output
+     */
+    public boolean isFallbackAnswer(UnifiedRequest request, String answer) {
+        return generateFallbackResponse(request).getResponseContent().equals(answer);
+    }
+
+    private Flux<String> streamGemini(UnifiedRequest request) {
+        AtomicBoolean emitted = new AtomicBoolean(false);
+        String uri = geminiStreamUrl + (geminiStreamUrl.contains("?") ? "&" : "?") + "key=" + geminiApiKey;
+
+        log.debug("Making streaming Gemini API call for user: {}", request.getUserId());
+
+        return webClient.post()
+            .uri(uri)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .bodyValue(buildRequestBody(buildStreamingPrompt(request)))
+            .retrieve()
+            .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<Map<String, Object>>>() {})
+            // Applies between chunks too: a stalled stream is cut instead of pinning the connection
+            .timeout(Duration.ofSeconds(geminiApiTimeoutSeconds))
+            .mapNotNull(event -> event.data() != null ? firstCandidateText(event.data()) : null)
+            .filter(text -> !text.isEmpty())
+            .doOnNext(text -> emitted.set(true))
+            .doOnComplete(rateLimiterService::reportSuccess)
+            .onErrorResume(e -> {
+                if (e instanceof WebClientResponseException.TooManyRequests) {
+                    rateLimiterService.reportRateLimitExceeded();
+                }
+                if (emitted.get()) {
+                    log.error("Gemini stream failed mid-answer: {}", e.getMessage());
+                    return Flux.error(e);
+                }
+                log.error("Error in streaming Gemini API call, using fallback: {}", e.getMessage());
+                return Flux.just(generateFallbackResponse(request).getResponseContent());
+            });
+    }
+
+    private Map<String, Object> buildRequestBody(String prompt) {
+        return Map.of(
+            "contents", List.of(
+                Map.of("parts", List.of(Map.of("text", prompt)))
+            ),
+            "generationConfig", Map.of(
+                "temperature", 0.7,
+                "topK", 40,
+                "topP", 0.95,
+                "maxOutputTokens", 3000
+            ),
+            "safetySettings", List.of(
+                Map.of("category", "HARM_CATEGORY_HARASSMENT", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
+                Map.of("category", "HARM_CATEGORY_HATE_SPEECH", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
+                Map.of("category", "HARM_CATEGORY_SEXUALLY_EXPLICIT", "threshold", "BLOCK_MEDIUM_AND_ABOVE"),
+                Map.of("category", "HARM_CATEGORY_DANGEROUS_CONTENT", "threshold", "BLOCK_MEDIUM_AND_ABOVE")
+            )
+        );
+    }
+
+    /**
+     * Prompt cho streaming: trả lời trực tiếp bằng văn bản (không JSON) để stream thẳng tới user
+     */
+    private String buildStreamingPrompt(UnifiedRequest request) {
         StringBuilder prompt = new StringBuilder();
 
-        // System context - Define AI's role and capabilities
         prompt.append("Bạn là TaskFlow AI Assistant - một trợ lý thông minh với khả năng hiểu ngữ cảnh và nhớ cuộc hội thoại.\n\n");
+        appendUserContext(prompt, request);
 
-        // User context for personalization
+        if (request.getConversationHistory() != null && !request.getConversationHistory().trim().isEmpty()) {
+            prompt.append("HƯỚNG DẪN / LỊCH SỬ HỘI THOẠI:\n");
+            prompt.append(request.getConversationHistory()).append("\n\n");
+        }
+
+        if (request.getContext() != null && !request.getContext().trim().isEmpty()) {
+            prompt.append("NGỮ CẢNH BỔ SUNG:\n");
+            prompt.append(request.getContext()).append("\n\n");
+        }
+
+        prompt.append("TIN NHẮN CỦA NGƯỜI DÙNG: \"").append(request.getUserMessage()).append("\"\n\n");
+        prompt.append("Trả lời trực tiếp cho người dùng bằng văn bản (markdown, emoji phù hợp). ");
+        prompt.append("KHÔNG trả về JSON, không giải thích cách phân tích.\n");
+
+        return prompt.toString();
+    }
+
+    private void appendUserContext(StringBuilder prompt, UnifiedRequest request) {
         if (request.getUserContext() != null) {
             prompt.append("THÔNG TIN NGƯỜI DÙNG:\n");
             prompt.append("- Tên: ").append(request.getUserContext().getFirstName() != null ?
@@ -147,6 +221,20 @@ public class UnifiedAIService {
             prompt.append("- Vai trò: ").append(request.getUserContext().getSystemRole()).append("\n");
             prompt.append("- Premium: ").append(request.getUserContext().getIsPremium() ? "Có" : "Không").append("\n\n");
         }
+    }
+
+    /**
+     * Build comprehensive prompt that handles all tasks in one go
+     * ENHANCED: RAG-powered context understanding with conversation memory
+     */
+    private String buildUnifiedPrompt(UnifiedRequest request) {
+        StringBuilder prompt = new StringBuilder();
+
+        // System context - Define AI's role and capabilities
+        prompt.append("Bạn là TaskFlow AI Assistant - một trợ lý thông minh với khả năng hiểu ngữ cảnh và nhớ cuộc hội thoại.\n\n");
+
+        // User context for personalization
+        appendUserContext(prompt, request);
 
         // CRITICAL: Conversation memory and context understanding
         prompt.append("NGUYÊN TẮC HIỂU NGỮ CẢNH QUAN TRỌNG:\n\n");
@@ -254,19 +342,9 @@ public class UnifiedAIService {
      */
     private String extractAIResponse(Map<String, Object> response) {
         try {
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> candidates = (List<Map<String, Object>>) response.get("candidates");
-
-            if (candidates != null && !candidates.isEmpty()) {
-                Map<String, Object> candidate = candidates.getFirst();
-                @SuppressWarnings("unchecked")
-                Map<String, Object> content = (Map<String, Object>) candidate.get("content");
-                @SuppressWarnings("unchecked")
-                List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
-
-                if (parts != null && !parts.isEmpty()) {
-                    return (String) parts.getFirst().get("text");
-                }
+            String text = firstCandidateText(response);
+            if (text != null) {
+                return text;
             }
         } catch (Exception e) {
             log.error("Error extracting AI response", e);
@@ -275,6 +353,23 @@ public class UnifiedAIService {
         return "{}";
     }
 
+    /**
+     * Text of the first candidate's first part, null if absent (e.g. a stream's final chunk)
+     */
+    @SuppressWarnings("unchecked")
+    private String firstCandidateText(Map<String, Object> response) {
+        List<Map<String, Object>> candidates = (List<Map<String, Object>>) response.get("candidates");
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> content = (Map<String, Object>) candidates.getFirst().get("content");
+        if (content == null) {
+            return null;
+        }
+        List<Map<String, Object>> parts = (List<Map<String, Object>>) content.get("parts");
+        return parts != null && !parts.isEmpty() ? (String) parts.getFirst().get("text") : null;
+    }
+
     /**
      * Parse unified response from AI
      */
@@ -650,10 +745,10 @@ public class UnifiedAIService {
     }
 
     /**
-     * Build cache key for request
+     * Each user gets a fair share of the Gemini quota
      */
-    private String buildCacheKey(UnifiedRequest request) {
-        return request.getUserMessage().toLowerCase().trim() + "_" + request.getUserId();
+    private String rateLimitKey(UnifiedRequest request) {
+        return request.getUserId() != null ? "user:" + request.getUserId() : "anonymous";
     }
 
     // Data classes
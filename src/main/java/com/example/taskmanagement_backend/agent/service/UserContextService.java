@@ -6,6 +6,7 @@ import com.example.taskmanagement_backend.repositories.UserJpaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.Optional;
@@ -24,6 +25,7 @@ public class UserContextService {
     /**
      * Lấy thông tin user đầy đủ cho AI Agent
      */
+    @Transactional(readOnly = true) // có thể chạy ngoài request thread (agent pipeline)
     public UserChatContext getUserChatContext(Long userId) {
         try {
             Optional<User> userOpt = userRepository.findById(userId);
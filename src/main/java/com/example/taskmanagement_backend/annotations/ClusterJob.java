@@ -0,0 +1,50 @@
+package com.example.taskmanagement_backend.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a scheduled method that must run once per cluster instead of once per instance.
+ * The method only executes on the node holding the Redis lease for the job; when
+ * {@link #sharded()} is set, every live node runs it for its own shard instead.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ClusterJob {
+
+    /**
+     * Unique job name, used as the lease key and in run metrics
+     */
+    String name();
+
+    /**
+     * Lease duration in seconds. Should exceed the normal run time of the job;
+     * long-running jobs extend it through {@code ClusterJobContext.checkpoint()}
+     */
+    long leaseSeconds() default 300;
+
+    /**
+     * Minimum time in seconds the lease is kept after the run starts, even when the run finishes
+     * sooner. A cron firing triggers on every node at the same moment, but clocks and scheduler
+     * threads are never exactly aligned; holding the lease covers the nodes that fire a little later
+     * so they skip instead of running the firing again. Must stay below the interval between firings.
+     */
+    long minHoldSeconds() default 30;
+
+    /**
+     * For fixedRate/fixedDelay jobs, the interval between firings: milliseconds or a
+     * {@link java.time.Duration} string, placeholders allowed (as in {@code fixedRateString}).
+     * Fixed-rate triggers start when each node starts, so every node fires once per interval at its
+     * own moment and a lease hold cannot make them skip. With a period the job runs at most once per
+     * period-aligned window ({@code epoch / period}) across the cluster, on whichever node fires first
+     * in it. Not used for sharded jobs.
+     */
+    String period() default "";
+
+    /**
+     * Split the work across live nodes; each node acquires the lease of its own shard
+     */
+    boolean sharded() default false;
+}
@@ -0,0 +1,106 @@
+package com.example.taskmanagement_backend.aspects;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobCoordinator;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Runs {@link ClusterJob} methods once per cluster (or once per shard).
+ * Ordered before the transaction advisor so a skipped run never opens a transaction.
+ * A finished run keeps its lease until {@link ClusterJob#minHoldSeconds()} has passed, and a job
+ * with a {@link ClusterJob#period()} only runs when its node is the first to fire in the window.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterJobAspect {
+
+    private final ClusterJobCoordinator coordinator;
+    private final ClusterJobMetricsService metricsService;
+    private final Environment environment;
+
+    @Around("@annotation(clusterJob)")
+    public Object runOncePerCluster(ProceedingJoinPoint joinPoint, ClusterJob clusterJob) throws Throwable {
+        String jobName = clusterJob.name();
+
+        if (!coordinator.isEnabled()) {
+            return run(joinPoint, jobName, ClusterJobCoordinator.JobLease.local(jobName));
+        }
+
+        long acquiredAt = System.currentTimeMillis();
+        Duration leaseDuration = Duration.ofSeconds(clusterJob.leaseSeconds());
+        Optional<ClusterJobCoordinator.JobLease> lease = clusterJob.sharded()
+                ? coordinator.tryAcquireShard(jobName, leaseDuration)
+                : coordinator.tryAcquire(jobName, leaseDuration);
+
+        if (lease.isEmpty()) {
+            log.debug("⏭️ Job {} is running on another node, skipping", jobName);
+            metricsService.recordSkipped(jobName);
+            return null;
+        }
+
+        if (!clusterJob.sharded() && !clusterJob.period().isBlank() && !lease.get().isLocal()
+                && !coordinator.claimWindow(jobName, period(clusterJob), acquiredAt)) {
+            log.debug("⏭️ Job {} already ran in this period on another node, skipping", jobName);
+            metricsService.recordSkipped(jobName);
+            coordinator.release(lease.get());
+            return null;
+        }
+
+        try {
+            return run(joinPoint, jobName, lease.get());
+        } finally {
+            // Keep the lease for the rest of the minimum hold so a node whose trigger fires late skips this firing
+            long minHoldMs = Math.min(clusterJob.minHoldSeconds(), clusterJob.leaseSeconds()) * 1000;
+            long elapsedMs = System.currentTimeMillis() - acquiredAt;
+            coordinator.release(lease.get(), Duration.ofMillis(Math.max(0, minHoldMs - elapsedMs)));
+        }
+    }
+
+    private Duration period(ClusterJob clusterJob) {
+        String period = environment.resolvePlaceholders(clusterJob.period()).trim();
+        return period.chars().allMatch(Character::isDigit)
+                ? Duration.ofMillis(Long.parseLong(period))
+                : Duration.parse(period);
+    }
+
+    private Object run(ProceedingJoinPoint joinPoint, String jobName, ClusterJobCoordinator.JobLease lease) throws Throwable {
+        ClusterJobContext context = new ClusterJobContext(lease, coordinator);
+        ClusterJobContext.bind(context);
+
+        long startTime = System.currentTimeMillis();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            if (result instanceof Number rows) {
+                context.addRowsProcessed(rows.longValue());
+            }
+            success = true;
+            return result;
+        } finally {
+            long durationMs = System.currentTimeMillis() - startTime;
+            long rowsProcessed = context.getRowsProcessed().get();
+            ClusterJobContext.clear();
+
+            metricsService.recordRun(jobName, coordinator.getNodeId(), durationMs, rowsProcessed, success);
+            log.debug("⏱️ Job {} (shard {}/{}, token {}) finished in {} ms, {} rows, success={}",
+                    jobName, lease.getShardIndex(), lease.getShardCount(), lease.getFencingToken(),
+                    durationMs, rowsProcessed, success);
+        }
+    }
+}
@@ -3,8 +3,12 @@ package com.example.taskmanagement_backend.config;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+/**
+ * Single place that enables Spring's scheduled task execution.
+ * Jobs that must run once per cluster are additionally annotated with
+ * {@link com.example.taskmanagement_backend.annotations.ClusterJob}.
+ */
 @Configuration
 @EnableScheduling
 public class SchedulerConfig {
-    // Enable Spring's scheduled task execution capability
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import com.example.taskmanagement_backend.dtos.EmailDto.SendEmailRequestDto;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
 import com.example.taskmanagement_backend.services.infrastructure.AutomatedEmailService;
+import com.example.taskmanagement_backend.services.infrastructure.EmailOutboxService;
 import com.example.taskmanagement_backend.services.infrastructure.GmailService;
 import com.example.taskmanagement_backend.services.scheduled.EmailReminderScheduledService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -17,6 +18,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,6 +35,7 @@ public class EmailController {
     private final GmailService gmailService;
     private final UserJpaRepository userRepository;
     private final AutomatedEmailService automatedEmailService;
+    private final EmailOutboxService emailOutboxService;
     private final EmailReminderScheduledService emailReminderScheduledService;
     private final com.example.taskmanagement_backend.services.StripeService stripeService; // ✅ NEW: Add StripeService dependency
 
@@ -173,6 +176,14 @@ public class EmailController {
         }
     }
 
+    @GetMapping("/outbox/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Email outbox statistics",
+               description = "Delivery throughput, retries and backlog of the automated email outbox")
+    public ResponseEntity<Map<String, Object>> getOutboxStats() {
+        return ResponseEntity.ok(emailOutboxService.getStats());
+    }
+
     // ==================== STANDARD EMAIL OPERATIONS ====================
 
     @PostMapping("/send")
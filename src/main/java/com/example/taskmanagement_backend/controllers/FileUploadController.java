@@ -3,18 +3,28 @@ package com.example.taskmanagement_backend.controllers;
 import com.example.taskmanagement_backend.dtos.FileUploadDto.FileUploadResponseDto;
 import com.example.taskmanagement_backend.dtos.FileUploadDto.PresignedUploadUrlRequestDto;
 import com.example.taskmanagement_backend.dtos.FileUploadDto.PresignedUploadUrlResponseDto;
+import com.example.taskmanagement_backend.services.PresignedUrlCache;
 import com.example.taskmanagement_backend.services.S3FileUploadService;
 import com.example.taskmanagement_backend.services.TaskAttachmentService;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -25,6 +35,7 @@ import java.util.concurrent.CompletableFuture;
  * Endpoints:
  * 1. POST /api/files/presigned-upload-url - Generate presigned URL for direct frontend uploads
  * 2. POST /api/files/upload - Server-side upload (for small files or backend processing)
+ *    PUT /api/files/tasks/{taskId}/stream - Streaming upload of a raw request body (large files)
  * 3. GET /api/files/download/{fileKey} - Generate download URL
  * 4. DELETE /api/files/{fileKey} - Delete file
  */
@@ -36,6 +47,12 @@ public class FileUploadController {
 
     private final S3FileUploadService s3FileUploadService;
     private final TaskAttachmentService taskAttachmentService;
+    private final PresignedUrlCache presignedUrlCache;
+    private final S3DeletionQueueService s3DeletionQueueService;
+    private final ThumbnailService thumbnailService;
+
+    @Value("${aws.s3.streaming.retry-after-seconds:5}")
+    private long streamingRetryAfterSeconds;
 
     /**
      * 🔗 Generate presigned URL for direct frontend uploads (Recommended for 2025)
@@ -183,6 +200,83 @@ public class FileUploadController {
         }
     }
 
+    /**
+     * 🌊 Streaming upload: the raw request body (not multipart/form-data) is piped straight into
+     * S3 multipart upload parts, so neither Tomcat nor the JVM buffers the whole file.
+     * Headers: X-File-Name (URL-encoded), Content-Type, optional Content-Length and X-Checksum-SHA256
+     * Automatically saves attachment info after successful upload; answers 503 with Retry-After
+     * when the streaming upload limit is reached
+     */
+    @PutMapping("/tasks/{taskId}/stream")
+    public CompletableFuture<ResponseEntity<FileUploadResponseDto>> streamUpload(
+            @PathVariable Long taskId,
+            @RequestHeader("X-File-Name") String encodedFileName,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            @RequestHeader(value = "X-Checksum-SHA256", required = false) String expectedSha256,
+            HttpServletRequest request) {
+
+        String fileName = URLDecoder.decode(encodedFileName, StandardCharsets.UTF_8);
+        long declaredLength = request.getContentLengthLong();
+        Long contentLength = declaredLength >= 0 ? declaredLength : null;
+
+        log.info("🌊 Streaming upload for task: {} file: {} ({} bytes declared)", taskId, fileName, contentLength);
+
+        try {
+            final String userEmail = getCurrentUserEmail();
+
+            return s3FileUploadService.uploadStream(
+                    fileName,
+                    contentType,
+                    request.getInputStream(),
+                    contentLength,
+                    expectedSha256,
+                    taskId
+            ).thenApply(response -> {
+                if ("BUSY".equals(response.getUploadStatus())) {
+                    // Streaming capacity is full; the body was not read, so the client can simply resend it
+                    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, String.valueOf(streamingRetryAfterSeconds))
+                            .body(response);
+                }
+                if (!"SUCCESS".equals(response.getUploadStatus())) {
+                    return ResponseEntity.unprocessableEntity().body(response);
+                }
+
+                try {
+                    if (userEmail != null) {
+                        taskAttachmentService.saveAttachmentWithUser(
+                            taskId,
+                            response.getFileKey(),
+                            response.getFileName(),
+                            response.getFileSize(),
+                            response.getContentType(),
+                            response.getDownloadUrl(),
+                            userEmail
+                        );
+                    }
+                } catch (Exception e) {
+                    log.error("⚠️ Failed to save attachment info for streamed file: {}", response.getFileKey(), e);
+                }
+
+                return ResponseEntity.ok(response);
+            });
+
+        } catch (IllegalArgumentException e) {
+            log.warn("⚠️ Invalid streaming upload: {}", e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(
+                FileUploadResponseDto.builder()
+                        .fileName(fileName)
+                        .taskId(taskId)
+                        .uploadStatus("FAILED")
+                        .message(e.getMessage())
+                        .build()));
+        } catch (Exception e) {
+            log.error("❌ Failed to stream upload", e);
+            return CompletableFuture.completedFuture(
+                ResponseEntity.internalServerError().build());
+        }
+    }
+
     /**
      * 📥 Generate download URL for file access
      */
@@ -206,17 +300,40 @@ public class FileUploadController {
     }
 
     /**
-     * 🗑️ Delete file from S3
+     * 📊 Presigned download URL cache statistics (hit ratio, evictions, batch requests)
+     */
+    @GetMapping("/presigned-url-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPresignedUrlCacheStats() {
+        return ResponseEntity.ok(presignedUrlCache.getStats());
+    }
+
+    /**
+     * 📊 S3 deletion queue statistics (backlog, DeleteObjects calls, retries, orphans)
+     */
+    @GetMapping("/deletion-queue/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDeletionQueueStats() {
+        return ResponseEntity.ok(s3DeletionQueueService.getStats());
+    }
+
+    /**
+     * 📊 Image thumbnail statistics (variants generated, skipped, failed; image bytes saved per feed page)
+     */
+    @GetMapping("/thumbnails/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getThumbnailStats() {
+        return ResponseEntity.ok(thumbnailService.getStats());
+    }
+
+    /**
+     * 🗑️ Delete file from S3 (queued, together with its image variants)
      */
     @DeleteMapping("/{fileKey}")
     public ResponseEntity<String> deleteFile(@PathVariable String fileKey) {
         try {
-            boolean deleted = s3FileUploadService.deleteFile(fileKey);
-            if (deleted) {
-                return ResponseEntity.ok("File deleted successfully");
-            } else {
-                return ResponseEntity.internalServerError().body("Failed to delete file");
-            }
+            s3DeletionQueueService.enqueue(fileKey, "api");
+            return ResponseEntity.ok("File deleted successfully");
         } catch (Exception e) {
             log.error("❌ Failed to delete file: {}", fileKey, e);
             return ResponseEntity.internalServerError().body("Error deleting file: " + e.getMessage());
@@ -3,8 +3,11 @@ package com.example.taskmanagement_backend.controllers;
 import com.example.taskmanagement_backend.dtos.PostDto.*;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.services.PostEngagementService;
 import com.example.taskmanagement_backend.services.PostService;
 import com.example.taskmanagement_backend.services.NotificationService;
+import com.example.taskmanagement_backend.services.feed.NewsfeedTimelineService;
+import com.example.taskmanagement_backend.services.feed.TrendingPostService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +15,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -29,6 +33,9 @@ public class PostController {
     private final PostService postService;
     private final NotificationService notificationService;
     private final UserJpaRepository userRepository;
+    private final NewsfeedTimelineService newsfeedTimelineService;
+    private final TrendingPostService trendingPostService;
+    private final PostEngagementService postEngagementService;
 
     /**
      * Create a new post with optional images and files
@@ -87,16 +94,37 @@ public class PostController {
     }
 
     /**
-     * Get newsfeed with pagination - Updated to show newest posts first (sorted by upload time)
+     * Get newsfeed - cursor based (newest first); pass the returned nextCursor to load older posts.
+     * Sending {@code page} instead uses the legacy offset paging.
      * GET /api/posts/feed
      */
     @GetMapping("/feed")
     @Operation(summary = "Get newsfeed", description = "Get personalized newsfeed with posts from friends and public posts (sorted by newest first)")
     public ResponseEntity<Map<String, Object>> getNewsfeed(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer page,
             @RequestParam(defaultValue = "10") int size) {
 
         try {
+            if (page == null) {
+                log.info("📰 Getting newsfeed - cursor: {}, size: {}", cursor, size);
+
+                NewsfeedPageDto feed = postService.getNewsfeedByCursor(cursor, size);
+
+                Map<String, Object> pagination = new HashMap<>();
+                pagination.put("nextCursor", feed.getNextCursor());
+                pagination.put("hasNext", feed.isHasNext());
+                pagination.put("size", size);
+
+                Map<String, Object> response = new HashMap<>();
+                response.put("success", true);
+                response.put("message", "Newsfeed retrieved successfully (sorted by newest first)");
+                response.put("data", feed.getPosts());
+                response.put("pagination", pagination);
+
+                return ResponseEntity.ok(response);
+            }
+
             log.info("📰 Getting newsfeed sorted by newest first - page: {}, size: {}", page, size);
 
             Page<PostResponseDto> posts = postService.getNewsfeed(page, size);
@@ -521,11 +549,11 @@ public class PostController {
     }
 
     /**
-     * ✅ NEW: Get trending posts (high engagement in last 24 hours)
+     * ✅ UPDATED: Get trending posts (engagement decayed over time)
      * GET /api/posts/trending
      */
     @GetMapping("/trending")
-    @Operation(summary = "Get trending posts", description = "Get posts with high engagement in the last 24 hours (supports multiple images/files)")
+    @Operation(summary = "Get trending posts", description = "Get posts ranked by recent engagement, where older likes and comments count less (supports multiple images/files)")
     public ResponseEntity<Map<String, Object>> getTrendingPosts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
@@ -559,6 +587,21 @@ public class PostController {
         }
     }
 
+    /**
+     * Newsfeed timeline, trending ranking and like/comment counter statistics
+     * GET /api/posts/feed/stats
+     */
+    @GetMapping("/feed/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Feed statistics", description = "Timeline writes, seeds and reads, the size of the trending ranking and pending counter deltas")
+    public ResponseEntity<Map<String, Object>> getFeedStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timelines", newsfeedTimelineService.getStats());
+        response.put("trending", trendingPostService.getStats());
+        response.put("counters", postEngagementService.getStats());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * ✅ NEW: Get newsfeed with pinned posts prioritized
      * GET /api/posts/feed/pinned
@@ -3,16 +3,23 @@ package com.example.taskmanagement_backend.controllers;
 import com.example.taskmanagement_backend.dtos.ProjectTaskDto.CreateProjectTaskRequestDto;
 import com.example.taskmanagement_backend.dtos.ProjectTaskDto.UpdateProjectTaskRequestDto;
 import com.example.taskmanagement_backend.dtos.ProjectTaskDto.ProjectTaskResponseDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateItemDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateRequestDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateResponseDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.TaskTreeNodeDto;
 import com.example.taskmanagement_backend.dtos.GoogleCalendarDto.CreateCalendarEventRequestDto;
 import com.example.taskmanagement_backend.dtos.GoogleCalendarDto.CalendarEventResponseDto;
 import com.example.taskmanagement_backend.entities.ProjectTask;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.enums.TaskStatus;
 import com.example.taskmanagement_backend.enums.TaskPriority;
+import com.example.taskmanagement_backend.services.BulkTaskUpdateService;
 import com.example.taskmanagement_backend.services.ProjectTaskService;
+import com.example.taskmanagement_backend.services.TaskHierarchyService;
 import com.example.taskmanagement_backend.services.GoogleCalendarService;
 import com.example.taskmanagement_backend.services.OnlineStatusService;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -41,6 +48,8 @@ import java.util.stream.Collectors;
 public class ProjectTaskController {
 
     private final ProjectTaskService projectTaskService;
+    private final BulkTaskUpdateService bulkTaskUpdateService;
+    private final TaskHierarchyService taskHierarchyService;
     private final GoogleCalendarService googleCalendarService;
     private final UserJpaRepository userRepository;
     private final OnlineStatusService onlineStatusService;
@@ -547,7 +556,51 @@ public class ProjectTaskController {
     }
 
     /**
-     * Bulk update tasks progress
+     * Task with its whole subtree and rolled-up progress, counts and hours, loaded in one query whatever its depth
+     * GET /api/project-tasks/{taskId}/tree
+     */
+    @GetMapping("/{taskId}/tree")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'LEADER', 'MEMBER')")
+    public ResponseEntity<TaskTreeNodeDto> getTaskTree(@PathVariable Long taskId) {
+        return ResponseEntity.ok(taskHierarchyService.getProjectTaskTree(taskId));
+    }
+
+    /**
+     * Move a task and its subtree under another task of the same project; without parentTaskId it becomes top-level
+     * PUT /api/project-tasks/{taskId}/parent?parentTaskId=
+     */
+    @PutMapping("/{taskId}/parent")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'LEADER', 'MEMBER')")
+    public ResponseEntity<?> moveTask(@PathVariable Long taskId,
+                                      @RequestParam(required = false) Long parentTaskId) {
+        try {
+            return ResponseEntity.ok(convertToResponseDto(taskHierarchyService.moveProjectTask(taskId, parentTaskId)));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk update tasks (status, progress, priority, deadline, assignee) in one transaction,
+     * e.g. moving many cards on a board. All or nothing: any invalid entry rejects the batch.
+     * PUT /api/project-tasks/bulk
+     */
+    @PutMapping("/bulk")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'LEADER', 'MEMBER')")
+    public ResponseEntity<?> bulkUpdateTasks(@Valid @RequestBody BulkTaskUpdateRequestDto request) {
+        try {
+            return ResponseEntity.ok(bulkTaskUpdateService.updateProjectTasks(request.getUpdates()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Bulk update tasks progress (kept for existing clients, runs as one bulk update)
      * PUT /api/project-tasks/bulk-progress
      */
     @PutMapping("/bulk-progress")
@@ -555,39 +608,29 @@ public class ProjectTaskController {
     public ResponseEntity<Map<String, Object>> bulkUpdateTasksProgress(
             @RequestBody List<Map<String, Object>> tasksProgress) {
         try {
+            List<BulkTaskUpdateItemDto> updates = tasksProgress.stream()
+                    .map(taskProgress -> BulkTaskUpdateItemDto.builder()
+                            .taskId(Long.valueOf(taskProgress.get("taskId").toString()))
+                            .progressPercentage(Integer.valueOf(taskProgress.get("progressPercentage").toString()))
+                            .build())
+                    .toList();
+
+            BulkTaskUpdateResponseDto updated = bulkTaskUpdateService.updateProjectTasks(updates);
+
             List<Map<String, Object>> results = new ArrayList<>();
-            int successCount = 0;
-            int errorCount = 0;
-
-            for (Map<String, Object> taskProgress : tasksProgress) {
-                try {
-                    Long taskId = Long.valueOf(taskProgress.get("taskId").toString());
-                    Integer progressPercentage = Integer.valueOf(taskProgress.get("progressPercentage").toString());
-
-                    ProjectTask updatedTask = projectTaskService.updateTaskProgress(taskId, progressPercentage);
-
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("taskId", taskId);
-                    result.put("success", true);
-                    result.put("progressPercentage", updatedTask.getProgressPercentage());
-                    result.put("status", updatedTask.getStatus());
-                    results.add(result);
-                    successCount++;
-
-                } catch (Exception e) {
-                    Map<String, Object> result = new HashMap<>();
-                    result.put("taskId", taskProgress.get("taskId"));
-                    result.put("success", false);
-                    result.put("error", e.getMessage());
-                    results.add(result);
-                    errorCount++;
-                }
+            for (BulkTaskUpdateItemDto task : updated.getTasks()) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("taskId", task.getTaskId());
+                result.put("success", true);
+                result.put("progressPercentage", task.getProgressPercentage());
+                result.put("status", task.getStatus());
+                results.add(result);
             }
 
             Map<String, Object> response = new HashMap<>();
             response.put("results", results);
-            response.put("successCount", successCount);
-            response.put("errorCount", errorCount);
+            response.put("successCount", results.size());
+            response.put("errorCount", 0);
             response.put("totalProcessed", tasksProgress.size());
             response.put("timestamp", LocalDateTime.now());
 
@@ -0,0 +1,53 @@
+package com.example.taskmanagement_backend.controllers;
+
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobCoordinator;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobMetricsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin view of cluster-coordinated scheduled jobs
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/admin/jobs")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ScheduledJobController {
+
+    private final ClusterJobCoordinator clusterJobCoordinator;
+    private final ClusterJobMetricsService clusterJobMetricsService;
+
+    /**
+     * Live nodes and this node's run statistics per job
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getJobs() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("nodeId", clusterJobCoordinator.getNodeId());
+        response.put("coordinationEnabled", clusterJobCoordinator.isEnabled());
+        try {
+            response.put("liveNodes", clusterJobCoordinator.liveNodes());
+        } catch (Exception e) {
+            log.warn("⚠️ Could not read live nodes: {}", e.getMessage());
+            response.put("liveNodes", List.of());
+        }
+        response.put("localStats", clusterJobMetricsService.getLocalStats());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Last run of a job anywhere in the cluster
+     */
+    @GetMapping("/{jobName}/last-run")
+    public ResponseEntity<Map<Object, Object>> getLastRun(@PathVariable String jobName) {
+        return ResponseEntity.ok(clusterJobMetricsService.getClusterLastRun(jobName));
+    }
+}
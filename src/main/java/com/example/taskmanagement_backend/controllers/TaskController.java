@@ -1,6 +1,7 @@
 package com.example.taskmanagement_backend.controllers;
 
 import com.example.taskmanagement_backend.annotations.RequiresPremium;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateRequestDto;
 import com.example.taskmanagement_backend.dtos.TaskDto.CreateTaskRequestDto;
 import com.example.taskmanagement_backend.dtos.TaskDto.TaskResponseDto;
 import com.example.taskmanagement_backend.dtos.TaskDto.UpdateTaskRequestDto;
@@ -11,15 +12,18 @@ import com.example.taskmanagement_backend.dtos.GoogleCalendarDto.CreateCalendarE
 import com.example.taskmanagement_backend.dtos.GoogleCalendarDto.CalendarEventResponseDto;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.services.BulkTaskUpdateService;
 import com.example.taskmanagement_backend.services.TaskServiceCached;
 import com.example.taskmanagement_backend.services.TaskActivityService;
 import com.example.taskmanagement_backend.services.TaskAttachmentService;
 import com.example.taskmanagement_backend.services.GoogleCalendarService;
 import com.example.taskmanagement_backend.services.DashboardService;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -51,6 +55,9 @@ public class TaskController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private BulkTaskUpdateService bulkTaskUpdateService;
+
     @Autowired
     private UserJpaRepository userRepository;
 
@@ -129,6 +136,25 @@ public class TaskController {
         return ResponseEntity.ok(taskService.updateTask(id, dto));
     }
 
+    /**
+     * Bulk update of my tasks (status, priority, deadline, assignee) in one transaction,
+     * e.g. moving many cards on a board. All or nothing: any invalid entry rejects the batch.
+     */
+    @PutMapping("/my-tasks/bulk")
+    @RequiresPremium(message = "Upgrade to Premium to edit and update tasks",
+                    feature = "task-editing")
+    public ResponseEntity<?> bulkUpdateMyTasks(@Valid @RequestBody BulkTaskUpdateRequestDto request) {
+        try {
+            return ResponseEntity.ok(bulkTaskUpdateService.updateMyTasks(request.getUpdates()));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ✅ Enhanced PUT endpoint with file upload - Premium feature
     @PutMapping(value = "/my-tasks/{id}/with-files", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @RequiresPremium(message = "File uploads and advanced task editing require Premium subscription",
@@ -3,13 +3,16 @@ package com.example.taskmanagement_backend.controllers;
 import com.example.taskmanagement_backend.dtos.TeamTaskDto.CreateTeamTaskRequestDto;
 import com.example.taskmanagement_backend.dtos.TeamTaskDto.UpdateTeamTaskRequestDto;
 import com.example.taskmanagement_backend.dtos.TeamTaskDto.TeamTaskResponseDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.TaskTreeNodeDto;
 import com.example.taskmanagement_backend.entities.TeamTask;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.entities.Project;
 import com.example.taskmanagement_backend.enums.TaskStatus;
 import com.example.taskmanagement_backend.enums.TaskPriority;
+import com.example.taskmanagement_backend.services.TaskHierarchyService;
 import com.example.taskmanagement_backend.services.TeamTaskService;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -19,6 +22,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -28,6 +32,7 @@ import java.util.stream.Collectors;
 public class TeamTaskController {
 
     private final TeamTaskService teamTaskService;
+    private final TaskHierarchyService taskHierarchyService;
     private final UserJpaRepository userRepository;
 
     // ===== CRUD Operations =====
@@ -305,6 +310,31 @@ public class TeamTaskController {
         return ResponseEntity.ok(responseDtos);
     }
 
+    /**
+     * Get task with its whole subtree and rolled-up progress, loaded in one query whatever its depth
+     */
+    @GetMapping("/{taskId}/tree")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'LEADER', 'MEMBER')")
+    public ResponseEntity<TaskTreeNodeDto> getTaskTree(@PathVariable Long taskId) {
+        return ResponseEntity.ok(taskHierarchyService.getTeamTaskTree(taskId));
+    }
+
+    /**
+     * Move task and its subtree under another task of the same team; without parentTaskId it becomes top-level
+     */
+    @PutMapping("/{taskId}/parent")
+    @PreAuthorize("hasAnyRole('ADMIN', 'OWNER', 'LEADER', 'MEMBER')")
+    public ResponseEntity<?> moveTask(@PathVariable Long taskId,
+                                      @RequestParam(required = false) Long parentTaskId) {
+        try {
+            return ResponseEntity.ok(convertToResponseDto(taskHierarchyService.moveTeamTask(taskId, parentTaskId)));
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ===== Utility endpoints =====
 
     /**
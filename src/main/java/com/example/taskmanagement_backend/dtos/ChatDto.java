@@ -45,6 +45,7 @@ public class ChatDto {
         private String content;
         private String fileName;
         private String fileUrl;
+        private String thumbnailUrl; // List-sized image variant; null means show the original
         private Long fileSize;
         private Long replyToId;
         private String replyToContent;
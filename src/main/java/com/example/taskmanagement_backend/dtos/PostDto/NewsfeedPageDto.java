@@ -0,0 +1,21 @@
+package com.example.taskmanagement_backend.dtos.PostDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the newsfeed; pass nextCursor back to get the following (older) page
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsfeedPageDto {
+    private List<PostResponseDto> posts;
+    private Long nextCursor;
+    private boolean hasNext;
+}
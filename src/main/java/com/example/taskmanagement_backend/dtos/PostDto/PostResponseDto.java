@@ -19,6 +19,7 @@ public class PostResponseDto {
     private PostPrivacy privacy;
     private String imageUrl; // ✅ Keep for backward compatibility
     private List<String> imageUrls; // ✅ NEW: Multiple images from PostAttachment
+    private List<String> imageThumbnailUrls; // Feed-sized variants, same order as imageUrls (original when none)
     private List<FileAttachmentDto> fileAttachments; // ✅ NEW: Non-image files from PostAttachment
     private List<AttachmentDto> files; // ✅ NEW: Generic files field for backward compatibility
     private AuthorDto author;
@@ -20,6 +20,7 @@ public class TaskAttachmentResponseDto {
     private Long fileSize;
     private String contentType;
     private String downloadUrl;
+    private String thumbnailUrl; // List-sized image variant; null means show the original
     private String uploadedBy;
     private String uploadedByEmail;
     private LocalDateTime createdAt;
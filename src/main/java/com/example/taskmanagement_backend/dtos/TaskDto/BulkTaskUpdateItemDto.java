@@ -0,0 +1,36 @@
+package com.example.taskmanagement_backend.dtos.TaskDto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * One task of a bulk update; null fields are left unchanged.
+ * In a response the same shape carries the state of the task after the update.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskUpdateItemDto {
+
+    @NotNull(message = "Task ID is required")
+    private Long taskId;
+
+    private String status;
+
+    private String priority;
+
+    // Project tasks only: personal tasks do not track progress
+    @Min(value = 0, message = "Progress percentage must be between 0 and 100")
+    @Max(value = 100, message = "Progress percentage must be between 0 and 100")
+    private Integer progressPercentage;
+
+    // Replaces the (primary) assignee
+    private Long assigneeId;
+
+    private LocalDate deadline;
+}
@@ -0,0 +1,19 @@
+package com.example.taskmanagement_backend.dtos.TaskDto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskUpdateRequestDto {
+
+    @NotEmpty(message = "At least one task update is required")
+    @Size(max = 500, message = "At most 500 tasks can be updated at once")
+    private List<@Valid BulkTaskUpdateItemDto> updates;
+}
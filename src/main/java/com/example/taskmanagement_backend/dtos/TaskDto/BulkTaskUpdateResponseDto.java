@@ -0,0 +1,22 @@
+package com.example.taskmanagement_backend.dtos.TaskDto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkTaskUpdateResponseDto {
+
+    private int requestedCount;
+
+    // Tasks that had at least one field actually changed
+    private int changedCount;
+
+    private List<BulkTaskUpdateItemDto> tasks;
+
+    private LocalDateTime timestamp;
+}
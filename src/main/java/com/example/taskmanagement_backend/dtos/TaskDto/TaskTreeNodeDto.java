@@ -0,0 +1,42 @@
+package com.example.taskmanagement_backend.dtos.TaskDto;
+
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One task of a work-breakdown tree with the totals of its whole subtree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskTreeNodeDto {
+
+    private Long id;
+    private Long parentTaskId;
+    private Integer depth; // 0 for the requested root
+    private String title;
+    private TaskStatus status;
+    private Integer progressPercentage; // The task's own value
+    private LocalDate deadline;
+    private Integer estimatedHours;
+    private Integer actualHours;
+
+    // Rolled up over the subtree, this task included
+    private Integer subtreeProgressPercentage; // Leaf progress weighted by estimated hours
+    private Integer descendantCount;
+    private Integer completedCount;
+    private Integer overdueCount;
+    private Integer subtreeEstimatedHours;
+    private Integer subtreeActualHours;
+
+    @Builder.Default
+    private List<TaskTreeNodeDto> children = new ArrayList<>();
+}
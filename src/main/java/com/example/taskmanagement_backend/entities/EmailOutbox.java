@@ -0,0 +1,81 @@
+package com.example.taskmanagement_backend.entities;
+
+import com.example.taskmanagement_backend.enums.EmailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outgoing email waiting for (or done with) SMTP delivery.
+ * Written in the caller's transaction, delivered by EmailOutboxWorker.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_email_outbox_status_locked", columnList = "status, locked_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Comma-separated addresses
+    @Column(name = "to_recipients", columnDefinition = "TEXT", nullable = false)
+    private String toRecipients;
+
+    @Column(name = "cc_recipients", columnDefinition = "TEXT")
+    private String ccRecipients;
+
+    @Column(name = "bcc_recipients", columnDefinition = "TEXT")
+    private String bccRecipients;
+
+    @Column(name = "subject", length = 500)
+    private String subject;
+
+    @Column(name = "body", columnDefinition = "MEDIUMTEXT")
+    private String body;
+
+    @Column(name = "is_html", nullable = false)
+    private boolean html;
+
+    // Domain of the first recipient, used to batch deliveries
+    @Column(name = "recipient_domain", length = 255)
+    private String recipientDomain;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private EmailOutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // Node currently delivering the email (status SENDING)
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+}
@@ -49,6 +49,10 @@ public class Message {
     @Column(name = "file_size")
     private Long fileSize;
 
+    // Stored image variants as "size:bytes,..." (see ThumbnailService); null until generated
+    @Column(name = "thumbnails", length = 200)
+    private String thumbnails;
+
     @Column(name = "reply_to_id")
     private Long replyToId;
 
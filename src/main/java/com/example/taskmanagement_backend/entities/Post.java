@@ -51,11 +51,13 @@ public class Post {
     @JoinColumn(name = "linked_project_id")
     private Project linkedProject;
 
-    @Column(name = "like_count", nullable = false)
+    // Like/comment counters are maintained by PostEngagementService with atomic updates;
+    // they are never written back from a loaded entity
+    @Column(name = "like_count", nullable = false, updatable = false)
     @Builder.Default
     private Integer likeCount = 0;
 
-    @Column(name = "comment_count", nullable = false)
+    @Column(name = "comment_count", nullable = false, updatable = false)
     @Builder.Default
     private Integer commentCount = 0;
 
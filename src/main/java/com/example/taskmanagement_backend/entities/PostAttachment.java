@@ -42,6 +42,10 @@ public class PostAttachment {
     @Enumerated(EnumType.STRING)
     private AttachmentType attachmentType;
 
+    // Stored image variants as "size:bytes,..." (see ThumbnailService); null until generated
+    @Column(name = "thumbnails", length = 200)
+    private String thumbnails;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
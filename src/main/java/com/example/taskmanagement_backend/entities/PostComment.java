@@ -36,7 +36,8 @@ public class PostComment {
     @JoinColumn(name = "parent_comment_id")
     private PostComment parentComment;
 
-    @Column(name = "like_count", nullable = false)
+    // Maintained by PostEngagementService with atomic updates; never written back from a loaded entity
+    @Column(name = "like_count", nullable = false, updatable = false)
     @Builder.Default
     private Integer likeCount = 0;
 
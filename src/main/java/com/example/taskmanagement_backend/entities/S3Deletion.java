@@ -0,0 +1,65 @@
+package com.example.taskmanagement_backend.entities;
+
+import com.example.taskmanagement_backend.enums.S3DeletionStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * S3 object waiting for (or done with) deletion.
+ * Written in the caller's transaction, deleted in DeleteObjects batches by S3DeletionWorker.
+ */
+@Entity
+@Table(name = "s3_deletion_queue", indexes = {
+    @Index(name = "idx_s3_deletion_status_next_attempt", columnList = "status, next_attempt_at"),
+    @Index(name = "idx_s3_deletion_status_locked", columnList = "status, locked_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class S3Deletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "object_key", nullable = false, length = 1000)
+    private String objectKey;
+
+    // What queued the deletion: task, project-task, post, chat, attachment, reconcile
+    @Column(name = "source", length = 50)
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private S3DeletionStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    // Node currently deleting the object (status DELETING)
+    @Column(name = "locked_by", length = 100)
+    private String lockedBy;
+
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+}
@@ -2,6 +2,7 @@ package com.example.taskmanagement_backend.entities;
 
 import com.example.taskmanagement_backend.enums.TaskPriority;
 import com.example.taskmanagement_backend.enums.TaskStatus;
+import com.example.taskmanagement_backend.services.reminder.TaskReminderIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -24,6 +25,7 @@ import java.util.Set;
     @Index(name = "idx_task_deadline", columnList = "deadline"),
     @Index(name = "idx_task_updated_at", columnList = "updated_at")
 })
+@EntityListeners(TaskReminderIndexListener.class)
 public class Task {
 
     @Id
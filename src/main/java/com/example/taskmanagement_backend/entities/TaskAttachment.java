@@ -35,6 +35,10 @@ public class TaskAttachment {
     @Column(name = "download_url", length = 1000)
     private String downloadUrl;
 
+    // Stored image variants as "size:bytes,..." (see ThumbnailService); null until generated
+    @Column(name = "thumbnails", length = 200)
+    private String thumbnails;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "uploaded_by", nullable = false, foreignKey = @ForeignKey(name = "fk_attachment_uploader"))
     private User uploadedBy;
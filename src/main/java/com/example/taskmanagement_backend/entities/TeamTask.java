@@ -13,7 +13,9 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "team_tasks")
+@Table(name = "team_tasks", indexes = {
+    @Index(name = "idx_team_task_parent", columnList = "parent_task_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
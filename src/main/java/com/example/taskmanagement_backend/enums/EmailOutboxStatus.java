@@ -0,0 +1,8 @@
+package com.example.taskmanagement_backend.enums;
+
+public enum EmailOutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.example.taskmanagement_backend.enums;
+
+public enum S3DeletionStatus {
+    PENDING,
+    DELETING,
+    DELETED,
+    FAILED
+}
@@ -0,0 +1,45 @@
+package com.example.taskmanagement_backend.repositories;
+
+import com.example.taskmanagement_backend.entities.EmailOutbox;
+import com.example.taskmanagement_backend.enums.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Lock due pending emails; rows locked by another node's claim are skipped, not waited on
+    @Query(value = "SELECT * FROM email_outbox " +
+                   "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at " +
+                   "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<EmailOutbox> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Hand back emails whose node died mid-delivery
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :pending, e.lockedBy = null, e.lockedAt = null " +
+           "WHERE e.status = :sending AND e.lockedAt < :staleBefore")
+    int releaseStale(@Param("pending") EmailOutboxStatus pending,
+                     @Param("sending") EmailOutboxStatus sending,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :sent, e.sentAt = :sentAt, e.attempts = e.attempts + 1, " +
+           "e.lastError = null, e.lockedBy = null, e.lockedAt = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("sent") EmailOutboxStatus sent,
+                 @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :sent AND e.sentAt < :before")
+    int deleteSentBefore(@Param("sent") EmailOutboxStatus sent, @Param("before") LocalDateTime before);
+
+    long countByStatus(EmailOutboxStatus status);
+}
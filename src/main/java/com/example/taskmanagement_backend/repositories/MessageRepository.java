@@ -4,9 +4,11 @@ import com.example.taskmanagement_backend.entities.Message;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -105,4 +107,16 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
            "WHERE m.conversation.id = :conversationId AND m.isDeleted = false " +
            "ORDER BY m.createdAt ASC")
     List<Message> findAllByConversationIdOrderByCreatedAtAsc(@Param("conversationId") Long conversationId);
+
+    @Query("SELECT COUNT(m) > 0 FROM Message m WHERE m.id = :id AND m.isDeleted = false")
+    boolean existsByIdAndNotDeleted(@Param("id") Long id);
+
+    /**
+     * Record the generated image variants ("size:bytes,...") without touching the rest of the row
+     * @return 0 when the message was deleted in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Message m SET m.thumbnails = :thumbnails WHERE m.id = :id AND m.isDeleted = false")
+    int updateThumbnails(@Param("id") Long id, @Param("thumbnails") String thumbnails);
 }
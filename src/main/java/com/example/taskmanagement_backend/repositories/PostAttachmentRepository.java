@@ -3,10 +3,13 @@ package com.example.taskmanagement_backend.repositories;
 import com.example.taskmanagement_backend.entities.Post;
 import com.example.taskmanagement_backend.entities.PostAttachment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -55,4 +58,18 @@ public interface PostAttachmentRepository extends JpaRepository<PostAttachment,
      * Delete all attachments for a specific post
      */
     void deleteByPost(Post post);
+
+    /**
+     * Attachments of a page of posts (batch hydration)
+     */
+    List<PostAttachment> findByPostIdInOrderByCreatedAtAsc(Collection<Long> postIds);
+
+    /**
+     * Record the generated image variants ("size:bytes,...") without touching the rest of the row
+     * @return 0 when the attachment was deleted in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PostAttachment pa SET pa.thumbnails = :thumbnails WHERE pa.id = :id")
+    int updateThumbnails(@Param("id") Long id, @Param("thumbnails") String thumbnails);
 }
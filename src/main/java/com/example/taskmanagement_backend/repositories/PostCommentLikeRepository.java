@@ -4,10 +4,12 @@ import com.example.taskmanagement_backend.entities.PostComment;
 import com.example.taskmanagement_backend.entities.PostCommentLike;
 import com.example.taskmanagement_backend.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,4 +51,33 @@ public interface PostCommentLikeRepository extends JpaRepository<PostCommentLike
      * ✅ NEW: Delete all likes for a specific comment (for cascade deletion)
      */
     void deleteByComment(PostComment comment);
+
+    // ================ Idempotent like rows (the counter changes only when a row changes) ================
+
+    // 1 when the like was created, 0 when the user already liked the comment
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO post_comment_likes (comment_id, user_id, created_at) VALUES (:commentId, :userId, NOW(6))",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("commentId") Long commentId, @Param("userId") Long userId);
+
+    // 1 when the like was removed, 0 when the user did not like the comment
+    @Modifying
+    @Query("DELETE FROM PostCommentLike pcl WHERE pcl.comment.id = :commentId AND pcl.user.id = :userId")
+    int deleteByCommentIdAndUserId(@Param("commentId") Long commentId, @Param("userId") Long userId);
+
+    // ================ Batch hydration (one query per page of comments) ================
+
+    @Query("SELECT pcl.comment.id FROM PostCommentLike pcl WHERE pcl.comment.id IN :commentIds AND pcl.user.id = :userId")
+    List<Long> findLikedCommentIds(@Param("commentIds") Collection<Long> commentIds, @Param("userId") Long userId);
+
+    // Ids of the newest :perComment likes of each comment
+    @Query(value = "SELECT ranked.id FROM (" +
+                   "SELECT pcl.id, ROW_NUMBER() OVER (PARTITION BY pcl.comment_id ORDER BY pcl.created_at DESC, pcl.id DESC) AS rn " +
+                   "FROM post_comment_likes pcl WHERE pcl.comment_id IN (:commentIds)) ranked WHERE ranked.rn <= :perComment",
+           nativeQuery = true)
+    List<Number> findRecentLikeIdsByCommentIds(@Param("commentIds") Collection<Long> commentIds,
+                                               @Param("perComment") int perComment);
+
+    @Query("SELECT pcl FROM PostCommentLike pcl JOIN FETCH pcl.user u LEFT JOIN FETCH u.userProfile WHERE pcl.id IN :ids")
+    List<PostCommentLike> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
 }
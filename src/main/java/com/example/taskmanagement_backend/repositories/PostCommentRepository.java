@@ -6,10 +6,13 @@ import com.example.taskmanagement_backend.entities.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -57,4 +60,45 @@ public interface PostCommentRepository extends JpaRepository<PostComment, Long>
      * ✅ NEW: Delete all comments for a specific post (for cascade deletion)
      */
     void deleteByPost(Post post);
+
+    // ================ Batch hydration (one query per page of posts/comments) ================
+
+    // Ids of the first :perPost top-level comments of each post
+    @Query(value = "SELECT ranked.id FROM (" +
+                   "SELECT pc.id, ROW_NUMBER() OVER (PARTITION BY pc.post_id ORDER BY pc.created_at ASC, pc.id ASC) AS rn " +
+                   "FROM post_comments pc WHERE pc.post_id IN (:postIds) AND pc.parent_comment_id IS NULL) ranked " +
+                   "WHERE ranked.rn <= :perPost",
+           nativeQuery = true)
+    List<Number> findFirstTopLevelCommentIdsByPostIds(@Param("postIds") Collection<Long> postIds,
+                                                      @Param("perPost") int perPost);
+
+    @Query("SELECT pc FROM PostComment pc JOIN FETCH pc.user u LEFT JOIN FETCH u.userProfile WHERE pc.id IN :ids")
+    List<PostComment> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Rows of [parentCommentId, reply count]
+    @Query("SELECT pc.parentComment.id, COUNT(pc) FROM PostComment pc WHERE pc.parentComment.id IN :commentIds " +
+           "GROUP BY pc.parentComment.id")
+    List<Object[]> countRepliesByParentIds(@Param("commentIds") Collection<Long> commentIds);
+
+    // ================ Counters (see PostEngagementService) ================
+
+    // Apply one pending delta to a group of comments, never going below zero
+    @Modifying
+    @Query(value = "UPDATE post_comments SET like_count = GREATEST(like_count + :delta, 0) WHERE id IN (:ids)",
+           nativeQuery = true)
+    int addToLikeCounts(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    // Reset like_count to the number of like rows for comments in [fromId, toId]; returns the rows that drifted
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE post_comments pc LEFT JOIN (" +
+                   "SELECT comment_id, COUNT(*) AS total FROM post_comment_likes " +
+                   "WHERE comment_id BETWEEN :fromId AND :toId GROUP BY comment_id) likes ON likes.comment_id = pc.id " +
+                   "SET pc.like_count = COALESCE(likes.total, 0) " +
+                   "WHERE pc.id BETWEEN :fromId AND :toId AND pc.like_count <> COALESCE(likes.total, 0)",
+           nativeQuery = true)
+    int reconcileLikeCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT MAX(pc.id) FROM PostComment pc")
+    Long findMaxId();
 }
@@ -4,10 +4,13 @@ import com.example.taskmanagement_backend.entities.Post;
 import com.example.taskmanagement_backend.entities.PostLike;
 import com.example.taskmanagement_backend.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,4 +44,36 @@ public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
      * ✅ NEW: Delete all likes for a specific post (for cascade deletion)
      */
     void deleteByPost(Post post);
+
+    // ================ Idempotent like rows (the counter changes only when a row changes) ================
+
+    // 1 when the like was created, 0 when the user already liked the post
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO post_likes (post_id, user_id, created_at) VALUES (:postId, :userId, NOW(6))",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    // When the user liked the post, empty when they do not like it
+    @Query("SELECT pl.createdAt FROM PostLike pl WHERE pl.post.id = :postId AND pl.user.id = :userId")
+    Optional<LocalDateTime> findCreatedAtByPostIdAndUserId(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    // 1 when the like was removed, 0 when the user did not like the post
+    @Modifying
+    @Query("DELETE FROM PostLike pl WHERE pl.post.id = :postId AND pl.user.id = :userId")
+    int deleteByPostIdAndUserId(@Param("postId") Long postId, @Param("userId") Long userId);
+
+    // ================ Batch hydration (one query per page of posts) ================
+
+    @Query("SELECT pl.post.id FROM PostLike pl WHERE pl.post.id IN :postIds AND pl.user.id = :userId")
+    List<Long> findLikedPostIds(@Param("postIds") Collection<Long> postIds, @Param("userId") Long userId);
+
+    // Ids of the newest :perPost likes of each post
+    @Query(value = "SELECT ranked.id FROM (" +
+                   "SELECT pl.id, ROW_NUMBER() OVER (PARTITION BY pl.post_id ORDER BY pl.created_at DESC, pl.id DESC) AS rn " +
+                   "FROM post_likes pl WHERE pl.post_id IN (:postIds)) ranked WHERE ranked.rn <= :perPost",
+           nativeQuery = true)
+    List<Number> findRecentLikeIdsByPostIds(@Param("postIds") Collection<Long> postIds, @Param("perPost") int perPost);
+
+    @Query("SELECT pl FROM PostLike pl JOIN FETCH pl.user u LEFT JOIN FETCH u.userProfile WHERE pl.id IN :ids")
+    List<PostLike> findWithUserByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -6,11 +6,14 @@ import com.example.taskmanagement_backend.enums.PostPrivacy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -29,6 +32,33 @@ public interface PostRepository extends JpaRepository<Post, Long> {
                                 @Param("friendIds") List<Long> friendIds,
                                 Pageable pageable);
 
+    // Keyset page of the newsfeed below a post id (pull fallback when timelines are unavailable)
+    @Query("SELECT p FROM Post p WHERE p.id < :beforeId AND (" +
+           "(p.privacy = 'PUBLIC') OR " +
+           "(p.privacy = 'FRIENDS' AND p.author.id IN :friendIds) OR " +
+           "(p.author.id = :userId)) " +
+           "ORDER BY p.id DESC")
+    List<Post> findNewsfeedPostsBefore(@Param("userId") Long userId,
+                                       @Param("friendIds") List<Long> friendIds,
+                                       @Param("beforeId") Long beforeId,
+                                       Pageable pageable);
+
+    // Timeline seed: own posts plus friends-only posts of friends (public posts are read from a shared set)
+    @Query("SELECT p.id FROM Post p WHERE p.author.id = :userId OR " +
+           "(p.privacy = 'FRIENDS' AND p.author.id IN :friendIds) " +
+           "ORDER BY p.id DESC")
+    List<Long> findTimelineSeedIds(@Param("userId") Long userId,
+                                   @Param("friendIds") List<Long> friendIds,
+                                   Pageable pageable);
+
+    @Query("SELECT p.id FROM Post p WHERE p.privacy = :privacy ORDER BY p.id DESC")
+    List<Long> findRecentIdsByPrivacy(@Param("privacy") PostPrivacy privacy, Pageable pageable);
+
+    @Query("SELECT p.id FROM Post p WHERE p.author.id = :authorId AND p.privacy = :privacy ORDER BY p.id DESC")
+    List<Long> findRecentIdsByAuthorAndPrivacy(@Param("authorId") Long authorId,
+                                               @Param("privacy") PostPrivacy privacy,
+                                               Pageable pageable);
+
     // Get public posts only
     Page<Post> findByPrivacyOrderByCreatedAtDesc(PostPrivacy privacy, Pageable pageable);
 
@@ -100,6 +130,15 @@ public interface PostRepository extends JpaRepository<Post, Long> {
                                 @Param("since") LocalDateTime since,
                                 Pageable pageable);
 
+    // Trending seed: engaged posts since a cutoff as (id, likeCount, commentCount, createdAt), best first
+    @Query("SELECT p.id, p.likeCount, p.commentCount, p.createdAt FROM Post p WHERE " +
+           "p.createdAt >= :since AND p.privacy <> :excludedPrivacy AND " +
+           "(p.likeCount > 0 OR p.commentCount > 0) " +
+           "ORDER BY (p.likeCount + p.commentCount * 2) DESC")
+    List<Object[]> findTrendingSeed(@Param("since") LocalDateTime since,
+                                    @Param("excludedPrivacy") PostPrivacy excludedPrivacy,
+                                    Pageable pageable);
+
     // ✅ NEW: Get pinned posts first, then regular newsfeed
     @Query("SELECT p FROM Post p WHERE " +
            "((p.privacy = 'PUBLIC') OR " +
@@ -122,4 +161,48 @@ public interface PostRepository extends JpaRepository<Post, Long> {
     Page<Post> findEngagementBasedNewsfeed(@Param("userId") Long userId,
                                           @Param("friendIds") List<Long> friendIds,
                                           Pageable pageable);
+
+    // Batch hydration: initializes authors, their profiles and linked task/project of a page of posts
+    @Query("SELECT DISTINCT p FROM Post p JOIN FETCH p.author a LEFT JOIN FETCH a.userProfile " +
+           "LEFT JOIN FETCH p.linkedTask LEFT JOIN FETCH p.linkedProject WHERE p.id IN :ids")
+    List<Post> findAllWithAuthorAndLinksByIdIn(@Param("ids") Collection<Long> ids);
+
+    // ================ Counters (see PostEngagementService) ================
+
+    // Apply one pending delta to a group of posts, never going below zero
+    @Modifying
+    @Query(value = "UPDATE posts SET like_count = GREATEST(like_count + :delta, 0) WHERE id IN (:ids)",
+           nativeQuery = true)
+    int addToLikeCounts(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts SET comment_count = GREATEST(comment_count + :delta, 0) WHERE id IN (:ids)",
+           nativeQuery = true)
+    int addToCommentCounts(@Param("ids") Collection<Long> ids, @Param("delta") long delta);
+
+    // Reset like_count to the number of like rows for posts in [fromId, toId]; returns the rows that drifted
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE posts p LEFT JOIN (" +
+                   "SELECT post_id, COUNT(*) AS total FROM post_likes " +
+                   "WHERE post_id BETWEEN :fromId AND :toId GROUP BY post_id) likes ON likes.post_id = p.id " +
+                   "SET p.like_count = COALESCE(likes.total, 0) " +
+                   "WHERE p.id BETWEEN :fromId AND :toId AND p.like_count <> COALESCE(likes.total, 0)",
+           nativeQuery = true)
+    int reconcileLikeCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Same for comment_count, which counts top-level comments only
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE posts p LEFT JOIN (" +
+                   "SELECT post_id, COUNT(*) AS total FROM post_comments " +
+                   "WHERE post_id BETWEEN :fromId AND :toId AND parent_comment_id IS NULL GROUP BY post_id) comments " +
+                   "ON comments.post_id = p.id " +
+                   "SET p.comment_count = COALESCE(comments.total, 0) " +
+                   "WHERE p.id BETWEEN :fromId AND :toId AND p.comment_count <> COALESCE(comments.total, 0)",
+           nativeQuery = true)
+    int reconcileCommentCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("SELECT MAX(p.id) FROM Post p")
+    Long findMaxId();
 }
@@ -1,11 +1,16 @@
 package com.example.taskmanagement_backend.repositories;
 
 import com.example.taskmanagement_backend.entities.ProjectProgress;
+import com.example.taskmanagement_backend.enums.TaskStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -28,4 +33,37 @@ public interface ProjectProgressRepository extends JpaRepository<ProjectProgress
     // Query để đếm số teams trong project
     @Query("SELECT COALESCE(COUNT(p), 0) FROM Project p WHERE p.id = :projectId AND p.team IS NOT NULL")
     Long countTeamsByProject(@Param("projectId") Long projectId);
-}
\ No newline at end of file
+
+    // Cộng dồn delta vào bộ đếm; percentage đứng đầu để dùng giá trị cũ + delta trên mọi DB
+    @Modifying
+    @Query("UPDATE ProjectProgress p SET " +
+           "p.completionPercentage = CASE WHEN COALESCE(p.totalTasks, 0) + :totalDelta > 0 " +
+           "THEN (COALESCE(p.completedTasks, 0) + :completedDelta) * 100.0 / (COALESCE(p.totalTasks, 0) + :totalDelta) ELSE 0.0 END, " +
+           "p.totalTasks = COALESCE(p.totalTasks, 0) + :totalDelta, " +
+           "p.completedTasks = COALESCE(p.completedTasks, 0) + :completedDelta, " +
+           "p.lastUpdated = :now, p.updatedAt = :now " +
+           "WHERE p.project.id = :projectId")
+    int applyDelta(@Param("projectId") Long projectId,
+                   @Param("totalDelta") int totalDelta,
+                   @Param("completedDelta") int completedDelta,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE ProjectProgress p SET p.totalTasks = :total, p.completedTasks = :completed, " +
+           "p.completionPercentage = :percentage, p.lastUpdated = :now, p.updatedAt = :now " +
+           "WHERE p.project.id = :projectId")
+    int setCounts(@Param("projectId") Long projectId,
+                  @Param("total") int total,
+                  @Param("completed") int completed,
+                  @Param("percentage") double percentage,
+                  @Param("now") LocalDateTime now);
+
+    // Bộ đếm đang lưu: [projectId, totalTasks, completedTasks]
+    @Query("SELECT p.project.id, p.totalTasks, p.completedTasks FROM ProjectProgress p")
+    List<Object[]> findAllCounts();
+
+    // Số task thực tế của mọi project: [projectId, total, completed]
+    @Query("SELECT pt.project.id, COUNT(pt), SUM(CASE WHEN pt.status IN :completedStatuses THEN 1 ELSE 0 END) " +
+           "FROM ProjectTask pt GROUP BY pt.project.id")
+    List<Object[]> countTasksPerProject(@Param("completedStatuses") Collection<TaskStatus> completedStatuses);
+}
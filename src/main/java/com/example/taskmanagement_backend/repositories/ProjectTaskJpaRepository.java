@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -67,6 +68,37 @@ public interface ProjectTaskJpaRepository extends JpaRepository<ProjectTask, Lon
     // Find subtasks
     List<ProjectTask> findByParentTask(ProjectTask parentTask);
 
+    /**
+     * A task and all its descendants in one recursive query, as rows of
+     * [id, parent_task_id, depth, title, status, progress_percentage, estimated_hours, actual_hours, deadline]
+     * ordered by depth; maxDepth bounds the recursion should the hierarchy ever contain a cycle
+     */
+    @Query(value = "WITH RECURSIVE subtree (id, depth) AS ( " +
+                   "  SELECT id, 0 FROM project_tasks WHERE id = :rootId " +
+                   "  UNION ALL " +
+                   "  SELECT c.id, s.depth + 1 FROM project_tasks c JOIN subtree s ON c.parent_task_id = s.id " +
+                   "  WHERE s.depth < :maxDepth " +
+                   ") " +
+                   "SELECT t.id, t.parent_task_id, s.depth, t.title, t.status, t.progress_percentage, " +
+                   "       t.estimated_hours, t.actual_hours, t.deadline " +
+                   "FROM subtree s JOIN project_tasks t ON t.id = s.id " +
+                   "ORDER BY s.depth, t.id",
+           nativeQuery = true)
+    List<Object[]> findSubtreeRows(@Param("rootId") Long rootId, @Param("maxDepth") int maxDepth);
+
+    /**
+     * Ids of a task and all its ancestors up to the root, in one recursive query
+     */
+    @Query(value = "WITH RECURSIVE ancestors (id, parent_task_id, depth) AS ( " +
+                   "  SELECT id, parent_task_id, 0 FROM project_tasks WHERE id = :taskId " +
+                   "  UNION ALL " +
+                   "  SELECT p.id, p.parent_task_id, a.depth + 1 FROM project_tasks p JOIN ancestors a ON p.id = a.parent_task_id " +
+                   "  WHERE a.depth < :maxDepth " +
+                   ") " +
+                   "SELECT id FROM ancestors",
+           nativeQuery = true)
+    List<Number> findAncestorIds(@Param("taskId") Long taskId, @Param("maxDepth") int maxDepth);
+
     // Count methods
     long countByProjectId(Long projectId);
     long countByProjectIdAndStatus(Long projectId, TaskStatus status);
@@ -99,4 +131,12 @@ public interface ProjectTaskJpaRepository extends JpaRepository<ProjectTask, Lon
         @Param("creatorId") Long creatorId,
         Pageable pageable
     );
+
+    // Bulk updates: tasks with the project, team and assignee read by progress counters and activity logs
+    @Query("SELECT pt FROM ProjectTask pt " +
+           "LEFT JOIN FETCH pt.project p " +
+           "LEFT JOIN FETCH p.team " +
+           "LEFT JOIN FETCH pt.assignee " +
+           "WHERE pt.id IN :ids")
+    List<ProjectTask> findAllForBulkUpdateByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.example.taskmanagement_backend.repositories;
+
+import com.example.taskmanagement_backend.entities.S3Deletion;
+import com.example.taskmanagement_backend.enums.S3DeletionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface S3DeletionRepository extends JpaRepository<S3Deletion, Long> {
+
+    // Lock due pending deletions; rows locked by another node's claim are skipped, not waited on
+    @Query(value = "SELECT * FROM s3_deletion_queue " +
+                   "WHERE status = 'PENDING' AND next_attempt_at <= :now " +
+                   "ORDER BY next_attempt_at " +
+                   "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<S3Deletion> lockDue(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    // Hand back deletions whose node died mid-batch
+    @Modifying
+    @Query("UPDATE S3Deletion d SET d.status = :pending, d.lockedBy = null, d.lockedAt = null " +
+           "WHERE d.status = :deleting AND d.lockedAt < :staleBefore")
+    int releaseStale(@Param("pending") S3DeletionStatus pending,
+                     @Param("deleting") S3DeletionStatus deleting,
+                     @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("UPDATE S3Deletion d SET d.status = :deleted, d.deletedAt = :deletedAt, d.attempts = d.attempts + 1, " +
+           "d.lastError = null, d.lockedBy = null, d.lockedAt = null WHERE d.id IN :ids")
+    int markDeleted(@Param("ids") Collection<Long> ids,
+                    @Param("deleted") S3DeletionStatus deleted,
+                    @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Modifying
+    @Query("DELETE FROM S3Deletion d WHERE d.status = :deleted AND d.deletedAt < :before")
+    int deleteDeletedBefore(@Param("deleted") S3DeletionStatus deleted, @Param("before") LocalDateTime before);
+
+    long countByStatus(S3DeletionStatus status);
+
+    // Orphan reconciliation: which of these keys are still referenced by a row (or already queued)
+    @Query(value = "SELECT file_key FROM task_attachments WHERE file_key IN (:keys) " +
+                   "UNION SELECT s3_key FROM post_attachments WHERE s3_key IN (:keys) " +
+                   "UNION SELECT image_s3_key FROM posts WHERE image_s3_key IN (:keys) " +
+                   "UNION SELECT file_url FROM messages WHERE file_url IN (:keys) " +
+                   "UNION SELECT object_key FROM s3_deletion_queue WHERE object_key IN (:keys) " +
+                   "AND status IN ('PENDING', 'DELETING')", nativeQuery = true)
+    List<String> findReferencedKeys(@Param("keys") Collection<String> keys);
+
+    // Orphan reconciliation: comma-separated key lists of tasks and project tasks
+    @Query(value = "SELECT url_file FROM tasks WHERE url_file IS NOT NULL AND url_file <> '' " +
+                   "UNION ALL SELECT url_file FROM project_tasks WHERE url_file IS NOT NULL AND url_file <> ''",
+           nativeQuery = true)
+    List<String> findTaskFileLists();
+
+    // Orphan reconciliation: chat messages that stored a full (presigned) URL instead of a key
+    @Query(value = "SELECT file_url FROM messages WHERE file_url LIKE 'http%'", nativeQuery = true)
+    List<String> findMessageFileUrls();
+}
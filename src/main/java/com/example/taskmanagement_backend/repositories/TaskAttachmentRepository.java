@@ -51,4 +51,16 @@ public interface TaskAttachmentRepository extends JpaRepository<TaskAttachment,
     @Transactional
     @Query("DELETE FROM TaskAttachment ta WHERE ta.task.id = :taskId")
     int deleteByTaskId(@Param("taskId") Long taskId);
+
+    @Query("SELECT COUNT(ta) > 0 FROM TaskAttachment ta WHERE ta.id = :id AND ta.isDeleted = false")
+    boolean existsByIdAndNotDeleted(@Param("id") Long id);
+
+    /**
+     * Record the generated image variants ("size:bytes,...") without touching the rest of the row
+     * @return 0 when the attachment was deleted in the meantime
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE TaskAttachment ta SET ta.thumbnails = :thumbnails WHERE ta.id = :id AND ta.isDeleted = false")
+    int updateThumbnails(@Param("id") Long id, @Param("thumbnails") String thumbnails);
 }
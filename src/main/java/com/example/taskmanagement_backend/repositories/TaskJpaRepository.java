@@ -143,4 +143,22 @@ public interface TaskJpaRepository extends JpaRepository<Task, Long> {
            "AND (t.statusKey IS NULL OR (t.statusKey NOT IN ('COMPLETED', 'DONE', 'CANCELLED'))) " +
            "AND (t.status IS NULL OR t.status NOT IN ('COMPLETED', 'DONE', 'CANCELLED'))")
     List<Task> findOverdueTasksForReminder(@Param("currentDate") java.time.LocalDate currentDate);
+
+    // ✅ NEW: Reminder engine - hydrate only the tasks whose reminders are due, with recipients
+    @Query("SELECT DISTINCT t FROM Task t " +
+           "LEFT JOIN FETCH t.creator c " +
+           "LEFT JOIN FETCH c.userProfile " +
+           "LEFT JOIN FETCH t.assignees ta " +
+           "LEFT JOIN FETCH ta.user u " +
+           "LEFT JOIN FETCH u.userProfile " +
+           "LEFT JOIN FETCH t.project " +
+           "WHERE t.id IN :taskIds")
+    List<Task> findForRemindersByIdIn(@Param("taskIds") java.util.Collection<Long> taskIds);
+
+    // ✅ NEW: Reminder engine - [id, deadline] of open tasks, used to (re)build the due-time index
+    @Query("SELECT t.id, t.deadline FROM Task t " +
+           "WHERE t.deadline IS NOT NULL " +
+           "AND (t.statusKey IS NULL OR (t.statusKey NOT IN ('COMPLETED', 'DONE', 'CANCELLED'))) " +
+           "AND (t.status IS NULL OR t.status NOT IN ('COMPLETED', 'DONE', 'CANCELLED'))")
+    List<Object[]> findOpenTaskDeadlines();
 }
@@ -10,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,4 +40,13 @@ public interface TasksAssigneeJpaRepository extends JpaRepository<TaskAssignee,
     // Find all assignees for a specific task
     @Query("SELECT ta FROM TaskAssignee ta WHERE ta.task = :task")
     List<TaskAssignee> findByTask(@Param("task") Task task);
+
+    // Find the assignees of several tasks with their users (bulk operation)
+    @Query("SELECT ta FROM TaskAssignee ta JOIN FETCH ta.user WHERE ta.task.id IN :taskIds")
+    List<TaskAssignee> findWithUserByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
+
+    // Delete all assignees of several tasks (bulk operation)
+    @Modifying
+    @Query("DELETE FROM TaskAssignee ta WHERE ta.task.id IN :taskIds")
+    int deleteByTaskIdIn(@Param("taskIds") Collection<Long> taskIds);
 }
@@ -1,11 +1,15 @@
 package com.example.taskmanagement_backend.repositories;
 
 import com.example.taskmanagement_backend.entities.TeamProgress;
+import com.example.taskmanagement_backend.enums.TaskStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,7 +26,7 @@ public interface TeamProgressRepository extends JpaRepository<TeamProgress, Long
     // Handle case where team has no projects yet
     @Query("SELECT COALESCE(COUNT(pt), 0) FROM ProjectTask pt " +
            "JOIN pt.project p " +
-           "WHERE p.team.id = :teamId AND pt.status = 'DONE'")
+           "WHERE p.team.id = :teamId AND (pt.status = 'DONE' OR pt.status = 'COMPLETED')")
     Long countCompletedTasksByTeam(@Param("teamId") Long teamId);
 
     // ✅ FIX: Query để tính toán tổng số task của team thông qua projects
@@ -31,4 +35,36 @@ public interface TeamProgressRepository extends JpaRepository<TeamProgress, Long
            "JOIN pt.project p " +
            "WHERE p.team.id = :teamId")
     Long countTotalTasksByTeam(@Param("teamId") Long teamId);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE TeamProgress t SET " +
+           "t.completionPercentage = CASE WHEN COALESCE(t.totalTasks, 0) + :totalDelta > 0 " +
+           "THEN (COALESCE(t.completedTasks, 0) + :completedDelta) * 100.0 / (COALESCE(t.totalTasks, 0) + :totalDelta) ELSE 0.0 END, " +
+           "t.totalTasks = COALESCE(t.totalTasks, 0) + :totalDelta, " +
+           "t.completedTasks = COALESCE(t.completedTasks, 0) + :completedDelta, " +
+           "t.lastUpdated = :now, t.updatedAt = :now " +
+           "WHERE t.team.id = :teamId")
+    int applyDelta(@Param("teamId") Long teamId,
+                   @Param("totalDelta") int totalDelta,
+                   @Param("completedDelta") int completedDelta,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TeamProgress t SET t.totalTasks = :total, t.completedTasks = :completed, " +
+           "t.completionPercentage = :percentage, t.lastUpdated = :now, t.updatedAt = :now " +
+           "WHERE t.team.id = :teamId")
+    int setCounts(@Param("teamId") Long teamId,
+                  @Param("total") int total,
+                  @Param("completed") int completed,
+                  @Param("percentage") double percentage,
+                  @Param("now") LocalDateTime now);
+
+    // Bộ đếm đang lưu: [teamId, totalTasks, completedTasks]
+    @Query("SELECT t.team.id, t.totalTasks, t.completedTasks FROM TeamProgress t")
+    List<Object[]> findAllCounts();
+
+    // Số task thực tế của mọi team (qua project của team): [teamId, total, completed]
+    @Query("SELECT p.team.id, COUNT(pt), SUM(CASE WHEN pt.status IN :completedStatuses THEN 1 ELSE 0 END) " +
+           "FROM ProjectTask pt JOIN pt.project p WHERE p.team IS NOT NULL GROUP BY p.team.id")
+    List<Object[]> countTasksPerTeam(@Param("completedStatuses") Collection<TaskStatus> completedStatuses);
+}
@@ -1,11 +1,15 @@
 package com.example.taskmanagement_backend.repositories;
 
 import com.example.taskmanagement_backend.entities.TeamProjectProgress;
+import com.example.taskmanagement_backend.enums.TaskStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,21 +29,44 @@ public interface TeamProjectProgressRepository extends JpaRepository<TeamProject
     void deleteByProjectId(Long projectId);
 
     // Query để tính toán số TeamTask hoàn thành có liên quan đến project
-    @Query("SELECT COUNT(tt) FROM TeamTask tt WHERE tt.team.id = :teamId AND tt.relatedProject.id = :projectId AND tt.status = 'DONE'")
+    @Query("SELECT COUNT(tt) FROM TeamTask tt WHERE tt.team.id = :teamId AND tt.relatedProject.id = :projectId AND (tt.status = 'DONE' OR tt.status = 'COMPLETED')")
     Long countCompletedTasksByTeamAndProject(@Param("teamId") Long teamId, @Param("projectId") Long projectId);
 
     // Query để tính toán tổng số TeamTask có liên quan đến project
     @Query("SELECT COUNT(tt) FROM TeamTask tt WHERE tt.team.id = :teamId AND tt.relatedProject.id = :projectId")
     Long countTotalTasksByTeamAndProject(@Param("teamId") Long teamId, @Param("projectId") Long projectId);
 
-    // Alternative: Query để tính ProjectTask được assign cho team members
-    @Query("SELECT COUNT(pt) FROM ProjectTask pt WHERE pt.project.id = :projectId AND " +
-           "(pt.assignee.id IN (SELECT tm.id FROM TeamMember tm WHERE tm.team.id = :teamId) OR " +
-           "EXISTS (SELECT 1 FROM pt.additionalAssignees aa WHERE aa.id IN (SELECT tm2.id FROM TeamMember tm2 WHERE tm2.team.id = :teamId)))")
-    Long countProjectTasksAssignedToTeamMembers(@Param("teamId") Long teamId, @Param("projectId") Long projectId);
-
-    @Query("SELECT COUNT(pt) FROM ProjectTask pt WHERE pt.project.id = :projectId AND pt.status = 'DONE' AND " +
-           "(pt.assignee.id IN (SELECT tm.id FROM TeamMember tm WHERE tm.team.id = :teamId) OR " +
-           "EXISTS (SELECT 1 FROM pt.additionalAssignees aa WHERE aa.id IN (SELECT tm2.id FROM TeamMember tm2 WHERE tm2.team.id = :teamId)))")
-    Long countCompletedProjectTasksAssignedToTeamMembers(@Param("teamId") Long teamId, @Param("projectId") Long projectId);
-}
\ No newline at end of file
+    @Modifying
+    @Query("UPDATE TeamProjectProgress t SET " +
+           "t.completionPercentage = CASE WHEN COALESCE(t.totalTasks, 0) + :totalDelta > 0 " +
+           "THEN (COALESCE(t.completedTasks, 0) + :completedDelta) * 100.0 / (COALESCE(t.totalTasks, 0) + :totalDelta) ELSE 0.0 END, " +
+           "t.totalTasks = COALESCE(t.totalTasks, 0) + :totalDelta, " +
+           "t.completedTasks = COALESCE(t.completedTasks, 0) + :completedDelta, " +
+           "t.lastUpdated = :now, t.updatedAt = :now " +
+           "WHERE t.team.id = :teamId AND t.project.id = :projectId")
+    int applyDelta(@Param("teamId") Long teamId,
+                   @Param("projectId") Long projectId,
+                   @Param("totalDelta") int totalDelta,
+                   @Param("completedDelta") int completedDelta,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TeamProjectProgress t SET t.totalTasks = :total, t.completedTasks = :completed, " +
+           "t.completionPercentage = :percentage, t.lastUpdated = :now, t.updatedAt = :now " +
+           "WHERE t.team.id = :teamId AND t.project.id = :projectId")
+    int setCounts(@Param("teamId") Long teamId,
+                  @Param("projectId") Long projectId,
+                  @Param("total") int total,
+                  @Param("completed") int completed,
+                  @Param("percentage") double percentage,
+                  @Param("now") LocalDateTime now);
+
+    // Bộ đếm đang lưu: [teamId, projectId, totalTasks, completedTasks]
+    @Query("SELECT t.team.id, t.project.id, t.totalTasks, t.completedTasks FROM TeamProjectProgress t")
+    List<Object[]> findAllCounts();
+
+    // Số TeamTask thực tế theo (team, project): [teamId, projectId, total, completed]
+    @Query("SELECT tt.team.id, tt.relatedProject.id, COUNT(tt), SUM(CASE WHEN tt.status IN :completedStatuses THEN 1 ELSE 0 END) " +
+           "FROM TeamTask tt WHERE tt.relatedProject IS NOT NULL GROUP BY tt.team.id, tt.relatedProject.id")
+    List<Object[]> countTasksPerTeamAndProject(@Param("completedStatuses") Collection<TaskStatus> completedStatuses);
+}
@@ -81,6 +81,37 @@ public interface TeamTaskJpaRepository extends JpaRepository<TeamTask, Long> {
     // Find subtasks
     List<TeamTask> findByParentTask(TeamTask parentTask);
 
+    /**
+     * A task and all its descendants in one recursive query, as rows of
+     * [id, parent_task_id, depth, title, status, progress_percentage, estimated_hours, actual_hours, deadline]
+     * ordered by depth; maxDepth bounds the recursion should the hierarchy ever contain a cycle
+     */
+    @Query(value = "WITH RECURSIVE subtree (id, depth) AS ( " +
+                   "  SELECT id, 0 FROM team_tasks WHERE id = :rootId " +
+                   "  UNION ALL " +
+                   "  SELECT c.id, s.depth + 1 FROM team_tasks c JOIN subtree s ON c.parent_task_id = s.id " +
+                   "  WHERE s.depth < :maxDepth " +
+                   ") " +
+                   "SELECT t.id, t.parent_task_id, s.depth, t.title, t.status, t.progress_percentage, " +
+                   "       t.estimated_hours, t.actual_hours, t.deadline " +
+                   "FROM subtree s JOIN team_tasks t ON t.id = s.id " +
+                   "ORDER BY s.depth, t.id",
+           nativeQuery = true)
+    List<Object[]> findSubtreeRows(@Param("rootId") Long rootId, @Param("maxDepth") int maxDepth);
+
+    /**
+     * Ids of a task and all its ancestors up to the root, in one recursive query
+     */
+    @Query(value = "WITH RECURSIVE ancestors (id, parent_task_id, depth) AS ( " +
+                   "  SELECT id, parent_task_id, 0 FROM team_tasks WHERE id = :taskId " +
+                   "  UNION ALL " +
+                   "  SELECT p.id, p.parent_task_id, a.depth + 1 FROM team_tasks p JOIN ancestors a ON p.id = a.parent_task_id " +
+                   "  WHERE a.depth < :maxDepth " +
+                   ") " +
+                   "SELECT id FROM ancestors",
+           nativeQuery = true)
+    List<Number> findAncestorIds(@Param("taskId") Long taskId, @Param("maxDepth") int maxDepth);
+
     // Count methods
     long countByTeamId(Long teamId);
     long countByTeamIdAndStatus(Long teamId, TaskStatus status);
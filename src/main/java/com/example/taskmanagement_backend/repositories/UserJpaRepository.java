@@ -101,6 +101,12 @@ public interface UserJpaRepository extends JpaRepository<User, Long>, JpaSpecifi
    @Query("SELECT u FROM User u JOIN u.userProfile p WHERE p.isPremium = true AND p.premiumPlanType = 'trial' AND p.premiumExpiry > :now")
    List<User> findTrialUsers(@Param("now") LocalDateTime now);
 
+   /**
+    * Find users with active trial subscriptions whose id falls in one shard of a sharded cluster job
+    */
+   @Query("SELECT u FROM User u JOIN u.userProfile p WHERE p.isPremium = true AND p.premiumPlanType = 'trial' AND p.premiumExpiry > :now AND MOD(u.id, :shardCount) = :shardIndex")
+   List<User> findTrialUsersInShard(@Param("now") LocalDateTime now, @Param("shardIndex") int shardIndex, @Param("shardCount") int shardCount);
+
    /**
     * Find trial users expiring soon (within specified period)
     */
@@ -177,11 +183,6 @@ public interface UserJpaRepository extends JpaRepository<User, Long>, JpaSpecifi
     */
    long countByCreatedAtAfter(LocalDateTime date);
 
-   /**
-    * Find users created after a specific date
-    */
-   List<User> findByCreatedAtAfter(LocalDateTime date);
-
    /**
     * Find users by status (for admin filtering)
     */
@@ -229,8 +230,39 @@ public interface UserJpaRepository extends JpaRepository<User, Long>, JpaSpecifi
     */
    long countByLastLoginAtBetween(LocalDateTime startDate, LocalDateTime endDate);
 
+   // ===== TIME-SERIES ANALYTICS QUERIES =====
+   // Each returns one row per bucket as [bucket, count]; empty buckets are omitted
+   // and filled in by UserAnalyticsService.
+
+   /**
+    * Registrations per calendar day in [startDate, endDate)
+    */
+   @Query(nativeQuery = true, value = "SELECT DATE(u.created_at) AS bucket, COUNT(*) AS total FROM users u " +
+          "WHERE u.created_at >= :startDate AND u.created_at < :endDate " +
+          "GROUP BY DATE(u.created_at)")
+   List<Object[]> countRegistrationsPerDay(@Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate);
+
+   /**
+    * Users whose last login falls on each calendar day in [startDate, endDate)
+    */
+   @Query(nativeQuery = true, value = "SELECT DATE(u.last_login_at) AS bucket, COUNT(*) AS total FROM users u " +
+          "WHERE u.last_login_at >= :startDate AND u.last_login_at < :endDate " +
+          "GROUP BY DATE(u.last_login_at)")
+   List<Object[]> countLastLoginsPerDay(@Param("startDate") LocalDateTime startDate,
+                                        @Param("endDate") LocalDateTime endDate);
+
+   /**
+    * Registrations per hour of day (0-23) since the given date
+    */
+   @Query(nativeQuery = true, value = "SELECT HOUR(u.created_at) AS bucket, COUNT(*) AS total FROM users u " +
+          "WHERE u.created_at >= :since GROUP BY HOUR(u.created_at)")
+   List<Object[]> countRegistrationsPerHourSince(@Param("since") LocalDateTime since);
+
    /**
-    * ✅ NEW: Find users who logged in after a specific date
+    * Last logins per hour of day (0-23) since the given date
     */
-   List<User> findByLastLoginAtAfter(LocalDateTime date);
+   @Query(nativeQuery = true, value = "SELECT HOUR(u.last_login_at) AS bucket, COUNT(*) AS total FROM users u " +
+          "WHERE u.last_login_at >= :since GROUP BY HOUR(u.last_login_at)")
+   List<Object[]> countLastLoginsPerHourSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
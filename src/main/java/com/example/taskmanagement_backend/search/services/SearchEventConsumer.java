@@ -9,6 +9,7 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -50,6 +51,14 @@ public class SearchEventConsumer {
                         log.warn("⚠️ Task not found for indexing: {}", taskId);
                     }
                 }
+                case "BULK_UPDATE" -> {
+                    List<Long> taskIds = Arrays.stream(event.getEntityId().split(","))
+                            .map(Long::parseLong)
+                            .toList();
+                    List<Task> tasks = taskRepository.findAllById(taskIds);
+                    searchIndexingService.bulkIndexTasks(tasks);
+                    log.debug("✅ Bulk indexed {} of {} updated tasks", tasks.size(), taskIds.size());
+                }
                 case "DELETE" -> {
                     Long taskId = Long.parseLong(event.getEntityId());
                     searchIndexingService.deleteTaskFromIndex(taskId);
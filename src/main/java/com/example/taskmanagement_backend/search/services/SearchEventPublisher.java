@@ -6,6 +6,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.stream.Collectors;
+
 /**
  * Service for publishing search index events to Kafka
  * Handles real-time event publishing for all search entities
@@ -70,6 +73,19 @@ public class SearchEventPublisher {
         log.debug("📤 Published TASK_STATUS_CHANGED event: {}", taskId);
     }
 
+    /**
+     * Publish one event for a bulk update of several tasks; the consumer re-indexes them in one bulk request
+     */
+    public void publishTasksUpdated(Collection<Long> taskIds, Long userId) {
+        if (taskIds.isEmpty()) {
+            return;
+        }
+        String ids = taskIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        SearchIndexEvent event = new SearchIndexEvent("BULK_UPDATE", "TASK", ids, userId);
+        publishEvent(TASK_SEARCH_TOPIC, "BULK_UPDATE", event);
+        log.debug("📤 Published TASK_BULK_UPDATE event for {} tasks", taskIds.size());
+    }
+
     // ==================== PROJECT EVENTS ====================
 
     /**
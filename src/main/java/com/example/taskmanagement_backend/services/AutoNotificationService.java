@@ -1,5 +1,6 @@
 package com.example.taskmanagement_backend.services;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.dtos.NotificationDto.CreateNotificationRequestDto;
 import com.example.taskmanagement_backend.entities.*;
 import com.example.taskmanagement_backend.enums.NotificationType;
@@ -35,6 +36,7 @@ public class AutoNotificationService {
      */
     @Transactional
     @Scheduled(fixedRate = 3600000) // Chạy mỗi giờ
+    @ClusterJob(name = "auto-notification-due-soon", period = "PT1H")
     public void checkTasksDueSoon() {
         log.info("🔍 Checking for tasks due soon...");
 
@@ -72,6 +74,7 @@ public class AutoNotificationService {
      */
     @Transactional
     @Scheduled(cron = "0 0 9 * * ?") // 9h sáng mỗi ngày
+    @ClusterJob(name = "auto-notification-overdue")
     public void checkOverdueTasks() {
         log.info("🔍 Checking for overdue tasks...");
 
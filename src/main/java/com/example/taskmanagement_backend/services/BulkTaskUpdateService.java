@@ -0,0 +1,407 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateItemDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateResponseDto;
+import com.example.taskmanagement_backend.entities.ProjectTask;
+import com.example.taskmanagement_backend.entities.Task;
+import com.example.taskmanagement_backend.entities.TaskAssignee;
+import com.example.taskmanagement_backend.entities.User;
+import com.example.taskmanagement_backend.enums.TaskPriority;
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import com.example.taskmanagement_backend.repositories.ProjectTaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TasksAssigneeJpaRepository;
+import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.search.services.SearchEventPublisher;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Applies the changes of many tasks as one unit of work, e.g. moving cards across a board.
+ *
+ * Tasks, assignees and users are each loaded with one query and the changes are applied to the
+ * managed entities, which Hibernate writes at commit as batched UPDATEs; activities are saved with
+ * one saveAll. Side effects run once per batch instead of once per task: one progress delta per
+ * affected project and team inside the transaction, then after commit one DEL per dashboard cache
+ * family and one search index event. A batch is all or nothing - an unknown task or user, a bad
+ * value or a task the user may not edit rolls the whole batch back.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkTaskUpdateService {
+
+    private final ProjectTaskJpaRepository projectTaskRepository;
+    private final TaskJpaRepository taskRepository;
+    private final TasksAssigneeJpaRepository tasksAssigneeRepository;
+    private final UserJpaRepository userRepository;
+    private final ProgressUpdateService progressUpdateService;
+    private final ProjectTaskActivityService projectTaskActivityService;
+    private final TaskActivityService taskActivityService;
+    private final DashboardService dashboardService;
+    private final ProjectDashboardService projectDashboardService;
+    private final SearchEventPublisher searchEventPublisher;
+
+    // ===== Project tasks =====
+
+    @Transactional
+    public BulkTaskUpdateResponseDto updateProjectTasks(List<BulkTaskUpdateItemDto> updates) {
+        Map<Long, ProjectTask> tasks = new LinkedHashMap<>();
+        projectTaskRepository.findAllForBulkUpdateByIdIn(taskIds(updates))
+                .forEach(task -> tasks.put(task.getId(), task));
+        requireAllFound(updates, tasks.keySet(), "Project tasks");
+        Map<Long, User> users = loadAssignees(updates);
+
+        Map<Long, TaskStatus> oldStatuses = new HashMap<>();
+        tasks.values().forEach(task -> oldStatuses.put(task.getId(), task.getStatus()));
+
+        ProjectTaskActivityService.ActivityBatch activities = projectTaskActivityService.startBatch();
+        Set<Long> changedIds = new LinkedHashSet<>();
+        for (BulkTaskUpdateItemDto update : updates) {
+            ProjectTask task = tasks.get(update.getTaskId());
+            if (applyProjectTaskUpdate(task, update, users, activities)) {
+                changedIds.add(task.getId());
+            }
+        }
+        activities.save();
+
+        List<ProjectTask> changedTasks = changedIds.stream().map(tasks::get).toList();
+        progressUpdateService.onProjectTasksStatusChanged(changedTasks, oldStatuses);
+
+        Set<Long> projectIds = changedTasks.stream()
+                .filter(task -> task.getProject() != null)
+                .map(task -> task.getProject().getId())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        afterCommit("invalidate project dashboards",
+                () -> projectDashboardService.invalidateProjectDashboardCaches(projectIds));
+
+        log.info("📦 [BulkTaskUpdateService] Changed {} of {} project tasks in {} projects",
+                changedIds.size(), updates.size(), projectIds.size());
+        return response(updates.size(), changedIds.size(), tasks.values().stream()
+                .map(BulkTaskUpdateService::toItem)
+                .toList());
+    }
+
+    private boolean applyProjectTaskUpdate(ProjectTask task, BulkTaskUpdateItemDto update, Map<Long, User> users,
+                                           ProjectTaskActivityService.ActivityBatch activities) {
+        boolean changed = false;
+        TaskStatus newStatus = update.getStatus() != null ? parse(TaskStatus.class, update.getStatus(), "status") : null;
+
+        Integer progress = update.getProgressPercentage();
+        if (progress != null) {
+            if (progress < 0 || progress > 100) {
+                throw new IllegalArgumentException("Progress percentage must be between 0 and 100");
+            }
+            changed |= !progress.equals(task.getProgressPercentage());
+            task.setProgressPercentage(progress);
+            if (newStatus == null) {
+                // Same rule as ProjectTaskService.updateTaskProgress
+                newStatus = progress == 0 ? TaskStatus.TODO : progress == 100 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS;
+            }
+        }
+
+        TaskStatus oldStatus = task.getStatus();
+        if (newStatus != null && newStatus != oldStatus) {
+            task.setStatus(newStatus);
+            activities.statusChanged(task, oldStatus != null ? oldStatus.toString() : null, newStatus.toString());
+            if (newStatus == TaskStatus.DONE) {
+                activities.completed(task);
+            } else if ((newStatus == TaskStatus.TODO || newStatus == TaskStatus.IN_PROGRESS) && oldStatus == TaskStatus.DONE) {
+                activities.reopened(task);
+            }
+            changed = true;
+        }
+
+        if (update.getPriority() != null) {
+            TaskPriority newPriority = parse(TaskPriority.class, update.getPriority(), "priority");
+            TaskPriority oldPriority = task.getPriority();
+            if (newPriority != oldPriority) {
+                task.setPriority(newPriority);
+                activities.priorityChanged(task, oldPriority != null ? oldPriority.toString() : null, newPriority.toString());
+                changed = true;
+            }
+        }
+
+        if (update.getDeadline() != null && !update.getDeadline().equals(task.getDeadline())) {
+            String oldDeadline = task.getDeadline() != null ? task.getDeadline().toString() : null;
+            task.setDeadline(update.getDeadline());
+            activities.deadlineChanged(task, oldDeadline, update.getDeadline().toString());
+            changed = true;
+        }
+
+        if (update.getAssigneeId() != null) {
+            User oldAssignee = task.getAssignee();
+            if (oldAssignee == null || !oldAssignee.getId().equals(update.getAssigneeId())) {
+                User newAssignee = users.get(update.getAssigneeId());
+                if (oldAssignee != null) {
+                    activities.assigneeRemoved(task, oldAssignee.getEmail());
+                }
+                task.setAssignee(newAssignee);
+                activities.assigneeAdded(task, newAssignee.getEmail());
+                changed = true;
+            }
+        }
+
+        return changed;
+    }
+
+    // ===== Personal tasks =====
+
+    @Transactional
+    public BulkTaskUpdateResponseDto updateMyTasks(List<BulkTaskUpdateItemDto> updates) {
+        User currentUser = getCurrentUser();
+        Set<Long> taskIds = taskIds(updates);
+
+        Map<Long, Task> tasks = new LinkedHashMap<>();
+        taskRepository.findAllById(taskIds).forEach(task -> tasks.put(task.getId(), task));
+        requireAllFound(updates, tasks.keySet(), "Tasks");
+
+        Map<Long, List<TaskAssignee>> assigneesByTask = tasksAssigneeRepository.findWithUserByTaskIdIn(taskIds).stream()
+                .collect(Collectors.groupingBy(assignee -> assignee.getTask().getId()));
+        for (Task task : tasks.values()) {
+            // Same rule as TaskService.updateTask: the creator or an assignee may edit the task
+            boolean isCreator = task.getCreator().getId().equals(currentUser.getId());
+            boolean isAssignee = assigneesByTask.getOrDefault(task.getId(), List.of()).stream()
+                    .anyMatch(assignee -> assignee.getUser().getId().equals(currentUser.getId()));
+            if (!isCreator && !isAssignee) {
+                throw new SecurityException("You don't have permission to update task " + task.getId());
+            }
+        }
+        Map<Long, User> users = loadAssignees(updates);
+
+        TaskActivityService.ActivityBatch activities = taskActivityService.startBatch();
+        Map<Long, User> reassigned = new LinkedHashMap<>();
+        Set<Long> changedIds = new LinkedHashSet<>();
+        for (BulkTaskUpdateItemDto update : updates) {
+            Task task = tasks.get(update.getTaskId());
+            List<TaskAssignee> assignees = assigneesByTask.getOrDefault(task.getId(), List.of());
+            if (applyTaskUpdate(task, update, assignees, users, reassigned, activities)) {
+                changedIds.add(task.getId());
+            }
+        }
+
+        if (!reassigned.isEmpty()) {
+            tasksAssigneeRepository.deleteByTaskIdIn(reassigned.keySet());
+            LocalDateTime now = LocalDateTime.now();
+            tasksAssigneeRepository.saveAll(reassigned.entrySet().stream()
+                    .map(entry -> TaskAssignee.builder()
+                            .task(tasks.get(entry.getKey()))
+                            .user(entry.getValue())
+                            .assignedAt(now)
+                            .build())
+                    .toList());
+        }
+        activities.save();
+
+        // Everyone whose dashboard shows a changed task: creators, previous and new assignees
+        Set<Long> userIds = new LinkedHashSet<>();
+        Set<Long> projectIds = new LinkedHashSet<>();
+        for (Long taskId : changedIds) {
+            Task task = tasks.get(taskId);
+            userIds.add(task.getCreator().getId());
+            assigneesByTask.getOrDefault(taskId, List.of()).forEach(assignee -> userIds.add(assignee.getUser().getId()));
+            if (task.getProject() != null) {
+                projectIds.add(task.getProject().getId());
+            }
+        }
+        reassigned.values().forEach(user -> userIds.add(user.getId()));
+        afterCommit("invalidate dashboards", () -> {
+            dashboardService.invalidateDashboardCaches(userIds);
+            projectDashboardService.invalidateProjectDashboardCaches(projectIds);
+        });
+        afterCommit("publish task search event",
+                () -> searchEventPublisher.publishTasksUpdated(changedIds, currentUser.getId()));
+
+        log.info("📦 [BulkTaskUpdateService] Changed {} of {} tasks of user {}",
+                changedIds.size(), updates.size(), currentUser.getId());
+        return response(updates.size(), changedIds.size(), tasks.values().stream()
+                .map(task -> toItem(task, reassigned.containsKey(task.getId())
+                        ? reassigned.get(task.getId()).getId()
+                        : singleAssigneeId(assigneesByTask.get(task.getId()))))
+                .toList());
+    }
+
+    private boolean applyTaskUpdate(Task task, BulkTaskUpdateItemDto update, List<TaskAssignee> assignees,
+                                    Map<Long, User> users, Map<Long, User> reassigned,
+                                    TaskActivityService.ActivityBatch activities) {
+        if (update.getProgressPercentage() != null) {
+            throw new IllegalArgumentException("Task " + task.getId() + " is a personal task and has no progress");
+        }
+        boolean changed = false;
+
+        String oldStatus = task.getStatusKey();
+        if (update.getStatus() != null && !update.getStatus().equals(oldStatus)) {
+            task.setStatusKey(update.getStatus());
+            activities.statusChanged(task, oldStatus, update.getStatus());
+            // Same rule as TaskService.updateTask
+            if ("DONE".equals(update.getStatus()) || "COMPLETED".equals(update.getStatus())) {
+                activities.completed(task);
+            } else if (("TODO".equals(update.getStatus()) || "IN_PROGRESS".equals(update.getStatus())) &&
+                       ("DONE".equals(oldStatus) || "COMPLETED".equals(oldStatus))) {
+                activities.reopened(task);
+            }
+            changed = true;
+        }
+
+        String oldPriority = task.getPriorityKey();
+        if (update.getPriority() != null && !update.getPriority().equals(oldPriority)) {
+            task.setPriorityKey(update.getPriority());
+            activities.priorityChanged(task, oldPriority, update.getPriority());
+            changed = true;
+        }
+
+        if (update.getDeadline() != null && !update.getDeadline().equals(task.getDeadline())) {
+            String oldDeadline = task.getDeadline() != null ? task.getDeadline().toString() : null;
+            task.setDeadline(update.getDeadline());
+            activities.deadlineChanged(task, oldDeadline, update.getDeadline().toString());
+            changed = true;
+        }
+
+        Long currentAssigneeId = reassigned.containsKey(task.getId())
+                ? reassigned.get(task.getId()).getId()
+                : singleAssigneeId(assignees);
+        if (update.getAssigneeId() != null && !update.getAssigneeId().equals(currentAssigneeId)) {
+            // The new assignee replaces all current ones; rows are rewritten once after the loop
+            User newAssignee = users.get(update.getAssigneeId());
+            if (!reassigned.containsKey(task.getId())) {
+                assignees.forEach(assignee -> activities.assigneeRemoved(task, assignee.getUser().getEmail()));
+            }
+            reassigned.put(task.getId(), newAssignee);
+            activities.assigneeAdded(task, newAssignee.getEmail());
+            changed = true;
+        }
+
+        return changed;
+    }
+
+    // ===== Helpers =====
+
+    private static Set<Long> taskIds(List<BulkTaskUpdateItemDto> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("At least one task update is required");
+        }
+        Set<Long> taskIds = new LinkedHashSet<>();
+        for (BulkTaskUpdateItemDto update : updates) {
+            if (update.getTaskId() == null) {
+                throw new IllegalArgumentException("Task ID is required");
+            }
+            taskIds.add(update.getTaskId());
+        }
+        return taskIds;
+    }
+
+    private static void requireAllFound(List<BulkTaskUpdateItemDto> updates, Set<Long> foundIds, String kind) {
+        Set<Long> missingIds = updates.stream()
+                .map(BulkTaskUpdateItemDto::getTaskId)
+                .filter(taskId -> !foundIds.contains(taskId))
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!missingIds.isEmpty()) {
+            throw new EntityNotFoundException(kind + " not found: " + missingIds);
+        }
+    }
+
+    private Map<Long, User> loadAssignees(List<BulkTaskUpdateItemDto> updates) {
+        Set<Long> userIds = updates.stream()
+                .map(BulkTaskUpdateItemDto::getAssigneeId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (userIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+        userIds.removeAll(users.keySet());
+        if (!userIds.isEmpty()) {
+            throw new EntityNotFoundException("Users not found: " + new TreeSet<>(userIds));
+        }
+        return users;
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String value, String field) {
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + value);
+        }
+    }
+
+    private static Long singleAssigneeId(List<TaskAssignee> assignees) {
+        return assignees != null && assignees.size() == 1 ? assignees.get(0).getUser().getId() : null;
+    }
+
+    private static BulkTaskUpdateItemDto toItem(ProjectTask task) {
+        return BulkTaskUpdateItemDto.builder()
+                .taskId(task.getId())
+                .status(task.getStatus() != null ? task.getStatus().toString() : null)
+                .priority(task.getPriority() != null ? task.getPriority().toString() : null)
+                .progressPercentage(task.getProgressPercentage())
+                .assigneeId(task.getAssignee() != null ? task.getAssignee().getId() : null)
+                .deadline(task.getDeadline())
+                .build();
+    }
+
+    private static BulkTaskUpdateItemDto toItem(Task task, Long assigneeId) {
+        return BulkTaskUpdateItemDto.builder()
+                .taskId(task.getId())
+                .status(task.getStatusKey())
+                .priority(task.getPriorityKey())
+                .assigneeId(assigneeId)
+                .deadline(task.getDeadline())
+                .build();
+    }
+
+    private static BulkTaskUpdateResponseDto response(int requestedCount, int changedCount,
+                                                      List<BulkTaskUpdateItemDto> tasks) {
+        return BulkTaskUpdateResponseDto.builder()
+                .requestedCount(requestedCount)
+                .changedCount(changedCount)
+                .tasks(tasks)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private User getCurrentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new SecurityException("User not authenticated");
+        }
+
+        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
+        return userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new EntityNotFoundException("Current user not found"));
+    }
+
+    private void afterCommit(String description, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // Dashboards expire after their TTL and the search index is rebuilt by BULK_REINDEX
+                log.warn("⚠️ Could not {} after bulk task update: {}", description, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
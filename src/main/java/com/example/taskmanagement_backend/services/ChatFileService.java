@@ -1,6 +1,7 @@
 package com.example.taskmanagement_backend.services;
 
 import com.example.taskmanagement_backend.dtos.ChatDto.*;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,6 +21,7 @@ import java.util.*;
 public class ChatFileService {
 
     private final S3Service s3Service;
+    private final S3DeletionQueueService s3DeletionQueueService;
 
     @Value("${chat.file.max-size:10485760}") // 10MB default
     private long maxFileSize;
@@ -141,8 +143,8 @@ public class ChatFileService {
      */
     public void deleteChatFile(String s3Key) {
         try {
-            s3Service.deleteFile(s3Key);
-            log.info("🗑️ Chat file deleted: {}", s3Key);
+            s3DeletionQueueService.enqueue(s3Key, "chat");
+            log.info("🗑️ Chat file queued for deletion: {}", s3Key);
         } catch (Exception e) {
             log.error("❌ Error deleting chat file: {}", s3Key, e);
             throw new RuntimeException("Failed to delete chat file: " + e.getMessage(), e);
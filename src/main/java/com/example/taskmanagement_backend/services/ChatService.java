@@ -5,6 +5,7 @@ import com.example.taskmanagement_backend.dtos.FriendDto.FriendDto;
 import com.example.taskmanagement_backend.entities.*;
 import com.example.taskmanagement_backend.enums.*;
 import com.example.taskmanagement_backend.repositories.*;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
 import com.example.taskmanagement_backend.utils.ChatTimeFormatter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +37,7 @@ public class ChatService {
     private final FriendService friendService;
     private final ChatTimeFormatter chatTimeFormatter;
     private final S3Service s3Service; // 🆕 Add S3Service dependency
+    private final ThumbnailService thumbnailService;
 
     @Transactional(readOnly = true)
     public Page<ConversationResponseDto> getUserConversations(Long userId, int page, int size) {
@@ -112,6 +114,11 @@ public class ChatService {
                 .build();
 
         message = messageRepository.save(message);
+        if (message.getFileUrl() != null && (message.getType() == MessageType.IMAGE
+                || ThumbnailService.isImage(message.getFileName(), null))) {
+            thumbnailService.generateAfterCommit(ThumbnailService.Target.MESSAGE, message.getId(),
+                    extractS3KeyFromUrl(message.getFileUrl()), null);
+        }
 
         // Create message read status for all conversation members
         List<Long> memberUserIds = conversationMemberRepository.findUserIdsByConversationId(conversation.getId());
@@ -304,6 +311,7 @@ public class ChatService {
 
         Pageable pageable = PageRequest.of(page, size);
         Page<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtDesc(conversationId, pageable);
+        prefetchFileUrls(messages.getContent());
 
         return messages.map(this::convertToMessageResponseDto);
     }
@@ -322,6 +330,7 @@ public class ChatService {
 
             // Load ALL messages from oldest to newest
             List<Message> messages = messageRepository.findAllByConversationIdOrderByCreatedAtAsc(conversationId);
+            prefetchFileUrls(messages);
 
             // Convert to DTOs
             List<MessageResponseDto> messageDtos = messages.stream()
@@ -351,6 +360,7 @@ public class ChatService {
 
             Pageable pageable = PageRequest.of(page, size);
             Page<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId, pageable);
+            prefetchFileUrls(messages.getContent());
 
             // Convert to DTOs
             Page<MessageResponseDto> result = messages.map(this::convertToMessageResponseDto);
@@ -692,12 +702,14 @@ public class ChatService {
 
         // 🔧 Generate fresh presigned URL for file attachments to fix 403 Forbidden errors
         String freshFileUrl = null;
+        String thumbnailUrl = null;
         if (message.getFileUrl() != null && !message.getFileUrl().isEmpty()) {
             try {
                 // Extract S3 key from the stored URL or use it directly if it's already an S3 key
                 String s3Key = extractS3KeyFromUrl(message.getFileUrl());
                 if (s3Key != null) {
                     freshFileUrl = s3Service.generateDownloadUrl(s3Key);
+                    thumbnailUrl = thumbnailService.listUrl(s3Key, message.getThumbnails());
                     log.debug("🔧 Generated fresh presigned URL for message {} file: {}", message.getId(), message.getFileName());
                 } else {
                     // Fallback to original URL if we can't extract S3 key
@@ -721,6 +733,7 @@ public class ChatService {
                 .content(message.getContent())
                 .fileName(message.getFileName())
                 .fileUrl(freshFileUrl) // 🔧 Use fresh presigned URL instead of expired one
+                .thumbnailUrl(thumbnailUrl)
                 .fileSize(message.getFileSize())
                 .replyToId(message.getReplyToId())
                 .replyToContent(replyToContent)
@@ -734,6 +747,35 @@ public class ChatService {
                 .build();
     }
 
+    /**
+     * Presign the attachments of a page of messages and their image variants in one batch each, so
+     * convertToMessageResponseDto finds every file and thumbnail URL in the presigned URL cache
+     */
+    private void prefetchFileUrls(List<Message> messages) {
+        List<String> s3Keys = messages.stream()
+                .map(Message::getFileUrl)
+                .filter(fileUrl -> fileUrl != null && !fileUrl.isEmpty())
+                .map(this::extractS3KeyFromUrl)
+                .filter(java.util.Objects::nonNull)
+                .toList();
+        if (!s3Keys.isEmpty()) {
+            s3Service.generateDownloadUrls(s3Keys);
+        }
+
+        Map<String, String> thumbnailsByKey = new HashMap<>();
+        for (Message message : messages) {
+            if (message.getThumbnails() != null && message.getFileUrl() != null) {
+                String s3Key = extractS3KeyFromUrl(message.getFileUrl());
+                if (s3Key != null) {
+                    thumbnailsByKey.put(s3Key, message.getThumbnails());
+                }
+            }
+        }
+        if (!thumbnailsByKey.isEmpty()) {
+            thumbnailService.listUrls(thumbnailsByKey);
+        }
+    }
+
     /**
      * 🔧 Extract S3 key from presigned URL or return the URL as-is if it's already an S3 key
      * Improved version to handle URL encoding and various URL formats
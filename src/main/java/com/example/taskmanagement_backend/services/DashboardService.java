@@ -91,6 +91,18 @@ public class DashboardService {
         log.info("🗑️ [DashboardService] Cache invalidated for user: {} (deleted: {})", userId, deleted);
     }
 
+    /**
+     * Invalidate the caches of several users with one DEL (bulk task changes)
+     */
+    public void invalidateDashboardCaches(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<String> cacheKeys = userIds.stream().map(userId -> CACHE_PREFIX + userId).toList();
+        Long deleted = redisTemplate.delete(cacheKeys);
+        log.info("🗑️ [DashboardService] Cache invalidated for {} users (deleted: {})", cacheKeys.size(), deleted);
+    }
+
     /**
      * Generate fresh dashboard data from database
      */
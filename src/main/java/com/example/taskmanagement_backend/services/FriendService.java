@@ -7,6 +7,7 @@ import com.example.taskmanagement_backend.entities.UserProfile;
 import com.example.taskmanagement_backend.enums.FriendshipStatus;
 import com.example.taskmanagement_backend.repositories.FriendRepository;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.services.feed.NewsfeedTimelineService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -27,6 +28,7 @@ public class FriendService {
     private final UserJpaRepository userRepository;
     private final OnlineStatusService onlineStatusService; // Thêm OnlineStatusService để đồng nhất trạng thái online
     private final S3Service s3Service; // Thêm S3Service để convert avatar URLs
+    private final NewsfeedTimelineService newsfeedTimelineService; // Rebuild timelines when friendships change
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -102,6 +104,7 @@ public class FriendService {
         // Accept the request
         friendRequest.accept();
         Friend saved = friendRepository.save(friendRequest);
+        newsfeedTimelineService.onFriendshipChanged(friendRequest.getUser().getId(), currentUser.getId());
 
         log.info("✅ User {} accepted friend request from {}",
                 currentUser.getEmail(), friendRequest.getUser().getEmail());
@@ -175,6 +178,7 @@ public class FriendService {
         }
 
         friendRepository.delete(friendship);
+        newsfeedTimelineService.onFriendshipChanged(currentUser.getId(), friendId);
 
         log.info("💔 User {} unfriended user {}", currentUser.getEmail(), friendId);
     }
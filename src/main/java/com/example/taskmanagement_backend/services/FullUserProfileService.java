@@ -129,9 +129,7 @@ public class FullUserProfileService {
             }
 
             // Convert to DTOs using the public method
-            return posts.stream()
-                    .map(post -> postService.convertToPostResponseDto(post, currentUser.getId()))
-                    .collect(Collectors.toList());
+            return postService.convertToPostResponseDtos(posts, currentUser.getId());
 
         } catch (Exception e) {
             log.warn("⚠️ Could not load posts for user {}: {}", targetUser.getId(), e.getMessage());
@@ -1,6 +1,8 @@
 package com.example.taskmanagement_backend.services;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.repositories.NotificationJpaRepository;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -25,11 +27,13 @@ public class NotificationScheduledService {
      * Runs every hour to remove notifications that have passed their expiration time
      */
     @Scheduled(fixedRate = 3600000) // 1 hour = 3600000 ms
+    @ClusterJob(name = "notification-cleanup", period = "PT1H")
     @Transactional
     public void cleanupExpiredNotifications() {
         try {
             LocalDateTime now = LocalDateTime.now();
             int deletedCount = notificationRepository.deleteExpiredNotifications(now);
+            ClusterJobContext.current().addRowsProcessed(deletedCount);
 
             if (deletedCount > 0) {
                 log.info("Cleaned up {} expired notifications", deletedCount);
@@ -44,6 +48,7 @@ public class NotificationScheduledService {
      * Runs every 30 minutes to provide visibility into system performance
      */
     @Scheduled(fixedRate = 1800000) // 30 minutes = 1800000 ms
+    @ClusterJob(name = "notification-stats", period = "PT30M")
     public void logNotificationStats() {
         try {
             long totalNotifications = notificationRepository.count();
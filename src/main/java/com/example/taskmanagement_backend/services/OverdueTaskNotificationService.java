@@ -8,7 +8,6 @@ import com.example.taskmanagement_backend.enums.NotificationType;
 import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,11 +36,9 @@ public class OverdueTaskNotificationService {
     private volatile LocalDate lastOverdueCheckDate = null;
 
     /**
-     * Chạy mỗi ngày lúc 9h sáng để kiểm tra task quá hạn và tạo thông báo
-     * PRODUCTION: Chạy 1 lần mỗi ngày vào 9h sáng
-     * + Chạy lần đầu ngay sau khi khởi động server (sau 30 giây)
+     * Scan every overdue task and create notifications (manual trigger).
+     * Scheduled notifications are created by TaskReminderEngine from the due-time index
      */
-    @Scheduled(cron = "0 0 9 * * *") // 9:00 AM mỗi ngày
     @Transactional
     public void checkAndNotifyOverdueTasks() {
         try {
@@ -111,31 +108,10 @@ public class OverdueTaskNotificationService {
         }
     }
 
-    /**
-     * 🚀 STARTUP CHECK: Chạy lần đầu sau khi khởi động server (30 giây sau startup)
-     * Để đảm bảo luôn có thông báo overdue ngay khi server start
-     */
-    @Scheduled(initialDelay = 30000, fixedDelay = Long.MAX_VALUE) // Chỉ chạy 1 lần sau 30s
-    @Transactional
-    public void checkOverdueTasksOnStartup() {
-        log.info("🚀 STARTUP: Running initial overdue task check after server startup...");
-
-        LocalDate today = LocalDate.now();
-
-        // Reset flag để force check lần đầu
-        hasCheckedOverdueToday = false;
-        lastOverdueCheckDate = null;
-
-        // Chạy check overdue
-        checkAndNotifyOverdueTasks();
-
-        log.info("✅ STARTUP: Completed initial overdue task check");
-    }
-
     /**
      * Tạo thông báo quá hạn cho một user cụ thể
      */
-    private void createOverdueNotificationForUser(User user, List<Task> overdueTasks) {
+    public void createOverdueNotificationForUser(User user, List<Task> overdueTasks) {
         try {
             // 🚨 FIX: Kiểm tra xem đã tạo thông báo quá hạn cho user này hôm nay chưa
             if (hasOverdueNotificationToday(user.getId())) {
@@ -276,10 +252,9 @@ public class OverdueTaskNotificationService {
     }
 
     /**
-     * Tạo thông báo nhắc nhở trước khi task quá hạn (chạy hàng ngày lúc 8h sáng)
-     * Cron: 0 0 8 * * * = 8:00 AM mỗi ngày
+     * Scan tasks that are due soon and create reminder notifications (manual trigger).
+     * Scheduled notifications are created by TaskReminderEngine from the due-time index
      */
-    @Scheduled(cron = "0 0 8 * * *") // 8:00 AM mỗi ngày
     @Transactional(readOnly = true)
     public void checkAndNotifyDueSoonTasks() {
         try {
@@ -335,7 +310,7 @@ public class OverdueTaskNotificationService {
     /**
      * Tạo thông báo sắp đến hạn cho user
      */
-    private void createDueSoonNotificationForUser(User user, List<Task> dueSoonTasks) {
+    public void createDueSoonNotificationForUser(User user, List<Task> dueSoonTasks) {
         try {
             String title;
             String content;
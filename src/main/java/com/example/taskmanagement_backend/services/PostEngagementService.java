@@ -0,0 +1,348 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.entities.Post;
+import com.example.taskmanagement_backend.entities.PostComment;
+import com.example.taskmanagement_backend.repositories.PostCommentLikeRepository;
+import com.example.taskmanagement_backend.repositories.PostCommentRepository;
+import com.example.taskmanagement_backend.repositories.PostLikeRepository;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import com.example.taskmanagement_backend.services.feed.TrendingPostService;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Likes and comment counts of posts and comments without hot-row contention.
+ *
+ * Like rows are inserted/deleted idempotently per (post or comment, user), and a counter only
+ * moves when a row actually changed, so double clicks and retries never double count. Counter
+ * changes are not written to the post row in the request: they are added to a Redis hash of
+ * pending deltas after commit and applied in batches by the flush job (one UPDATE per group of
+ * rows with the same delta), so thousands of likes per second on one post cost a few updates
+ * per flush instead of one locked row update each. Reads add the pending deltas to the stored
+ * counters. A nightly job reconciles the counters with the like and comment rows, which also
+ * repairs deltas lost between a commit and Redis.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostEngagementService {
+
+    private static final String PENDING_KEY = "taskmanagement:counters:pending";
+    private static final String FLUSHING_KEY = "taskmanagement:counters:flushing";
+    private static final int FLUSH_CHUNK_SIZE = 1000;
+    private static final int RECONCILE_BATCH_SIZE = 5000;
+
+    // KEYS[1] = pending deltas, KEYS[2] = deltas being flushed. Deltas left by a failed flush are
+    // retried before new ones are taken. Returns field/value pairs.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_PENDING_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[2]) == 0 then " +
+            "  if redis.call('EXISTS', KEYS[1]) == 0 then return {} end " +
+            "  redis.call('RENAME', KEYS[1], KEYS[2]) " +
+            "end " +
+            "return redis.call('HGETALL', KEYS[2])", List.class);
+
+    // KEYS[1] = pending deltas, KEYS[2] = deltas being flushed; ARGV = fields.
+    // Returns the delta of each field not yet applied to the database.
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> READ_PENDING_SCRIPT = new DefaultRedisScript<>(
+            "local deltas = {} " +
+            "for i, field in ipairs(ARGV) do " +
+            "  deltas[i] = tostring((tonumber(redis.call('HGET', KEYS[1], field)) or 0) + " +
+            "    (tonumber(redis.call('HGET', KEYS[2], field)) or 0)) " +
+            "end " +
+            "return deltas", List.class);
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final PostCommentRepository postCommentRepository;
+    private final PostCommentLikeRepository postCommentLikeRepository;
+    private final TrendingPostService trendingPostService;
+    private final StringRedisTemplate redisTemplate;
+
+    private final AtomicLong recordedDeltas = new AtomicLong();
+    private final AtomicLong flushedDeltas = new AtomicLong();
+    private final AtomicLong flushUpdates = new AtomicLong();
+    private final AtomicLong reconciledRows = new AtomicLong();
+
+    public enum Counter {
+        POST_LIKES("post-like"),
+        POST_COMMENTS("post-comment"),
+        COMMENT_LIKES("comment-like");
+
+        private final String prefix;
+
+        Counter(String prefix) {
+            this.prefix = prefix;
+        }
+
+        String field(Long id) {
+            return prefix + ":" + id;
+        }
+    }
+
+    /**
+     * Like the post if the user has not, otherwise unlike it
+     * @return whether the post is liked by the user afterwards
+     */
+    @Transactional
+    public boolean togglePostLike(Post post, Long userId) {
+        if (setPostLiked(post, userId, false)) {
+            return false;
+        }
+        setPostLiked(post, userId, true);
+        return true;
+    }
+
+    /**
+     * Idempotently like or unlike a post
+     * @return whether anything changed
+     */
+    @Transactional
+    public boolean setPostLiked(Post post, Long userId, boolean liked) {
+        if (liked) {
+            if (postLikeRepository.insertIfAbsent(post.getId(), userId) == 0) {
+                return false;
+            }
+            recordDelta(Counter.POST_LIKES, post.getId(), 1);
+            trendingPostService.onEngagement(post.getId(), post.getPrivacy(), TrendingPostService.LIKE_WEIGHT);
+            return true;
+        }
+
+        // The trending score withdraws the like as of when it was given
+        Optional<LocalDateTime> likedAt = postLikeRepository.findCreatedAtByPostIdAndUserId(post.getId(), userId);
+        if (likedAt.isEmpty() || postLikeRepository.deleteByPostIdAndUserId(post.getId(), userId) == 0) {
+            return false;
+        }
+        recordDelta(Counter.POST_LIKES, post.getId(), -1);
+        trendingPostService.onEngagement(post.getId(), post.getPrivacy(), -TrendingPostService.LIKE_WEIGHT, likedAt.get());
+        return true;
+    }
+
+    /**
+     * Like the comment if the user has not, otherwise unlike it
+     * @return whether the comment is liked by the user afterwards
+     */
+    @Transactional
+    public boolean toggleCommentLike(PostComment comment, Long userId) {
+        if (setCommentLiked(comment, userId, false)) {
+            return false;
+        }
+        setCommentLiked(comment, userId, true);
+        return true;
+    }
+
+    /**
+     * Idempotently like or unlike a comment
+     * @return whether anything changed
+     */
+    @Transactional
+    public boolean setCommentLiked(PostComment comment, Long userId, boolean liked) {
+        int changed = liked
+                ? postCommentLikeRepository.insertIfAbsent(comment.getId(), userId)
+                : postCommentLikeRepository.deleteByCommentIdAndUserId(comment.getId(), userId);
+        if (changed == 0) {
+            return false;
+        }
+        recordDelta(Counter.COMMENT_LIKES, comment.getId(), liked ? 1 : -1);
+        return true;
+    }
+
+    /**
+     * Count a new top-level comment of a post (replies are not part of the post's comment count)
+     */
+    public void onTopLevelCommentAdded(Post post) {
+        recordDelta(Counter.POST_COMMENTS, post.getId(), 1);
+        trendingPostService.onEngagement(post.getId(), post.getPrivacy(), TrendingPostService.COMMENT_WEIGHT);
+    }
+
+    /**
+     * Deltas recorded for the given rows but not yet flushed to the database (missing ids have none)
+     */
+    public Map<Long, Long> pendingDeltas(Counter counter, Collection<Long> ids) {
+        Map<Long, Long> deltas = new HashMap<>();
+        if (ids.isEmpty()) {
+            return deltas;
+        }
+        List<Long> idList = new ArrayList<>(ids);
+        try {
+            Object[] fields = idList.stream().map(counter::field).toArray();
+            @SuppressWarnings("unchecked")
+            List<Object> values = redisTemplate.execute(READ_PENDING_SCRIPT, List.of(PENDING_KEY, FLUSHING_KEY), fields);
+            if (values == null) {
+                return deltas;
+            }
+            for (int i = 0; i < idList.size() && i < values.size(); i++) {
+                long delta = Long.parseLong(String.valueOf(values.get(i)));
+                if (delta != 0) {
+                    deltas.put(idList.get(i), delta);
+                }
+            }
+        } catch (Exception e) {
+            // Counters are then shown as of the last flush
+            log.debug("Could not read pending counter deltas: {}", e.getMessage());
+        }
+        return deltas;
+    }
+
+    /**
+     * Apply pending deltas to the counter columns. Rows with the same delta (typically +1) are
+     * updated together. The deltas are only dropped from Redis after the update committed; if it
+     * fails they are retried by the next run.
+     */
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:1000}", initialDelay = 10000)
+    @ClusterJob(name = "post-counter-flush", leaseSeconds = 60, minHoldSeconds = 0)
+    @Transactional
+    public void flushPendingCounters() {
+        @SuppressWarnings("unchecked")
+        List<String> entries = redisTemplate.execute(TAKE_PENDING_SCRIPT, List.of(PENDING_KEY, FLUSHING_KEY));
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+
+        Map<Counter, Map<Long, List<Long>>> idsByDelta = new EnumMap<>(Counter.class);
+        long deltas = 0;
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            String field = entries.get(i);
+            int separator = field.lastIndexOf(':');
+            Counter counter = counterOf(field.substring(0, separator));
+            long delta = Long.parseLong(entries.get(i + 1));
+            if (counter == null || delta == 0) {
+                continue;
+            }
+            idsByDelta.computeIfAbsent(counter, c -> new HashMap<>())
+                    .computeIfAbsent(delta, d -> new ArrayList<>())
+                    .add(Long.valueOf(field.substring(separator + 1)));
+            deltas++;
+        }
+
+        int updates = 0;
+        for (Map.Entry<Counter, Map<Long, List<Long>>> counterGroups : idsByDelta.entrySet()) {
+            for (Map.Entry<Long, List<Long>> group : counterGroups.getValue().entrySet()) {
+                List<Long> ids = group.getValue();
+                for (int from = 0; from < ids.size(); from += FLUSH_CHUNK_SIZE) {
+                    apply(counterGroups.getKey(), ids.subList(from, Math.min(from + FLUSH_CHUNK_SIZE, ids.size())),
+                            group.getKey());
+                    updates++;
+                }
+            }
+        }
+
+        afterCommit("drop flushed counter deltas", () -> redisTemplate.delete(FLUSHING_KEY));
+        flushedDeltas.addAndGet(deltas);
+        flushUpdates.addAndGet(updates);
+        ClusterJobContext.current().addRowsProcessed(deltas);
+        log.debug("🔢 Flushed {} counter deltas with {} updates", deltas, updates);
+    }
+
+    /**
+     * Recount like and comment counters from the rows, in id ranges. Deltas recorded while a range
+     * is being recounted may be counted twice until the next run.
+     */
+    @Scheduled(cron = "${app.counters.reconcile-cron:0 45 3 * * *}")
+    @ClusterJob(name = "post-counter-reconcile", leaseSeconds = 1800)
+    public void reconcileCounters() {
+        ClusterJobContext jobContext = ClusterJobContext.current();
+        long fixed = 0;
+
+        Long maxPostId = postRepository.findMaxId();
+        for (long from = 1; maxPostId != null && from <= maxPostId; from += RECONCILE_BATCH_SIZE) {
+            long to = from + RECONCILE_BATCH_SIZE - 1;
+            fixed += postRepository.reconcileLikeCounts(from, to);
+            fixed += postRepository.reconcileCommentCounts(from, to);
+            jobContext.checkpoint();
+        }
+
+        Long maxCommentId = postCommentRepository.findMaxId();
+        for (long from = 1; maxCommentId != null && from <= maxCommentId; from += RECONCILE_BATCH_SIZE) {
+            fixed += postCommentRepository.reconcileLikeCounts(from, from + RECONCILE_BATCH_SIZE - 1);
+            jobContext.checkpoint();
+        }
+
+        reconciledRows.addAndGet(fixed);
+        jobContext.addRowsProcessed(fixed);
+        if (fixed > 0) {
+            log.warn("⚠️ Reconciled {} drifted post/comment counters", fixed);
+        } else {
+            log.info("✅ Post and comment counters are consistent");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recordedDeltas", recordedDeltas.get());
+        stats.put("flushedDeltas", flushedDeltas.get());
+        stats.put("flushUpdates", flushUpdates.get());
+        stats.put("reconciledRows", reconciledRows.get());
+        Long pending = redisTemplate.opsForHash().size(PENDING_KEY);
+        stats.put("pendingCounters", pending != null ? pending : 0);
+        return stats;
+    }
+
+    private void apply(Counter counter, List<Long> ids, long delta) {
+        switch (counter) {
+            case POST_LIKES -> postRepository.addToLikeCounts(ids, delta);
+            case POST_COMMENTS -> postRepository.addToCommentCounts(ids, delta);
+            case COMMENT_LIKES -> postCommentRepository.addToLikeCounts(ids, delta);
+        }
+    }
+
+    private static Counter counterOf(String prefix) {
+        for (Counter counter : Counter.values()) {
+            if (counter.prefix.equals(prefix)) {
+                return counter;
+            }
+        }
+        return null;
+    }
+
+    private void recordDelta(Counter counter, Long id, long delta) {
+        afterCommit("record " + counter.field(id) + " delta", () -> {
+            redisTemplate.opsForHash().increment(PENDING_KEY, counter.field(id), delta);
+            recordedDeltas.incrementAndGet();
+        });
+    }
+
+    private void afterCommit(String description, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // The nightly reconciliation repairs counters that missed a delta
+                log.warn("⚠️ Could not {}: {}", description, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.PostDto.PostCommentDto;
+import com.example.taskmanagement_backend.dtos.PostDto.PostResponseDto;
+import com.example.taskmanagement_backend.entities.*;
+import com.example.taskmanagement_backend.repositories.*;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds post and comment DTOs for a whole page at once.
+ *
+ * Viewer like flags, reply counts, recent likes, top comments and attachments are each loaded
+ * with one query for all posts of the page (top-N per post is limited in SQL), so hydrating a
+ * page costs a fixed number of queries whatever its size. Like and comment counts are the
+ * counter columns plus the deltas not yet flushed by {@link PostEngagementService}. Images are
+ * served as their feed-sized variant where {@link ThumbnailService} has generated one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PostHydrationService {
+
+    static final int RECENT_POST_LIKES = 5;
+    static final int TOP_COMMENTS = 3;
+    static final int RECENT_COMMENT_LIKES = 3;
+
+    private static final Comparator<PostLike> NEWEST_POST_LIKE_FIRST =
+            Comparator.comparing(PostLike::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(PostLike::getId, Comparator.reverseOrder());
+    private static final Comparator<PostCommentLike> NEWEST_COMMENT_LIKE_FIRST =
+            Comparator.comparing(PostCommentLike::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                    .thenComparing(PostCommentLike::getId, Comparator.reverseOrder());
+    private static final Comparator<PostComment> OLDEST_COMMENT_FIRST =
+            Comparator.comparing(PostComment::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(PostComment::getId);
+
+    private final PostRepository postRepository;
+    private final PostLikeRepository postLikeRepository;
+    private final PostCommentRepository postCommentRepository;
+    private final PostCommentLikeRepository postCommentLikeRepository;
+    private final PostAttachmentRepository postAttachmentRepository;
+    private final PostEngagementService postEngagementService;
+    private final ThumbnailService thumbnailService;
+
+    /**
+     * DTOs of the given posts, in the same order
+     */
+    @Transactional(readOnly = true)
+    public List<PostResponseDto> hydratePosts(List<Post> posts, Long viewerId) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> postIds = posts.stream().map(Post::getId).toList();
+
+        // Author, profile and linked task/project of the whole page in one go; the loaded instances are
+        // used so this also works when the given posts belong to another persistence context
+        Map<Long, Post> loadedPosts = postRepository.findAllWithAuthorAndLinksByIdIn(postIds).stream()
+                .collect(Collectors.toMap(Post::getId, Function.identity()));
+
+        Set<Long> likedPostIds = new HashSet<>(postLikeRepository.findLikedPostIds(postIds, viewerId));
+        Map<Long, Long> pendingLikes = postEngagementService.pendingDeltas(PostEngagementService.Counter.POST_LIKES, postIds);
+        Map<Long, Long> pendingComments = postEngagementService.pendingDeltas(PostEngagementService.Counter.POST_COMMENTS, postIds);
+
+        Map<Long, List<PostLike>> recentLikes = groupSorted(
+                fetchByIds(postLikeRepository.findRecentLikeIdsByPostIds(postIds, RECENT_POST_LIKES),
+                        postLikeRepository::findWithUserByIdIn),
+                like -> like.getPost().getId(), NEWEST_POST_LIKE_FIRST);
+
+        List<PostComment> topComments = fetchByIds(
+                postCommentRepository.findFirstTopLevelCommentIdsByPostIds(postIds, TOP_COMMENTS),
+                postCommentRepository::findWithUserByIdIn);
+        Map<Long, PostCommentDto> topCommentDtos = new HashMap<>();
+        List<PostCommentDto> hydratedComments = hydrateComments(topComments, viewerId, false);
+        for (int i = 0; i < topComments.size(); i++) {
+            topCommentDtos.put(topComments.get(i).getId(), hydratedComments.get(i));
+        }
+        Map<Long, List<PostComment>> commentsByPost = groupSorted(topComments,
+                comment -> comment.getPost().getId(), OLDEST_COMMENT_FIRST);
+
+        List<PostAttachment> pageAttachments = postAttachmentRepository.findByPostIdInOrderByCreatedAtAsc(postIds);
+        Map<Long, List<PostAttachment>> attachmentsByPost = pageAttachments.stream()
+                .collect(Collectors.groupingBy(attachment -> attachment.getPost().getId()));
+        Map<String, String> thumbnailUrls = thumbnailUrls(pageAttachments);
+
+        List<PostResponseDto> result = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            Long postId = post.getId();
+            List<PostCommentDto> postTopComments = commentsByPost.getOrDefault(postId, List.of()).stream()
+                    .map(comment -> topCommentDtos.get(comment.getId()))
+                    .toList();
+            Post loadedPost = loadedPosts.getOrDefault(postId, post);
+            result.add(toPostDto(loadedPost,
+                    likedPostIds.contains(postId),
+                    counter(loadedPost.getLikeCount(), pendingLikes.get(postId)),
+                    counter(loadedPost.getCommentCount(), pendingComments.get(postId)),
+                    recentLikes.getOrDefault(postId, List.of()),
+                    postTopComments,
+                    attachmentsByPost.getOrDefault(postId, List.of()),
+                    thumbnailUrls));
+        }
+        return result;
+    }
+
+    /**
+     * DTOs of the given comments, in the same order
+     */
+    @Transactional(readOnly = true)
+    public List<PostCommentDto> hydrateComments(List<PostComment> comments, Long viewerId) {
+        return hydrateComments(comments, viewerId, true);
+    }
+
+    private List<PostCommentDto> hydrateComments(List<PostComment> comments, Long viewerId, boolean loadUsers) {
+        if (comments.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> commentIds = comments.stream().map(PostComment::getId).toList();
+
+        Map<Long, PostComment> loadedComments = new HashMap<>();
+        if (loadUsers) {
+            // Comment authors and their profiles in one go
+            postCommentRepository.findWithUserByIdIn(commentIds)
+                    .forEach(comment -> loadedComments.put(comment.getId(), comment));
+        }
+
+        Set<Long> likedCommentIds = new HashSet<>(postCommentLikeRepository.findLikedCommentIds(commentIds, viewerId));
+        Map<Long, Long> pendingLikes = postEngagementService.pendingDeltas(PostEngagementService.Counter.COMMENT_LIKES, commentIds);
+        Map<Long, Long> replyCounts = toCountMap(postCommentRepository.countRepliesByParentIds(commentIds));
+        Map<Long, List<PostCommentLike>> recentLikes = groupSorted(
+                fetchByIds(postCommentLikeRepository.findRecentLikeIdsByCommentIds(commentIds, RECENT_COMMENT_LIKES),
+                        postCommentLikeRepository::findWithUserByIdIn),
+                like -> like.getComment().getId(), NEWEST_COMMENT_LIKE_FIRST);
+
+        List<PostCommentDto> result = new ArrayList<>(comments.size());
+        for (PostComment comment : comments) {
+            Long commentId = comment.getId();
+            PostComment loadedComment = loadedComments.getOrDefault(commentId, comment);
+            result.add(toCommentDto(loadedComment,
+                    likedCommentIds.contains(commentId),
+                    counter(loadedComment.getLikeCount(), pendingLikes.get(commentId)),
+                    replyCounts.getOrDefault(commentId, 0L),
+                    recentLikes.getOrDefault(commentId, List.of())));
+        }
+        return result;
+    }
+
+    private PostResponseDto toPostDto(Post post, boolean isLiked, long likeCount, long commentCount,
+                                      List<PostLike> recentLikes, List<PostCommentDto> topCommentDtos,
+                                      List<PostAttachment> attachments, Map<String, String> thumbnailUrls) {
+        List<PostResponseDto.RecentLikeDto> recentLikeDtos = recentLikes.stream()
+                .map(like -> {
+                    UserProfile likerProfile = like.getUser().getUserProfile();
+                    return PostResponseDto.RecentLikeDto.builder()
+                            .userId(like.getUser().getId())
+                            .username(likerProfile != null ? likerProfile.getUsername() : like.getUser().getEmail())
+                            .avatarUrl(likerProfile != null ? likerProfile.getAvtUrl() : null)
+                            .likedAt(like.getCreatedAt())
+                            .build();
+                })
+                .toList();
+
+        // Separate images and files
+        List<String> imageUrls = new ArrayList<>();
+        List<String> imageThumbnailUrls = new ArrayList<>();
+        List<PostResponseDto.AttachmentDto> files = new ArrayList<>();
+
+        for (PostAttachment attachment : attachments) {
+            if (attachment.getAttachmentType() == PostAttachment.AttachmentType.IMAGE) {
+                imageUrls.add(attachment.getS3Url());
+                imageThumbnailUrls.add(thumbnailUrls.getOrDefault(attachment.getS3Key(), attachment.getS3Url()));
+            } else {
+                files.add(PostResponseDto.AttachmentDto.builder()
+                        .id(attachment.getId())
+                        .originalFilename(attachment.getOriginalFilename())
+                        .s3Url(attachment.getS3Url())
+                        .fileSize(attachment.getFileSize())
+                        .contentType(attachment.getContentType())
+                        .attachmentType(attachment.getAttachmentType().toString())
+                        .uploadedAt(attachment.getCreatedAt())
+                        .build());
+            }
+        }
+
+        return PostResponseDto.builder()
+                .id(post.getId())
+                .content(post.getContent())
+                .privacy(post.getPrivacy())
+                .imageUrl(post.getImageUrl()) // Legacy single image
+                .imageUrls(imageUrls) // Multiple images from attachments
+                .imageThumbnailUrls(imageThumbnailUrls)
+                .files(files) // Non-image attachments
+                .author(PostResponseDto.AuthorDto.builder()
+                        .id(post.getAuthor().getId())
+                        .email(post.getAuthor().getEmail())
+                        .firstName(post.getAuthor().getFirstName())
+                        .lastName(post.getAuthor().getLastName())
+                        .username(post.getAuthor().getUserProfile() != null ?
+                                  post.getAuthor().getUserProfile().getUsername() :
+                                  post.getAuthor().getEmail())
+                        .avatarUrl(post.getAuthor().getAvatarUrl())
+                        .build())
+                .linkedTask(post.getLinkedTask() != null ? PostResponseDto.LinkedTaskDto.builder()
+                        .id(post.getLinkedTask().getId())
+                        .title(post.getLinkedTask().getTitle())
+                        .build() : null)
+                .linkedProject(post.getLinkedProject() != null ? PostResponseDto.LinkedProjectDto.builder()
+                        .id(post.getLinkedProject().getId())
+                        .name(post.getLinkedProject().getName())
+                        .build() : null)
+                .likeCount((int) likeCount)
+                .commentCount((int) commentCount)
+                .isPinned(post.getIsPinned())
+                .isLikedByCurrentUser(isLiked)
+                .createdAt(post.getCreatedAt())
+                .updatedAt(post.getUpdatedAt())
+                .recentLikes(recentLikeDtos)
+                .topComments(topCommentDtos)
+                .build();
+    }
+
+    private PostCommentDto toCommentDto(PostComment comment, boolean isLiked, long likeCount, long replyCount,
+                                        List<PostCommentLike> recentLikes) {
+        List<PostCommentDto.RecentLikeDto> recentLikeDtos = recentLikes.stream()
+                .map(like -> {
+                    UserProfile likerProfile = like.getUser().getUserProfile();
+                    return PostCommentDto.RecentLikeDto.builder()
+                            .userId(like.getUser().getId())
+                            .username(likerProfile != null ? likerProfile.getUsername() : like.getUser().getEmail())
+                            .firstName(likerProfile != null ? likerProfile.getFirstName() : "")
+                            .lastName(likerProfile != null ? likerProfile.getLastName() : "")
+                            .avatarUrl(likerProfile != null ? likerProfile.getAvtUrl() : null)
+                            .likedAt(like.getCreatedAt())
+                            .build();
+                })
+                .toList();
+
+        return PostCommentDto.builder()
+                .id(comment.getId())
+                .content(comment.getContent())
+                .author(PostCommentDto.AuthorDto.builder()
+                        .id(comment.getUser().getId())
+                        .email(comment.getUser().getEmail())
+                        .firstName(comment.getUser().getFirstName())
+                        .lastName(comment.getUser().getLastName())
+                        .username(comment.getUser().getUserProfile() != null ?
+                                  comment.getUser().getUserProfile().getUsername() :
+                                  comment.getUser().getEmail())
+                        .avatarUrl(comment.getUser().getAvatarUrl())
+                        .build())
+                .parentCommentId(comment.getParentComment() != null ? comment.getParentComment().getId() : null)
+                .likeCount((int) likeCount)
+                .replyCount((int) replyCount)
+                .isLikedByCurrentUser(isLiked)
+                .createdAt(comment.getCreatedAt())
+                .updatedAt(comment.getUpdatedAt())
+                .recentLikes(recentLikeDtos)
+                .build();
+    }
+
+    /**
+     * Feed-variant URLs of the page's images in one presign batch, keyed by original S3 key; also
+     * records how many image bytes the variants saved on this page
+     */
+    private Map<String, String> thumbnailUrls(List<PostAttachment> attachments) {
+        List<PostAttachment> images = attachments.stream().filter(PostAttachment::isImage).toList();
+        if (images.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, String> thumbnailsByKey = new HashMap<>();
+        for (PostAttachment image : images) {
+            if (image.getThumbnails() != null) {
+                thumbnailsByKey.put(image.getS3Key(), image.getThumbnails());
+            }
+        }
+        Map<String, String> urls = thumbnailService.listUrls(thumbnailsByKey);
+
+        long originalBytes = 0;
+        long servedBytes = 0;
+        for (PostAttachment image : images) {
+            long size = image.getFileSize() != null ? image.getFileSize() : 0;
+            ThumbnailService.Variant variant = urls.containsKey(image.getS3Key())
+                    ? thumbnailService.listVariant(image.getS3Key(), image.getThumbnails())
+                    : null;
+            originalBytes += size;
+            servedBytes += variant != null ? variant.getBytes() : size;
+        }
+        thumbnailService.recordPage(originalBytes, servedBytes);
+        return urls;
+    }
+
+    /**
+     * Loads entities for ids returned by a top-N native query; no query when there are no ids
+     */
+    private static <T> List<T> fetchByIds(List<Number> ids,
+                                          Function<Collection<Long>, List<T>> loader) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return loader.apply(ids.stream().map(Number::longValue).toList());
+    }
+
+    private static <T> Map<Long, List<T>> groupSorted(List<T> items, Function<T, Long> key,
+                                                      Comparator<T> order) {
+        Map<Long, List<T>> grouped = new HashMap<>();
+        for (T item : items) {
+            grouped.computeIfAbsent(key.apply(item), k -> new ArrayList<>()).add(item);
+        }
+        grouped.values().forEach(list -> list.sort(order));
+        return grouped;
+    }
+
+    private static long counter(Integer stored, Long pendingDelta) {
+        long value = (stored != null ? stored : 0) + (pendingDelta != null ? pendingDelta : 0);
+        return Math.max(value, 0);
+    }
+
+    private static Map<Long, Long> toCountMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+}
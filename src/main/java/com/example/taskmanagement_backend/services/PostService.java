@@ -6,12 +6,17 @@ import com.example.taskmanagement_backend.entities.*;
 import com.example.taskmanagement_backend.enums.FriendshipStatus;
 import com.example.taskmanagement_backend.enums.PostPrivacy;
 import com.example.taskmanagement_backend.repositories.*;
+import com.example.taskmanagement_backend.services.feed.NewsfeedTimelineService;
+import com.example.taskmanagement_backend.services.feed.TrendingPostService;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -25,10 +30,14 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -48,12 +57,18 @@ public class PostService {
     private final RedisTemplate<String, String> redisTemplate;
     private final ObjectMapper objectMapper;
     private final S3FileUploadService s3FileUploadService;
+    private final S3DeletionQueueService s3DeletionQueueService;
+    private final ThumbnailService thumbnailService;
+    private final NewsfeedTimelineService newsfeedTimelineService;
+    private final TrendingPostService trendingPostService;
+    private final PostHydrationService postHydrationService;
+    private final PostEngagementService postEngagementService;
 
     // Redis cache keys
-    private static final String NEWSFEED_CACHE_PREFIX = "feed:user:";
-    private static final String USER_FRIENDS_CACHE_PREFIX = "friends:user:";
-    private static final long CACHE_TTL_MINUTES = 5; // 5 minutes TTL for newsfeed
+    public static final String USER_FRIENDS_CACHE_PREFIX = "friends:user:";
     private static final long FRIENDS_CACHE_TTL_HOURS = 1; // 1 hour TTL for friends list
+    private static final int NEWSFEED_MAX_READ_ROUNDS = 3; // extra timeline reads when posts were deleted or hidden
+    private static final int TRENDING_READ_BATCH = 50; // ranked ids loaded per round when filtering trending posts
 
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -220,10 +235,12 @@ public class PostService {
         if (!attachments.isEmpty()) {
             postAttachmentRepository.saveAll(attachments);
             log.info("💾 Saved {} attachments to database for post {}", attachments.size(), savedPost.getId());
+            attachments.forEach(this::generateThumbnails);
         }
 
-        // Clear newsfeed cache for current user and friends
-        clearNewsfeedCacheForUserAndFriends(currentUser.getId());
+        // Push the post into the timelines of the author and friends
+        newsfeedTimelineService.onPostCreated(savedPost.getId(), currentUser.getId(),
+                savedPost.getPrivacy(), getFriendIds(currentUser.getId()));
 
         log.info("✅ Post created successfully with ID: {}, {} images, {} files",
                 savedPost.getId(), totalImages, totalFiles);
@@ -241,6 +258,16 @@ public class PostService {
         return result;
     }
 
+    /**
+     * Feed-sized variants of image attachments are generated once the post commits
+     */
+    private void generateThumbnails(PostAttachment attachment) {
+        if (attachment.isImage()) {
+            thumbnailService.generateAfterCommit(ThumbnailService.Target.POST_ATTACHMENT,
+                    attachment.getId(), attachment.getS3Key(), attachment.getContentType());
+        }
+    }
+
     /**
      * ✅ NEW: Helper method to determine attachment type based on content type
      */
@@ -265,32 +292,65 @@ public class PostService {
     }
 
     /**
-     * Get newsfeed with Redis caching
+     * ✅ NEW: Get newsfeed page by cursor (newest first) from the push-based timelines
+     * @param cursor id of the last post of the previous page, null for the first page
      */
+    public NewsfeedPageDto getNewsfeedByCursor(Long cursor, int size) {
+        User currentUser = getCurrentUser();
+        List<Long> friendIds = getFriendIds(currentUser.getId());
+
+        log.info("📰 Getting newsfeed for user: {} (cursor: {}, size: {})", currentUser.getEmail(), cursor, size);
+
+        List<Post> visiblePosts = new ArrayList<>(size);
+        Long nextCursor = cursor;
+        boolean hasNext;
+        try {
+            Set<Long> friendIdSet = new HashSet<>(friendIds);
+            int rounds = 0;
+            do {
+                NewsfeedTimelineService.TimelineSlice slice = newsfeedTimelineService.readPostIds(
+                        currentUser.getId(), friendIds, nextCursor, size - visiblePosts.size());
+                Map<Long, Post> postsById = postRepository.findAllById(slice.getPostIds()).stream()
+                        .collect(Collectors.toMap(Post::getId, Function.identity()));
+                for (Long postId : slice.getPostIds()) {
+                    Post post = postsById.get(postId);
+                    // Deleted posts and posts whose privacy changed since they were pushed are skipped
+                    if (post != null && isVisibleTo(post, currentUser.getId(), friendIdSet)) {
+                        visiblePosts.add(post);
+                    }
+                }
+                nextCursor = slice.getNextCursor();
+                hasNext = slice.isHasNext();
+            } while (hasNext && visiblePosts.size() < size && ++rounds < NEWSFEED_MAX_READ_ROUNDS);
+        } catch (Exception e) {
+            // Timelines unavailable: pull the page from the database by keyset instead
+            log.warn("⚠️ Newsfeed timelines unavailable, reading from database: {}", e.getMessage());
+            visiblePosts = postRepository.findNewsfeedPostsBefore(currentUser.getId(), friendIds,
+                    cursor != null ? cursor : Long.MAX_VALUE, PageRequest.of(0, size + 1));
+            hasNext = visiblePosts.size() > size;
+            visiblePosts = visiblePosts.subList(0, Math.min(size, visiblePosts.size()));
+            nextCursor = visiblePosts.isEmpty() ? cursor : visiblePosts.get(visiblePosts.size() - 1).getId();
+        }
+
+        List<PostResponseDto> postDtos = postHydrationService.hydratePosts(visiblePosts, currentUser.getId());
+
+        return NewsfeedPageDto.builder()
+                .posts(postDtos)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
     /**
      * ✅ UPDATED: Get personalized newsfeed sorted by newest posts first (upload time)
+     * Offset paging for older clients; new clients should use {@link #getNewsfeedByCursor}
      */
     public Page<PostResponseDto> getNewsfeed(int page, int size) {
         User currentUser = getCurrentUser();
-        String cacheKey = NEWSFEED_CACHE_PREFIX + currentUser.getId() + ":" + page + ":" + size;
 
         log.info("📰 Getting newsfeed (newest first) for user: {} (page: {}, size: {})",
                 currentUser.getEmail(), page, size);
 
-        // Try to get from cache first
-        try {
-            String cachedFeed = redisTemplate.opsForValue().get(cacheKey);
-            if (cachedFeed != null) {
-                log.info("🎯 Newsfeed cache hit for user: {}", currentUser.getId());
-                TypeReference<List<PostResponseDto>> typeRef = new TypeReference<List<PostResponseDto>>() {};
-                List<PostResponseDto> posts = objectMapper.readValue(cachedFeed, typeRef);
-                return convertListToPage(posts, PageRequest.of(page, size));
-            }
-        } catch (JsonProcessingException e) {
-            log.warn("⚠️ Failed to parse cached newsfeed: {}", e.getMessage());
-        }
-
-        // Get from database if not in cache - use time-based sorting (newest first)
         List<Long> friendIds = getFriendIds(currentUser.getId());
         Pageable pageable = PageRequest.of(page, size);
 
@@ -298,37 +358,56 @@ public class PostService {
         Page<Post> posts = postRepository.findNewsfeedPosts(
                 currentUser.getId(), friendIds, pageable);
 
-        List<PostResponseDto> postDtos = posts.getContent().stream()
-                .map(post -> mapToPostResponseDto(post, currentUser.getId()))
-                .collect(Collectors.toList());
-
-        // Cache the result
-        try {
-            String jsonPosts = objectMapper.writeValueAsString(postDtos);
-            redisTemplate.opsForValue().set(cacheKey, jsonPosts,
-                    CACHE_TTL_MINUTES, TimeUnit.MINUTES);
-            log.info("💾 Newsfeed (newest first) cached for user: {}", currentUser.getId());
-        } catch (JsonProcessingException e) {
-            log.warn("⚠️ Failed to cache newsfeed: {}", e.getMessage());
-        }
-
-        return convertListToPage(postDtos, pageable);
+        return mapToPostResponsePage(posts, currentUser.getId());
     }
 
     /**
-     * ✅ NEW: Get trending posts (high engagement in last 24 hours)
+     * ✅ UPDATED: Get trending posts ranked by time-decayed engagement (see {@link TrendingPostService})
      */
     public Page<PostResponseDto> getTrendingPosts(int page, int size) {
         User currentUser = getCurrentUser();
         List<Long> friendIds = getFriendIds(currentUser.getId());
         Pageable pageable = PageRequest.of(page, size);
 
-        LocalDateTime since = LocalDateTime.now().minusHours(24);
-
-        Page<Post> trendingPosts = postRepository.findTrendingPosts(
-                currentUser.getId(), friendIds, since, pageable);
+        List<Post> visiblePosts = new ArrayList<>(size);
+        boolean hasNext = false;
+        try {
+            // The ranking is shared by all users, so it is filtered for this viewer page by page
+            Set<Long> friendIdSet = new HashSet<>(friendIds);
+            long toSkip = (long) page * size;
+            long offset = 0;
+            List<Long> rankedIds;
+            do {
+                rankedIds = trendingPostService.readRankedPostIds(offset, TRENDING_READ_BATCH);
+                offset += rankedIds.size();
+                Map<Long, Post> postsById = postRepository.findAllById(rankedIds).stream()
+                        .collect(Collectors.toMap(Post::getId, Function.identity()));
+                for (Long postId : rankedIds) {
+                    Post post = postsById.get(postId);
+                    if (post == null || !isVisibleTo(post, currentUser.getId(), friendIdSet)) {
+                        continue;
+                    }
+                    if (toSkip > 0) {
+                        toSkip--;
+                    } else if (visiblePosts.size() < size) {
+                        visiblePosts.add(post);
+                    } else {
+                        hasNext = true;
+                        break;
+                    }
+                }
+            } while (!hasNext && rankedIds.size() == TRENDING_READ_BATCH);
+        } catch (Exception e) {
+            // Ranking unavailable: rank at query time from the stored counters instead
+            log.warn("⚠️ Trending ranking unavailable, reading from database: {}", e.getMessage());
+            Page<Post> trendingPosts = postRepository.findTrendingPosts(
+                    currentUser.getId(), friendIds, LocalDateTime.now().minusHours(24), pageable);
+            return mapToPostResponsePage(trendingPosts, currentUser.getId());
+        }
 
-        return trendingPosts.map(post -> mapToPostResponseDto(post, currentUser.getId()));
+        // The total is not known without filtering the whole ranking; it only tells whether a next page exists
+        long total = (long) page * size + visiblePosts.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(postHydrationService.hydratePosts(visiblePosts, currentUser.getId()), pageable, total);
     }
 
     /**
@@ -342,43 +421,26 @@ public class PostService {
         Page<Post> posts = postRepository.findNewsfeedWithPinnedFirst(
                 currentUser.getId(), friendIds, pageable);
 
-        return posts.map(post -> mapToPostResponseDto(post, currentUser.getId()));
+        return mapToPostResponsePage(posts, currentUser.getId());
     }
 
     /**
      * Like/Unlike a post
+     * Not transactional: the like is committed by {@link PostEngagementService} before the
+     * response is built, so no lock is held while the post is hydrated
      */
-    @Transactional
     public PostResponseDto toggleLike(Long postId) {
         User currentUser = getCurrentUser();
 
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
 
-        Optional<PostLike> existingLike = postLikeRepository.findByPostAndUser(post, currentUser);
-
-        if (existingLike.isPresent()) {
-            // Unlike
-            postLikeRepository.delete(existingLike.get());
-            log.info("👎 User {} unliked post {}", currentUser.getEmail(), postId);
-        } else {
-            // Like
-            PostLike like = PostLike.builder()
-                    .post(post)
-                    .user(currentUser)
-                    .build();
-            postLikeRepository.save(like);
+        if (postEngagementService.togglePostLike(post, currentUser.getId())) {
             log.info("👍 User {} liked post {}", currentUser.getEmail(), postId);
+        } else {
+            log.info("👎 User {} unliked post {}", currentUser.getEmail(), postId);
         }
 
-        // Cập nhật likeCount thực tế từ database
-        long actualLikeCount = postLikeRepository.countByPost(post);
-        post.setLikeCount((int) actualLikeCount);
-        postRepository.save(post);
-
-        // Clear cache for post author and their friends
-        clearNewsfeedCacheForUserAndFriends(post.getAuthor().getId());
-
         return mapToPostResponseDto(post, currentUser.getId());
     }
 
@@ -410,13 +472,9 @@ public class PostService {
 
         // Update post comment count (only for top-level comments)
         if (parentComment == null) {
-            post.incrementCommentCount();
-            postRepository.save(post);
+            postEngagementService.onTopLevelCommentAdded(post);
         }
 
-        // Clear cache
-        clearNewsfeedCacheForUserAndFriends(post.getAuthor().getId());
-
         log.info("💬 User {} commented on post {}", currentUser.getEmail(), postId);
 
         return mapToPostCommentDto(savedComment, currentUser.getId());
@@ -435,7 +493,7 @@ public class PostService {
         Page<PostComment> comments = postCommentRepository
                 .findByPostAndParentCommentIsNullOrderByCreatedAtAsc(post, pageable);
 
-        return comments.map(comment -> mapToPostCommentDto(comment, currentUser.getId()));
+        return mapToPostCommentPage(comments, currentUser.getId());
     }
 
     /**
@@ -450,7 +508,7 @@ public class PostService {
         Page<Post> posts = postRepository.findVisiblePostsByAuthor(
                 userId, currentUser.getId(), pageable);
 
-        return posts.map(post -> mapToPostResponseDto(post, currentUser.getId()));
+        return mapToPostResponsePage(posts, currentUser.getId());
     }
 
     /**
@@ -461,40 +519,29 @@ public class PostService {
         return mapToPostResponseDto(post, viewerId);
     }
 
+    /**
+     * Public method to convert a list of posts (e.g. a profile tab page) with a fixed number of queries
+     */
+    public List<PostResponseDto> convertToPostResponseDtos(List<Post> posts, Long viewerId) {
+        return postHydrationService.hydratePosts(posts, viewerId);
+    }
+
     /**
      * ✅ NEW: Like/Unlike a comment (Facebook-style)
+     * Not transactional for the same reason as {@link #toggleLike}
      */
-    @Transactional
     public PostCommentDto toggleCommentLike(Long commentId) {
         User currentUser = getCurrentUser();
 
         PostComment comment = postCommentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
 
-        Optional<PostCommentLike> existingLike = postCommentLikeRepository.findByCommentAndUser(comment, currentUser);
-
-        if (existingLike.isPresent()) {
-            // Unlike comment
-            postCommentLikeRepository.delete(existingLike.get());
-            log.info("👎 User {} unliked comment {}", currentUser.getEmail(), commentId);
-        } else {
-            // Like comment
-            PostCommentLike like = PostCommentLike.builder()
-                    .comment(comment)
-                    .user(currentUser)
-                    .build();
-            postCommentLikeRepository.save(like);
+        if (postEngagementService.toggleCommentLike(comment, currentUser.getId())) {
             log.info("👍 User {} liked comment {}", currentUser.getEmail(), commentId);
+        } else {
+            log.info("👎 User {} unliked comment {}", currentUser.getEmail(), commentId);
         }
 
-        // Update comment like count from actual database count
-        long actualLikeCount = postCommentLikeRepository.countByComment(comment);
-        comment.setLikeCount((int) actualLikeCount);
-        postCommentRepository.save(comment);
-
-        // Clear cache for post author and their friends
-        clearNewsfeedCacheForUserAndFriends(comment.getPost().getAuthor().getId());
-
         return mapToPostCommentDto(comment, currentUser.getId());
     }
 
@@ -511,7 +558,7 @@ public class PostService {
         Page<PostComment> replies = postCommentRepository
                 .findRepliesByParentComment(parentComment, pageable);
 
-        return replies.map(reply -> mapToPostCommentDto(reply, currentUser.getId()));
+        return mapToPostCommentPage(replies, currentUser.getId());
     }
 
     /**
@@ -559,98 +606,7 @@ public class PostService {
         Post post = postOptional.get();
         User currentUser = getCurrentUser();
 
-        // Check if current user liked this post
-        boolean isLiked = postLikeRepository.findByPostIdAndUserId(postId, currentUser.getId()).isPresent();
-
-        // Get like count
-        long likeCount = postLikeRepository.countByPost(post);
-
-        // Get comment count
-        long commentCount = postCommentRepository.countByPostAndParentCommentIsNull(post);
-
-        // Get recent likes (limited to 5)
-        List<PostLike> recentLikes = postLikeRepository.findByPostOrderByCreatedAtDesc(post)
-                .stream().limit(5).collect(Collectors.toList());
-
-        List<PostResponseDto.RecentLikeDto> recentLikeDtos = recentLikes.stream()
-                .map(like -> {
-                    UserProfile likerProfile = like.getUser().getUserProfile();
-                    return PostResponseDto.RecentLikeDto.builder()
-                            .userId(like.getUser().getId())
-                            .username(likerProfile != null ? likerProfile.getUsername() : like.getUser().getEmail())
-                            .avatarUrl(likerProfile != null ? likerProfile.getAvtUrl() : null)
-                            .likedAt(like.getCreatedAt())
-                            .build();
-                })
-                .collect(Collectors.toList());
-
-        // Get top comments (limited to 3)
-        List<PostComment> topComments = postCommentRepository
-                .findByPostAndParentCommentIsNullOrderByCreatedAtAsc(post, PageRequest.of(0, 3))
-                .getContent();
-
-        List<PostCommentDto> topCommentDtos = topComments.stream()
-                .map(comment -> mapToPostCommentDto(comment, currentUser.getId()))
-                .collect(Collectors.toList());
-
-        // Get attachments for this post
-        List<PostAttachment> attachments = postAttachmentRepository.findByPostOrderByCreatedAtAsc(post);
-
-        // Separate images and files
-        List<String> imageUrls = new ArrayList<>();
-        List<PostResponseDto.AttachmentDto> files = new ArrayList<>();
-
-        for (PostAttachment attachment : attachments) {
-            if (attachment.getAttachmentType() == PostAttachment.AttachmentType.IMAGE) {
-                imageUrls.add(attachment.getS3Url());
-            } else {
-                files.add(PostResponseDto.AttachmentDto.builder()
-                        .id(attachment.getId())
-                        .originalFilename(attachment.getOriginalFilename())
-                        .s3Url(attachment.getS3Url())
-                        .fileSize(attachment.getFileSize())
-                        .contentType(attachment.getContentType())
-                        .attachmentType(attachment.getAttachmentType().toString())
-                        .uploadedAt(attachment.getCreatedAt())
-                        .build());
-            }
-        }
-
-        // Build the response DTO
-        return PostResponseDto.builder()
-                .id(post.getId())
-                .content(post.getContent())
-                .privacy(post.getPrivacy())
-                .imageUrl(post.getImageUrl()) // Legacy single image
-                .imageUrls(imageUrls) // Multiple images from attachments
-                .files(files) // Non-image attachments
-                .author(PostResponseDto.AuthorDto.builder()
-                        .id(post.getAuthor().getId())
-                        .email(post.getAuthor().getEmail())
-                        .firstName(post.getAuthor().getFirstName())
-                        .lastName(post.getAuthor().getLastName())
-                        .username(post.getAuthor().getUserProfile() != null ?
-                                  post.getAuthor().getUserProfile().getUsername() :
-                                  post.getAuthor().getEmail())
-                        .avatarUrl(post.getAuthor().getAvatarUrl())
-                        .build())
-                .linkedTask(post.getLinkedTask() != null ? PostResponseDto.LinkedTaskDto.builder()
-                        .id(post.getLinkedTask().getId())
-                        .title(post.getLinkedTask().getTitle())
-                        .build() : null)
-                .linkedProject(post.getLinkedProject() != null ? PostResponseDto.LinkedProjectDto.builder()
-                        .id(post.getLinkedProject().getId())
-                        .name(post.getLinkedProject().getName())
-                        .build() : null)
-                .likeCount((int) likeCount)
-                .commentCount((int) commentCount)
-                .isPinned(post.getIsPinned())
-                .isLikedByCurrentUser(isLiked)
-                .createdAt(post.getCreatedAt())
-                .updatedAt(post.getUpdatedAt())
-                .recentLikes(recentLikeDtos)
-                .topComments(topCommentDtos)
-                .build();
+        return mapToPostResponseDto(post, currentUser.getId());
     }
 
     /**
@@ -676,35 +632,20 @@ public class PostService {
         log.info("🗑️ User {} deleting post {} (author: {}, admin: {})",
                 currentUser.getEmail(), postId, isAuthor, isAdmin);
 
-        // 1. Delete all S3 files associated with this post
+        // 1. Queue all S3 files of this post (attachments and legacy single image) for batched deletion;
+        //    they are only deleted if the post delete commits
         List<PostAttachment> attachments = postAttachmentRepository.findByPostOrderByCreatedAtAsc(post);
-        if (!attachments.isEmpty()) {
-            for (PostAttachment attachment : attachments) {
-                try {
-                    // Delete from S3
-                    s3FileUploadService.deleteFile(attachment.getS3Key());
-                    log.info("🗑️ Deleted S3 file: {}", attachment.getS3Key());
-                } catch (Exception e) {
-                    log.warn("⚠️ Failed to delete S3 file {}: {}", attachment.getS3Key(), e.getMessage());
-                    // Continue with deletion even if S3 deletion fails
-                }
-            }
+        List<String> s3Keys = new ArrayList<>(attachments.stream().map(PostAttachment::getS3Key).toList());
+        s3Keys.add(post.getImageS3Key());
+        int queued = s3DeletionQueueService.enqueue(s3Keys, "post");
+        log.info("🗑️ Queued {} S3 files for deletion", queued);
 
-            // Delete attachment records from database
+        // 2. Delete attachment records from database
+        if (!attachments.isEmpty()) {
             postAttachmentRepository.deleteByPost(post);
             log.info("🗑️ Deleted {} attachment records", attachments.size());
         }
 
-        // 2. Delete legacy single image from S3 if exists
-        if (post.getImageS3Key() != null && !post.getImageS3Key().isEmpty()) {
-            try {
-                s3FileUploadService.deleteFile(post.getImageS3Key());
-                log.info("🗑️ Deleted legacy S3 image: {}", post.getImageS3Key());
-            } catch (Exception e) {
-                log.warn("⚠️ Failed to delete legacy S3 image {}: {}", post.getImageS3Key(), e.getMessage());
-            }
-        }
-
         // 3. Delete all comment likes first (foreign key constraint)
         List<PostComment> comments = postCommentRepository.findByPostOrderByCreatedAtAsc(post);
         for (PostComment comment : comments) {
@@ -724,32 +665,21 @@ public class PostService {
         postRepository.delete(post);
         log.info("✅ Successfully deleted post {} and all related data", postId);
 
-        // 7. Clear newsfeed cache for author and friends
-        clearNewsfeedCacheForUserAndFriends(post.getAuthor().getId());
+        // 7. Remove the post from the newsfeed timelines
+        newsfeedTimelineService.onPostDeleted(postId, post.getAuthor().getId());
+        trendingPostService.onPostRemoved(postId);
     }
 
     // ================ HELPER METHODS ================
 
     /**
-     * Helper method to clear newsfeed cache for a user and their friends
+     * Helper method to check whether a post may be shown to a viewer
      */
-    private void clearNewsfeedCacheForUserAndFriends(Long userId) {
-        try {
-            // Clear cache for the user
-            String userCachePattern = NEWSFEED_CACHE_PREFIX + userId + ":*";
-            redisTemplate.delete(redisTemplate.keys(userCachePattern));
-
-            // Clear cache for user's friends
-            List<Long> friendIds = getFriendIds(userId);
-            for (Long friendId : friendIds) {
-                String friendCachePattern = NEWSFEED_CACHE_PREFIX + friendId + ":*";
-                redisTemplate.delete(redisTemplate.keys(friendCachePattern));
-            }
-
-            log.info("🧹 Cleared newsfeed cache for user {} and {} friends", userId, friendIds.size());
-        } catch (Exception e) {
-            log.warn("⚠️ Failed to clear newsfeed cache: {}", e.getMessage());
-        }
+    private boolean isVisibleTo(Post post, Long viewerId, Set<Long> friendIds) {
+        Long authorId = post.getAuthor().getId();
+        return authorId.equals(viewerId)
+                || post.getPrivacy() == PostPrivacy.PUBLIC
+                || (post.getPrivacy() == PostPrivacy.FRIENDS && friendIds.contains(authorId));
     }
 
     /**
@@ -797,167 +727,30 @@ public class PostService {
      * Helper method to convert Post entity to PostResponseDto
      */
     private PostResponseDto mapToPostResponseDto(Post post, Long viewerId) {
-        // Check if current user liked this post
-        boolean isLiked = postLikeRepository.findByPostIdAndUserId(post.getId(), viewerId).isPresent();
-
-        // Get like count
-        long likeCount = postLikeRepository.countByPost(post);
-
-        // Get comment count (only top-level comments)
-        long commentCount = postCommentRepository.countByPostAndParentCommentIsNull(post);
-
-        // Get recent likes (limited to 5)
-        List<PostLike> recentLikes = postLikeRepository.findByPostOrderByCreatedAtDesc(post)
-                .stream().limit(5).toList();
-
-        List<PostResponseDto.RecentLikeDto> recentLikeDtos = recentLikes.stream()
-                .map(like -> {
-                    UserProfile likerProfile = like.getUser().getUserProfile();
-                    return PostResponseDto.RecentLikeDto.builder()
-                            .userId(like.getUser().getId())
-                            .username(likerProfile != null ? likerProfile.getUsername() : like.getUser().getEmail())
-                            .avatarUrl(likerProfile != null ? likerProfile.getAvtUrl() : null)
-                            .likedAt(like.getCreatedAt())
-                            .build();
-                })
-                .toList();
-
-        // Get top comments (limited to 3)
-        List<PostComment> topComments = postCommentRepository
-                .findByPostAndParentCommentIsNullOrderByCreatedAtAsc(post, PageRequest.of(0, 3))
-                .getContent();
-
-        List<PostCommentDto> topCommentDtos = topComments.stream()
-                .map(comment -> mapToPostCommentDto(comment, viewerId))
-                .toList();
-
-        // Get attachments for this post
-        List<PostAttachment> attachments = postAttachmentRepository.findByPostOrderByCreatedAtAsc(post);
-
-        // Separate images and files
-        List<String> imageUrls = new ArrayList<>();
-        List<PostResponseDto.AttachmentDto> files = new ArrayList<>();
-
-        for (PostAttachment attachment : attachments) {
-            if (attachment.getAttachmentType() == PostAttachment.AttachmentType.IMAGE) {
-                imageUrls.add(attachment.getS3Url());
-            } else {
-                files.add(PostResponseDto.AttachmentDto.builder()
-                        .id(attachment.getId())
-                        .originalFilename(attachment.getOriginalFilename())
-                        .s3Url(attachment.getS3Url())
-                        .fileSize(attachment.getFileSize())
-                        .contentType(attachment.getContentType())
-                        .attachmentType(attachment.getAttachmentType().toString())
-                        .uploadedAt(attachment.getCreatedAt())
-                        .build());
-            }
-        }
+        return postHydrationService.hydratePosts(List.of(post), viewerId).get(0);
+    }
 
-        // Build the response DTO
-        return PostResponseDto.builder()
-                .id(post.getId())
-                .content(post.getContent())
-                .privacy(post.getPrivacy())
-                .imageUrl(post.getImageUrl()) // Legacy single image
-                .imageUrls(imageUrls) // Multiple images from attachments
-                .files(files) // Non-image attachments
-                .author(PostResponseDto.AuthorDto.builder()
-                        .id(post.getAuthor().getId())
-                        .email(post.getAuthor().getEmail())
-                        .firstName(post.getAuthor().getFirstName())
-                        .lastName(post.getAuthor().getLastName())
-                        .username(post.getAuthor().getUserProfile() != null ?
-                                  post.getAuthor().getUserProfile().getUsername() :
-                                  post.getAuthor().getEmail())
-                        .avatarUrl(post.getAuthor().getAvatarUrl())
-                        .build())
-                .linkedTask(post.getLinkedTask() != null ? PostResponseDto.LinkedTaskDto.builder()
-                        .id(post.getLinkedTask().getId())
-                        .title(post.getLinkedTask().getTitle())
-                        .build() : null)
-                .linkedProject(post.getLinkedProject() != null ? PostResponseDto.LinkedProjectDto.builder()
-                        .id(post.getLinkedProject().getId())
-                        .name(post.getLinkedProject().getName())
-                        .build() : null)
-                .likeCount((int) likeCount)
-                .commentCount((int) commentCount)
-                .isPinned(post.getIsPinned())
-                .isLikedByCurrentUser(isLiked)
-                .createdAt(post.getCreatedAt())
-                .updatedAt(post.getUpdatedAt())
-                .recentLikes(recentLikeDtos)
-                .topComments(topCommentDtos)
-                .build();
+    /**
+     * Helper method to convert a page of posts with a fixed number of queries
+     */
+    private Page<PostResponseDto> mapToPostResponsePage(Page<Post> posts, Long viewerId) {
+        return new PageImpl<>(postHydrationService.hydratePosts(posts.getContent(), viewerId),
+                posts.getPageable(), posts.getTotalElements());
     }
 
     /**
      * Helper method to convert PostComment entity to PostCommentDto
      */
     private PostCommentDto mapToPostCommentDto(PostComment comment, Long viewerId) {
-        // Check if current user liked this comment
-        boolean isLiked = postCommentLikeRepository.findByCommentIdAndUserId(comment.getId(), viewerId).isPresent();
-
-        // Get like count for this comment
-        long likeCount = postCommentLikeRepository.countByComment(comment);
-
-        // Get reply count for this comment
-        long replyCount = postCommentRepository.findByParentCommentOrderByCreatedAtAsc(comment).size();
-
-        // Get recent likes for this comment (limited to 3)
-        List<PostCommentLike> recentLikes = postCommentLikeRepository
-                .findRecentLikesByCommentId(comment.getId())
-                .stream()
-                .limit(3)
-                .toList();
-
-        List<PostCommentDto.RecentLikeDto> recentLikeDtos = recentLikes.stream()
-                .map(like -> {
-                    UserProfile likerProfile = like.getUser().getUserProfile();
-                    return PostCommentDto.RecentLikeDto.builder()
-                            .userId(like.getUser().getId())
-                            .username(likerProfile != null ? likerProfile.getUsername() : like.getUser().getEmail())
-                            .firstName(likerProfile != null ? likerProfile.getFirstName() : "")
-                            .lastName(likerProfile != null ? likerProfile.getLastName() : "")
-                            .avatarUrl(likerProfile != null ? likerProfile.getAvtUrl() : null)
-                            .likedAt(like.getCreatedAt())
-                            .build();
-                })
-                .toList();
-
-        return PostCommentDto.builder()
-                .id(comment.getId())
-                .content(comment.getContent())
-                .author(PostCommentDto.AuthorDto.builder()
-                        .id(comment.getUser().getId())
-                        .email(comment.getUser().getEmail())
-                        .firstName(comment.getUser().getFirstName())
-                        .lastName(comment.getUser().getLastName())
-                        .username(comment.getUser().getUserProfile() != null ?
-                                  comment.getUser().getUserProfile().getUsername() :
-                                  comment.getUser().getEmail())
-                        .avatarUrl(comment.getUser().getAvatarUrl())
-                        .build())
-                .parentCommentId(comment.getParentComment() != null ? comment.getParentComment().getId() : null)
-                .likeCount((int) likeCount)
-                .replyCount((int) replyCount)
-                .isLikedByCurrentUser(isLiked)
-                .createdAt(comment.getCreatedAt())
-                .updatedAt(comment.getUpdatedAt())
-                .recentLikes(recentLikeDtos)
-                .build();
+        return postHydrationService.hydrateComments(List.of(comment), viewerId).get(0);
     }
 
     /**
-     * Helper method to convert List to Page
+     * Helper method to convert a page of comments with a fixed number of queries
      */
-    private <T> Page<T> convertListToPage(List<T> list, Pageable pageable) {
-        int start = Math.toIntExact(pageable.getOffset());
-        int end = Math.min((start + pageable.getPageSize()), list.size());
-
-        List<T> subList = start >= list.size() ? new ArrayList<>() : list.subList(start, end);
-
-        return new org.springframework.data.domain.PageImpl<>(subList, pageable, list.size());
+    private Page<PostCommentDto> mapToPostCommentPage(Page<PostComment> comments, Long viewerId) {
+        return new PageImpl<>(postHydrationService.hydrateComments(comments.getContent(), viewerId),
+                comments.getPageable(), comments.getTotalElements());
     }
 
     /**
@@ -982,6 +775,7 @@ public class PostService {
         if (requestDto.getContent() != null) {
             post.setContent(requestDto.getContent());
         }
+        boolean privacyChanged = requestDto.getPrivacy() != null && requestDto.getPrivacy() != post.getPrivacy();
         if (requestDto.getPrivacy() != null) {
             post.setPrivacy(requestDto.getPrivacy());
         }
@@ -1008,15 +802,11 @@ public class PostService {
             for (Long imageId : requestDto.getRemoveImageIds()) {
                 Optional<PostAttachment> attachment = postAttachmentRepository.findById(imageId);
                 if (attachment.isPresent() && attachment.get().getPost().getId().equals(postId)) {
-                    try {
-                        // Delete from S3
-                        s3FileUploadService.deleteFile(attachment.get().getS3Key());
-                        // Delete from database
-                        postAttachmentRepository.delete(attachment.get());
-                        log.info("🗑️ Removed image attachment: {}", attachment.get().getOriginalFilename());
-                    } catch (Exception e) {
-                        log.warn("⚠️ Failed to remove image {}: {}", attachment.get().getS3Key(), e.getMessage());
-                    }
+                    // Queued with this update; a failure rolls the whole update back
+                    s3DeletionQueueService.enqueue(attachment.get().getS3Key(), "post");
+                    // Delete from database
+                    postAttachmentRepository.delete(attachment.get());
+                    log.info("🗑️ Removed image attachment: {}", attachment.get().getOriginalFilename());
                 }
             }
         }
@@ -1025,15 +815,11 @@ public class PostService {
             for (Long fileId : requestDto.getRemoveFileIds()) {
                 Optional<PostAttachment> attachment = postAttachmentRepository.findById(fileId);
                 if (attachment.isPresent() && attachment.get().getPost().getId().equals(postId)) {
-                    try {
-                        // Delete from S3
-                        s3FileUploadService.deleteFile(attachment.get().getS3Key());
-                        // Delete from database
-                        postAttachmentRepository.delete(attachment.get());
-                        log.info("🗑️ Removed file attachment: {}", attachment.get().getOriginalFilename());
-                    } catch (Exception e) {
-                        log.warn("⚠️ Failed to remove file {}: {}", attachment.get().getS3Key(), e.getMessage());
-                    }
+                    // Queued with this update; a failure rolls the whole update back
+                    s3DeletionQueueService.enqueue(attachment.get().getS3Key(), "post");
+                    // Delete from database
+                    postAttachmentRepository.delete(attachment.get());
+                    log.info("🗑️ Removed file attachment: {}", attachment.get().getOriginalFilename());
                 }
             }
         }
@@ -1043,7 +829,7 @@ public class PostService {
             try {
                 // Delete old legacy image if exists
                 if (post.getImageS3Key() != null && !post.getImageS3Key().isEmpty()) {
-                    s3FileUploadService.deleteFile(post.getImageS3Key());
+                    s3DeletionQueueService.enqueue(post.getImageS3Key(), "post");
                 }
 
                 String fileName = requestDto.getImage().getOriginalFilename();
@@ -1098,6 +884,7 @@ public class PostService {
                                 .build();
 
                         postAttachmentRepository.save(imageAttachment);
+                        generateThumbnails(imageAttachment);
                         log.info("📸 Added new image {} to post {}", fileName, postId);
                     } catch (Exception e) {
                         log.error("❌ Failed to add image {}: {}", imageFile.getOriginalFilename(), e.getMessage());
@@ -1140,6 +927,7 @@ public class PostService {
                                 .build();
 
                         postAttachmentRepository.save(fileAttachment);
+                        generateThumbnails(fileAttachment);
                         log.info("📎 Added new file {} to post {}", fileName, postId);
                     } catch (Exception e) {
                         log.error("❌ Failed to add file {}: {}", file.getOriginalFilename(), e.getMessage());
@@ -1153,8 +941,14 @@ public class PostService {
         post.setUpdatedAt(LocalDateTime.now());
         Post savedPost = postRepository.save(post);
 
-        // Clear newsfeed cache for current user and friends
-        clearNewsfeedCacheForUserAndFriends(currentUser.getId());
+        // Content changes are picked up when the feed is hydrated; privacy decides who gets the post
+        if (privacyChanged) {
+            newsfeedTimelineService.onPostPrivacyChanged(postId, currentUser.getId(),
+                    savedPost.getPrivacy(), getFriendIds(currentUser.getId()));
+            if (savedPost.getPrivacy() == PostPrivacy.PRIVATE) {
+                trendingPostService.onPostRemoved(postId);
+            }
+        }
 
         log.info("✅ Successfully updated post {}", postId);
 
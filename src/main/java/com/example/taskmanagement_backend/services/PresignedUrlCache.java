@@ -0,0 +1,215 @@
+package com.example.taskmanagement_backend.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-local cache of presigned GET URLs, keyed by object key and requested validity.
+ *
+ * A URL is handed out again until reuse-fraction of its validity window has passed, so the
+ * remaining lifetime of a returned URL is never below (1 - reuse-fraction) * validity. Reusing
+ * URLs saves a SigV4 signing per attachment per response and keeps URLs stable, which lets
+ * browsers and CDNs cache the objects. Entries are LRU-evicted above max-entries and dropped
+ * when the object is deleted.
+ */
+@Slf4j
+@Component
+public class PresignedUrlCache {
+
+    private final S3Presigner s3Presigner;
+    private final String bucketName;
+    private final boolean enabled;
+    private final double reuseFraction;
+    private final int maxEntries;
+
+    // Guarded by this: "validitySeconds|objectKey" -> entry, access order for LRU eviction
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong batchRequests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PresignedUrlCache(S3Presigner s3Presigner,
+                             @Value("${aws.s3.bucket-name}") String bucketName,
+                             @Value("${aws.s3.presigned-url-cache.enabled:true}") boolean enabled,
+                             @Value("${aws.s3.presigned-url-cache.reuse-fraction:0.5}") double reuseFraction,
+                             @Value("${aws.s3.presigned-url-cache.max-entries:10000}") int maxEntries) {
+        this.s3Presigner = s3Presigner;
+        this.bucketName = bucketName;
+        this.enabled = enabled;
+        this.reuseFraction = Math.min(Math.max(reuseFraction, 0.0), 1.0);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Presigned GET URL for one object, reused while it is young enough
+     */
+    public String getDownloadUrl(String objectKey, Duration validity) {
+        long now = System.currentTimeMillis();
+        String cacheKey = cacheKey(objectKey, validity);
+
+        if (enabled) {
+            synchronized (this) {
+                Entry entry = entries.get(cacheKey);
+                if (entry != null && now < entry.reuseUntil) {
+                    hits.incrementAndGet();
+                    return entry.url;
+                }
+            }
+        }
+
+        misses.incrementAndGet();
+        String url = presign(objectKey, validity);
+        if (enabled) {
+            synchronized (this) {
+                store(cacheKey, url, now, validity);
+            }
+        }
+        return url;
+    }
+
+    /**
+     * Presigned GET URLs for a page of objects: one pass over the cache for the hits, then one
+     * signing per distinct missing key. Keys that fail to presign are left out of the result.
+     *
+     * @return objectKey -> URL in the iteration order of objectKeys
+     */
+    public Map<String, String> getDownloadUrls(Collection<String> objectKeys, Duration validity) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        if (objectKeys == null || objectKeys.isEmpty()) {
+            return urls;
+        }
+        batchRequests.incrementAndGet();
+        long now = System.currentTimeMillis();
+
+        List<String> missing = new ArrayList<>();
+        synchronized (this) {
+            for (String objectKey : new LinkedHashSet<>(objectKeys)) {
+                Entry entry = enabled ? entries.get(cacheKey(objectKey, validity)) : null;
+                if (entry != null && now < entry.reuseUntil) {
+                    hits.incrementAndGet();
+                    urls.put(objectKey, entry.url);
+                } else {
+                    urls.put(objectKey, null);
+                    missing.add(objectKey);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return urls;
+        }
+
+        Map<String, String> signed = new HashMap<>();
+        for (String objectKey : missing) {
+            misses.incrementAndGet();
+            try {
+                signed.put(objectKey, presign(objectKey, validity));
+            } catch (Exception e) {
+                failures.incrementAndGet();
+                log.error("❌ Failed to presign download URL for key: {}", objectKey, e);
+            }
+        }
+
+        if (enabled) {
+            synchronized (this) {
+                signed.forEach((objectKey, url) -> store(cacheKey(objectKey, validity), url, now, validity));
+            }
+        }
+        missing.forEach(objectKey -> {
+            String url = signed.get(objectKey);
+            if (url != null) {
+                urls.put(objectKey, url);
+            } else {
+                urls.remove(objectKey);
+            }
+        });
+        return urls;
+    }
+
+    /**
+     * Forget every URL of a deleted object so it is not handed out again
+     */
+    public void invalidate(String objectKey) {
+        if (objectKey == null) {
+            return;
+        }
+        String suffix = "|" + objectKey;
+        synchronized (this) {
+            if (entries.keySet().removeIf(key -> key.endsWith(suffix))) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long lookups = hits.get() + misses.get();
+        int size;
+        synchronized (this) {
+            size = entries.size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("entries", size);
+        stats.put("maxEntries", maxEntries);
+        stats.put("reuseFraction", reuseFraction);
+        stats.put("lookups", lookups);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRatio", lookups > 0 ? (double) hits.get() / lookups : 0.0);
+        stats.put("batchRequests", batchRequests.get());
+        stats.put("failures", failures.get());
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    private String presign(String objectKey, Duration validity) {
+        GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(validity)
+                .getObjectRequest(GetObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(objectKey)
+                        .build())
+                .build();
+
+        return s3Presigner.presignGetObject(presignRequest).url().toString();
+    }
+
+    // Caller holds the lock
+    private void store(String cacheKey, String url, long issuedAt, Duration validity) {
+        long reuseUntil = issuedAt + (long) (validity.toMillis() * reuseFraction);
+        entries.put(cacheKey, new Entry(url, reuseUntil));
+        if (entries.size() > maxEntries) {
+            Iterator<String> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static String cacheKey(String objectKey, Duration validity) {
+        return validity.toSeconds() + "|" + objectKey;
+    }
+
+    private static final class Entry {
+        private final String url;
+        private final long reuseUntil;
+
+        private Entry(String url, long reuseUntil) {
+            this.url = url;
+            this.reuseUntil = reuseUntil;
+        }
+    }
+}
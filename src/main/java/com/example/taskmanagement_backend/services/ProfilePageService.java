@@ -223,9 +223,7 @@ public class ProfilePageService {
             );
         }
 
-        List<PostResponseDto> postDtos = posts.stream()
-                .map(post -> postService.convertToPostResponseDto(post, currentUser.getId()))
-                .collect(Collectors.toList());
+        List<PostResponseDto> postDtos = postService.convertToPostResponseDtos(posts, currentUser.getId());
 
         // Check if there are more posts
         boolean hasMore = posts.size() == pageRequest.getPageSize();
@@ -0,0 +1,196 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.repositories.ProjectProgressRepository;
+import com.example.taskmanagement_backend.repositories.TeamProgressRepository;
+import com.example.taskmanagement_backend.repositories.TeamProjectProgressRepository;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Corrects drift in the delta-maintained progress counters.
+ *
+ * - Every delta marks its counter dirty; once a counter has been quiet for
+ *   {@code app.progress.reconcile.quiet-seconds} it is recounted once, so a burst
+ *   of status changes costs one recount instead of one per change.
+ * - A nightly cluster job compares every stored counter with three GROUP BY counts
+ *   and fixes the rows that drifted (e.g. tasks changed outside ProjectTaskService).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProgressReconciliationService {
+
+    private final ProjectProgressRepository projectProgressRepository;
+    private final TeamProgressRepository teamProgressRepository;
+    private final TeamProjectProgressRepository teamProjectProgressRepository;
+    private final ProjectProgressService projectProgressService;
+    private final TeamProgressService teamProgressService;
+    private final TeamProjectProgressService teamProjectProgressService;
+
+    @Value("${app.progress.reconcile.quiet-seconds:60}")
+    private long quietSeconds;
+
+    // Dirty counter -> time of its last delta (ms)
+    private final Map<ProgressKey, Long> dirty = new ConcurrentHashMap<>();
+
+    public void markProjectDirty(Long projectId) {
+        dirty.put(new ProgressKey(ProgressKey.Type.PROJECT, null, projectId), System.currentTimeMillis());
+    }
+
+    public void markTeamDirty(Long teamId) {
+        dirty.put(new ProgressKey(ProgressKey.Type.TEAM, teamId, null), System.currentTimeMillis());
+    }
+
+    public void markTeamProjectDirty(Long teamId, Long projectId) {
+        dirty.put(new ProgressKey(ProgressKey.Type.TEAM_PROJECT, teamId, projectId), System.currentTimeMillis());
+    }
+
+    public int getPendingCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Recount counters that stopped changing (node-local: each node reconciles what it touched)
+     */
+    @Scheduled(fixedDelayString = "${app.progress.reconcile.interval-ms:30000}", initialDelay = 60000)
+    public void reconcileDirty() {
+        long cutoff = System.currentTimeMillis() - quietSeconds * 1000;
+        int reconciled = 0;
+
+        for (Map.Entry<ProgressKey, Long> entry : dirty.entrySet()) {
+            // remove(key, value) fails if a newer delta arrived meanwhile - keep waiting
+            if (entry.getValue() > cutoff || !dirty.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            try {
+                recount(entry.getKey());
+                reconciled++;
+            } catch (Exception e) {
+                log.error("❌ [ProgressReconciliation] Failed to recount {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+
+        if (reconciled > 0) {
+            log.debug("🔄 [ProgressReconciliation] Recounted {} progress counters", reconciled);
+        }
+    }
+
+    /**
+     * Full reconciliation: 3 aggregate queries, then one UPDATE per drifted counter
+     *
+     * @return number of counters that had drifted
+     */
+    @Scheduled(cron = "0 0 4 * * *")
+    @ClusterJob(name = "progress-reconcile-all", leaseSeconds = 1800)
+    @Transactional
+    public int reconcileAll() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> drifted = new ArrayList<>();
+
+        Map<List<Long>, long[]> projectCounts = toCounts(
+                projectProgressRepository.countTasksPerProject(ProgressUpdateService.COMPLETED_STATUSES), 1);
+        for (Object[] row : projectProgressRepository.findAllCounts()) {
+            Long projectId = (Long) row[0];
+            long[] actual = projectCounts.getOrDefault(List.of(projectId), new long[2]);
+            if (differs(row[1], row[2], actual)) {
+                projectProgressRepository.setCounts(projectId, (int) actual[0], (int) actual[1], percentage(actual), now);
+                drifted.add("project " + projectId);
+            }
+        }
+
+        Map<List<Long>, long[]> teamCounts = toCounts(
+                teamProgressRepository.countTasksPerTeam(ProgressUpdateService.COMPLETED_STATUSES), 1);
+        for (Object[] row : teamProgressRepository.findAllCounts()) {
+            Long teamId = (Long) row[0];
+            long[] actual = teamCounts.getOrDefault(List.of(teamId), new long[2]);
+            if (differs(row[1], row[2], actual)) {
+                teamProgressRepository.setCounts(teamId, (int) actual[0], (int) actual[1], percentage(actual), now);
+                drifted.add("team " + teamId);
+            }
+        }
+
+        Map<List<Long>, long[]> teamProjectCounts = toCounts(
+                teamProjectProgressRepository.countTasksPerTeamAndProject(ProgressUpdateService.COMPLETED_STATUSES), 2);
+        for (Object[] row : teamProjectProgressRepository.findAllCounts()) {
+            Long teamId = (Long) row[0];
+            Long projectId = (Long) row[1];
+            long[] actual = teamProjectCounts.getOrDefault(List.of(teamId, projectId), new long[2]);
+            if (differs(row[2], row[3], actual)) {
+                teamProjectProgressRepository.setCounts(teamId, projectId, (int) actual[0], (int) actual[1], percentage(actual), now);
+                drifted.add("team " + teamId + " / project " + projectId);
+            }
+        }
+
+        dirty.clear();
+        if (drifted.isEmpty()) {
+            log.info("✅ [ProgressReconciliation] All progress counters are consistent");
+        } else {
+            log.warn("⚠️ [ProgressReconciliation] Fixed {} drifted progress counters: {}", drifted.size(),
+                    drifted.stream().limit(20).toList());
+        }
+        return drifted.size();
+    }
+
+    private void recount(ProgressKey key) {
+        switch (key.getType()) {
+            case PROJECT -> projectProgressService.refreshProjectProgressData(key.getProjectId());
+            case TEAM -> teamProgressService.getOrCreateTeamProgress(key.getTeamId());
+            case TEAM_PROJECT -> teamProjectProgressService.refreshTeamProjectProgressData(key.getTeamId(), key.getProjectId());
+        }
+    }
+
+    /**
+     * Aggregate rows [id..., total, completed] keyed by their {@code idColumns} leading ids
+     */
+    private static Map<List<Long>, long[]> toCounts(List<Object[]> rows, int idColumns) {
+        Map<List<Long>, long[]> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            List<Long> ids = new ArrayList<>(idColumns);
+            for (int i = 0; i < idColumns; i++) {
+                ids.add((Long) row[i]);
+            }
+            long total = ((Number) row[idColumns]).longValue();
+            long completed = row[idColumns + 1] != null ? ((Number) row[idColumns + 1]).longValue() : 0;
+            counts.put(ids, new long[]{total, completed});
+        }
+        return counts;
+    }
+
+    private static boolean differs(Object storedTotal, Object storedCompleted, long[] actual) {
+        long total = storedTotal != null ? ((Number) storedTotal).longValue() : -1;
+        long completed = storedCompleted != null ? ((Number) storedCompleted).longValue() : -1;
+        return total != actual[0] || completed != actual[1];
+    }
+
+    private static double percentage(long[] counts) {
+        return counts[0] > 0 ? counts[1] * 100.0 / counts[0] : 0.0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    static class ProgressKey {
+        enum Type { PROJECT, TEAM, TEAM_PROJECT }
+
+        private final Type type;
+        private final Long teamId;
+        private final Long projectId;
+
+        @Override
+        public String toString() {
+            return type + "(team=" + teamId + ", project=" + projectId + ")";
+        }
+    }
+}
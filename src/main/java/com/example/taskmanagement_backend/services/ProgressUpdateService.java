@@ -1,10 +1,11 @@
 package com.example.taskmanagement_backend.services;
 
+import com.example.taskmanagement_backend.entities.Project;
 import com.example.taskmanagement_backend.entities.ProjectTask;
 import com.example.taskmanagement_backend.entities.TeamTask;
-import com.example.taskmanagement_backend.entities.ProjectProgress;
-import com.example.taskmanagement_backend.entities.TeamProjectProgress;
+import com.example.taskmanagement_backend.enums.TaskStatus;
 import com.example.taskmanagement_backend.repositories.ProjectProgressRepository;
+import com.example.taskmanagement_backend.repositories.TeamProgressRepository;
 import com.example.taskmanagement_backend.repositories.TeamProjectProgressRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,247 +13,241 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps ProjectProgress / TeamProgress / TeamProjectProgress up to date on task changes.
+ *
+ * Each change is applied as a counter delta (total/completed) with one atomic UPDATE per
+ * affected counter, in the same transaction as the task change - constant time whatever
+ * the project size. Counters are recounted only when their row does not exist yet, and by
+ * {@link ProgressReconciliationService} (debounced per counter, plus a nightly full check).
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class ProgressUpdateService {
 
+    public static final Set<TaskStatus> COMPLETED_STATUSES = EnumSet.of(TaskStatus.DONE, TaskStatus.COMPLETED);
+
     private final ProjectProgressRepository projectProgressRepository;
+    private final TeamProgressRepository teamProgressRepository;
     private final TeamProjectProgressRepository teamProjectProgressRepository;
-    private final ProjectProgressService projectProgressService; // ✅ ADD: Thêm dependency
+    private final ProjectProgressService projectProgressService;
+    private final TeamProgressService teamProgressService;
+    private final TeamProjectProgressService teamProjectProgressService;
+    private final ProgressReconciliationService reconciliationService;
+
+    public static boolean isCompleted(TaskStatus status) {
+        return status != null && COMPLETED_STATUSES.contains(status);
+    }
+
+    // ===== ProjectTask changes =====
+
+    public void onProjectTaskCreated(ProjectTask projectTask) {
+        applyProjectTaskDelta(projectTask, 1, isCompleted(projectTask.getStatus()) ? 1 : 0);
+    }
 
     /**
-     * ✅ AUTO-UPDATE: Update progress when ProjectTask changes
-     * Call this method whenever a ProjectTask status changes
+     * Call after a ProjectTask update; no-op unless the task moved in or out of a completed status
      */
-    public void updateProgressOnProjectTaskChange(ProjectTask projectTask) {
-        if (projectTask.getProject() == null) {
-            log.warn("ProjectTask {} has no associated project, skipping progress update", projectTask.getId());
-            return;
+    public void onProjectTaskStatusChanged(ProjectTask projectTask, TaskStatus oldStatus) {
+        int completedDelta = completedDelta(oldStatus, projectTask.getStatus());
+        if (completedDelta != 0) {
+            applyProjectTaskDelta(projectTask, 0, completedDelta);
         }
+    }
 
-        try {
-            Long projectId = projectTask.getProject().getId();
-            log.info("🔄 [ProgressUpdateService] Updating ALL progress for project {} due to ProjectTask {} status change",
-                    projectId, projectTask.getId());
-
-            // ✅ FIX: Lấy teamId từ project để có thể cập nhật team progress
-            // Cần query project để lấy teamId
-            com.example.taskmanagement_backend.entities.Project project = projectTask.getProject();
-            Long teamId = (project.getTeam() != null) ? project.getTeam().getId() : null;
-
-            log.info("🔍 [ProgressUpdateService] Project info - projectId={}, teamId={}", projectId, teamId);
-
-            if (teamId != null) {
-                // ✅ FIX: Sử dụng refreshAllProgressData để cập nhật TẤT CẢ progress
-                log.info("🚀 [ProgressUpdateService] Calling refreshAllProgressData for teamId={}, projectId={}", teamId, projectId);
-                projectProgressService.refreshAllProgressData(teamId, projectId);
-                log.info("✅ [ProgressUpdateService] Successfully updated ALL progress (Project + Team) for project {}", projectId);
-            } else {
-                // Project cá nhân - chỉ update project progress
-                log.info("👤 [ProgressUpdateService] Personal project - only updating project progress");
-                updateProjectProgress(projectId);
-                log.info("✅ [ProgressUpdateService] Successfully updated project progress for personal project {}", projectId);
+    /**
+     * Bulk form of {@link #onProjectTaskStatusChanged}: completed deltas are summed first, so a batch
+     * costs one counter UPDATE per affected project and team rather than one per task
+     *
+     * @param oldStatuses status of each task before the batch, by task id
+     */
+    public void onProjectTasksStatusChanged(Collection<ProjectTask> projectTasks, Map<Long, TaskStatus> oldStatuses) {
+        Map<Long, Integer> projectDeltas = new LinkedHashMap<>();
+        Map<Long, Integer> teamDeltas = new LinkedHashMap<>();
+
+        for (ProjectTask projectTask : projectTasks) {
+            int completedDelta = completedDelta(oldStatuses.get(projectTask.getId()), projectTask.getStatus());
+            if (completedDelta == 0) {
+                continue;
+            }
+            Project project = projectTask.getProject();
+            if (project == null) {
+                log.warn("ProjectTask {} has no associated project, skipping progress update", projectTask.getId());
+                continue;
+            }
+            projectDeltas.merge(project.getId(), completedDelta, Integer::sum);
+            if (project.getTeam() != null) {
+                teamDeltas.merge(project.getTeam().getId(), completedDelta, Integer::sum);
             }
-
-        } catch (Exception e) {
-            log.error("❌ Failed to update progress for ProjectTask {}: {}",
-                    projectTask.getId(), e.getMessage(), e);
         }
+
+        LocalDateTime now = LocalDateTime.now();
+        projectDeltas.forEach((projectId, completedDelta) -> {
+            if (completedDelta != 0) {
+                applyProjectDelta(projectId, 0, completedDelta, now);
+            }
+        });
+        teamDeltas.forEach((teamId, completedDelta) -> {
+            if (completedDelta != 0) {
+                applyTeamDelta(teamId, 0, completedDelta, now);
+            }
+        });
+
+        log.debug("📊 [ProgressUpdateService] Bulk change of {} project tasks: {} project and {} team counters",
+                projectTasks.size(), projectDeltas.size(), teamDeltas.size());
+    }
+
+    public void onProjectTaskDeleted(ProjectTask projectTask) {
+        applyProjectTaskDelta(projectTask, -1, isCompleted(projectTask.getStatus()) ? -1 : 0);
+    }
+
+    // ===== TeamTask changes =====
+
+    public void onTeamTaskCreated(TeamTask teamTask) {
+        applyTeamTaskDelta(teamTask, relatedProjectId(teamTask), 1, isCompleted(teamTask.getStatus()) ? 1 : 0);
     }
 
     /**
-     * ✅ AUTO-UPDATE: Update progress when TeamTask changes
-     * Call this method whenever a TeamTask status changes
+     * Call after a TeamTask update with its status and related project from before the update
      */
-    public void updateProgressOnTeamTaskChange(TeamTask teamTask) {
-        if (teamTask.getTeam() == null) {
-            log.warn("TeamTask {} has no associated team, skipping progress update", teamTask.getId());
+    public void onTeamTaskChanged(TeamTask teamTask, TaskStatus oldStatus, Long oldRelatedProjectId) {
+        Long projectId = relatedProjectId(teamTask);
+
+        if (!Objects.equals(oldRelatedProjectId, projectId)) {
+            // Moved to another project: leave the old counter, join the new one
+            applyTeamTaskDelta(teamTask, oldRelatedProjectId, -1, isCompleted(oldStatus) ? -1 : 0);
+            applyTeamTaskDelta(teamTask, projectId, 1, isCompleted(teamTask.getStatus()) ? 1 : 0);
+            return;
+        }
+
+        int completedDelta = completedDelta(oldStatus, teamTask.getStatus());
+        if (completedDelta != 0) {
+            applyTeamTaskDelta(teamTask, projectId, 0, completedDelta);
+        }
+    }
+
+    public void onTeamTaskDeleted(TeamTask teamTask) {
+        applyTeamTaskDelta(teamTask, relatedProjectId(teamTask), -1, isCompleted(teamTask.getStatus()) ? -1 : 0);
+    }
+
+    // ===== Delta application =====
+
+    private void applyProjectTaskDelta(ProjectTask projectTask, int totalDelta, int completedDelta) {
+        Project project = projectTask.getProject();
+        if (project == null) {
+            log.warn("ProjectTask {} has no associated project, skipping progress update", projectTask.getId());
             return;
         }
 
-        try {
-            Long teamId = teamTask.getTeam().getId();
+        Long projectId = project.getId();
+        Long teamId = project.getTeam() != null ? project.getTeam().getId() : null;
+        LocalDateTime now = LocalDateTime.now();
 
-            // If TeamTask is related to a project, update team-project progress
-            if (teamTask.getRelatedProject() != null) {
-                Long projectId = teamTask.getRelatedProject().getId();
-                log.info("🔄 Updating team-project progress for team {} and project {} due to TeamTask {} status change",
-                        teamId, projectId, teamTask.getId());
+        applyProjectDelta(projectId, totalDelta, completedDelta, now);
+        // Team progress (team projects only)
+        if (teamId != null) {
+            applyTeamDelta(teamId, totalDelta, completedDelta, now);
+        }
 
-                updateTeamProjectProgress(teamId, projectId);
+        log.debug("📊 [ProgressUpdateService] Project {} (team {}) progress delta: total {}, completed {}",
+                projectId, teamId, totalDelta, completedDelta);
+    }
 
-                // Also update overall project progress
-                updateProjectProgress(projectId);
+    private void applyProjectDelta(Long projectId, int totalDelta, int completedDelta, LocalDateTime now) {
+        if (projectProgressRepository.applyDelta(projectId, totalDelta, completedDelta, now) == 0) {
+            // First change since the row was dropped/never created: count once
+            projectProgressService.refreshProjectProgressData(projectId);
+        }
+        reconciliationService.markProjectDirty(projectId);
+    }
 
-                log.info("✅ Successfully updated team-project progress for team {} and project {}",
-                        teamId, projectId);
-            } else {
-                log.debug("TeamTask {} is not related to any project, no project progress update needed",
-                        teamTask.getId());
-            }
-        } catch (Exception e) {
-            log.error("❌ Failed to update progress for TeamTask {}: {}",
-                    teamTask.getId(), e.getMessage(), e);
+    private void applyTeamDelta(Long teamId, int totalDelta, int completedDelta, LocalDateTime now) {
+        if (teamProgressRepository.applyDelta(teamId, totalDelta, completedDelta, now) == 0) {
+            teamProgressService.getOrCreateTeamProgress(teamId);
         }
+        reconciliationService.markTeamDirty(teamId);
     }
 
-    /**
-     * Update overall project progress
-     */
-    public void updateProjectProgress(Long projectId) {
-        // Get or create project progress record
-        ProjectProgress progress = projectProgressRepository.findByProjectId(projectId)
-                .orElse(ProjectProgress.builder()
-                        .project(com.example.taskmanagement_backend.entities.Project.builder()
-                                .id(projectId)
-                                .build())
-                        .build());
-
-        // Calculate new totals using corrected queries
-        Long totalTasks = projectProgressRepository.countTotalTasksByProject(projectId);
-        Long completedTasks = projectProgressRepository.countCompletedTasksByProject(projectId);
-        Long totalTeams = projectProgressRepository.countTeamsByProject(projectId);
-
-        // Update progress data
-        progress.setTotalTasks(totalTasks.intValue());
-        progress.setCompletedTasks(completedTasks.intValue());
-        progress.setTotalTeams(totalTeams.intValue());
-        progress.calculateCompletionPercentage();
-        progress.setLastUpdated(LocalDateTime.now());
-
-        // Save updated progress
-        projectProgressRepository.save(progress);
-
-        log.debug("📊 Project {} progress updated: {}/{} tasks completed ({}%)",
-                projectId, completedTasks, totalTasks, progress.getCompletionPercentage());
+    private void applyTeamTaskDelta(TeamTask teamTask, Long projectId, int totalDelta, int completedDelta) {
+        if (teamTask.getTeam() == null) {
+            log.warn("TeamTask {} has no associated team, skipping progress update", teamTask.getId());
+            return;
+        }
+        if (projectId == null) {
+            // Only team-project progress counts TeamTasks
+            return;
+        }
+
+        Long teamId = teamTask.getTeam().getId();
+        if (teamProjectProgressRepository.applyDelta(teamId, projectId, totalDelta, completedDelta, LocalDateTime.now()) == 0) {
+            teamProjectProgressService.refreshTeamProjectProgressData(teamId, projectId);
+        }
+        reconciliationService.markTeamProjectDirty(teamId, projectId);
+
+        log.debug("📊 [ProgressUpdateService] Team {} / project {} progress delta: total {}, completed {}",
+                teamId, projectId, totalDelta, completedDelta);
     }
 
-    /**
-     * Update team-project specific progress
-     */
-    private void updateTeamProjectProgress(Long teamId, Long projectId) {
-        // Get or create team-project progress record
-        TeamProjectProgress progress = teamProjectProgressRepository.findByTeamIdAndProjectId(teamId, projectId)
-                .orElse(TeamProjectProgress.builder()
-                        .team(com.example.taskmanagement_backend.entities.Team.builder()
-                                .id(teamId)
-                                .build())
-                        .project(com.example.taskmanagement_backend.entities.Project.builder()
-                                .id(projectId)
-                                .build())
-                        .build());
-
-        // Calculate using TeamTask related to project
-        Long totalTeamTasks = teamProjectProgressRepository.countTotalTasksByTeamAndProject(teamId, projectId);
-        Long completedTeamTasks = teamProjectProgressRepository.countCompletedTasksByTeamAndProject(teamId, projectId);
-
-        // Also include ProjectTasks assigned to team members (alternative calculation)
-        Long totalProjectTasks = teamProjectProgressRepository.countProjectTasksAssignedToTeamMembers(teamId, projectId);
-        Long completedProjectTasks = teamProjectProgressRepository.countCompletedProjectTasksAssignedToTeamMembers(teamId, projectId);
-
-        // Combined totals (TeamTasks + ProjectTasks assigned to team members)
-        Long totalCombined = totalTeamTasks + totalProjectTasks;
-        Long completedCombined = completedTeamTasks + completedProjectTasks;
-
-        // Update progress data
-        progress.setTotalTasks(totalCombined.intValue());
-        progress.setCompletedTasks(completedCombined.intValue());
-        progress.calculateCompletionPercentage();
-        progress.setLastUpdated(LocalDateTime.now());
-
-        // Save updated progress
-        teamProjectProgressRepository.save(progress);
-
-        log.debug("📊 Team {} progress in project {} updated: {}/{} tasks completed ({}%)",
-                teamId, projectId, completedCombined, totalCombined, progress.getCompletionPercentage());
+    private static int completedDelta(TaskStatus oldStatus, TaskStatus newStatus) {
+        return (isCompleted(newStatus) ? 1 : 0) - (isCompleted(oldStatus) ? 1 : 0);
+    }
+
+    private static Long relatedProjectId(TeamTask teamTask) {
+        return teamTask.getRelatedProject() != null ? teamTask.getRelatedProject().getId() : null;
     }
 
+    // ===== Manual refresh =====
+
     /**
-     * ✅ MANUAL REFRESH: Force refresh all progress for a project
-     * Use this for batch updates or manual refresh
+     * ✅ MANUAL REFRESH: Force recount of all progress for a project
      */
     public void refreshProjectProgress(Long projectId) {
         log.info("🔄 Manual refresh of all progress for project {}", projectId);
 
-        try {
-            // Update overall project progress
-            updateProjectProgress(projectId);
-
-            // Update all team-project progress for this project
-            teamProjectProgressRepository.findByProjectId(projectId)
-                    .forEach(teamProgress -> {
-                        Long teamId = teamProgress.getTeam().getId();
-                        updateTeamProjectProgress(teamId, projectId);
-                    });
-
-            log.info("✅ Successfully refreshed all progress for project {}", projectId);
-        } catch (Exception e) {
-            log.error("❌ Failed to refresh progress for project {}: {}", projectId, e.getMessage(), e);
-        }
+        projectProgressService.refreshProjectProgressData(projectId);
+        teamProjectProgressRepository.findByProjectId(projectId)
+                .forEach(teamProgress -> teamProjectProgressService.refreshTeamProjectProgressData(
+                        teamProgress.getTeam().getId(), projectId));
     }
 
     /**
-     * ✅ MANUAL REFRESH: Force refresh team progress across all projects
+     * ✅ MANUAL REFRESH: Force recount of team progress across all projects
      */
     public void refreshTeamProgress(Long teamId) {
         log.info("🔄 Manual refresh of all progress for team {}", teamId);
 
-        try {
-            // Update all team-project progress for this team
-            teamProjectProgressRepository.findByTeamId(teamId)
-                    .forEach(teamProgress -> {
-                        Long projectId = teamProgress.getProject().getId();
-                        updateTeamProjectProgress(teamId, projectId);
-                        // Also refresh overall project progress
-                        updateProjectProgress(projectId);
-                    });
-
-            log.info("✅ Successfully refreshed all progress for team {}", teamId);
-        } catch (Exception e) {
-            log.error("❌ Failed to refresh progress for team {}: {}", teamId, e.getMessage(), e);
-        }
+        teamProgressService.getOrCreateTeamProgress(teamId);
+        teamProjectProgressRepository.findByTeamId(teamId)
+                .forEach(teamProgress -> teamProjectProgressService.refreshTeamProjectProgressData(
+                        teamId, teamProgress.getProject().getId()));
     }
 
     /**
-     * ✅ BATCH REFRESH: Force refresh all progress in the system
-     * Use this for system maintenance or after major data changes
+     * ✅ BATCH REFRESH: Reconcile every progress counter in the system
      */
-    public void refreshAllProgress() {
-        log.info("🔄 Manual refresh of ALL progress in the system");
-
-        try {
-            // Refresh all project progress
-            projectProgressRepository.findAll().forEach(progress -> {
-                Long projectId = progress.getProject().getId();
-                updateProjectProgress(projectId);
-            });
-
-            // Refresh all team-project progress
-            teamProjectProgressRepository.findAll().forEach(teamProgress -> {
-                Long teamId = teamProgress.getTeam().getId();
-                Long projectId = teamProgress.getProject().getId();
-                updateTeamProjectProgress(teamId, projectId);
-            });
-
-            log.info("✅ Successfully refreshed ALL progress in the system");
-        } catch (Exception e) {
-            log.error("❌ Failed to refresh all progress: {}", e.getMessage(), e);
-        }
+    public int refreshAllProgress() {
+        log.info("🔄 Manual reconciliation of ALL progress in the system");
+        return reconciliationService.reconcileAll();
     }
 
     /**
      * Get progress statistics for monitoring
      */
+    @Transactional(readOnly = true)
     public ProgressStats getProgressStats() {
-        long totalProjects = projectProgressRepository.count();
-        long totalTeamProjectProgress = teamProjectProgressRepository.count();
-
         return ProgressStats.builder()
-                .totalProjects(totalProjects)
-                .totalTeamProjectProgress(totalTeamProjectProgress)
+                .totalProjects(projectProgressRepository.count())
+                .totalTeamProjectProgress(teamProjectProgressRepository.count())
+                .pendingReconciliations(reconciliationService.getPendingCount())
                 .lastUpdated(LocalDateTime.now())
                 .build();
     }
@@ -266,6 +261,7 @@ public class ProgressUpdateService {
     public static class ProgressStats {
         private long totalProjects;
         private long totalTeamProjectProgress;
+        private int pendingReconciliations;
         private LocalDateTime lastUpdated;
     }
-}
\ No newline at end of file
+}
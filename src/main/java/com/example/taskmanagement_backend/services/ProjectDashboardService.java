@@ -92,6 +92,18 @@ public class ProjectDashboardService {
         log.info("🗑️ [ProjectDashboardService] Cache invalidated for project: {} (deleted: {})", projectId, deleted);
     }
 
+    /**
+     * Invalidate the caches of several projects with one DEL (bulk task changes)
+     */
+    public void invalidateProjectDashboardCaches(Collection<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return;
+        }
+        List<String> cacheKeys = projectIds.stream().map(projectId -> CACHE_PREFIX + projectId).toList();
+        Long deleted = redisTemplate.delete(cacheKeys);
+        log.info("🗑️ [ProjectDashboardService] Cache invalidated for {} projects (deleted: {})", cacheKeys.size(), deleted);
+    }
+
     /**
      * Generate fresh project dashboard data from database
      */
@@ -76,6 +76,9 @@ public class ProjectService {
     @Autowired
     private com.example.taskmanagement_backend.services.S3Service s3Service;
 
+    @Autowired
+    private com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService s3DeletionQueueService;
+
     @Autowired
     private org.springframework.data.redis.core.RedisTemplate<String, Object> redisTemplate;
 
@@ -356,33 +359,22 @@ public class ProjectService {
      * Delete all files related to a project task from S3
      */
     private void deleteProjectTaskFiles(Long taskId) {
-        try {
-            // Get all task attachments for this task - use existing method
-            List<com.example.taskmanagement_backend.entities.TaskAttachment> attachments =
-                taskAttachmentRepository.findByTaskIdAndNotDeleted(taskId);
-
-            if (!attachments.isEmpty()) {
-                System.out.println("🗑️ Deleting " + attachments.size() + " file attachments for task: " + taskId);
-
-                for (com.example.taskmanagement_backend.entities.TaskAttachment attachment : attachments) {
-                    // Delete file from S3 - use correct field name
-                    if (attachment.getFileKey() != null) {
-                        try {
-                            s3Service.deleteFile(attachment.getFileKey());
-                            System.out.println("✅ Deleted S3 file: " + attachment.getFileKey());
-                        } catch (Exception e) {
-                            System.err.println("⚠️ Failed to delete S3 file " + attachment.getFileKey() + ": " + e.getMessage());
-                        }
-                    }
-                }
-
-                // Delete attachment records from database using bulk delete
-                taskAttachmentRepository.deleteByTaskId(taskId);
-                System.out.println("✅ Deleted all attachment records for task: " + taskId);
-            }
-        } catch (Exception e) {
-            System.err.println("❌ Error deleting files for task " + taskId + ": " + e.getMessage());
-            // Don't throw exception, continue with other cleanup
+        // Get all task attachments for this task - use existing method
+        List<com.example.taskmanagement_backend.entities.TaskAttachment> attachments =
+            taskAttachmentRepository.findByTaskIdAndNotDeleted(taskId);
+
+        if (!attachments.isEmpty()) {
+            System.out.println("🗑️ Deleting " + attachments.size() + " file attachments for task: " + taskId);
+
+            // Queue the S3 objects for batched deletion together with the task; not caught, since a failed
+            // enqueue leaves the surrounding transaction rollback-only and the task delete must fail with it
+            s3DeletionQueueService.enqueue(attachments.stream()
+                    .map(com.example.taskmanagement_backend.entities.TaskAttachment::getFileKey)
+                    .toList(), "project-task");
+
+            // Delete attachment records from database using bulk delete
+            taskAttachmentRepository.deleteByTaskId(taskId);
+            System.out.println("✅ Deleted all attachment records for task: " + taskId);
         }
     }
 
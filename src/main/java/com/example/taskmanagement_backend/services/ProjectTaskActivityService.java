@@ -21,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -92,22 +93,20 @@ public class ProjectTaskActivityService {
 
     @Transactional
     public void logProjectTaskStatusChanged(ProjectTask projectTask, String oldStatus, String newStatus) {
-        String description = String.format("changed status from %s to %s", oldStatus, newStatus);
-        logActivity(projectTask, TaskActivityType.STATUS_CHANGED, description, oldStatus, newStatus, "status");
+        logActivity(projectTask, TaskActivityType.STATUS_CHANGED, statusDescription(oldStatus, newStatus),
+                   oldStatus, newStatus, "status");
     }
 
     @Transactional
     public void logProjectTaskPriorityChanged(ProjectTask projectTask, String oldPriority, String newPriority) {
-        String description = String.format("changed priority from %s to %s", oldPriority, newPriority);
-        logActivity(projectTask, TaskActivityType.PRIORITY_CHANGED, description, oldPriority, newPriority, "priority");
+        logActivity(projectTask, TaskActivityType.PRIORITY_CHANGED, priorityDescription(oldPriority, newPriority),
+                   oldPriority, newPriority, "priority");
     }
 
     @Transactional
     public void logProjectTaskDeadlineChanged(ProjectTask projectTask, String oldDeadline, String newDeadline) {
-        String description = String.format("changed due date from %s to %s",
-                                         oldDeadline != null ? oldDeadline : "None",
-                                         newDeadline != null ? newDeadline : "None");
-        logActivity(projectTask, TaskActivityType.DEADLINE_CHANGED, description, oldDeadline, newDeadline, "deadline");
+        logActivity(projectTask, TaskActivityType.DEADLINE_CHANGED, deadlineDescription(oldDeadline, newDeadline),
+                   oldDeadline, newDeadline, "deadline");
     }
 
     @Transactional
@@ -122,14 +121,14 @@ public class ProjectTaskActivityService {
 
     @Transactional
     public void logProjectTaskAssigneeAdded(ProjectTask projectTask, String assigneeEmail) {
-        String description = String.format("added %s to this project task", assigneeEmail);
-        logActivity(projectTask, TaskActivityType.ASSIGNEE_ADDED, description, null, assigneeEmail, "assignee");
+        logActivity(projectTask, TaskActivityType.ASSIGNEE_ADDED, assigneeAddedDescription(assigneeEmail),
+                   null, assigneeEmail, "assignee");
     }
 
     @Transactional
     public void logProjectTaskAssigneeRemoved(ProjectTask projectTask, String assigneeEmail) {
-        String description = String.format("removed %s from this project task", assigneeEmail);
-        logActivity(projectTask, TaskActivityType.ASSIGNEE_REMOVED, description, assigneeEmail, null, "assignee");
+        logActivity(projectTask, TaskActivityType.ASSIGNEE_REMOVED, assigneeRemovedDescription(assigneeEmail),
+                   assigneeEmail, null, "assignee");
     }
 
     @Transactional
@@ -200,6 +199,105 @@ public class ProjectTaskActivityService {
                    newProgress != null ? newProgress.toString() : "0", "progress");
     }
 
+    private static String statusDescription(String oldStatus, String newStatus) {
+        return String.format("changed status from %s to %s", oldStatus, newStatus);
+    }
+
+    private static String priorityDescription(String oldPriority, String newPriority) {
+        return String.format("changed priority from %s to %s", oldPriority, newPriority);
+    }
+
+    private static String deadlineDescription(String oldDeadline, String newDeadline) {
+        return String.format("changed due date from %s to %s",
+                             oldDeadline != null ? oldDeadline : "None",
+                             newDeadline != null ? newDeadline : "None");
+    }
+
+    private static String assigneeAddedDescription(String assigneeEmail) {
+        return String.format("added %s to this project task", assigneeEmail);
+    }
+
+    private static String assigneeRemovedDescription(String assigneeEmail) {
+        return String.format("removed %s from this project task", assigneeEmail);
+    }
+
+
+    // ===== Batched activity logging =====
+
+    /**
+     * Starts collecting the activities of a bulk change. The current user is looked up once and
+     * {@link ActivityBatch#save()} writes every collected activity with a single saveAll.
+     */
+    public ActivityBatch startBatch() {
+        return new ActivityBatch(getCurrentUser());
+    }
+
+    public final class ActivityBatch {
+
+        private final User actor;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<ProjectTaskActivity> activities = new ArrayList<>();
+
+        private ActivityBatch(User actor) {
+            this.actor = actor;
+        }
+
+        public void statusChanged(ProjectTask projectTask, String oldStatus, String newStatus) {
+            add(projectTask, TaskActivityType.STATUS_CHANGED, statusDescription(oldStatus, newStatus),
+                oldStatus, newStatus, "status");
+        }
+
+        public void completed(ProjectTask projectTask) {
+            add(projectTask, TaskActivityType.TASK_COMPLETED, "completed this project task", null, null, null);
+        }
+
+        public void reopened(ProjectTask projectTask) {
+            add(projectTask, TaskActivityType.TASK_REOPENED, "reopened this project task", null, null, null);
+        }
+
+        public void priorityChanged(ProjectTask projectTask, String oldPriority, String newPriority) {
+            add(projectTask, TaskActivityType.PRIORITY_CHANGED, priorityDescription(oldPriority, newPriority),
+                oldPriority, newPriority, "priority");
+        }
+
+        public void deadlineChanged(ProjectTask projectTask, String oldDeadline, String newDeadline) {
+            add(projectTask, TaskActivityType.DEADLINE_CHANGED, deadlineDescription(oldDeadline, newDeadline),
+                oldDeadline, newDeadline, "deadline");
+        }
+
+        public void assigneeAdded(ProjectTask projectTask, String assigneeEmail) {
+            add(projectTask, TaskActivityType.ASSIGNEE_ADDED, assigneeAddedDescription(assigneeEmail),
+                null, assigneeEmail, "assignee");
+        }
+
+        public void assigneeRemoved(ProjectTask projectTask, String assigneeEmail) {
+            add(projectTask, TaskActivityType.ASSIGNEE_REMOVED, assigneeRemovedDescription(assigneeEmail),
+                assigneeEmail, null, "assignee");
+        }
+
+        public void save() {
+            if (!activities.isEmpty()) {
+                projectTaskActivityRepository.saveAll(activities);
+                log.debug("✅ [ProjectTaskActivityService] Saved {} activities of a bulk change", activities.size());
+                activities.clear();
+            }
+        }
+
+        private void add(ProjectTask projectTask, TaskActivityType activityType, String description,
+                         String oldValue, String newValue, String fieldName) {
+            activities.add(ProjectTaskActivity.builder()
+                    .projectTask(projectTask)
+                    .user(actor)
+                    .activityType(activityType)
+                    .description(description)
+                    .oldValue(oldValue)
+                    .newValue(newValue)
+                    .fieldName(fieldName)
+                    .createdAt(createdAt)
+                    .build());
+        }
+    }
+
     /**
      * Lấy tất cả activity của một project task
      */
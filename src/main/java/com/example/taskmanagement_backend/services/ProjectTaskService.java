@@ -64,7 +64,7 @@ public class ProjectTaskService {
         projectTaskActivityService.logProjectTaskCreated(savedTask);
 
         // ✅ AUTO-UPDATE: Update progress when new task is created
-        progressUpdateService.updateProgressOnProjectTaskChange(savedTask);
+        progressUpdateService.onProjectTaskCreated(savedTask);
 
         return savedTask;
     }
@@ -175,8 +175,8 @@ public class ProjectTaskService {
 
         ProjectTask savedTask = projectTaskRepository.save(existingTask);
 
-        // ✅ AUTO-UPDATE: Update progress when task is updated (especially status changes)
-        progressUpdateService.updateProgressOnProjectTaskChange(savedTask);
+        // ✅ AUTO-UPDATE: Update progress when the status changed
+        progressUpdateService.onProjectTaskStatusChanged(savedTask, oldStatus);
 
         return savedTask;
     }
@@ -187,23 +187,11 @@ public class ProjectTaskService {
     public void deleteProjectTask(Long id) {
         ProjectTask task = getProjectTaskById(id);
 
-        // ✅ FIXED: Update progress BEFORE deleting the task to avoid constraint violations
-        // Store project info for progress update since task will be deleted
-        Project project = task.getProject();
-
-        // Update progress first (while task still exists)
-        progressUpdateService.updateProgressOnProjectTaskChange(task);
-
         // Delete the task (this will also delete related activities due to cascade)
         projectTaskRepository.delete(task);
 
-        // Update project progress again after deletion
-        try {
-            progressUpdateService.updateProjectProgress(project.getId());
-        } catch (Exception e) {
-            // Log error but don't fail the deletion
-            // The task has already been deleted successfully
-        }
+        // ✅ AUTO-UPDATE: Remove the task from progress counters
+        progressUpdateService.onProjectTaskDeleted(task);
     }
 
     // ===== Query Methods =====
@@ -805,7 +793,7 @@ public class ProjectTaskService {
         }
 
         // ✅ AUTO-UPDATE: Update progress when task progress is updated
-        progressUpdateService.updateProgressOnProjectTaskChange(savedTask);
+        progressUpdateService.onProjectTaskStatusChanged(savedTask, oldStatus);
 
         return savedTask;
     }
@@ -15,21 +15,27 @@ import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 import software.amazon.awssdk.transfer.s3.S3TransferManager;
 import software.amazon.awssdk.transfer.s3.model.Upload;
 import software.amazon.awssdk.transfer.s3.model.UploadRequest;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * AWS S3 File Upload Service implementing 2025 best practices
@@ -52,6 +58,7 @@ public class S3FileUploadService {
     private final S3TransferManager transferManager;
     private final TaskJpaRepository taskRepository; // ✅ Inject Task repository
     private final TaskActivityService taskActivityService; // ✅ Inject TaskActivityService for logging
+    private final PresignedUrlCache presignedUrlCache;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
@@ -71,6 +78,14 @@ public class S3FileUploadService {
     @Value("${aws.s3.key-prefix:task-files/}")
     private String keyPrefix;
 
+    @Value("${aws.s3.streaming.max-file-size:104857600}")
+    private Long streamingMaxFileSize;
+
+    @Value("${aws.s3.streaming.max-concurrent-uploads:32}")
+    private int streamingMaxConcurrentUploads = 32;
+
+    private final AtomicInteger activeStreamingUploads = new AtomicInteger();
+
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
         "image/jpeg", "image/png", "image/gif", "image/webp",
         "application/pdf", "text/plain",
@@ -87,6 +102,13 @@ public class S3FileUploadService {
             return t;
         });
 
+    // Streamed bodies are read at the client's pace, so each one blocks its reader thread for the whole
+    // upload. They get a virtual thread each instead of one of the ten UPLOAD_EXECUTOR threads, and
+    // uploadStream admits at most aws.s3.streaming.max-concurrent-uploads of them at a time, each holding
+    // up to aws.s3.multipart.buffer-size-bytes of parts in memory.
+    private static final ExecutorService STREAM_BODY_EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("s3-stream-body-", 0).factory());
+
     /**
      * 2025 Best Practice: Generate presigned URL for direct frontend uploads
      * - Frontend uploads directly to S3 without going through backend
@@ -230,8 +252,7 @@ public class S3FileUploadService {
     }
 
     /**
-     * 2025 Best Practice: Server-side upload for small files (<1MB) using sync approach
-     * For files <1MB, use simple sync upload to avoid executor complexity
+     * 2025 Best Practice: Server-side upload for small files (<1MB)
      */
     public CompletableFuture<FileUploadResponseDto> uploadFileAsync(
             InputStream inputStream, String fileName, String contentType,
@@ -244,10 +265,7 @@ public class S3FileUploadService {
         String fileKey = generateFileKey(currentUserEmail, fileName, taskId);
 
         try {
-            // ✅ FIX: For small files, use bytes instead of InputStream to avoid executor issues
-            byte[] fileBytes = inputStream.readAllBytes();
-
-            // Create upload request with proper AsyncRequestBody using bytes
+            // Stream the body on UPLOAD_EXECUTOR instead of copying the whole file into a byte[] first
             UploadRequest uploadRequest = UploadRequest.builder()
                     .putObjectRequest(PutObjectRequest.builder()
                             .bucket(bucketName)
@@ -256,8 +274,7 @@ public class S3FileUploadService {
                             .contentLength(fileSize)
                             .metadata(buildMetadataMap(fileName, taskId, currentUserEmail))
                             .build())
-                    // ✅ FIX: Use bytes instead of InputStream to avoid executor null error
-                    .requestBody(AsyncRequestBody.fromBytes(fileBytes))
+                    .requestBody(AsyncRequestBody.fromInputStream(inputStream, fileSize, UPLOAD_EXECUTOR))
                     .build();
 
             // Start upload with TransferManager
@@ -295,8 +312,8 @@ public class S3FileUploadService {
                         .build();
             });
 
-        } catch (IOException e) {
-            log.error("❌ Failed to read file bytes for: {}", fileName, e);
+        } catch (Exception e) {
+            log.error("❌ Failed to start upload for file: {}", fileName, e);
             return CompletableFuture.completedFuture(
                 FileUploadResponseDto.builder()
                         .fileName(fileName)
@@ -304,17 +321,114 @@ public class S3FileUploadService {
                         .contentType(contentType)
                         .taskId(taskId)
                         .uploadStatus("FAILED")
-                        .message("Failed to read file: " + e.getMessage())
+                        .message("Failed to start upload: " + e.getMessage())
+                        .uploadedAt(LocalDateTime.now())
+                        .build()
+            );
+        }
+    }
+
+    /**
+     * Streaming ingestion: pipes a raw request body straight into S3 without buffering the file.
+     * - The multipart-enabled async client cuts the stream into parts and uploads them in parallel,
+     *   holding at most aws.s3.multipart.buffer-size-bytes in memory
+     * - Each part carries a CRC32 checksum that S3 verifies on receipt
+     * - The whole body is hashed while it streams; when the client sent a SHA-256 (hex or base64)
+     *   a mismatch deletes the object and fails the upload
+     * - contentLength may be null (chunked request); the size limit is then enforced while reading
+     * - At most aws.s3.streaming.max-concurrent-uploads bodies stream at once; further uploads complete
+     *   right away with status BUSY instead of queueing behind slow clients
+     * The returned future completes when S3 acknowledges the upload, without blocking the caller.
+     */
+    public CompletableFuture<FileUploadResponseDto> uploadStream(String fileName, String contentType, InputStream body,
+                                                                 Long contentLength, String expectedSha256, Long taskId) {
+        log.info("📤 Starting streaming upload for file: {} ({} bytes declared)", fileName, contentLength);
+
+        validateStreamRequest(fileName, contentLength);
+
+        String currentUserEmail = getCurrentUserEmail();
+        String fileKey = generateFileKey(currentUserEmail, fileName, taskId);
+        String normalizedContentType = normalizeContentType(contentType);
+        VerifyingInputStream verifyingBody = new VerifyingInputStream(body, streamingMaxFileSize);
+
+        if (activeStreamingUploads.incrementAndGet() > streamingMaxConcurrentUploads) {
+            activeStreamingUploads.decrementAndGet();
+            log.warn("⚠️ Rejected streaming upload for file: {} ({} streaming uploads in progress)",
+                    fileName, streamingMaxConcurrentUploads);
+            return CompletableFuture.completedFuture(
+                FileUploadResponseDto.builder()
+                        .fileName(fileName)
+                        .taskId(taskId)
+                        .uploadStatus("BUSY")
+                        .message("Too many uploads in progress, please retry later")
                         .uploadedAt(LocalDateTime.now())
                         .build()
             );
+        }
+
+        try {
+            UploadRequest uploadRequest = UploadRequest.builder()
+                    .putObjectRequest(PutObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(fileKey)
+                            .contentType(normalizedContentType)
+                            .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                            .metadata(buildMetadataMap(fileName, taskId, currentUserEmail))
+                            .build())
+                    .requestBody(AsyncRequestBody.fromInputStream(verifyingBody, contentLength, STREAM_BODY_EXECUTOR))
+                    .build();
+
+            Upload upload = transferManager.upload(uploadRequest);
+
+            return upload.completionFuture().thenApply(completedUpload -> {
+                if (expectedSha256 != null && !expectedSha256.isBlank()
+                        && !verifyingBody.matchesSha256(expectedSha256.trim())) {
+                    log.warn("⚠️ SHA-256 mismatch for streamed file: {} -> deleting key: {}", fileName, fileKey);
+                    deleteFile(fileKey);
+                    return FileUploadResponseDto.builder()
+                            .fileName(fileName)
+                            .fileSize(verifyingBody.getBytesRead())
+                            .contentType(normalizedContentType)
+                            .taskId(taskId)
+                            .uploadStatus("FAILED")
+                            .message("Checksum mismatch: the uploaded content does not match X-Checksum-SHA256")
+                            .uploadedAt(LocalDateTime.now())
+                            .build();
+                }
+
+                log.info("✅ Streaming upload completed for file: {} -> key: {} ({} bytes)",
+                        fileName, fileKey, verifyingBody.getBytesRead());
+
+                return FileUploadResponseDto.builder()
+                        .fileKey(fileKey)
+                        .fileName(fileName)
+                        .downloadUrl(generatePresignedDownloadUrl(fileKey, Duration.ofDays(7)))
+                        .fileSize(verifyingBody.getBytesRead())
+                        .contentType(normalizedContentType)
+                        .uploadedAt(LocalDateTime.now())
+                        .taskId(taskId)
+                        .uploadStatus("SUCCESS")
+                        .message("File uploaded successfully")
+                        .build();
+            }).exceptionally(throwable -> {
+                log.error("❌ Streaming upload failed for file: {}", fileName, throwable);
+                return FileUploadResponseDto.builder()
+                        .fileName(fileName)
+                        .fileSize(verifyingBody.getBytesRead())
+                        .contentType(normalizedContentType)
+                        .taskId(taskId)
+                        .uploadStatus("FAILED")
+                        .message("Upload failed: " + throwable.getMessage())
+                        .uploadedAt(LocalDateTime.now())
+                        .build();
+            }).whenComplete((response, throwable) -> activeStreamingUploads.decrementAndGet());
+
         } catch (Exception e) {
-            log.error("❌ Failed to start upload for file: {}", fileName, e);
+            activeStreamingUploads.decrementAndGet();
+            log.error("❌ Failed to start streaming upload for file: {}", fileName, e);
             return CompletableFuture.completedFuture(
                 FileUploadResponseDto.builder()
                         .fileName(fileName)
-                        .fileSize(fileSize)
-                        .contentType(contentType)
                         .taskId(taskId)
                         .uploadStatus("FAILED")
                         .message("Failed to start upload: " + e.getMessage())
@@ -326,26 +440,25 @@ public class S3FileUploadService {
 
     /**
      * Generate presigned download URL for accessing uploaded files
+     * - Served from PresignedUrlCache, so repeated serializations reuse the same URL
      */
     public String generatePresignedDownloadUrl(String fileKey, Duration expiration) {
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(fileKey)
-                    .build();
-
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(expiration)
-                    .getObjectRequest(getObjectRequest)
-                    .build();
-
-            return s3Presigner.presignGetObject(presignRequest).url().toString();
+            return presignedUrlCache.getDownloadUrl(fileKey, expiration);
         } catch (Exception e) {
             log.error("❌ Failed to generate download URL for key: {}", fileKey, e);
             throw new RuntimeException("Failed to generate download URL", e);
         }
     }
 
+    /**
+     * Presigned download URLs for a page of files in one cache pass
+     * @return fileKey -> URL in request order, keys that could not be presigned are left out
+     */
+    public java.util.Map<String, String> generatePresignedDownloadUrls(java.util.Collection<String> fileKeys, Duration expiration) {
+        return presignedUrlCache.getDownloadUrls(fileKeys, expiration);
+    }
+
     /**
      * Delete file from S3
      */
@@ -357,6 +470,7 @@ public class S3FileUploadService {
                     .build();
 
             s3Client.deleteObject(deleteRequest);
+            presignedUrlCache.invalidate(fileKey);
             log.info("🗑️ File deleted successfully: {}", fileKey);
             return true;
         } catch (Exception e) {
@@ -507,6 +621,26 @@ public class S3FileUploadService {
         }
     }
 
+    private void validateStreamRequest(String fileName, Long contentLength) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("File name is required");
+        }
+
+        if (contentLength != null && contentLength > streamingMaxFileSize) {
+            throw new IllegalArgumentException(
+                String.format("File size (%d bytes) exceeds maximum allowed size (%d bytes)",
+                            contentLength, streamingMaxFileSize));
+        }
+
+        String lowerCaseName = fileName.toLowerCase();
+        boolean hasValidExtension = Arrays.stream(allowedExtensions.split(","))
+                .anyMatch(ext -> lowerCaseName.endsWith(ext.trim().toLowerCase()));
+
+        if (!hasValidExtension) {
+            throw new IllegalArgumentException("File extension not allowed. Allowed: " + allowedExtensions);
+        }
+    }
+
     private String generateFileKey(String userEmail, PresignedUploadUrlRequestDto request) {
         return generateFileKey(userEmail, request.getFileName(), request.getTaskId(), request.getFolder());
     }
@@ -798,4 +932,81 @@ public class S3FileUploadService {
 
         return metadata;
     }
+
+    /**
+     * Counts and SHA-256-hashes the bytes the SDK pulls from the request body, and fails the
+     * read (aborting the multipart upload) once more than maxBytes have been streamed
+     */
+    private static final class VerifyingInputStream extends FilterInputStream {
+
+        private final MessageDigest digest;
+        private final long maxBytes;
+        private volatile long bytesRead;
+
+        VerifyingInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                digest.update((byte) b);
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                digest.update(buffer, offset, n);
+                count(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Skipped bytes would escape the digest
+            throw new IOException("skip is not supported on a verified upload stream");
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        private void count(int n) throws IOException {
+            bytesRead += n;
+            if (bytesRead > maxBytes) {
+                throw new IOException("Upload exceeds maximum allowed size (" + maxBytes + " bytes)");
+            }
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Only meaningful once the stream has been fully consumed
+         */
+        boolean matchesSha256(String expected) {
+            byte[] actual = digest.digest();
+            byte[] declared;
+            try {
+                declared = expected.length() == 64 ? HexFormat.of().parseHex(expected) : Base64.getDecoder().decode(expected);
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+            return MessageDigest.isEqual(actual, declared);
+        }
+    }
 }
@@ -8,11 +8,12 @@ import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
 import software.amazon.awssdk.services.s3.presigner.S3Presigner;
-import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
 import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
 
 import java.io.InputStream;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -26,6 +27,7 @@ public class S3Service {
 
     private final S3Client s3Client;
     private final S3Presigner s3Presigner;
+    private final PresignedUrlCache presignedUrlCache;
 
     @Value("${aws.s3.bucket-name}")
     private String bucketName;
@@ -64,21 +66,11 @@ public class S3Service {
     }
 
     /**
-     * 📥 Generate presigned URL for download
+     * 📥 Generate presigned URL for download (reused from PresignedUrlCache while still fresh)
      */
     public String generateDownloadUrl(String s3Key) {
         try {
-            GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(s3Key)
-                    .build();
-
-            GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
-                    .signatureDuration(Duration.ofSeconds(presignedUrlExpiration))
-                    .getObjectRequest(getObjectRequest)
-                    .build();
-
-            String presignedUrl = s3Presigner.presignGetObject(presignRequest).url().toString();
+            String presignedUrl = presignedUrlCache.getDownloadUrl(s3Key, Duration.ofSeconds(presignedUrlExpiration));
 
             log.debug("📥 Generated download URL for: {}", s3Key);
             return presignedUrl;
@@ -89,6 +81,14 @@ public class S3Service {
         }
     }
 
+    /**
+     * 📥 Presigned download URLs for a page of files in one cache pass
+     * @return s3Key -> URL, keys that could not be presigned are left out
+     */
+    public Map<String, String> generateDownloadUrls(Collection<String> s3Keys) {
+        return presignedUrlCache.getDownloadUrls(s3Keys, Duration.ofSeconds(presignedUrlExpiration));
+    }
+
     /**
      * 📤 Generate presigned URL for upload
      */
@@ -129,6 +129,7 @@ public class S3Service {
                     .build();
 
             s3Client.deleteObject(deleteObjectRequest);
+            presignedUrlCache.invalidate(s3Key);
 
             log.info("🗑️ File deleted from S3: {}", s3Key);
 
@@ -1,5 +1,6 @@
 package com.example.taskmanagement_backend.services;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.entities.UserProfile;
 import com.example.taskmanagement_backend.enums.PlanType;
@@ -198,6 +199,7 @@ public class SubscriptionManagementService {
      * Scheduled task to check and expire subscriptions
      */
     @Scheduled(cron = "0 0 1 * * ?") // Run daily at 1 AM
+    @ClusterJob(name = "subscription-expiry")
     @Transactional
     public void processExpiredSubscriptions() {
         log.info("🕐 Running scheduled subscription expiry check...");
@@ -20,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -118,20 +119,18 @@ public class TaskActivityService {
     }
 
     public void logStatusChanged(Task task, String oldStatus, String newStatus) {
-        String description = String.format("changed status from %s to %s", oldStatus, newStatus);
-        logActivity(task, TaskActivityType.STATUS_CHANGED, description, oldStatus, newStatus, "status");
+        logActivity(task, TaskActivityType.STATUS_CHANGED, statusDescription(oldStatus, newStatus),
+                   oldStatus, newStatus, "status");
     }
 
     public void logPriorityChanged(Task task, String oldPriority, String newPriority) {
-        String description = String.format("changed priority from %s to %s", oldPriority, newPriority);
-        logActivity(task, TaskActivityType.PRIORITY_CHANGED, description, oldPriority, newPriority, "priority");
+        logActivity(task, TaskActivityType.PRIORITY_CHANGED, priorityDescription(oldPriority, newPriority),
+                   oldPriority, newPriority, "priority");
     }
 
     public void logDeadlineChanged(Task task, String oldDeadline, String newDeadline) {
-        String description = String.format("changed due date from %s to %s",
-                                         oldDeadline != null ? oldDeadline : "None",
-                                         newDeadline != null ? newDeadline : "None");
-        logActivity(task, TaskActivityType.DEADLINE_CHANGED, description, oldDeadline, newDeadline, "deadline");
+        logActivity(task, TaskActivityType.DEADLINE_CHANGED, deadlineDescription(oldDeadline, newDeadline),
+                   oldDeadline, newDeadline, "deadline");
     }
 
     public void logTitleChanged(Task task, String oldTitle, String newTitle) {
@@ -150,13 +149,13 @@ public class TaskActivityService {
     }
 
     public void logAssigneeAdded(Task task, String assigneeEmail) {
-        String description = String.format("added %s to this task", assigneeEmail);
-        logActivity(task, TaskActivityType.ASSIGNEE_ADDED, description, null, assigneeEmail, "assignee");
+        logActivity(task, TaskActivityType.ASSIGNEE_ADDED, assigneeAddedDescription(assigneeEmail),
+                   null, assigneeEmail, "assignee");
     }
 
     public void logAssigneeRemoved(Task task, String assigneeEmail) {
-        String description = String.format("removed %s from this task", assigneeEmail);
-        logActivity(task, TaskActivityType.ASSIGNEE_REMOVED, description, assigneeEmail, null, "assignee");
+        logActivity(task, TaskActivityType.ASSIGNEE_REMOVED, assigneeRemovedDescription(assigneeEmail),
+                   assigneeEmail, null, "assignee");
     }
 
     public void logTaskCompleted(Task task) {
@@ -201,6 +200,101 @@ public class TaskActivityService {
         logActivity(task, TaskActivityType.FILE_ATTACHED, description, null, String.valueOf(fileCount), "files");
     }
 
+    private static String statusDescription(String oldStatus, String newStatus) {
+        return String.format("changed status from %s to %s", oldStatus, newStatus);
+    }
+
+    private static String priorityDescription(String oldPriority, String newPriority) {
+        return String.format("changed priority from %s to %s", oldPriority, newPriority);
+    }
+
+    private static String deadlineDescription(String oldDeadline, String newDeadline) {
+        return String.format("changed due date from %s to %s",
+                             oldDeadline != null ? oldDeadline : "None",
+                             newDeadline != null ? newDeadline : "None");
+    }
+
+    private static String assigneeAddedDescription(String assigneeEmail) {
+        return String.format("added %s to this task", assigneeEmail);
+    }
+
+    private static String assigneeRemovedDescription(String assigneeEmail) {
+        return String.format("removed %s from this task", assigneeEmail);
+    }
+
+    /**
+     * Starts collecting the activities of a bulk change. The current user is looked up once and
+     * {@link ActivityBatch#save()} writes every collected activity with a single saveAll.
+     */
+    public ActivityBatch startBatch() {
+        return new ActivityBatch(getCurrentUser());
+    }
+
+    public final class ActivityBatch {
+
+        private final User actor;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<TaskActivity> activities = new ArrayList<>();
+
+        private ActivityBatch(User actor) {
+            this.actor = actor;
+        }
+
+        public void statusChanged(Task task, String oldStatus, String newStatus) {
+            add(task, TaskActivityType.STATUS_CHANGED, statusDescription(oldStatus, newStatus),
+                oldStatus, newStatus, "status");
+        }
+
+        public void completed(Task task) {
+            add(task, TaskActivityType.TASK_COMPLETED, "completed this task", null, null, null);
+        }
+
+        public void reopened(Task task) {
+            add(task, TaskActivityType.TASK_REOPENED, "reopened this task", null, null, null);
+        }
+
+        public void priorityChanged(Task task, String oldPriority, String newPriority) {
+            add(task, TaskActivityType.PRIORITY_CHANGED, priorityDescription(oldPriority, newPriority),
+                oldPriority, newPriority, "priority");
+        }
+
+        public void deadlineChanged(Task task, String oldDeadline, String newDeadline) {
+            add(task, TaskActivityType.DEADLINE_CHANGED, deadlineDescription(oldDeadline, newDeadline),
+                oldDeadline, newDeadline, "deadline");
+        }
+
+        public void assigneeAdded(Task task, String assigneeEmail) {
+            add(task, TaskActivityType.ASSIGNEE_ADDED, assigneeAddedDescription(assigneeEmail),
+                null, assigneeEmail, "assignee");
+        }
+
+        public void assigneeRemoved(Task task, String assigneeEmail) {
+            add(task, TaskActivityType.ASSIGNEE_REMOVED, assigneeRemovedDescription(assigneeEmail),
+                assigneeEmail, null, "assignee");
+        }
+
+        public void save() {
+            if (!activities.isEmpty()) {
+                taskActivityRepository.saveAll(activities);
+                activities.clear();
+            }
+        }
+
+        private void add(Task task, TaskActivityType activityType, String description,
+                         String oldValue, String newValue, String fieldName) {
+            activities.add(TaskActivity.builder()
+                    .task(task)
+                    .user(actor)
+                    .activityType(activityType)
+                    .description(description)
+                    .oldValue(oldValue)
+                    .newValue(newValue)
+                    .fieldName(fieldName)
+                    .createdAt(createdAt)
+                    .build());
+        }
+    }
+
     /**
      * Convert TaskActivity entity to DTO
      */
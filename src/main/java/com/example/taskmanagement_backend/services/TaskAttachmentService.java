@@ -8,6 +8,8 @@ import com.example.taskmanagement_backend.enums.SystemRole;
 import com.example.taskmanagement_backend.repositories.TaskAttachmentRepository;
 import com.example.taskmanagement_backend.repositories.TaskRepository;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -28,7 +31,9 @@ public class TaskAttachmentService {
     private final TaskAttachmentRepository taskAttachmentRepository;
     private final TaskRepository taskRepository;
     private final S3FileUploadService s3FileUploadService;
+    private final S3DeletionQueueService s3DeletionQueueService;
     private final UserJpaRepository userRepository;
+    private final ThumbnailService thumbnailService;
 
     /**
      * Lấy danh sách tất cả file của một task
@@ -42,9 +47,12 @@ public class TaskAttachmentService {
                 .orElseThrow(() -> new RuntimeException("Task not found with id: " + taskId));
 
         List<TaskAttachment> attachments = taskAttachmentRepository.findByTaskIdAndNotDeleted(taskId);
+        Map<String, String> thumbnailUrls = thumbnailService.listUrls(attachments.stream()
+                .filter(attachment -> attachment.getThumbnails() != null)
+                .collect(Collectors.toMap(TaskAttachment::getFileKey, TaskAttachment::getThumbnails, (a, b) -> a)));
 
         return attachments.stream()
-                .map(this::convertToResponseDto)
+                .map(attachment -> convertToResponseDto(attachment, thumbnailUrls.get(attachment.getFileKey())))
                 .collect(Collectors.toList());
     }
 
@@ -74,6 +82,8 @@ public class TaskAttachmentService {
 
         TaskAttachment savedAttachment = taskAttachmentRepository.save(attachment);
         log.info("✅ Attachment saved successfully with id: {}", savedAttachment.getId());
+        thumbnailService.generateAfterCommit(ThumbnailService.Target.TASK_ATTACHMENT,
+                savedAttachment.getId(), fileKey, contentType);
 
         return convertToResponseDto(savedAttachment);
     }
@@ -105,6 +115,8 @@ public class TaskAttachmentService {
 
         TaskAttachment savedAttachment = taskAttachmentRepository.save(attachment);
         log.info("✅ Attachment saved successfully with id: {}", savedAttachment.getId());
+        thumbnailService.generateAfterCommit(ThumbnailService.Target.TASK_ATTACHMENT,
+                savedAttachment.getId(), fileKey, contentType);
 
         return convertToResponseDto(savedAttachment);
     }
@@ -132,12 +144,8 @@ public class TaskAttachmentService {
         taskAttachmentRepository.save(attachment);
 
         // Xóa file khỏi S3 (optional - có thể giữ lại để backup)
-        try {
-            s3FileUploadService.deleteFile(attachment.getFileKey());
-            log.info("✅ File deleted from S3: {}", attachment.getFileKey());
-        } catch (Exception e) {
-            log.warn("⚠️ Failed to delete file from S3: {}", attachment.getFileKey(), e);
-        }
+        s3DeletionQueueService.enqueue(attachment.getFileKey(), "attachment");
+        log.info("✅ File queued for deletion from S3: {}", attachment.getFileKey());
 
         return true;
     }
@@ -198,6 +206,11 @@ public class TaskAttachmentService {
 
     // Helper methods
     private TaskAttachmentResponseDto convertToResponseDto(TaskAttachment attachment) {
+        return convertToResponseDto(attachment,
+                thumbnailService.listUrl(attachment.getFileKey(), attachment.getThumbnails()));
+    }
+
+    private TaskAttachmentResponseDto convertToResponseDto(TaskAttachment attachment, String thumbnailUrl) {
         return TaskAttachmentResponseDto.builder()
                 .id(attachment.getId())
                 .taskId(attachment.getTask().getId())
@@ -206,6 +219,7 @@ public class TaskAttachmentService {
                 .fileSize(attachment.getFileSize())
                 .contentType(attachment.getContentType())
                 .downloadUrl(attachment.getDownloadUrl())
+                .thumbnailUrl(thumbnailUrl)
                 .uploadedBy(attachment.getUploadedBy().getUserProfile().getFirstName() + " " +
                            attachment.getUploadedBy().getUserProfile().getLastName())
                 .uploadedByEmail(attachment.getUploadedBy().getEmail())
@@ -0,0 +1,233 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.TaskDto.TaskTreeNodeDto;
+import com.example.taskmanagement_backend.entities.ProjectTask;
+import com.example.taskmanagement_backend.entities.TeamTask;
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import com.example.taskmanagement_backend.repositories.ProjectTaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TeamTaskJpaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Loads and restructures project and team task hierarchies.
+ *
+ * The hierarchy stays a plain parent_task_id column. A whole subtree is read with one recursive CTE
+ * whatever its depth, and progress, counts and hours are rolled up bottom-up in memory. Because no
+ * closure or path data is derived from the parent column, moving a subtree is a single-row update;
+ * the only extra cost is one recursive ancestor query to reject moves that would create a cycle.
+ */
+@Slf4j
+@Service
+public class TaskHierarchyService {
+
+    private final ProjectTaskJpaRepository projectTaskRepository;
+    private final TeamTaskJpaRepository teamTaskRepository;
+    private final int maxDepth;
+
+    public TaskHierarchyService(ProjectTaskJpaRepository projectTaskRepository,
+                                TeamTaskJpaRepository teamTaskRepository,
+                                @Value("${app.tasks.hierarchy.max-depth:100}") int maxDepth) {
+        this.projectTaskRepository = projectTaskRepository;
+        this.teamTaskRepository = teamTaskRepository;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * A project task with its whole subtree, in one query
+     */
+    @Transactional(readOnly = true)
+    public TaskTreeNodeDto getProjectTaskTree(Long taskId) {
+        TaskTreeNodeDto tree = buildTree(taskId, projectTaskRepository.findSubtreeRows(taskId, maxDepth), LocalDate.now());
+        if (tree == null) {
+            throw new EntityNotFoundException("Project task not found with id: " + taskId);
+        }
+        return tree;
+    }
+
+    /**
+     * A team task with its whole subtree, in one query
+     */
+    @Transactional(readOnly = true)
+    public TaskTreeNodeDto getTeamTaskTree(Long taskId) {
+        TaskTreeNodeDto tree = buildTree(taskId, teamTaskRepository.findSubtreeRows(taskId, maxDepth), LocalDate.now());
+        if (tree == null) {
+            throw new EntityNotFoundException("Team task not found with id: " + taskId);
+        }
+        return tree;
+    }
+
+    /**
+     * Move a project task with its subtree under another task of the same project, or to the top level
+     * when newParentId is null
+     */
+    @Transactional
+    public ProjectTask moveProjectTask(Long taskId, Long newParentId) {
+        ProjectTask task = projectTaskRepository.findById(taskId)
+                .orElseThrow(() -> new EntityNotFoundException("Project task not found with id: " + taskId));
+
+        ProjectTask newParent = null;
+        if (newParentId != null) {
+            newParent = projectTaskRepository.findById(newParentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Project task not found with id: " + newParentId));
+            if (!newParent.getProject().getId().equals(task.getProject().getId())) {
+                throw new IllegalArgumentException("A subtask must belong to the same project as its parent");
+            }
+            checkNotInSubtree(taskId, newParentId, projectTaskRepository.findAncestorIds(newParentId, maxDepth));
+        }
+
+        task.setParentTask(newParent);
+        ProjectTask savedTask = projectTaskRepository.save(task);
+        log.info("🌳 Moved project task {} under {}", taskId, newParentId != null ? newParentId : "the project root");
+        return savedTask;
+    }
+
+    /**
+     * Move a team task with its subtree under another task of the same team, or to the top level
+     * when newParentId is null
+     */
+    @Transactional
+    public TeamTask moveTeamTask(Long taskId, Long newParentId) {
+        TeamTask task = teamTaskRepository.findById(taskId)
+                .orElseThrow(() -> new EntityNotFoundException("Team task not found with id: " + taskId));
+
+        TeamTask newParent = null;
+        if (newParentId != null) {
+            newParent = teamTaskRepository.findById(newParentId)
+                    .orElseThrow(() -> new EntityNotFoundException("Team task not found with id: " + newParentId));
+            if (!newParent.getTeam().getId().equals(task.getTeam().getId())) {
+                throw new IllegalArgumentException("A subtask must belong to the same team as its parent");
+            }
+            checkNotInSubtree(taskId, newParentId, teamTaskRepository.findAncestorIds(newParentId, maxDepth));
+        }
+
+        task.setParentTask(newParent);
+        TeamTask savedTask = teamTaskRepository.save(task);
+        log.info("🌳 Moved team task {} under {}", taskId, newParentId != null ? newParentId : "the team root");
+        return savedTask;
+    }
+
+    /**
+     * Link the rows of a subtree query into a tree and roll its totals up from the leaves.
+     * Rows come ordered by depth, so walking them backwards visits every child before its parent.
+     *
+     * @return the root node, or null when the root task does not exist
+     */
+    static TaskTreeNodeDto buildTree(Long rootId, List<Object[]> rows, LocalDate today) {
+        Map<Long, TaskTreeNodeDto> nodes = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            TaskTreeNodeDto node = toNode(row);
+            // A cycle in the data would list the root again further down; keep its first occurrence
+            nodes.putIfAbsent(node.getId(), node);
+        }
+        TaskTreeNodeDto root = nodes.get(rootId);
+        if (root == null) {
+            return null;
+        }
+
+        for (TaskTreeNodeDto node : nodes.values()) {
+            if (node != root) {
+                TaskTreeNodeDto parent = nodes.get(node.getParentTaskId());
+                if (parent != null) {
+                    parent.getChildren().add(node);
+                }
+            }
+        }
+
+        List<TaskTreeNodeDto> ordered = new ArrayList<>(nodes.values());
+        Map<Long, ProgressWeight> weights = new HashMap<>();
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            rollUp(ordered.get(i), weights, today);
+        }
+        return root;
+    }
+
+    /**
+     * Leaves weigh their estimated hours (1 when not estimated), so a parent's progress is the share of
+     * estimated work done below it; a completed leaf counts as 100% whatever its progress field says
+     */
+    private static void rollUp(TaskTreeNodeDto node, Map<Long, ProgressWeight> weights, LocalDate today) {
+        boolean completed = isCompleted(node.getStatus());
+        int estimatedHours = valueOrZero(node.getEstimatedHours());
+        int descendants = 0;
+        int completedCount = completed ? 1 : 0;
+        int overdueCount = !completed && node.getDeadline() != null && node.getDeadline().isBefore(today) ? 1 : 0;
+        int subtreeEstimatedHours = estimatedHours;
+        int subtreeActualHours = valueOrZero(node.getActualHours());
+        ProgressWeight weight = new ProgressWeight();
+
+        if (node.getChildren().isEmpty()) {
+            int progress = completed ? 100 : Math.max(0, Math.min(100, valueOrZero(node.getProgressPercentage())));
+            weight.weight = estimatedHours > 0 ? estimatedHours : 1;
+            weight.weightedProgress = weight.weight * progress;
+        } else {
+            for (TaskTreeNodeDto child : node.getChildren()) {
+                ProgressWeight childWeight = weights.get(child.getId());
+                weight.weight += childWeight.weight;
+                weight.weightedProgress += childWeight.weightedProgress;
+                descendants += 1 + child.getDescendantCount();
+                completedCount += child.getCompletedCount();
+                overdueCount += child.getOverdueCount();
+                subtreeEstimatedHours += child.getSubtreeEstimatedHours();
+                subtreeActualHours += child.getSubtreeActualHours();
+            }
+        }
+
+        weights.put(node.getId(), weight);
+        node.setSubtreeProgressPercentage((int) Math.round(weight.weightedProgress / weight.weight));
+        node.setDescendantCount(descendants);
+        node.setCompletedCount(completedCount);
+        node.setOverdueCount(overdueCount);
+        node.setSubtreeEstimatedHours(subtreeEstimatedHours);
+        node.setSubtreeActualHours(subtreeActualHours);
+    }
+
+    private static TaskTreeNodeDto toNode(Object[] row) {
+        return TaskTreeNodeDto.builder()
+                .id(((Number) row[0]).longValue())
+                .parentTaskId(row[1] != null ? ((Number) row[1]).longValue() : null)
+                .depth(((Number) row[2]).intValue())
+                .title((String) row[3])
+                .status(row[4] != null ? TaskStatus.valueOf(row[4].toString()) : null)
+                .progressPercentage(row[5] != null ? ((Number) row[5]).intValue() : null)
+                .estimatedHours(row[6] != null ? ((Number) row[6]).intValue() : null)
+                .actualHours(row[7] != null ? ((Number) row[7]).intValue() : null)
+                .deadline(toLocalDate(row[8]))
+                .build();
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+
+    private void checkNotInSubtree(Long taskId, Long newParentId, List<Number> ancestorIdsOfNewParent) {
+        // The ancestor chain of the new parent includes the new parent itself
+        if (ancestorIdsOfNewParent.stream().anyMatch(id -> id.longValue() == taskId)) {
+            throw new IllegalArgumentException("Cannot move task " + taskId + " under " + newParentId
+                    + ", which is the task itself or one of its subtasks");
+        }
+    }
+
+    private static boolean isCompleted(TaskStatus status) {
+        return status == TaskStatus.DONE || status == TaskStatus.COMPLETED;
+    }
+
+    private static int valueOrZero(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static final class ProgressWeight {
+        private double weight;
+        private double weightedProgress;
+    }
+}
@@ -30,10 +30,9 @@ public class TaskReminderService {
     private final Set<String> sentReminders = new HashSet<>();
 
     /**
-     * Chạy mỗi giờ để kiểm tra task sắp quá hạn
-     * Cron: 0 0 * * * * = mỗi giờ đúng
+     * Scan every task that is due soon or overdue (manual trigger from the admin API).
+     * Scheduled reminders are fired by TaskReminderEngine from the due-time index
      */
-    @Scheduled(cron = "0 0 * * * *")
     public void checkOverdueTasks() {
         log.info("🕒 [TaskReminderService] Starting scheduled check for overdue tasks");
 
@@ -13,6 +13,7 @@ import com.example.taskmanagement_backend.enums.TaskPriority;
 import com.example.taskmanagement_backend.enums.TaskStatus;
 import com.example.taskmanagement_backend.repositories.*;
 import com.example.taskmanagement_backend.services.infrastructure.AutomatedEmailService; // ✅ NEW: Add AutomatedEmailService import
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
@@ -58,6 +59,7 @@ public class TaskService {
     private final AutoNotificationService autoNotificationService; // ✅ NEW: Add AutoNotificationService
     private final AutomatedEmailService automatedEmailService; // ✅ NEW: Add AutomatedEmailService for email automation
     private final AuditLogger auditLogger; // ✅ NEW: Add AuditLogger for automatic audit logging
+    private final S3DeletionQueueService s3DeletionQueueService;
 
 
     public TaskResponseDto createTask(CreateTaskRequestDto dto) {
@@ -864,29 +866,21 @@ public class TaskService {
             // 🔧 FIX: Delete all related data WITHOUT logging activities to avoid session conflicts
 
             // 1. Delete all task attachments from S3 and database
-            try {
-                List<com.example.taskmanagement_backend.dtos.TaskAttachmentDto.TaskAttachmentResponseDto> attachments =
-                    taskAttachmentService.getTaskAttachments(id);
-
-                if (!attachments.isEmpty()) {
-                    log.info("🗑️ Deleting {} attachments for task {}", attachments.size(), id);
-
-                    // Delete each attachment from S3 only (no activity logging during deletion)
-                    for (var attachment : attachments) {
-                        try {
-                            s3FileUploadService.deleteFile(attachment.getFileKey());
-                            log.info("✅ Deleted S3 file: {} ({})", attachment.getOriginalFilename(), attachment.getFileKey());
-                        } catch (Exception e) {
-                            log.warn("⚠️ Failed to delete S3 file: {} - {}", attachment.getFileKey(), e.getMessage());
-                        }
-                    }
+            //    Not caught: a failed enqueue marks this transaction rollback-only, so the task delete fails with it
+            List<com.example.taskmanagement_backend.dtos.TaskAttachmentDto.TaskAttachmentResponseDto> attachments =
+                taskAttachmentService.getTaskAttachments(id);
 
-                    // Delete all attachment records from database
-                    taskAttachmentService.deleteAllAttachmentsForTask(id);
-                    log.info("✅ Deleted all attachment records for task {}", id);
-                }
-            } catch (Exception e) {
-                log.warn("⚠️ Error deleting attachments: {} - continuing with task deletion", e.getMessage());
+            if (!attachments.isEmpty()) {
+                log.info("🗑️ Deleting {} attachments for task {}", attachments.size(), id);
+
+                // Queue the S3 objects for batched deletion with the task delete (no activity logging during deletion)
+                s3DeletionQueueService.enqueue(attachments.stream()
+                        .map(com.example.taskmanagement_backend.dtos.TaskAttachmentDto.TaskAttachmentResponseDto::getFileKey)
+                        .toList(), "task");
+
+                // Delete all attachment records from database
+                taskAttachmentService.deleteAllAttachmentsForTask(id);
+                log.info("✅ Deleted all attachment records for task {}", id);
             }
 
             // 2. Delete all task activities FIRST to avoid foreign key constraints
@@ -1468,23 +1462,11 @@ public class TaskService {
     }
 
     /**
-     * Handle file deletions from S3
+     * Handle file deletions from S3 - queued and removed in DeleteObjects batches by S3DeletionWorker
      */
     public void handleFileDeletions(List<String> fileKeys) {
-        log.info("🗑️ Deleting {} files from S3", fileKeys.size());
-
-        for (String fileKey : fileKeys) {
-            try {
-                boolean deleted = s3FileUploadService.deleteFile(fileKey);
-                if (deleted) {
-                    log.info("✅ Successfully deleted file: {}", fileKey);
-                } else {
-                    log.warn("⚠️ Failed to delete file: {}", fileKey);
-                }
-            } catch (Exception e) {
-                log.error("❌ Error deleting file: {}", fileKey, e);
-            }
-        }
+        int queued = s3DeletionQueueService.enqueue(fileKeys, "task");
+        log.info("🗑️ Queued {} files for deletion from S3", queued);
     }
 
     /**
@@ -1495,20 +1477,14 @@ public class TaskService {
             return new ArrayList<>();
         }
 
-        List<String> downloadUrls = new ArrayList<>();
-        String[] fileKeys = urlFile.split(",");
-
-        for (String fileKey : fileKeys) {
-            try {
-                String downloadUrl = s3FileUploadService.generatePresignedDownloadUrl(
-                    fileKey.trim(), java.time.Duration.ofHours(1));
-                downloadUrls.add(downloadUrl);
-            } catch (Exception e) {
-                log.error("❌ Failed to generate download URL for: {}", fileKey, e);
-            }
-        }
+        List<String> fileKeys = java.util.Arrays.stream(urlFile.split(","))
+                .map(String::trim)
+                .filter(fileKey -> !fileKey.isEmpty())
+                .toList();
 
-        return downloadUrls;
+        // One cache pass for all attachments; failed keys are logged and left out by the cache
+        return new ArrayList<>(s3FileUploadService.generatePresignedDownloadUrls(
+                fileKeys, java.time.Duration.ofHours(1)).values());
     }
 
     /**
@@ -70,7 +70,7 @@ public class TeamTaskService {
         TeamTask savedTask = teamTaskRepository.save(teamTask);
 
         // ✅ AUTO-UPDATE: Update progress when new team task is created
-        progressUpdateService.updateProgressOnTeamTaskChange(savedTask);
+        progressUpdateService.onTeamTaskCreated(savedTask);
 
         return savedTask;
     }
@@ -102,6 +102,8 @@ public class TeamTaskService {
      */
     public TeamTask updateTeamTask(Long id, TeamTask updateData) {
         TeamTask existingTask = getTeamTaskById(id);
+        TaskStatus oldStatus = existingTask.getStatus();
+        Long oldRelatedProjectId = existingTask.getRelatedProject() != null ? existingTask.getRelatedProject().getId() : null;
 
         // Update fields if provided
         if (updateData.getTitle() != null) {
@@ -159,7 +161,7 @@ public class TeamTaskService {
         TeamTask savedTask = teamTaskRepository.save(existingTask);
 
         // ✅ AUTO-UPDATE: Update progress when team task is updated (especially status changes)
-        progressUpdateService.updateProgressOnTeamTaskChange(savedTask);
+        progressUpdateService.onTeamTaskChanged(savedTask, oldStatus, oldRelatedProjectId);
 
         return savedTask;
     }
@@ -172,7 +174,7 @@ public class TeamTaskService {
         teamTaskRepository.delete(task);
 
         // ✅ AUTO-UPDATE: Update progress when team task is deleted
-        progressUpdateService.updateProgressOnTeamTaskChange(task);
+        progressUpdateService.onTeamTaskDeleted(task);
     }
 
     // ===== Query Methods =====
@@ -1,9 +1,11 @@
 package com.example.taskmanagement_backend.services;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.entities.UserProfile;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
 import com.example.taskmanagement_backend.services.infrastructure.AutomatedEmailService;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -139,14 +141,18 @@ public class TrialManagementService {
      * Cron job chạy mỗi giờ để kiểm tra và cập nhật trạng thái trial
      */
     @Scheduled(cron = "0 0 * * * ?") // Chạy mỗi giờ
+    @ClusterJob(name = "trial-status", sharded = true)
     @Transactional
     public void processTrialStatus() {
         log.info("🕐 Bắt đầu kiểm tra trạng thái trial cho tất cả users...");
 
         LocalDateTime now = LocalDateTime.now();
 
-        // Lấy tất cả users có trial active
-        List<User> trialUsers = userRepository.findTrialUsers(now);
+        // Lấy tất cả users có trial active, chỉ xử lý phần shard của node này
+        ClusterJobContext jobContext = ClusterJobContext.current();
+        List<User> trialUsers = userRepository.findTrialUsersInShard(now,
+                jobContext.getShardIndex(), jobContext.getShardCount());
+        jobContext.addRowsProcessed(trialUsers.size());
 
         int expiredCount = 0;
         int warningCount = 0;
@@ -184,6 +190,7 @@ public class TrialManagementService {
      * Cron job chạy hàng ngày để gửi cảnh báo trial
      */
     @Scheduled(cron = "0 0 9 * * ?") // 9:00 AM mỗi ngày
+    @ClusterJob(name = "trial-warnings")
     @Transactional
     public void sendTrialWarnings() {
         log.info("📧 Gửi cảnh báo trial hàng ngày...");
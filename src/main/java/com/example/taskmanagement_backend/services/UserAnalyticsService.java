@@ -2,7 +2,6 @@ package com.example.taskmanagement_backend.services;
 
 import com.example.taskmanagement_backend.dtos.AnalyticsDto.UserAnalyticsResponseDto;
 import com.example.taskmanagement_backend.dtos.AnalyticsDto.AnalyticsFilterDto;
-import com.example.taskmanagement_backend.entities.User;
 import com.example.taskmanagement_backend.enums.UserStatus;
 import com.example.taskmanagement_backend.repositories.UserJpaRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,9 +11,9 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 @Service
 @RequiredArgsConstructor
@@ -64,26 +63,41 @@ public class UserAnalyticsService {
                 .reportPeriod(filter.getPeriodType())
                 .build();
 
+            // Each series is loaded once at day granularity and rolled up in memory,
+            // so the number of queries no longer depends on the reported range.
+            LocalDate today = LocalDate.now();
+            LocalDate lastYearStart = today.withDayOfYear(1).minusYears(1);
+            LocalDate seriesStart = LocalDate.of(filter.getStartDate().getYear(), 1, 1);
+            LocalDate seriesEnd = LocalDate.of(filter.getEndDate().getYear() + 1, 1, 1);
+
+            NavigableMap<LocalDate, Long> dailyRegistrations = loadDailySeries(
+                    userRepository.countRegistrationsPerDay(
+                            min(seriesStart, lastYearStart).atStartOfDay(),
+                            max(seriesEnd, today.plusDays(1)).atStartOfDay()));
+
             // Generate registration charts
             if (filter.isIncludeRegistrations()) {
-                response.setDailyRegistrations(generateDailyRegistrations(filter.getStartDate(), filter.getEndDate()));
-                response.setMonthlyRegistrations(generateMonthlyRegistrations(filter.getStartDate(), filter.getEndDate()));
-                response.setQuarterlyRegistrations(generateQuarterlyRegistrations(filter.getStartDate(), filter.getEndDate()));
-                response.setYearlyRegistrations(generateYearlyRegistrations(filter.getStartDate(), filter.getEndDate()));
+                response.setDailyRegistrations(generateDailySeries(dailyRegistrations, filter.getStartDate(), filter.getEndDate()));
+                response.setMonthlyRegistrations(generateMonthlySeries(dailyRegistrations, filter.getStartDate(), filter.getEndDate()));
+                response.setQuarterlyRegistrations(generateQuarterlySeries(dailyRegistrations, filter.getStartDate(), filter.getEndDate()));
+                response.setYearlyRegistrations(generateYearlySeries(dailyRegistrations, filter.getStartDate(), filter.getEndDate()));
             }
 
             // Generate login charts
             if (filter.isIncludeLogins()) {
-                response.setDailyLogins(generateDailyLogins(filter.getStartDate(), filter.getEndDate()));
-                response.setMonthlyLogins(generateMonthlyLogins(filter.getStartDate(), filter.getEndDate()));
-                response.setQuarterlyLogins(generateQuarterlyLogins(filter.getStartDate(), filter.getEndDate()));
-                response.setYearlyLogins(generateYearlyLogins(filter.getStartDate(), filter.getEndDate()));
+                NavigableMap<LocalDate, Long> dailyLogins = loadDailySeries(
+                        userRepository.countLastLoginsPerDay(seriesStart.atStartOfDay(), seriesEnd.atStartOfDay()));
+
+                response.setDailyLogins(generateDailySeries(dailyLogins, filter.getStartDate(), filter.getEndDate()));
+                response.setMonthlyLogins(generateMonthlySeries(dailyLogins, filter.getStartDate(), filter.getEndDate()));
+                response.setQuarterlyLogins(generateQuarterlySeries(dailyLogins, filter.getStartDate(), filter.getEndDate()));
+                response.setYearlyLogins(generateYearlySeries(dailyLogins, filter.getStartDate(), filter.getEndDate()));
             }
 
             // Calculate growth rates
-            response.setMonthlyGrowthRate(calculateMonthlyGrowthRate());
-            response.setQuarterlyGrowthRate(calculateQuarterlyGrowthRate());
-            response.setYearlyGrowthRate(calculateYearlyGrowthRate());
+            response.setMonthlyGrowthRate(calculateMonthlyGrowthRate(dailyRegistrations));
+            response.setQuarterlyGrowthRate(calculateQuarterlyGrowthRate(dailyRegistrations));
+            response.setYearlyGrowthRate(calculateYearlyGrowthRate(dailyRegistrations));
 
             // Find peak times
             response.setPeakRegistrationTime(findPeakRegistrationTime());
@@ -101,79 +115,56 @@ public class UserAnalyticsService {
     }
 
     /**
-     * Generate daily registration data for the last 30 days
+     * Convert [bucket, count] rows from a GROUP BY DATE query into a sorted day -> count map
      */
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateDailyRegistrations(LocalDateTime startDate, LocalDateTime endDate) {
-        List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
-
-        LocalDate start = startDate.toLocalDate();
-        LocalDate end = endDate.toLocalDate();
-
-        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-            LocalDateTime dayStart = date.atStartOfDay();
-            LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
-
-            Long count = userRepository.countByCreatedAtBetween(dayStart, dayEnd);
-
-            dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label(date.format(DateTimeFormatter.ofPattern("MM/dd")))
-                .value(count)
-                .period("day")
-                .date(dayStart)
-                .build());
+    private NavigableMap<LocalDate, Long> loadDailySeries(List<Object[]> rows) {
+        NavigableMap<LocalDate, Long> series = new TreeMap<>();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                series.put(toLocalDate(row[0]), ((Number) row[1]).longValue());
+            }
         }
+        return series;
+    }
 
-        return dataPoints;
+    private LocalDate toLocalDate(Object value) {
+        if (value instanceof LocalDate localDate) {
+            return localDate;
+        }
+        if (value instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate();
+        }
+        return LocalDate.parse(value.toString());
     }
 
     /**
-     * Generate monthly registration data for the last 12 months
+     * Sum of daily counts in [from, to)
      */
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateMonthlyRegistrations(LocalDateTime startDate, LocalDateTime endDate) {
-        List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
-
-        LocalDate start = startDate.toLocalDate().withDayOfMonth(1);
-        LocalDate end = endDate.toLocalDate();
-
-        for (LocalDate month = start; !month.isAfter(end); month = month.plusMonths(1)) {
-            LocalDateTime monthStart = month.atStartOfDay();
-            LocalDateTime monthEnd = month.plusMonths(1).atStartOfDay();
-
-            Long count = userRepository.countByCreatedAtBetween(monthStart, monthEnd);
-
-            dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label(month.format(DateTimeFormatter.ofPattern("MMM yyyy")))
-                .value(count)
-                .period("month")
-                .date(monthStart)
-                .build());
+    private long sumBetween(NavigableMap<LocalDate, Long> series, LocalDate from, LocalDate to) {
+        long total = 0;
+        for (Long count : series.subMap(from, true, to, false).values()) {
+            total += count;
         }
-
-        return dataPoints;
+        return total;
     }
 
     /**
-     * Generate quarterly registration data
+     * Roll daily counts up into consecutive buckets, starting at {@code first} and
+     * continuing while the bucket start is not after {@code last}
      */
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateQuarterlyRegistrations(LocalDateTime startDate, LocalDateTime endDate) {
+    private List<UserAnalyticsResponseDto.ChartDataPoint> rollUp(NavigableMap<LocalDate, Long> series,
+                                                                  LocalDate first, LocalDate last,
+                                                                  UnaryOperator<LocalDate> next,
+                                                                  Function<LocalDate, String> label,
+                                                                  String period) {
         List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
 
-        LocalDate start = startDate.toLocalDate().withDayOfMonth(1).withMonth(((startDate.getMonthValue() - 1) / 3) * 3 + 1);
-        LocalDate end = endDate.toLocalDate();
-
-        for (LocalDate quarter = start; !quarter.isAfter(end); quarter = quarter.plusMonths(3)) {
-            LocalDateTime quarterStart = quarter.atStartOfDay();
-            LocalDateTime quarterEnd = quarter.plusMonths(3).atStartOfDay();
-
-            Long count = userRepository.countByCreatedAtBetween(quarterStart, quarterEnd);
-
-            int quarterNum = ((quarter.getMonthValue() - 1) / 3) + 1;
-
+        for (LocalDate bucket = first; !bucket.isAfter(last); bucket = next.apply(bucket)) {
             dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label("Q" + quarterNum + " " + quarter.getYear())
-                .value(count)
-                .period("quarter")
-                .date(quarterStart)
+                .label(label.apply(bucket))
+                .value(sumBetween(series, bucket, next.apply(bucket)))
+                .period(period)
+                .date(bucket.atStartOfDay())
                 .build());
         }
 
@@ -181,174 +172,107 @@ public class UserAnalyticsService {
     }
 
     /**
-     * Generate yearly registration data
+     * Generate daily data points for the requested range
      */
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateYearlyRegistrations(LocalDateTime startDate, LocalDateTime endDate) {
-        List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
-
-        int startYear = startDate.getYear();
-        int endYear = endDate.getYear();
-
-        for (int year = startYear; year <= endYear; year++) {
-            LocalDateTime yearStart = LocalDate.of(year, 1, 1).atStartOfDay();
-            LocalDateTime yearEnd = LocalDate.of(year + 1, 1, 1).atStartOfDay();
-
-            Long count = userRepository.countByCreatedAtBetween(yearStart, yearEnd);
-
-            dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label(String.valueOf(year))
-                .value(count)
-                .period("year")
-                .date(yearStart)
-                .build());
-        }
-
-        return dataPoints;
+    private List<UserAnalyticsResponseDto.ChartDataPoint> generateDailySeries(NavigableMap<LocalDate, Long> series,
+                                                                               LocalDateTime startDate, LocalDateTime endDate) {
+        return rollUp(series, startDate.toLocalDate(), endDate.toLocalDate(), date -> date.plusDays(1),
+                date -> date.format(DateTimeFormatter.ofPattern("MM/dd")), "day");
     }
 
-    // Login analytics methods (similar structure but using lastLoginAt)
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateDailyLogins(LocalDateTime startDate, LocalDateTime endDate) {
-        List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
-
-        LocalDate start = startDate.toLocalDate();
-        LocalDate end = endDate.toLocalDate();
-
-        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-            LocalDateTime dayStart = date.atStartOfDay();
-            LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
-
-            Long count = userRepository.countByLastLoginAtBetween(dayStart, dayEnd);
-
-            dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label(date.format(DateTimeFormatter.ofPattern("MM/dd")))
-                .value(count)
-                .period("day")
-                .date(dayStart)
-                .build());
-        }
-
-        return dataPoints;
+    /**
+     * Generate monthly data points for the requested range
+     */
+    private List<UserAnalyticsResponseDto.ChartDataPoint> generateMonthlySeries(NavigableMap<LocalDate, Long> series,
+                                                                                 LocalDateTime startDate, LocalDateTime endDate) {
+        return rollUp(series, startDate.toLocalDate().withDayOfMonth(1), endDate.toLocalDate(), month -> month.plusMonths(1),
+                month -> month.format(DateTimeFormatter.ofPattern("MMM yyyy")), "month");
     }
 
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateMonthlyLogins(LocalDateTime startDate, LocalDateTime endDate) {
-        List<UserAnalyticsResponseDto.ChartDataPoint> dataPoints = new ArrayList<>();
-
-        LocalDate start = startDate.toLocalDate().withDayOfMonth(1);
-        LocalDate end = endDate.toLocalDate();
-
-        for (LocalDate month = start; !month.isAfter(end); month = month.plusMonths(1)) {
-            LocalDateTime monthStart = month.atStartOfDay();
-            LocalDateTime monthEnd = month.plusMonths(1).atStartOfDay();
-
-            Long count = userRepository.countByLastLoginAtBetween(monthStart, monthEnd);
-
-            dataPoints.add(UserAnalyticsResponseDto.ChartDataPoint.builder()
-                .label(month.format(DateTimeFormatter.ofPattern("MMM yyyy")))
-                .value(count)
-                .period("month")
-                .date(monthStart)
-                .build());
-        }
-
-        return dataPoints;
-    }
+    /**
+     * Generate quarterly data points for the requested range
+     */
+    private List<UserAnalyticsResponseDto.ChartDataPoint> generateQuarterlySeries(NavigableMap<LocalDate, Long> series,
+                                                                                   LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate start = startDate.toLocalDate().withDayOfMonth(1).withMonth(((startDate.getMonthValue() - 1) / 3) * 3 + 1);
 
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateQuarterlyLogins(LocalDateTime startDate, LocalDateTime endDate) {
-        // Similar implementation to quarterly registrations but using lastLoginAt
-        return new ArrayList<>(); // Simplified for brevity
+        return rollUp(series, start, endDate.toLocalDate(), quarter -> quarter.plusMonths(3),
+                quarter -> "Q" + (((quarter.getMonthValue() - 1) / 3) + 1) + " " + quarter.getYear(), "quarter");
     }
 
-    private List<UserAnalyticsResponseDto.ChartDataPoint> generateYearlyLogins(LocalDateTime startDate, LocalDateTime endDate) {
-        // Similar implementation to yearly registrations but using lastLoginAt
-        return new ArrayList<>(); // Simplified for brevity
+    /**
+     * Generate yearly data points for the requested range
+     */
+    private List<UserAnalyticsResponseDto.ChartDataPoint> generateYearlySeries(NavigableMap<LocalDate, Long> series,
+                                                                                LocalDateTime startDate, LocalDateTime endDate) {
+        return rollUp(series, LocalDate.of(startDate.getYear(), 1, 1), endDate.toLocalDate(), year -> year.plusYears(1),
+                year -> String.valueOf(year.getYear()), "year");
     }
 
     /**
      * Calculate monthly growth rate
      */
-    private Double calculateMonthlyGrowthRate() {
-        LocalDateTime thisMonthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-        LocalDateTime lastMonthStart = thisMonthStart.minusMonths(1);
-
-        Long thisMonthUsers = userRepository.countByCreatedAtBetween(thisMonthStart, LocalDateTime.now());
-        Long lastMonthUsers = userRepository.countByCreatedAtBetween(lastMonthStart, thisMonthStart);
-
-        if (lastMonthUsers == 0) return 0.0;
-        return ((double) (thisMonthUsers - lastMonthUsers) / lastMonthUsers) * 100;
+    private Double calculateMonthlyGrowthRate(NavigableMap<LocalDate, Long> dailyRegistrations) {
+        LocalDate thisMonthStart = LocalDate.now().withDayOfMonth(1);
+        return growthRate(dailyRegistrations, thisMonthStart, thisMonthStart.minusMonths(1));
     }
 
     /**
      * Calculate quarterly growth rate
      */
-    private Double calculateQuarterlyGrowthRate() {
-        LocalDateTime thisQuarterStart = LocalDate.now().withDayOfMonth(1)
-            .withMonth(((LocalDate.now().getMonthValue() - 1) / 3) * 3 + 1).atStartOfDay();
-        LocalDateTime lastQuarterStart = thisQuarterStart.minusMonths(3);
-
-        Long thisQuarterUsers = userRepository.countByCreatedAtBetween(thisQuarterStart, LocalDateTime.now());
-        Long lastQuarterUsers = userRepository.countByCreatedAtBetween(lastQuarterStart, thisQuarterStart);
-
-        if (lastQuarterUsers == 0) return 0.0;
-        return ((double) (thisQuarterUsers - lastQuarterUsers) / lastQuarterUsers) * 100;
+    private Double calculateQuarterlyGrowthRate(NavigableMap<LocalDate, Long> dailyRegistrations) {
+        LocalDate thisQuarterStart = LocalDate.now().withDayOfMonth(1)
+            .withMonth(((LocalDate.now().getMonthValue() - 1) / 3) * 3 + 1);
+        return growthRate(dailyRegistrations, thisQuarterStart, thisQuarterStart.minusMonths(3));
     }
 
     /**
      * Calculate yearly growth rate
      */
-    private Double calculateYearlyGrowthRate() {
-        LocalDateTime thisYearStart = LocalDate.now().withDayOfYear(1).atStartOfDay();
-        LocalDateTime lastYearStart = thisYearStart.minusYears(1);
+    private Double calculateYearlyGrowthRate(NavigableMap<LocalDate, Long> dailyRegistrations) {
+        LocalDate thisYearStart = LocalDate.now().withDayOfYear(1);
+        return growthRate(dailyRegistrations, thisYearStart, thisYearStart.minusYears(1));
+    }
 
-        Long thisYearUsers = userRepository.countByCreatedAtBetween(thisYearStart, LocalDateTime.now());
-        Long lastYearUsers = userRepository.countByCreatedAtBetween(lastYearStart, thisYearStart);
+    /**
+     * Growth of the current period (to date) over the previous full period, in percent
+     */
+    private Double growthRate(NavigableMap<LocalDate, Long> dailyRegistrations, LocalDate currentStart, LocalDate previousStart) {
+        long currentUsers = sumBetween(dailyRegistrations, currentStart, LocalDate.now().plusDays(1));
+        long previousUsers = sumBetween(dailyRegistrations, previousStart, currentStart);
 
-        if (lastYearUsers == 0) return 0.0;
-        return ((double) (thisYearUsers - lastYearUsers) / lastYearUsers) * 100;
+        if (previousUsers == 0) return 0.0;
+        return ((double) (currentUsers - previousUsers) / previousUsers) * 100;
     }
 
     /**
      * Find peak registration time
      */
     private Map<String, Object> findPeakRegistrationTime() {
-        // Get registrations by hour to find peak time
-        List<User> recentUsers = userRepository.findByCreatedAtAfter(LocalDateTime.now().minusDays(30));
-
-        Map<Integer, Long> hourCounts = recentUsers.stream()
-            .collect(Collectors.groupingBy(
-                user -> user.getCreatedAt().getHour(),
-                Collectors.counting()
-            ));
-
-        Integer peakHour = hourCounts.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(12);
-
-        return Map.of(
-            "hour", peakHour,
-            "timeRange", peakHour + ":00 - " + (peakHour + 1) + ":00",
-            "count", hourCounts.getOrDefault(peakHour, 0L)
-        );
+        // Registrations grouped by hour of day in SQL - no User entities are loaded
+        return peakHour(userRepository.countRegistrationsPerHourSince(LocalDateTime.now().minusDays(30)), 12);
     }
 
     /**
      * Find peak login time
      */
     private Map<String, Object> findPeakLoginTime() {
-        // Get logins by hour to find peak time
-        List<User> recentLogins = userRepository.findByLastLoginAtAfter(LocalDateTime.now().minusDays(30));
+        // Last logins grouped by hour of day in SQL - no User entities are loaded
+        return peakHour(userRepository.countLastLoginsPerHourSince(LocalDateTime.now().minusDays(30)), 9);
+    }
 
-        Map<Integer, Long> hourCounts = recentLogins.stream()
-            .filter(user -> user.getLastLoginAt() != null)
-            .collect(Collectors.groupingBy(
-                user -> user.getLastLoginAt().getHour(),
-                Collectors.counting()
-            ));
+    private Map<String, Object> peakHour(List<Object[]> hourRows, int defaultHour) {
+        Map<Integer, Long> hourCounts = new HashMap<>();
+        for (Object[] row : hourRows) {
+            if (row[0] != null) {
+                hourCounts.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+            }
+        }
 
         Integer peakHour = hourCounts.entrySet().stream()
             .max(Map.Entry.comparingByValue())
             .map(Map.Entry::getKey)
-            .orElse(9);
+            .orElse(defaultHour);
 
         return Map.of(
             "hour", peakHour,
@@ -356,4 +280,12 @@ public class UserAnalyticsService {
             "count", hourCounts.getOrDefault(peakHour, 0L)
         );
     }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
 }
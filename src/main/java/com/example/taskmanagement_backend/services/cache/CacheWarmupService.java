@@ -1,5 +1,6 @@
 package com.example.taskmanagement_backend.services.cache;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.services.TaskService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -68,10 +69,11 @@ public class CacheWarmupService {
     }
 
     /**
-     * Scheduled cache refresh every 30 minutes
+     * Scheduled cache refresh every 30 minutes.
+     * Runs on the scheduler thread rather than @Async, so the cluster lease covers the refresh itself
      */
     @Scheduled(fixedRate = 1800000) // 30 minutes
-    @Async
+    @ClusterJob(name = "cache-warmup-refresh", period = "PT30M")
     public void scheduledCacheRefresh() {
         log.debug("🔄 Starting scheduled cache refresh...");
         
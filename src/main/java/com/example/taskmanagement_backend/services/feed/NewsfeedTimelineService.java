@@ -0,0 +1,283 @@
+package com.example.taskmanagement_backend.services.feed;
+
+import com.example.taskmanagement_backend.enums.PostPrivacy;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import com.example.taskmanagement_backend.services.PostService;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Push-based newsfeed timelines kept in Redis sorted sets.
+ *
+ * Every user has a timeline of post ids (scored by id, which follows creation order) that
+ * new FRIENDS posts are pushed into when they are written. Two kinds of posts are pulled at
+ * read time instead, so a single post never costs thousands of writes:
+ * - PUBLIC posts, kept once in a shared set
+ * - FRIENDS posts of authors with more than fanout-max-followers friends, kept in the author's set
+ *
+ * Reads merge those sets below a cursor (the last post id seen), so their cost depends on the
+ * page size rather than on the friend count or page depth. A set gets a sentinel member "0"
+ * when it is seeded from the database; pushes only touch seeded sets and missing or expired
+ * sets are rebuilt on the next read. Sets are bounded, so the feed reaches back at most
+ * timeline-max-size posts.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NewsfeedTimelineService {
+
+    private static final String KEY_PREFIX = "taskmanagement:feed:";
+    private static final String TIMELINE_PREFIX = KEY_PREFIX + "timeline:";
+    private static final String AUTHOR_PREFIX = KEY_PREFIX + "author:";
+    private static final String PUBLIC_KEY = KEY_PREFIX + "public";
+    private static final String HIGH_FANOUT_AUTHORS_KEY = KEY_PREFIX + "high-fanout-authors";
+    private static final int PUSH_CHUNK_SIZE = 500;
+
+    // KEYS = seeded sets to push into; ARGV[1] = post id, ARGV[2] = max posts per set, ARGV[3] = ttl seconds.
+    // Rank 0 is the sentinel (score 0), so trimming starts at rank 1.
+    private static final RedisScript<Long> PUSH_SCRIPT = new DefaultRedisScript<>(
+            "local pushed = 0 " +
+            "for _, key in ipairs(KEYS) do " +
+            "  if redis.call('EXISTS', key) == 1 then " +
+            "    redis.call('ZADD', key, ARGV[1], ARGV[1]) " +
+            "    redis.call('ZREMRANGEBYRANK', key, 1, -(tonumber(ARGV[2]) + 1)) " +
+            "    redis.call('EXPIRE', key, ARGV[3]) " +
+            "    pushed = pushed + 1 " +
+            "  end " +
+            "end " +
+            "return pushed", Long.class);
+
+    // KEYS[1] = set; ARGV[1] = max posts, ARGV[2] = ttl seconds, ARGV[3..] = post ids (newest first)
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+            "redis.call('ZADD', KEYS[1], 0, '0') " +
+            "for i = 3, #ARGV do redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i]) end " +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 1, -(tonumber(ARGV[1]) + 1)) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[2]) " +
+            "return #ARGV - 2", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PostRepository postRepository;
+
+    @Value("${app.newsfeed.timeline-max-size:800}")
+    private int timelineMaxSize;
+
+    @Value("${app.newsfeed.shared-max-size:2000}")
+    private int sharedMaxSize;
+
+    @Value("${app.newsfeed.fanout-max-followers:1000}")
+    private int fanoutMaxFollowers;
+
+    @Value("${app.newsfeed.ttl-days:7}")
+    private long ttlDays;
+
+    private final AtomicLong timelineWrites = new AtomicLong();
+    private final AtomicLong seededSets = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+
+    /**
+     * Push a new post into the timelines that should show it, after the creating transaction commits
+     */
+    public void onPostCreated(Long postId, Long authorId, PostPrivacy privacy, List<Long> friendIds) {
+        afterCommit("push post " + postId, () -> push(postId, authorId, privacy, friendIds));
+    }
+
+    /**
+     * Re-push a post whose privacy changed. Pushes are idempotent, and reads re-check visibility,
+     * so a post that became more private simply stops being shown.
+     */
+    public void onPostPrivacyChanged(Long postId, Long authorId, PostPrivacy privacy, List<Long> friendIds) {
+        afterCommit("re-push post " + postId, () -> push(postId, authorId, privacy, friendIds));
+    }
+
+    /**
+     * Drop a deleted post from the shared sets; ids left in friends' timelines are skipped when hydrating
+     */
+    public void onPostDeleted(Long postId, Long authorId) {
+        afterCommit("remove post " + postId, () -> {
+            String member = String.valueOf(postId);
+            redisTemplate.opsForZSet().remove(PUBLIC_KEY, member);
+            redisTemplate.opsForZSet().remove(AUTHOR_PREFIX + authorId, member);
+            redisTemplate.opsForZSet().remove(TIMELINE_PREFIX + authorId, member);
+        });
+    }
+
+    /**
+     * Friend lists changed: rebuild both users' timelines (and cached friend ids) on their next read
+     */
+    public void onFriendshipChanged(Long userId, Long otherUserId) {
+        afterCommit("reset timelines of " + userId + " and " + otherUserId, () -> redisTemplate.delete(List.of(
+                TIMELINE_PREFIX + userId, TIMELINE_PREFIX + otherUserId,
+                PostService.USER_FRIENDS_CACHE_PREFIX + userId, PostService.USER_FRIENDS_CACHE_PREFIX + otherUserId)));
+    }
+
+    /**
+     * Ids of the newest posts below {@code cursor} (exclusive, null for the first page) from the
+     * user's timeline, public posts and high-fanout friends, newest first. Callers must still check
+     * that each post exists and is visible to the user.
+     */
+    public TimelineSlice readPostIds(Long userId, List<Long> friendIds, Long cursor, int limit) {
+        reads.incrementAndGet();
+        Map<String, Supplier<List<Long>>> sources = new LinkedHashMap<>();
+        sources.put(TIMELINE_PREFIX + userId, () -> postRepository.findTimelineSeedIds(
+                userId, friendIds, PageRequest.of(0, timelineMaxSize)));
+        sources.put(PUBLIC_KEY, () -> postRepository.findRecentIdsByPrivacy(
+                PostPrivacy.PUBLIC, PageRequest.of(0, sharedMaxSize)));
+        for (Long authorId : highFanoutFriends(friendIds)) {
+            sources.put(AUTHOR_PREFIX + authorId, () -> postRepository.findRecentIdsByAuthorAndPrivacy(
+                    authorId, PostPrivacy.FRIENDS, PageRequest.of(0, sharedMaxSize)));
+        }
+
+        double max = cursor != null ? cursor - 1 : Double.POSITIVE_INFINITY;
+        TreeSet<Long> merged = new TreeSet<>(Comparator.reverseOrder());
+        for (Map.Entry<String, Supplier<List<Long>>> source : sources.entrySet()) {
+            String key = source.getKey();
+            ensureSeeded(key, key.startsWith(TIMELINE_PREFIX) ? timelineMaxSize : sharedMaxSize, source.getValue());
+            Set<String> ids = redisTemplate.opsForZSet().reverseRangeByScore(key, 1, max, 0, limit + 1);
+            if (ids != null) {
+                ids.forEach(id -> merged.add(Long.valueOf(id)));
+            }
+        }
+
+        List<Long> page = new ArrayList<>(limit);
+        for (Long id : merged) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(id);
+        }
+        Long nextCursor = page.isEmpty() ? cursor : page.get(page.size() - 1);
+        return new TimelineSlice(page, nextCursor, merged.size() > limit);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("timelineWrites", timelineWrites.get());
+        stats.put("seededSets", seededSets.get());
+        stats.put("reads", reads.get());
+        Long highFanoutAuthors = redisTemplate.opsForSet().size(HIGH_FANOUT_AUTHORS_KEY);
+        stats.put("highFanoutAuthors", highFanoutAuthors != null ? highFanoutAuthors : 0);
+        return stats;
+    }
+
+    private void push(Long postId, Long authorId, PostPrivacy privacy, List<Long> friendIds) {
+        List<String> timelines = new ArrayList<>();
+        timelines.add(TIMELINE_PREFIX + authorId);
+
+        if (privacy == PostPrivacy.PUBLIC) {
+            pushInto(List.of(PUBLIC_KEY), postId, sharedMaxSize);
+        } else if (privacy == PostPrivacy.FRIENDS) {
+            // The author's own set is always kept, so the author can switch to pull mode at any time
+            pushInto(List.of(AUTHOR_PREFIX + authorId), postId, sharedMaxSize);
+            if (friendIds.size() > fanoutMaxFollowers) {
+                redisTemplate.opsForSet().add(HIGH_FANOUT_AUTHORS_KEY, String.valueOf(authorId));
+            } else {
+                redisTemplate.opsForSet().remove(HIGH_FANOUT_AUTHORS_KEY, String.valueOf(authorId));
+                friendIds.forEach(friendId -> timelines.add(TIMELINE_PREFIX + friendId));
+            }
+        }
+
+        long pushed = pushInto(timelines, postId, timelineMaxSize);
+        timelineWrites.addAndGet(pushed);
+        log.debug("📰 Post {} ({}) pushed into {} timelines", postId, privacy, pushed);
+    }
+
+    private long pushInto(List<String> keys, Long postId, int maxSize) {
+        long pushed = 0;
+        for (int from = 0; from < keys.size(); from += PUSH_CHUNK_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + PUSH_CHUNK_SIZE, keys.size()));
+            Long count = redisTemplate.execute(PUSH_SCRIPT, chunk,
+                    String.valueOf(postId), String.valueOf(maxSize), String.valueOf(ttl().toSeconds()));
+            pushed += count != null ? count : 0;
+        }
+        return pushed;
+    }
+
+    private void ensureSeeded(String key, int maxSize, Supplier<List<Long>> seed) {
+        // EXPIRE doubles as an existence check and keeps sets of active readers alive
+        if (Boolean.TRUE.equals(redisTemplate.expire(key, ttl()))) {
+            return;
+        }
+        List<Long> ids = seed.get();
+        List<String> args = new ArrayList<>(ids.size() + 2);
+        args.add(String.valueOf(maxSize));
+        args.add(String.valueOf(ttl().toSeconds()));
+        ids.forEach(id -> args.add(String.valueOf(id)));
+        redisTemplate.execute(SEED_SCRIPT, List.of(key), args.toArray());
+        seededSets.incrementAndGet();
+        log.debug("🌱 Seeded feed set {} with {} posts", key, ids.size());
+    }
+
+    private Collection<Long> highFanoutFriends(List<Long> friendIds) {
+        Set<String> authors = redisTemplate.opsForSet().members(HIGH_FANOUT_AUTHORS_KEY);
+        if (authors == null || authors.isEmpty() || friendIds.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> friends = new HashSet<>(friendIds);
+        List<Long> result = new ArrayList<>();
+        for (String author : authors) {
+            Long authorId = Long.valueOf(author);
+            if (friends.contains(authorId)) {
+                result.add(authorId);
+            }
+        }
+        return result;
+    }
+
+    private Duration ttl() {
+        return Duration.ofDays(ttlDays);
+    }
+
+    private void afterCommit(String description, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // Missing entries are rebuilt from the database once the affected sets expire
+                log.warn("⚠️ Could not {} in newsfeed timelines: {}", description, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class TimelineSlice {
+        private final List<Long> postIds;
+        private final Long nextCursor;
+        private final boolean hasNext;
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.taskmanagement_backend.services.feed;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.enums.PostPrivacy;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trending posts ranked by a time-decayed engagement score kept in a Redis sorted set.
+ *
+ * Scores use forward decay: an event of weight w at time t adds w * 2^((t - epoch) / half-life),
+ * so likes and comments only ever increment the score of their post, and the ranking at any
+ * moment equals the ranking by engagement halved every half-life. The decay job periodically
+ * rescales all scores to a new epoch (keeping the numbers small), drops posts whose decayed score
+ * fell below min-score and keeps the set bounded to max-size posts.
+ *
+ * PRIVATE posts are never ranked. The set holds PUBLIC and FRIENDS posts of everyone, so readers
+ * must filter it for visibility. It is seeded from the database when the epoch key is missing.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendingPostService {
+
+    public static final double LIKE_WEIGHT = 1.0;
+    public static final double COMMENT_WEIGHT = 2.0;
+
+    private static final String KEY_PREFIX = "taskmanagement:feed:trending";
+    private static final String RANKING_KEY = KEY_PREFIX;
+    private static final String EPOCH_KEY = KEY_PREFIX + ":epoch";
+
+    // KEYS[1] = ranking, KEYS[2] = epoch; ARGV[1] = post id, ARGV[2] = weight, ARGV[3] = event time ms,
+    // ARGV[4] = half-life ms, ARGV[5] = max posts. Returns -1 when the ranking is not seeded yet.
+    private static final RedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if not epoch then return -1 end " +
+            "local increment = tonumber(ARGV[2]) * 2 ^ ((tonumber(ARGV[3]) - epoch) / tonumber(ARGV[4])) " +
+            "local score = tonumber(redis.call('ZINCRBY', KEYS[1], increment, ARGV[1])) " +
+            "if score <= 0 then redis.call('ZREM', KEYS[1], ARGV[1]) end " +
+            "local size = redis.call('ZCARD', KEYS[1]) " +
+            "local max = tonumber(ARGV[5]) " +
+            "if size > max then redis.call('ZREMRANGEBYRANK', KEYS[1], 0, size - max - 1) end " +
+            "return 1", Long.class);
+
+    // KEYS[1] = ranking, KEYS[2] = epoch; ARGV[1] = now ms (the new epoch), ARGV[2] = half-life ms,
+    // ARGV[3] = max posts, ARGV[4..] = (post id, weight, created ms) triples
+    private static final RedisScript<Long> SEED_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SETNX', KEYS[2], ARGV[1]) == 0 then return 0 end " +
+            "redis.call('DEL', KEYS[1]) " +
+            "local now = tonumber(ARGV[1]) " +
+            "local halfLife = tonumber(ARGV[2]) " +
+            "for i = 4, #ARGV, 3 do " +
+            "  local score = tonumber(ARGV[i + 1]) * 2 ^ ((tonumber(ARGV[i + 2]) - now) / halfLife) " +
+            "  redis.call('ZADD', KEYS[1], score, ARGV[i]) " +
+            "end " +
+            "local size = redis.call('ZCARD', KEYS[1]) " +
+            "local max = tonumber(ARGV[3]) " +
+            "if size > max then redis.call('ZREMRANGEBYRANK', KEYS[1], 0, size - max - 1) end " +
+            "return (#ARGV - 3) / 3", Long.class);
+
+    // KEYS[1] = ranking, KEYS[2] = epoch; ARGV[1] = now ms (the new epoch), ARGV[2] = half-life ms,
+    // ARGV[3] = min score, ARGV[4] = max posts. Returns the number of ranked posts left.
+    private static final RedisScript<Long> DECAY_SCRIPT = new DefaultRedisScript<>(
+            "local epoch = tonumber(redis.call('GET', KEYS[2])) " +
+            "if not epoch then return -1 end " +
+            "local factor = 2 ^ ((epoch - tonumber(ARGV[1])) / tonumber(ARGV[2])) " +
+            "redis.call('ZUNIONSTORE', KEYS[1], 1, KEYS[1], 'WEIGHTS', factor) " +
+            "redis.call('SET', KEYS[2], ARGV[1]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', '(' .. ARGV[3]) " +
+            "local size = redis.call('ZCARD', KEYS[1]) " +
+            "local max = tonumber(ARGV[4]) " +
+            "if size > max then redis.call('ZREMRANGEBYRANK', KEYS[1], 0, size - max - 1) end " +
+            "return math.min(size, max)", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final PostRepository postRepository;
+
+    @Value("${app.trending.half-life-hours:6}")
+    private double halfLifeHours;
+
+    @Value("${app.trending.max-size:1000}")
+    private int maxSize;
+
+    @Value("${app.trending.min-score:0.05}")
+    private double minScore;
+
+    @Value("${app.trending.seed-window-hours:72}")
+    private long seedWindowHours;
+
+    private final AtomicLong recordedEvents = new AtomicLong();
+    private final AtomicLong seeds = new AtomicLong();
+    private final AtomicLong decayRuns = new AtomicLong();
+    private final AtomicLong reads = new AtomicLong();
+
+    /**
+     * Add engagement that happens now to a post, after the transaction commits
+     */
+    public void onEngagement(Long postId, PostPrivacy privacy, double weight) {
+        onEngagement(postId, privacy, weight, LocalDateTime.now());
+    }
+
+    /**
+     * Add engagement to a post as of {@code occurredAt}, after the transaction commits. Engagement is
+     * withdrawn (e.g. on unlike) with a negative weight at the time it was originally added: the same
+     * weight taken now would be scaled up by the decay since then and wipe out the rest of the score.
+     */
+    public void onEngagement(Long postId, PostPrivacy privacy, double weight, LocalDateTime occurredAt) {
+        if (privacy == PostPrivacy.PRIVATE) {
+            return;
+        }
+        long eventMillis = Timestamp.valueOf(occurredAt).getTime();
+        afterCommit("record engagement of post " + postId, () -> {
+            Long result = redisTemplate.execute(RECORD_SCRIPT, List.of(RANKING_KEY, EPOCH_KEY),
+                    String.valueOf(postId), String.valueOf(weight), String.valueOf(eventMillis),
+                    String.valueOf(halfLifeMillis()), String.valueOf(maxSize));
+            if (result != null && result > 0) {
+                recordedEvents.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Take a post out of the ranking (deleted or made PRIVATE), after the transaction commits
+     */
+    public void onPostRemoved(Long postId) {
+        afterCommit("remove post " + postId, () ->
+                redisTemplate.opsForZSet().remove(RANKING_KEY, String.valueOf(postId)));
+    }
+
+    /**
+     * Ids of ranked posts from {@code offset}, highest decayed score first. Callers must still check
+     * that each post exists and is visible to the reader.
+     */
+    public List<Long> readRankedPostIds(long offset, int limit) {
+        reads.incrementAndGet();
+        ensureSeeded();
+        Set<String> ids = redisTemplate.opsForZSet().reverseRange(RANKING_KEY, offset, offset + limit - 1);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().map(Long::valueOf).toList();
+    }
+
+    /**
+     * Rescale scores to the current time, drop posts that decayed below min-score and re-apply the bound
+     */
+    @Scheduled(fixedDelayString = "${app.trending.decay-interval-ms:900000}", initialDelay = 60000)
+    @ClusterJob(name = "trending-posts-decay", period = "${app.trending.decay-interval-ms:900000}")
+    public void decayScores() {
+        Long ranked = redisTemplate.execute(DECAY_SCRIPT, List.of(RANKING_KEY, EPOCH_KEY),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(halfLifeMillis()),
+                String.valueOf(minScore), String.valueOf(maxSize));
+        decayRuns.incrementAndGet();
+        log.debug("🔥 Trending scores decayed, {} posts ranked", ranked);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("recordedEvents", recordedEvents.get());
+        stats.put("seeds", seeds.get());
+        stats.put("decayRuns", decayRuns.get());
+        stats.put("reads", reads.get());
+        Long ranked = redisTemplate.opsForZSet().zCard(RANKING_KEY);
+        stats.put("rankedPosts", ranked != null ? ranked : 0);
+        return stats;
+    }
+
+    private void ensureSeeded() {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(EPOCH_KEY))) {
+            return;
+        }
+        // Engagement is taken as of creation time, which is close enough for a ranking that decays anyway
+        LocalDateTime since = LocalDateTime.now().minusHours(seedWindowHours);
+        List<Object[]> rows = postRepository.findTrendingSeed(since, PostPrivacy.PRIVATE, PageRequest.of(0, maxSize));
+        List<String> args = new ArrayList<>(rows.size() * 3 + 3);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(halfLifeMillis()));
+        args.add(String.valueOf(maxSize));
+        for (Object[] row : rows) {
+            double weight = ((Number) row[1]).longValue() * LIKE_WEIGHT + ((Number) row[2]).longValue() * COMMENT_WEIGHT;
+            args.add(String.valueOf(row[0]));
+            args.add(String.valueOf(weight));
+            args.add(String.valueOf(Timestamp.valueOf((LocalDateTime) row[3]).getTime()));
+        }
+        Long seeded = redisTemplate.execute(SEED_SCRIPT, List.of(RANKING_KEY, EPOCH_KEY), args.toArray());
+        if (seeded != null && seeded > 0) {
+            seeds.incrementAndGet();
+            log.info("🌱 Seeded trending ranking with {} posts", seeded);
+        }
+    }
+
+    private long halfLifeMillis() {
+        return (long) (halfLifeHours * 3_600_000L);
+    }
+
+    private void afterCommit(String description, Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // The ranking is a cache: a missed event only makes one post rank slightly lower
+                log.warn("⚠️ Could not {} in trending ranking: {}", description, e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
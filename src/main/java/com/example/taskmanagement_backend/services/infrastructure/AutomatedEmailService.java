@@ -5,11 +5,24 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 
+/**
+ * Renders automated emails and queues them in the email outbox ({@link EmailOutboxService}).
+ * Nothing here talks to SMTP; delivery happens in {@link EmailOutboxWorker} after the
+ * caller's transaction commits.
+ *
+ * Rendering failures are logged and the email is skipped. Queueing failures are not caught:
+ * the outbox insert joins the caller's transaction, which is rollback-only by then, so the
+ * error is left to reach the caller instead of surfacing as an UnexpectedRollbackException at commit.
+ * The welcome email is the exception: it must never block a registration, so it is queued after the
+ * registration commits, in a transaction of its own, and a failure there is only logged.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -17,6 +30,7 @@ public class AutomatedEmailService {
 
     private final EmailTemplateService emailTemplateService;
     private final SmtpEmailService smtpEmailService;
+    private final EmailOutboxService emailOutboxService;
 
     @Value("${app.frontend.url}")
     private String frontendUrl;
@@ -25,45 +39,47 @@ public class AutomatedEmailService {
      * Send welcome email to new Google OAuth2 user
      */
     public void sendWelcomeEmail(String userEmail, String userName) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("🚀 Sending welcome email to new Google user: {}", userEmail);
 
             String emailContent = emailTemplateService.generateWelcomeEmail(userName, userEmail);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("Welcome to TaskFlow - Let's Get Started! 🚀")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Welcome email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send welcome email to {}: {}", userEmail, e.getMessage());
             // Don't rethrow - welcome email failure shouldn't block user registration
+            return;
         }
+
+        afterCommit(() -> {
+            try {
+                emailOutboxService.enqueueSeparately(emailRequest);
+                log.info("✅ Welcome email queued for: {}", userEmail);
+            } catch (Exception e) {
+                log.error("❌ Failed to queue welcome email for {}: {}", userEmail, e.getMessage());
+                // Don't rethrow - welcome email failure shouldn't block user registration
+            }
+        });
     }
 
     /**
      * 🎁 Send welcome email WITH automatic trial initialization
      */
     public void sendWelcomeEmailWithTrial(String userEmail, String userName, Long userId) {
-        try {
-            log.info("🎁 Sending welcome email with trial initialization to: {}", userEmail);
-
-            // Đầu tiên gửi welcome email
-            sendWelcomeEmail(userEmail, userName);
+        log.info("🎁 Sending welcome email with trial initialization to: {}", userEmail);
 
-            // Sau đó khởi tạo trial (tách biệt để tránh conflict)
-            // This will be handled by a separate service call after user creation
-            log.info("✅ Welcome email sent, trial will be initialized separately for: {}", userEmail);
+        // Đầu tiên gửi welcome email
+        sendWelcomeEmail(userEmail, userName);
 
-        } catch (Exception e) {
-            log.error("❌ Failed to send welcome email with trial to {}: {}", userEmail, e.getMessage());
-        }
+        // Sau đó khởi tạo trial (tách biệt để tránh conflict)
+        // This will be handled by a separate service call after user creation
+        log.info("✅ Welcome email sent, trial will be initialized separately for: {}", userEmail);
     }
 
     /**
@@ -71,26 +87,26 @@ public class AutomatedEmailService {
      */
     public void sendPaymentSuccessEmail(String userEmail, String userName, String planName,
                                        BigDecimal amount, String transactionId, LocalDateTime nextBillingDate) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("💳 Sending payment success email to: {} for plan: {}", userEmail, planName);
 
             String emailContent = emailTemplateService.generatePaymentSuccessEmail(
                     userName, planName, amount, transactionId, nextBillingDate);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("🎉 Payment Successful - Welcome to Premium!")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Payment success email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send payment success email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Payment success email queued for: {}", userEmail);
     }
 
     /**
@@ -99,6 +115,7 @@ public class AutomatedEmailService {
     public void sendTaskDeadlineReminder(String userEmail, String userName, String taskTitle,
                                        String projectName, LocalDateTime deadline,
                                        String taskDescription, Long taskId, Long projectId) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("⏰ Sending task deadline reminder to: {} for task: {}", userEmail, taskTitle);
 
@@ -106,20 +123,19 @@ public class AutomatedEmailService {
             String emailContent = emailTemplateService.generateTaskDeadlineEmail(
                     userName, taskTitle, projectName, deadline, taskDescription, taskUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("⚠️ Task Deadline Reminder: " + taskTitle)
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Task deadline reminder email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send task deadline reminder to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Task deadline reminder email queued for: {}", userEmail);
     }
 
     /**
@@ -128,6 +144,7 @@ public class AutomatedEmailService {
     public void sendTaskAssignmentEmail(String userEmail, String userName, String taskTitle,
                                       String projectName, String assignedByName, LocalDateTime dueDate,
                                       Long taskId, Long projectId) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("📋 Sending task assignment email to: {} for task: {}", userEmail, taskTitle);
 
@@ -135,20 +152,19 @@ public class AutomatedEmailService {
             String emailContent = emailTemplateService.generateTaskAssignmentEmail(
                     userName, taskTitle, projectName, assignedByName, dueDate, taskUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("New Task Assigned: " + taskTitle + " 📋")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Task assignment email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send task assignment email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Task assignment email queued for: {}", userEmail);
     }
 
     /**
@@ -156,6 +172,7 @@ public class AutomatedEmailService {
      */
     public void sendSubscriptionExpiringEmail(String userEmail, String userName, String planName,
                                             LocalDateTime expirationDate) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("⚠️ Sending subscription expiring email to: {} for plan: {}", userEmail, planName);
 
@@ -163,20 +180,19 @@ public class AutomatedEmailService {
             String emailContent = emailTemplateService.generateSubscriptionExpiringEmail(
                     userName, planName, expirationDate, renewUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("⚠️ Your " + planName + " Subscription is Expiring Soon")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Subscription expiring email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send subscription expiring email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Subscription expiring email queued for: {}", userEmail);
     }
 
     /**
@@ -185,27 +201,26 @@ public class AutomatedEmailService {
     public void sendTaskDeadlineReminder(String userEmail, String userName, String taskTitle,
                                        String taskDescription, LocalDateTime deadline,
                                        String urgencyLevel, String userRole, String customSubject) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("⏰ Sending {} task deadline reminder to: {} for task: {}", urgencyLevel, userEmail, taskTitle);
 
             String emailContent = emailTemplateService.generateTaskDeadlineReminderEmail(
                     userName, taskTitle, taskDescription, deadline, urgencyLevel, userRole);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject(customSubject != null ? customSubject : getDefaultSubject(urgencyLevel, taskTitle))
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Task deadline reminder email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send task deadline reminder to {}: {}", userEmail, e.getMessage());
             throw new RuntimeException("Failed to send task deadline reminder email", e);
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Task deadline reminder email queued for: {}", userEmail);
     }
 
     /**
@@ -233,32 +248,33 @@ public class AutomatedEmailService {
      * 🎯 Gửi email chào mừng khi bắt đầu trial 14 ngày
      */
     public void sendTrialWelcomeEmail(String userEmail, String userName, LocalDateTime trialEndDate, int trialDays) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("🎁 Sending trial welcome email to: {} ({} days trial)", userEmail, trialDays);
 
             String emailContent = emailTemplateService.generateTrialWelcomeEmail(
                     userName, trialEndDate, trialDays, frontendUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("🎉 Chào mừng bạn đến với TaskFlow Premium Trial!")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Trial welcome email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send trial welcome email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Trial welcome email queued for: {}", userEmail);
     }
 
     /**
      * ⚠️ Gửi email cảnh báo trial sắp hết hạn
      */
     public void sendTrialWarningEmail(String userEmail, String userName, LocalDateTime trialEndDate, int daysRemaining) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("⚠️ Sending trial warning email to: {} ({} days remaining)", userEmail, daysRemaining);
 
@@ -269,46 +285,45 @@ public class AutomatedEmailService {
                     ? "⏰ Trial của bạn sẽ hết hạn vào ngày mai!"
                     : String.format("⏰ Trial của bạn còn %d ngày - Đừng bỏ lỡ!", daysRemaining);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject(subject)
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Trial warning email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send trial warning email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Trial warning email queued for: {}", userEmail);
     }
 
     /**
      * 💔 Gửi email thông báo trial đã hết hạn
      */
     public void sendTrialExpiredEmail(String userEmail, String userName, LocalDateTime expiredDate) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("💔 Sending trial expired email to: {}", userEmail);
 
             String emailContent = emailTemplateService.generateTrialExpiredEmail(
                     userName, expiredDate, frontendUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("💔 Trial của bạn đã hết hạn - Tiếp tục với Premium!")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Trial expired email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send trial expired email to {}: {}", userEmail, e.getMessage());
+            return;
         }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Trial expired email queued for: {}", userEmail);
     }
 
     /**
@@ -316,25 +331,38 @@ public class AutomatedEmailService {
      */
     public void sendTrialUpgradeSuccessEmail(String userEmail, String userName, String planName,
                                            BigDecimal amount, LocalDateTime nextBillingDate) {
+        SendEmailRequestDto emailRequest;
         try {
             log.info("🔄 Sending trial upgrade success email to: {} - Plan: {}", userEmail, planName);
 
             String emailContent = emailTemplateService.generateTrialUpgradeSuccessEmail(
                     userName, planName, amount, nextBillingDate, frontendUrl);
 
-            SendEmailRequestDto emailRequest = SendEmailRequestDto.builder()
+            emailRequest = SendEmailRequestDto.builder()
                     .to(Arrays.asList(userEmail))
                     .subject("🎉 Chúc mừng! Bạn đã nâng cấp lên Premium thành công!")
                     .body(emailContent)
                     .isHtml(true)
                     .build();
-
-            // ✅ FIXED: Use SMTP instead of Gmail OAuth2
-            smtpEmailService.sendEmail(emailRequest);
-            log.info("✅ Trial upgrade success email sent successfully to: {}", userEmail);
-
         } catch (Exception e) {
             log.error("❌ Failed to send trial upgrade success email to {}: {}", userEmail, e.getMessage());
+            return;
+        }
+
+        emailOutboxService.enqueue(emailRequest);
+        log.info("✅ Trial upgrade success email queued for: {}", userEmail);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
         }
     }
 }
@@ -0,0 +1,229 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.dtos.EmailDto.SendEmailRequestDto;
+import com.example.taskmanagement_backend.entities.EmailOutbox;
+import com.example.taskmanagement_backend.enums.EmailOutboxStatus;
+import com.example.taskmanagement_backend.repositories.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transactional email outbox.
+ *
+ * {@link #enqueue(SendEmailRequestDto)} joins the caller's transaction, so an email is
+ * persisted if and only if the business change commits, and the caller never waits for SMTP.
+ * {@link EmailOutboxWorker} claims due rows, delivers them and reports back here.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailOutboxService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final EmailOutboxRepository outboxRepository;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.mail.outbox.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    // Delivery metrics for this node
+    private final long startedAt = System.currentTimeMillis();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile double lastDrainPerSecond;
+
+    /**
+     * Queue an email for delivery
+     */
+    @Transactional
+    public EmailOutbox enqueue(SendEmailRequestDto emailRequest) {
+        if (emailRequest.getTo() == null || emailRequest.getTo().isEmpty()) {
+            throw new IllegalArgumentException("Email must have at least one recipient");
+        }
+
+        EmailOutbox email = EmailOutbox.builder()
+                .toRecipients(join(emailRequest.getTo()))
+                .ccRecipients(join(emailRequest.getCc()))
+                .bccRecipients(join(emailRequest.getBcc()))
+                .subject(emailRequest.getSubject())
+                .body(emailRequest.getBody())
+                .html(Boolean.TRUE.equals(emailRequest.getIsHtml()))
+                .recipientDomain(domainOf(emailRequest.getTo().get(0)))
+                .status(EmailOutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build();
+
+        EmailOutbox saved = outboxRepository.save(email);
+        enqueued.incrementAndGet();
+        log.debug("📥 [Outbox] Queued email #{} to {} - Subject: {}", saved.getId(), saved.getToRecipients(), saved.getSubject());
+        return saved;
+    }
+
+    /**
+     * Queue an email in a transaction of its own. For callers whose work must not fail when queueing
+     * does: an insert that joined their transaction would mark it rollback-only even if they caught the error.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public EmailOutbox enqueueSeparately(SendEmailRequestDto emailRequest) {
+        return enqueue(emailRequest);
+    }
+
+    /**
+     * Claim up to {@code limit} due emails for this node (status SENDING)
+     */
+    @Transactional
+    public List<EmailOutbox> claimDue(String nodeId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<EmailOutbox> due = outboxRepository.lockDue(now, limit);
+        for (EmailOutbox email : due) {
+            email.setStatus(EmailOutboxStatus.SENDING);
+            email.setLockedBy(nodeId);
+            email.setLockedAt(now);
+        }
+        return due;
+    }
+
+    @Transactional
+    public int releaseStale(Duration staleAfter) {
+        int released = outboxRepository.releaseStale(EmailOutboxStatus.PENDING, EmailOutboxStatus.SENDING,
+                LocalDateTime.now().minus(staleAfter));
+        if (released > 0) {
+            log.warn("⚠️ [Outbox] Released {} emails left in SENDING by a stopped node", released);
+        }
+        return released;
+    }
+
+    @Transactional
+    public void markSent(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        outboxRepository.markSent(ids, EmailOutboxStatus.SENT, LocalDateTime.now());
+        sent.addAndGet(ids.size());
+    }
+
+    /**
+     * Schedule a retry with exponential backoff, or give up after {@code max-attempts}
+     */
+    @Transactional
+    public void markFailed(Map<Long, String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : outboxRepository.findAllById(errors.keySet())) {
+            int attempts = email.getAttempts() + 1;
+            email.setAttempts(attempts);
+            email.setLastError(truncate(errors.get(email.getId())));
+            email.setLockedBy(null);
+            email.setLockedAt(null);
+
+            if (attempts >= maxAttempts) {
+                email.setStatus(EmailOutboxStatus.FAILED);
+                failed.incrementAndGet();
+                log.error("❌ [Outbox] Giving up on email #{} to {} after {} attempts: {}",
+                        email.getId(), email.getToRecipients(), attempts, email.getLastError());
+            } else {
+                email.setStatus(EmailOutboxStatus.PENDING);
+                email.setNextAttemptAt(now.plus(backoff(attempts)));
+                retried.incrementAndGet();
+                log.warn("🔁 [Outbox] Email #{} failed (attempt {}), retrying at {}",
+                        email.getId(), attempts, email.getNextAttemptAt());
+            }
+        }
+    }
+
+    @Transactional
+    public int purgeSent(Duration retention) {
+        return outboxRepository.deleteSentBefore(EmailOutboxStatus.SENT, LocalDateTime.now().minus(retention));
+    }
+
+    public SendEmailRequestDto toRequest(EmailOutbox email) {
+        return SendEmailRequestDto.builder()
+                .to(split(email.getToRecipients()))
+                .cc(split(email.getCcRecipients()))
+                .bcc(split(email.getBccRecipients()))
+                .subject(email.getSubject())
+                .body(email.getBody())
+                .isHtml(email.isHtml())
+                .build();
+    }
+
+    public void recordDrain(int batchCount, int delivered, long durationMs) {
+        batches.addAndGet(batchCount);
+        if (delivered > 0 && durationMs > 0) {
+            lastDrainPerSecond = delivered * 1000.0 / durationMs;
+        }
+    }
+
+    /**
+     * Throughput and backlog of the outbox
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStats() {
+        double uptimeSeconds = Math.max(1, (System.currentTimeMillis() - startedAt) / 1000.0);
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.get());
+        stats.put("sent", sent.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("smtpBatches", batches.get());
+        stats.put("avgSentPerSecond", sent.get() / uptimeSeconds);
+        stats.put("lastDrainSentPerSecond", lastDrainPerSecond);
+        stats.put("pending", outboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+        stats.put("sending", outboxRepository.countByStatus(EmailOutboxStatus.SENDING));
+        stats.put("deadLettered", outboxRepository.countByStatus(EmailOutboxStatus.FAILED));
+        return stats;
+    }
+
+    private Duration backoff(int attempts) {
+        long seconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so failed batches don't retry in lockstep
+        long jitter = ThreadLocalRandom.current().nextLong(seconds / 5 + 1);
+        return Duration.ofSeconds(seconds + jitter);
+    }
+
+    private static String domainOf(String address) {
+        int at = address.lastIndexOf('@');
+        return at >= 0 ? address.substring(at + 1).trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static String join(List<String> addresses) {
+        return addresses == null || addresses.isEmpty() ? null : String.join(",", addresses);
+    }
+
+    private static List<String> split(String addresses) {
+        if (addresses == null || addresses.isBlank()) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(Arrays.asList(addresses.split(",")));
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.entities.EmailOutbox;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobCoordinator;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the email outbox.
+ *
+ * Runs on every node; claims use SKIP LOCKED so nodes never deliver the same row.
+ * Claimed emails are grouped by recipient domain and each group is sent on the worker
+ * pool in chunks of {@code messages-per-connection}, one SMTP connection per chunk.
+ * A shared slot counter keeps the node under {@code app.mail.outbox.per-second}.
+ */
+@Slf4j
+@Service
+public class EmailOutboxWorker {
+
+    private final EmailOutboxService outboxService;
+    private final SmtpEmailService smtpEmailService;
+    private final ClusterJobCoordinator clusterJobCoordinator;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final int batchSize;
+    private final int messagesPerConnection;
+    private final Duration staleAfter;
+    private final Duration retention;
+    private final long minIntervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    public EmailOutboxWorker(EmailOutboxService outboxService,
+                             SmtpEmailService smtpEmailService,
+                             ClusterJobCoordinator clusterJobCoordinator,
+                             @Value("${app.mail.outbox.threads:4}") int threads,
+                             @Value("${app.mail.outbox.batch-size:200}") int batchSize,
+                             @Value("${app.mail.outbox.messages-per-connection:50}") int messagesPerConnection,
+                             @Value("${app.mail.outbox.per-second:10}") double perSecond,
+                             @Value("${app.mail.outbox.stale-after-seconds:300}") long staleAfterSeconds,
+                             @Value("${app.mail.outbox.retention-days:7}") long retentionDays) {
+        this.outboxService = outboxService;
+        this.smtpEmailService = smtpEmailService;
+        this.clusterJobCoordinator = clusterJobCoordinator;
+        this.batchSize = batchSize;
+        this.messagesPerConnection = messagesPerConnection;
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.minIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("EmailOutbox-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}", initialDelay = 15000)
+    public void drain() {
+        long startTime = System.currentTimeMillis();
+        int delivered = 0;
+        int smtpBatches = 0;
+
+        try {
+            outboxService.releaseStale(staleAfter);
+
+            List<EmailOutbox> claimed;
+            while (!(claimed = outboxService.claimDue(clusterJobCoordinator.getNodeId(), batchSize)).isEmpty()) {
+                DeliveryResult result = deliver(claimed);
+                delivered += result.sentIds.size();
+                smtpBatches += result.smtpBatches.get();
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ [Outbox] Drain failed: {}", e.getMessage(), e);
+        }
+
+        if (smtpBatches > 0) {
+            long durationMs = System.currentTimeMillis() - startTime;
+            outboxService.recordDrain(smtpBatches, delivered, durationMs);
+            log.info("📤 [Outbox] Delivered {} emails in {} SMTP batches ({} ms)", delivered, smtpBatches, durationMs);
+        }
+    }
+
+    /**
+     * Remove delivered emails past the retention period
+     */
+    @Scheduled(cron = "0 15 4 * * *")
+    @ClusterJob(name = "email-outbox-purge", leaseSeconds = 600)
+    public int purgeSent() {
+        int purged = outboxService.purgeSent(retention);
+        log.info("🧹 [Outbox] Purged {} delivered emails older than {} days", purged, retention.toDays());
+        return purged;
+    }
+
+    private DeliveryResult deliver(List<EmailOutbox> claimed) {
+        Map<String, List<EmailOutbox>> byDomain = claimed.stream()
+                .collect(Collectors.groupingBy(email -> Objects.toString(email.getRecipientDomain(), ""),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        DeliveryResult result = new DeliveryResult();
+        List<CompletableFuture<Void>> groups = new ArrayList<>();
+        for (List<EmailOutbox> domainEmails : byDomain.values()) {
+            groups.add(CompletableFuture.runAsync(() -> sendDomain(domainEmails, result), executor));
+        }
+        CompletableFuture.allOf(groups.toArray(new CompletableFuture[0])).join();
+
+        outboxService.markSent(new ArrayList<>(result.sentIds));
+        outboxService.markFailed(result.errors);
+        return result;
+    }
+
+    private void sendDomain(List<EmailOutbox> domainEmails, DeliveryResult result) {
+        for (int from = 0; from < domainEmails.size(); from += messagesPerConnection) {
+            List<EmailOutbox> chunk = domainEmails.subList(from, Math.min(from + messagesPerConnection, domainEmails.size()));
+            try {
+                awaitSlots(chunk.size());
+                Map<Integer, Exception> failures = smtpEmailService.sendBatch(
+                        chunk.stream().map(outboxService::toRequest).toList());
+                result.smtpBatches.incrementAndGet();
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    Exception failure = failures.get(i);
+                    if (failure == null) {
+                        result.sentIds.add(chunk.get(i).getId());
+                    } else {
+                        result.errors.put(chunk.get(i).getId(), String.valueOf(failure.getMessage()));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                chunk.forEach(email -> result.errors.put(email.getId(), "Interrupted before delivery"));
+            } catch (Exception e) {
+                chunk.forEach(email -> result.errors.put(email.getId(), String.valueOf(e.getMessage())));
+            }
+        }
+    }
+
+    private void awaitSlots(int messages) throws InterruptedException {
+        long slot = nextSlot.getAndUpdate(previous -> Math.max(previous, System.nanoTime()) + minIntervalNanos * messages);
+        long waitNanos = slot - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static class DeliveryResult {
+        private final Queue<Long> sentIds = new ConcurrentLinkedQueue<>();
+        private final Map<Long, String> errors = new ConcurrentHashMap<>();
+        private final AtomicInteger smtpBatches = new AtomicInteger();
+    }
+}
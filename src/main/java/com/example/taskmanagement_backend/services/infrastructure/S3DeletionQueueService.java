@@ -0,0 +1,237 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.entities.S3Deletion;
+import com.example.taskmanagement_backend.enums.S3DeletionStatus;
+import com.example.taskmanagement_backend.repositories.S3DeletionRepository;
+import com.example.taskmanagement_backend.services.PresignedUrlCache;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable S3 deletion queue.
+ *
+ * {@link #enqueue(Collection, String)} joins the caller's transaction, so an object is queued
+ * for deletion if and only if the entity delete commits, and the caller never waits for S3.
+ * Callers must let a failed enqueue propagate: it has already marked their transaction
+ * rollback-only, so catching it only turns it into an UnexpectedRollbackException at commit.
+ * {@link S3DeletionWorker} claims due rows, removes them with multi-object DeleteObjects calls
+ * and reports back here.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class S3DeletionQueueService {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final S3DeletionRepository deletionRepository;
+    private final PresignedUrlCache presignedUrlCache;
+    private final ThumbnailService thumbnailService;
+
+    @Value("${app.s3.deletion.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.s3.deletion.retry-base-seconds:30}")
+    private long retryBaseSeconds;
+
+    @Value("${app.s3.deletion.retry-max-seconds:3600}")
+    private long retryMaxSeconds;
+
+    // Deletion metrics for this node
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong deleteCalls = new AtomicLong();
+    private final AtomicLong orphansFound = new AtomicLong();
+    private final AtomicLong orphansQueued = new AtomicLong();
+
+    /**
+     * Queue objects for deletion together with their image variants; blank keys are ignored and duplicates collapsed
+     */
+    @Transactional
+    public int enqueue(Collection<String> objectKeys, String source) {
+        if (objectKeys == null || objectKeys.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (String objectKey : objectKeys) {
+            keys.add(objectKey);
+            // Variants that were never generated are absent in S3, which DeleteObjects counts as deleted
+            keys.addAll(thumbnailService.variantKeys(objectKey == null ? null : objectKey.trim()));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<S3Deletion> deletions = new ArrayList<>();
+        for (String objectKey : keys) {
+            if (objectKey == null || objectKey.isBlank()) {
+                continue;
+            }
+            deletions.add(S3Deletion.builder()
+                    .objectKey(objectKey.trim())
+                    .source(source)
+                    .status(S3DeletionStatus.PENDING)
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .build());
+            // The object is going away; stop handing out URLs for it right now
+            presignedUrlCache.invalidate(objectKey.trim());
+        }
+        if (deletions.isEmpty()) {
+            return 0;
+        }
+
+        deletionRepository.saveAll(deletions);
+        enqueued.addAndGet(deletions.size());
+        log.debug("📥 [S3 deletion] Queued {} objects from {}", deletions.size(), source);
+        return deletions.size();
+    }
+
+    @Transactional
+    public int enqueue(String objectKey, String source) {
+        return enqueue(objectKey == null ? List.of() : List.of(objectKey), source);
+    }
+
+    /**
+     * Claim up to {@code limit} due deletions for this node (status DELETING)
+     */
+    @Transactional
+    public List<S3Deletion> claimDue(String nodeId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<S3Deletion> due = deletionRepository.lockDue(now, limit);
+        for (S3Deletion deletion : due) {
+            deletion.setStatus(S3DeletionStatus.DELETING);
+            deletion.setLockedBy(nodeId);
+            deletion.setLockedAt(now);
+        }
+        return due;
+    }
+
+    @Transactional
+    public int releaseStale(Duration staleAfter) {
+        int released = deletionRepository.releaseStale(S3DeletionStatus.PENDING, S3DeletionStatus.DELETING,
+                LocalDateTime.now().minus(staleAfter));
+        if (released > 0) {
+            log.warn("⚠️ [S3 deletion] Released {} deletions left in DELETING by a stopped node", released);
+        }
+        return released;
+    }
+
+    @Transactional
+    public void markDeleted(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        deletionRepository.markDeleted(ids, S3DeletionStatus.DELETED, LocalDateTime.now());
+        deleted.addAndGet(ids.size());
+    }
+
+    /**
+     * Schedule a retry with exponential backoff, or give up after {@code max-attempts}
+     */
+    @Transactional
+    public void markFailed(Map<Long, String> errors) {
+        if (errors.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (S3Deletion deletion : deletionRepository.findAllById(errors.keySet())) {
+            int attempts = deletion.getAttempts() + 1;
+            deletion.setAttempts(attempts);
+            deletion.setLastError(truncate(errors.get(deletion.getId())));
+            deletion.setLockedBy(null);
+            deletion.setLockedAt(null);
+
+            if (attempts >= maxAttempts) {
+                deletion.setStatus(S3DeletionStatus.FAILED);
+                failed.incrementAndGet();
+                log.error("❌ [S3 deletion] Giving up on {} after {} attempts: {}",
+                        deletion.getObjectKey(), attempts, deletion.getLastError());
+            } else {
+                deletion.setStatus(S3DeletionStatus.PENDING);
+                deletion.setNextAttemptAt(now.plus(backoff(attempts)));
+                retried.incrementAndGet();
+            }
+        }
+    }
+
+    @Transactional
+    public int purgeDeleted(Duration retention) {
+        return deletionRepository.deleteDeletedBefore(S3DeletionStatus.DELETED, LocalDateTime.now().minus(retention));
+    }
+
+    /**
+     * Keys of this page that are still referenced by a task, attachment, post or message, or already queued
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findReferencedKeys(Collection<String> objectKeys) {
+        return objectKeys.isEmpty() ? new HashSet<>() : new HashSet<>(deletionRepository.findReferencedKeys(objectKeys));
+    }
+
+    /**
+     * Raw key lists that cannot be matched with IN (comma-separated task files, message URLs)
+     */
+    @Transactional(readOnly = true)
+    public List<String> findTaskFileLists() {
+        return deletionRepository.findTaskFileLists();
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findMessageFileUrls() {
+        return deletionRepository.findMessageFileUrls();
+    }
+
+    public void recordDeleteCall() {
+        deleteCalls.incrementAndGet();
+    }
+
+    public void recordOrphans(int found, int queued) {
+        orphansFound.addAndGet(found);
+        orphansQueued.addAndGet(queued);
+    }
+
+    /**
+     * Throughput and backlog of the deletion queue
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enqueued", enqueued.get());
+        stats.put("deleted", deleted.get());
+        stats.put("retried", retried.get());
+        stats.put("failed", failed.get());
+        stats.put("deleteObjectsCalls", deleteCalls.get());
+        stats.put("avgKeysPerCall", deleteCalls.get() > 0 ? (double) deleted.get() / deleteCalls.get() : 0.0);
+        stats.put("orphansFound", orphansFound.get());
+        stats.put("orphansQueued", orphansQueued.get());
+        stats.put("pending", deletionRepository.countByStatus(S3DeletionStatus.PENDING));
+        stats.put("deleting", deletionRepository.countByStatus(S3DeletionStatus.DELETING));
+        stats.put("deadLettered", deletionRepository.countByStatus(S3DeletionStatus.FAILED));
+        return stats;
+    }
+
+    private Duration backoff(int attempts) {
+        long seconds = Math.min(retryMaxSeconds, retryBaseSeconds << Math.min(attempts - 1, 20));
+        // Up to 20% jitter so failed batches don't retry in lockstep
+        long jitter = ThreadLocalRandom.current().nextLong(seconds / 5 + 1);
+        return Duration.ofSeconds(seconds + jitter);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
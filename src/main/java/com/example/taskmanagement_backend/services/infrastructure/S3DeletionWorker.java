@@ -0,0 +1,218 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.entities.S3Deletion;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobCoordinator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Drains the S3 deletion queue and reconciles orphaned objects.
+ *
+ * Runs on every node; claims use SKIP LOCKED so nodes never delete the same row twice.
+ * Each claim of up to 1000 rows becomes a single quiet DeleteObjects call; per-key errors
+ * from S3 are retried with backoff. Keys that no longer exist count as deleted.
+ *
+ * The nightly reconciliation lists the configured prefixes and reports objects older than
+ * the grace period that no task, attachment, post or message references. They are only
+ * queued for deletion when {@code app.s3.deletion.reconcile-delete-orphans} is enabled.
+ */
+@Slf4j
+@Service
+public class S3DeletionWorker {
+
+    // DeleteObjects accepts at most 1000 keys per request
+    private static final int MAX_KEYS_PER_CALL = 1000;
+
+    private final S3DeletionQueueService queueService;
+    private final S3Client s3Client;
+    private final ClusterJobCoordinator clusterJobCoordinator;
+
+    private final String bucketName;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Duration retention;
+    private final List<String> reconcilePrefixes;
+    private final Duration orphanGrace;
+    private final boolean deleteOrphans;
+
+    public S3DeletionWorker(S3DeletionQueueService queueService,
+                            S3Client s3Client,
+                            ClusterJobCoordinator clusterJobCoordinator,
+                            @Value("${aws.s3.bucket-name}") String bucketName,
+                            @Value("${app.s3.deletion.batch-size:1000}") int batchSize,
+                            @Value("${app.s3.deletion.stale-after-seconds:300}") long staleAfterSeconds,
+                            @Value("${app.s3.deletion.retention-days:7}") long retentionDays,
+                            @Value("${app.s3.deletion.reconcile-prefixes:task-files/}") String reconcilePrefixes,
+                            @Value("${app.s3.deletion.reconcile-grace-hours:24}") long orphanGraceHours,
+                            @Value("${app.s3.deletion.reconcile-delete-orphans:false}") boolean deleteOrphans) {
+        this.queueService = queueService;
+        this.s3Client = s3Client;
+        this.clusterJobCoordinator = clusterJobCoordinator;
+        this.bucketName = bucketName;
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_KEYS_PER_CALL));
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.reconcilePrefixes = Arrays.stream(reconcilePrefixes.split(",")).map(String::trim).toList();
+        this.orphanGrace = Duration.ofHours(orphanGraceHours);
+        this.deleteOrphans = deleteOrphans;
+    }
+
+    @Scheduled(fixedDelayString = "${app.s3.deletion.poll-interval-ms:5000}", initialDelay = 20000)
+    public void drain() {
+        long startTime = System.currentTimeMillis();
+        int deleted = 0;
+        int calls = 0;
+
+        try {
+            queueService.releaseStale(staleAfter);
+
+            List<S3Deletion> claimed;
+            while (!(claimed = queueService.claimDue(clusterJobCoordinator.getNodeId(), batchSize)).isEmpty()) {
+                deleted += deleteBatch(claimed);
+                calls++;
+                if (claimed.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("❌ [S3 deletion] Drain failed: {}", e.getMessage(), e);
+        }
+
+        if (calls > 0) {
+            log.info("🗑️ [S3 deletion] Deleted {} objects in {} DeleteObjects calls ({} ms)",
+                    deleted, calls, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * Remove completed deletions past the retention period
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    @ClusterJob(name = "s3-deletion-purge", leaseSeconds = 600)
+    public int purgeDeleted() {
+        int purged = queueService.purgeDeleted(retention);
+        log.info("🧹 [S3 deletion] Purged {} completed deletions older than {} days", purged, retention.toDays());
+        return purged;
+    }
+
+    /**
+     * Find objects that nothing references any more (e.g. left behind by deletes that predate the queue)
+     */
+    @Scheduled(cron = "${app.s3.deletion.reconcile-cron:0 45 3 * * *}")
+    @ClusterJob(name = "s3-orphan-reconcile", leaseSeconds = 1800)
+    public int reconcileOrphans() {
+        ClusterJobContext jobContext = ClusterJobContext.current();
+        Instant cutoff = Instant.now().minus(orphanGrace);
+        Set<String> listedKeys = keysReferencedByLists();
+        int found = 0;
+        int queued = 0;
+
+        for (String prefix : reconcilePrefixes) {
+            ListObjectsV2Request request = ListObjectsV2Request.builder()
+                    .bucket(bucketName)
+                    .prefix(prefix)
+                    .maxKeys(MAX_KEYS_PER_CALL)
+                    .build();
+
+            for (ListObjectsV2Response page : s3Client.listObjectsV2Paginator(request)) {
+                List<String> candidates = page.contents().stream()
+                        .filter(object -> object.lastModified().isBefore(cutoff))
+                        .map(S3Object::key)
+                        .filter(key -> !listedKeys.contains(key))
+                        .toList();
+                Set<String> referenced = queueService.findReferencedKeys(candidates);
+                List<String> orphans = candidates.stream().filter(key -> !referenced.contains(key)).toList();
+
+                found += orphans.size();
+                if (deleteOrphans && !orphans.isEmpty()) {
+                    queued += queueService.enqueue(orphans, "reconcile");
+                }
+                jobContext.addRowsProcessed(page.contents().size());
+                jobContext.checkpoint();
+            }
+        }
+
+        queueService.recordOrphans(found, queued);
+        log.info("🔍 [S3 deletion] Reconciliation found {} orphaned objects older than {}h, queued {}",
+                found, orphanGrace.toHours(), queued);
+        return found;
+    }
+
+    private int deleteBatch(List<S3Deletion> claimed) {
+        Map<String, List<Long>> idsByKey = new LinkedHashMap<>();
+        for (S3Deletion deletion : claimed) {
+            idsByKey.computeIfAbsent(deletion.getObjectKey(), key -> new ArrayList<>()).add(deletion.getId());
+        }
+
+        Map<Long, String> errors = new HashMap<>();
+        try {
+            DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder()
+                            .objects(idsByKey.keySet().stream()
+                                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                                    .toList())
+                            // Quiet mode: the response only lists the keys that failed
+                            .quiet(true)
+                            .build())
+                    .build());
+            queueService.recordDeleteCall();
+
+            for (S3Error error : response.errors()) {
+                for (Long id : idsByKey.getOrDefault(error.key(), List.of())) {
+                    errors.put(id, error.code() + ": " + error.message());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ [S3 deletion] DeleteObjects call for {} keys failed: {}", idsByKey.size(), e.getMessage());
+            claimed.forEach(deletion -> errors.put(deletion.getId(), String.valueOf(e.getMessage())));
+        }
+
+        List<Long> deletedIds = claimed.stream()
+                .map(S3Deletion::getId)
+                .filter(id -> !errors.containsKey(id))
+                .toList();
+        queueService.markDeleted(deletedIds);
+        queueService.markFailed(errors);
+        return deletedIds.size();
+    }
+
+    /**
+     * Keys held in columns that cannot be matched with IN: comma-separated task file lists
+     * and chat messages that stored a presigned URL instead of the key
+     */
+    private Set<String> keysReferencedByLists() {
+        Set<String> keys = new HashSet<>();
+        for (String fileList : queueService.findTaskFileLists()) {
+            for (String key : fileList.split(",")) {
+                if (!key.isBlank()) {
+                    keys.add(key.trim());
+                }
+            }
+        }
+        for (String fileUrl : queueService.findMessageFileUrls()) {
+            try {
+                String path = URLDecoder.decode(URI.create(fileUrl).getRawPath(), StandardCharsets.UTF_8);
+                path = path.startsWith("/") ? path.substring(1) : path;
+                // Path-style URLs (local stand-ins) carry the bucket as first segment
+                keys.add(path.startsWith(bucketName + "/") ? path.substring(bucketName.length() + 1) : path);
+            } catch (Exception e) {
+                log.debug("Skipping unparseable message file URL: {}", fileUrl);
+            }
+        }
+        return keys;
+    }
+}
@@ -5,14 +5,16 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.*;
 
 /**
  * SMTP Email Service using Spring Mail with Gmail App Password
@@ -36,31 +38,7 @@ public class SmtpEmailService {
             log.info("📧 [SMTP] Sending email to: {} - Subject: {}",
                     String.join(", ", emailRequest.getTo()), emailRequest.getSubject());
 
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(
-                message,
-                MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                StandardCharsets.UTF_8.name()
-            );
-
-            // Set email properties
-            helper.setFrom(fromEmail, "TaskFlow System");
-            helper.setTo(emailRequest.getTo().toArray(new String[0]));
-            helper.setSubject(emailRequest.getSubject());
-
-            // ✅ FIXED: Use getIsHtml() for Boolean wrapper type
-            boolean isHtml = emailRequest.getIsHtml() != null ? emailRequest.getIsHtml() : false;
-            helper.setText(emailRequest.getBody(), isHtml);
-
-            // Add CC if provided
-            if (emailRequest.getCc() != null && !emailRequest.getCc().isEmpty()) {
-                helper.setCc(emailRequest.getCc().toArray(new String[0]));
-            }
-
-            // Add BCC if provided
-            if (emailRequest.getBcc() != null && !emailRequest.getBcc().isEmpty()) {
-                helper.setBcc(emailRequest.getBcc().toArray(new String[0]));
-            }
+            MimeMessage message = buildMessage(emailRequest);
 
             // Send email
             mailSender.send(message);
@@ -82,6 +60,77 @@ public class SmtpEmailService {
         }
     }
 
+    /**
+     * Send several emails over a single SMTP connection.
+     *
+     * @return failures by index in {@code emailRequests}; empty when everything was accepted
+     */
+    public Map<Integer, Exception> sendBatch(List<SendEmailRequestDto> emailRequests) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Integer> indexes = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>();
+
+        for (int i = 0; i < emailRequests.size(); i++) {
+            try {
+                MimeMessage message = buildMessage(emailRequests.get(i));
+                indexes.put(message, i);
+                messages.add(message);
+            } catch (Exception e) {
+                failures.put(i, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        try {
+            // JavaMailSenderImpl sends the whole array through one Transport
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.forEach(message -> failures.put(indexes.get(message), e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(indexes.get(message), cause));
+            }
+        } catch (MailException e) {
+            messages.forEach(message -> failures.put(indexes.get(message), e));
+        }
+
+        log.info("📧 [SMTP] Batch of {} emails sent over one connection, {} failed",
+                emailRequests.size(), failures.size());
+        return failures;
+    }
+
+    private MimeMessage buildMessage(SendEmailRequestDto emailRequest) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(
+            message,
+            MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
+            StandardCharsets.UTF_8.name()
+        );
+
+        // Set email properties
+        helper.setFrom(fromEmail, "TaskFlow System");
+        helper.setTo(emailRequest.getTo().toArray(new String[0]));
+        helper.setSubject(emailRequest.getSubject());
+
+        // ✅ FIXED: Use getIsHtml() for Boolean wrapper type
+        boolean isHtml = emailRequest.getIsHtml() != null ? emailRequest.getIsHtml() : false;
+        helper.setText(emailRequest.getBody(), isHtml);
+
+        // Add CC if provided
+        if (emailRequest.getCc() != null && !emailRequest.getCc().isEmpty()) {
+            helper.setCc(emailRequest.getCc().toArray(new String[0]));
+        }
+
+        // Add BCC if provided
+        if (emailRequest.getBcc() != null && !emailRequest.getBcc().isEmpty()) {
+            helper.setBcc(emailRequest.getBcc().toArray(new String[0]));
+        }
+
+        return message;
+    }
+
     /**
      * Send simple text email
      */
@@ -1,5 +1,6 @@
 package com.example.taskmanagement_backend.services.infrastructure;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -20,6 +21,7 @@ public class TokenCleanupService {
      * Runs at minute 0 of every hour
      */
     @Scheduled(cron = "0 0 * * * *")
+    @ClusterJob(name = "token-cleanup-expired")
     @Transactional
     public void cleanupExpiredTokens() {
         log.info("Starting scheduled cleanup of expired refresh tokens");
@@ -37,6 +39,7 @@ public class TokenCleanupService {
      * Remove tokens older than 30 days regardless of status
      */
     @Scheduled(cron = "0 0 2 * * *")
+    @ClusterJob(name = "token-cleanup-old")
     @Transactional
     public void cleanupOldTokens() {
         log.info("Starting scheduled cleanup of old refresh tokens (30+ days)");
@@ -55,6 +58,7 @@ public class TokenCleanupService {
      * Keep only the 5 most recent tokens per user
      */
     @Scheduled(cron = "0 0 3 * * *")
+    @ClusterJob(name = "token-limit-per-user")
     @Transactional
     public void limitTokensPerUser() {
         log.info("Starting token limitation per user (max 5 tokens)");
@@ -0,0 +1,508 @@
+package com.example.taskmanagement_backend.services.media;
+
+import com.example.taskmanagement_backend.repositories.MessageRepository;
+import com.example.taskmanagement_backend.repositories.PostAttachmentRepository;
+import com.example.taskmanagement_backend.repositories.TaskAttachmentRepository;
+import com.example.taskmanagement_backend.services.PresignedUrlCache;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates downscaled JPEG variants of uploaded images and picks the variant list views serve.
+ *
+ * Generation runs after the attachment row commits, on a small bounded pool so image decoding never
+ * competes with request threads. Each variant is stored at {@code thumbnails/<size>/<original key>.jpg}
+ * and recorded on the row as {@code "size:bytes,..."}; an empty value means the original is already
+ * smaller than every variant. Rows without a value (not processed yet, rejected or failed) are served
+ * the original, so a missing thumbnail never breaks a view.
+ *
+ * An attachment deleted while its variants are generated is not given any: generation is skipped when
+ * the row is already gone, and variants written before the delete was noticed are queued for deletion,
+ * since the delete may have queued (and the worker removed) their keys before they existed.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    public static final String KEY_PREFIX = "thumbnails/";
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp", "webp");
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    public enum Target { TASK_ATTACHMENT, POST_ATTACHMENT, MESSAGE }
+
+    private final S3Client s3Client;
+    private final PresignedUrlCache presignedUrlCache;
+    private final TaskAttachmentRepository taskAttachmentRepository;
+    private final PostAttachmentRepository postAttachmentRepository;
+    private final MessageRepository messageRepository;
+    // Lazy: the deletion queue itself asks this service for variant keys
+    private final ObjectProvider<S3DeletionQueueService> deletionQueue;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final String bucketName;
+    private final boolean enabled;
+    private final List<Integer> sizes;
+    private final int listSize;
+    private final long maxSourceBytes;
+    private final long maxSourcePixels;
+    private final float jpegQuality;
+    private final Duration urlValidity;
+
+    // Thumbnail metrics for this node
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong variantsStored = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong orphaned = new AtomicLong();
+    private final AtomicLong pagesServed = new AtomicLong();
+    private final AtomicLong originalBytes = new AtomicLong();
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    public ThumbnailService(S3Client s3Client,
+                            PresignedUrlCache presignedUrlCache,
+                            TaskAttachmentRepository taskAttachmentRepository,
+                            PostAttachmentRepository postAttachmentRepository,
+                            MessageRepository messageRepository,
+                            ObjectProvider<S3DeletionQueueService> deletionQueue,
+                            @Value("${aws.s3.bucket-name}") String bucketName,
+                            @Value("${app.thumbnails.enabled:true}") boolean enabled,
+                            @Value("${app.thumbnails.sizes:64,256,1024}") String sizes,
+                            @Value("${app.thumbnails.list-size:256}") int listSize,
+                            @Value("${app.thumbnails.max-source-bytes:26214400}") long maxSourceBytes,
+                            @Value("${app.thumbnails.max-source-pixels:40000000}") long maxSourcePixels,
+                            @Value("${app.thumbnails.jpeg-quality:0.8}") float jpegQuality,
+                            @Value("${app.thumbnails.url-validity-minutes:60}") long urlValidityMinutes,
+                            @Value("${app.thumbnails.threads:2}") int threads,
+                            @Value("${app.thumbnails.queue-capacity:200}") int queueCapacity) {
+        this.s3Client = s3Client;
+        this.presignedUrlCache = presignedUrlCache;
+        this.taskAttachmentRepository = taskAttachmentRepository;
+        this.postAttachmentRepository = postAttachmentRepository;
+        this.messageRepository = messageRepository;
+        this.deletionQueue = deletionQueue;
+        this.bucketName = bucketName;
+        this.enabled = enabled;
+        this.sizes = Arrays.stream(sizes.split(","))
+                .map(String::trim)
+                .filter(size -> !size.isEmpty())
+                .map(Integer::parseInt)
+                .filter(size -> size > 0)
+                .distinct()
+                .sorted()
+                .toList();
+        this.listSize = listSize;
+        this.maxSourceBytes = maxSourceBytes;
+        this.maxSourcePixels = maxSourcePixels;
+        this.jpegQuality = jpegQuality;
+        this.urlValidity = Duration.ofMinutes(urlValidityMinutes);
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // Bounded: under an upload burst new images are served at original size instead of piling up decodes
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("Thumbnail-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    /**
+     * Generate the variants of an uploaded image once the current transaction commits; non-images are ignored
+     */
+    public void generateAfterCommit(Target target, Long id, String objectKey, String contentType) {
+        if (!enabled || id == null || !isImage(objectKey, contentType)) {
+            return;
+        }
+
+        Runnable submit = () -> {
+            try {
+                executor.execute(() -> generate(target, id, objectKey));
+            } catch (TaskRejectedException e) {
+                rejected.incrementAndGet();
+                log.warn("⚠️ [Thumbnails] Queue full, {} {} will be served at original size", target, id);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Download, decode and downscale one image, store its variants and record them on the row
+     *
+     * @return the recorded variant list, or null when the image was skipped or failed
+     */
+    String generate(Target target, Long id, String objectKey) {
+        long startTime = System.currentTimeMillis();
+        try {
+            if (!exists(target, id)) {
+                skipped.incrementAndGet();
+                log.debug("Skipping thumbnails of {}: {} {} was deleted", objectKey, target, id);
+                return null;
+            }
+            BufferedImage source = readImage(objectKey);
+            if (source == null) {
+                skipped.incrementAndGet();
+                return null;
+            }
+
+            List<String> variants = new ArrayList<>();
+            List<String> storedKeys = new ArrayList<>();
+            int longestSide = Math.max(source.getWidth(), source.getHeight());
+            for (int size : sizes) {
+                // Never upscale: a variant must be smaller than what it replaces
+                if (size >= longestSide) {
+                    break;
+                }
+                byte[] jpeg = encodeJpeg(scale(source, size));
+                s3Client.putObject(PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(variantKey(objectKey, size))
+                                .contentType("image/jpeg")
+                                .contentLength((long) jpeg.length)
+                                .cacheControl(CACHE_CONTROL)
+                                .build(),
+                        RequestBody.fromBytes(jpeg));
+                variants.add(size + ":" + jpeg.length);
+                storedKeys.add(variantKey(objectKey, size));
+            }
+
+            String thumbnails = String.join(",", variants);
+            if (record(target, id, thumbnails) == 0) {
+                // Deleted while we were generating
+                orphaned.incrementAndGet();
+                if (!storedKeys.isEmpty()) {
+                    deletionQueue.getObject().enqueue(storedKeys, "thumbnails");
+                }
+                log.debug("🗑️ [Thumbnails] {} {} was deleted during generation, queued {} variants for deletion",
+                        target, id, storedKeys.size());
+                return null;
+            }
+            generated.incrementAndGet();
+            variantsStored.addAndGet(variants.size());
+            log.debug("🖼️ [Thumbnails] {} {}: {} variants of {}x{} in {} ms", target, id, variants.size(),
+                    source.getWidth(), source.getHeight(), System.currentTimeMillis() - startTime);
+            return thumbnails;
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("⚠️ [Thumbnails] Could not generate variants of {}: {}", objectKey, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Smallest recorded variant at least as large as the list display size, or null to serve the original
+     */
+    public Variant listVariant(String objectKey, String thumbnails) {
+        return selectVariant(objectKey, thumbnails, listSize);
+    }
+
+    Variant selectVariant(String objectKey, String thumbnails, int displaySize) {
+        if (objectKey == null || thumbnails == null || thumbnails.isBlank()) {
+            return null;
+        }
+        Variant best = null;
+        for (String entry : thumbnails.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                continue;
+            }
+            int size = Integer.parseInt(parts[0]);
+            if (size >= displaySize && (best == null || size < best.getSize())) {
+                best = new Variant(size, variantKey(objectKey, size), Long.parseLong(parts[1]));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Presigned URL of the list variant, or null when the original should be served
+     */
+    public String listUrl(String objectKey, String thumbnails) {
+        Variant variant = listVariant(objectKey, thumbnails);
+        return variant != null ? presignedUrlCache.getDownloadUrl(variant.getKey(), urlValidity) : null;
+    }
+
+    /**
+     * Presigned list-variant URLs for a page of images in one batch, keyed by original object key
+     */
+    public Map<String, String> listUrls(Map<String, String> thumbnailsByKey) {
+        Map<String, String> variantKeys = new LinkedHashMap<>();
+        thumbnailsByKey.forEach((objectKey, thumbnails) -> {
+            Variant variant = listVariant(objectKey, thumbnails);
+            if (variant != null) {
+                variantKeys.put(objectKey, variant.getKey());
+            }
+        });
+        if (variantKeys.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<String, String> urls = presignedUrlCache.getDownloadUrls(variantKeys.values(), urlValidity);
+        Map<String, String> result = new HashMap<>();
+        variantKeys.forEach((objectKey, variantKey) -> {
+            String url = urls.get(variantKey);
+            if (url != null) {
+                result.put(objectKey, url);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Every key a variant of this object may be stored under, for deleting them with the original
+     */
+    public List<String> variantKeys(String objectKey) {
+        if (objectKey == null || objectKey.startsWith(KEY_PREFIX) || !isImage(objectKey, null)) {
+            return List.of();
+        }
+        return sizes.stream().map(size -> variantKey(objectKey, size)).toList();
+    }
+
+    /**
+     * Record the image bytes of a served page: at original size vs. as actually served
+     */
+    public void recordPage(long pageOriginalBytes, long pageServedBytes) {
+        pagesServed.incrementAndGet();
+        originalBytes.addAndGet(pageOriginalBytes);
+        servedBytes.addAndGet(pageServedBytes);
+    }
+
+    /**
+     * Generation outcomes and the image bytes list views saved
+     */
+    public Map<String, Object> getStats() {
+        long pages = pagesServed.get();
+        long saved = originalBytes.get() - servedBytes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("sizes", sizes);
+        stats.put("listSize", listSize);
+        stats.put("generated", generated.get());
+        stats.put("variantsStored", variantsStored.get());
+        stats.put("skipped", skipped.get());
+        stats.put("rejected", rejected.get());
+        stats.put("failed", failed.get());
+        stats.put("orphaned", orphaned.get());
+        stats.put("queued", executor.getThreadPoolExecutor().getQueue().size());
+        stats.put("pagesWithImages", pages);
+        stats.put("originalBytes", originalBytes.get());
+        stats.put("servedBytes", servedBytes.get());
+        stats.put("totalBytesSaved", saved);
+        stats.put("avgBytesSavedPerPage", pages > 0 ? saved / pages : 0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    static String variantKey(String objectKey, int size) {
+        return KEY_PREFIX + size + "/" + objectKey + ".jpg";
+    }
+
+    public static boolean isImage(String objectKey, String contentType) {
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("image/")) {
+            // SVGs are markup, not pixels
+            return !contentType.toLowerCase(Locale.ROOT).contains("svg");
+        }
+        if (objectKey == null || !objectKey.contains(".")) {
+            return false;
+        }
+        return IMAGE_EXTENSIONS.contains(objectKey.substring(objectKey.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Decode the original, or null when it is too large or not a readable image. Dimensions are read
+     * from the header first so a small file that decompresses to a huge bitmap is never decoded.
+     */
+    private BufferedImage readImage(String objectKey) throws IOException {
+        byte[] data;
+        try (ResponseInputStream<GetObjectResponse> object = s3Client.getObject(GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(objectKey)
+                .build())) {
+            Long contentLength = object.response().contentLength();
+            if (contentLength != null && contentLength > maxSourceBytes) {
+                log.debug("Skipping thumbnails of {}: {} bytes", objectKey, contentLength);
+                return null;
+            }
+            data = readBounded(object);
+            if (data == null) {
+                return null;
+            }
+        }
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.debug("Skipping thumbnails of {}: no image reader for its format", objectKey);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxSourcePixels) {
+                    log.debug("Skipping thumbnails of {}: {} pixels", objectKey, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private byte[] readBounded(InputStream input) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = input.read(chunk)) != -1) {
+            total += read;
+            if (total > maxSourceBytes) {
+                return null;
+            }
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Downscale so the longest side is {@code size}; halves in steps, since a single bilinear pass over
+     * a much larger image drops most source pixels and aliases
+     */
+    static BufferedImage scale(BufferedImage source, int size) {
+        double ratio = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                // JPEG has no alpha: transparent areas become white instead of black
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private boolean exists(Target target, Long id) {
+        return switch (target) {
+            case TASK_ATTACHMENT -> taskAttachmentRepository.existsByIdAndNotDeleted(id);
+            case POST_ATTACHMENT -> postAttachmentRepository.existsById(id);
+            case MESSAGE -> messageRepository.existsByIdAndNotDeleted(id);
+        };
+    }
+
+    /**
+     * @return rows updated; 0 when the row was deleted (or soft-deleted) in the meantime
+     */
+    private int record(Target target, Long id, String thumbnails) {
+        return switch (target) {
+            case TASK_ATTACHMENT -> taskAttachmentRepository.updateThumbnails(id, thumbnails);
+            case POST_ATTACHMENT -> postAttachmentRepository.updateThumbnails(id, thumbnails);
+            case MESSAGE -> messageRepository.updateThumbnails(id, thumbnails);
+        };
+    }
+
+    /**
+     * A stored variant: its longest side, object key and size in bytes
+     */
+    public static final class Variant {
+        private final int size;
+        private final String key;
+        private final long bytes;
+
+        Variant(int size, String key, long bytes) {
+            this.size = size;
+            this.key = key;
+            this.bytes = bytes;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
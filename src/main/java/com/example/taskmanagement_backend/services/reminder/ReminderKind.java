@@ -0,0 +1,77 @@
+package com.example.taskmanagement_backend.services.reminder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Deadline reminders fired by {@link TaskReminderEngine}. Task deadlines are dates,
+ * so fire times are fixed times of day relative to the deadline day.
+ */
+public enum ReminderKind {
+
+    /** Morning of the day before the deadline */
+    DUE_SOON("MODERATE", "⏰ Task Deadline Reminder - Due in 24 Hours"),
+
+    /** Evening of the deadline day, ~3h before the end of the day */
+    DUE_URGENT("HIGH", "🔥 Urgent: Task Due in 3 Hours"),
+
+    /** Morning after the deadline, then again every day until the task is closed */
+    OVERDUE("OVERDUE", "🚨 Task Overdue Alert - Immediate Action Required");
+
+    private final String urgencyLevel;
+    private final String subject;
+
+    ReminderKind(String urgencyLevel, String subject) {
+        this.urgencyLevel = urgencyLevel;
+        this.subject = subject;
+    }
+
+    public String getUrgencyLevel() {
+        return urgencyLevel;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public LocalDateTime fireTime(LocalDate deadline) {
+        return switch (this) {
+            case DUE_SOON -> deadline.minusDays(1).atTime(9, 0);
+            case DUE_URGENT -> deadline.atTime(21, 0);
+            case OVERDUE -> deadline.plusDays(1).atTime(9, 0);
+        };
+    }
+
+    /**
+     * Fire time of a reminder scheduled at {@code now}. A fire time already in the past moves to the
+     * next 09:00 slot, so index rebuilds and task saves never send reminders at odd hours, and an
+     * overdue reminder does not use up the day's sent marker before the 09:00 run. A one-shot reminder
+     * whose next slot would come after it expires fires right away instead.
+     */
+    public LocalDateTime nextFireTime(LocalDate deadline, LocalDateTime now) {
+        LocalDateTime fireAt = fireTime(deadline);
+        if (!fireAt.isBefore(now)) {
+            return fireAt;
+        }
+        LocalDateTime slot = now.toLocalDate().atTime(9, 0);
+        if (!slot.isAfter(now)) {
+            slot = slot.plusDays(1);
+        }
+        LocalDateTime expiresAt = expiresAt(deadline);
+        return expiresAt != null && !slot.isBefore(expiresAt) ? now : slot;
+    }
+
+    /**
+     * Moment after which the reminder no longer makes sense, or null if it never expires
+     */
+    public LocalDateTime expiresAt(LocalDate deadline) {
+        return this == OVERDUE ? null : deadline.plusDays(1).atStartOfDay();
+    }
+
+    /**
+     * De-duplication period: one reminder per deadline, and one overdue reminder per day
+     */
+    public String periodKey(LocalDate deadline, LocalDate today) {
+        return this == OVERDUE ? today.toString() : deadline.toString();
+    }
+}
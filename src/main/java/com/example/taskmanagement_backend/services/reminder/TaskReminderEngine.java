@@ -0,0 +1,273 @@
+package com.example.taskmanagement_backend.services.reminder;
+
+import com.example.taskmanagement_backend.annotations.ClusterJob;
+import com.example.taskmanagement_backend.entities.Task;
+import com.example.taskmanagement_backend.entities.TaskAssignee;
+import com.example.taskmanagement_backend.entities.User;
+import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
+import com.example.taskmanagement_backend.services.OverdueTaskNotificationService;
+import com.example.taskmanagement_backend.services.infrastructure.AutomatedEmailService;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unified task deadline reminder engine.
+ *
+ * Replaces the hourly/daily full scans of TaskReminderService, EmailReminderScheduledService
+ * and OverdueTaskNotificationService:
+ * - reminders are read from the due-time index ({@link TaskReminderIndex}), so each run only
+ *   loads the tasks whose reminders are due, in one query with their recipients
+ * - every (task, kind, period) is sent once across the cluster (Redis sent markers, written
+ *   after the run's notifications and outbox emails are committed)
+ * - claimed index entries are put back when the run rolls back, so a failure delays reminders
+ *   instead of dropping them
+ * - reminders are grouped per recipient: one email and one in-app notification per user and kind
+ * - emails are queued in the email outbox within this transaction and delivered by its worker pool
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskReminderEngine {
+
+    private static final long RETRY_DELAY_MINUTES = 5;
+
+    private final TaskReminderIndex reminderIndex;
+    private final TaskJpaRepository taskRepository;
+    private final AutomatedEmailService automatedEmailService;
+    private final OverdueTaskNotificationService overdueTaskNotificationService;
+
+    @Value("${app.reminders.poll-batch-size:500}")
+    private int pollBatchSize;
+
+    /**
+     * Fire reminders that are due. Cost is proportional to the number of due reminders.
+     */
+    @Scheduled(fixedDelay = 60000, initialDelay = 60000)
+    @ClusterJob(name = "task-reminder-engine", leaseSeconds = 120)
+    @Transactional
+    public void fireDueReminders() {
+        LocalDateTime now = LocalDateTime.now();
+        ClusterJobContext jobContext = ClusterJobContext.current();
+
+        List<TaskReminderIndex.DueReminder> claimed = new ArrayList<>();
+        List<SentMarker> sent = new ArrayList<>();
+        afterCompletion(claimed, sent);
+
+        List<TaskReminderIndex.DueReminder> due;
+        while (!(due = reminderIndex.pollDue(now, pollBatchSize)).isEmpty()) {
+            claimed.addAll(due);
+            jobContext.addRowsProcessed(due.size());
+            processBatch(due, now, sent);
+            jobContext.checkpoint();
+            if (due.size() < pollBatchSize) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index from open tasks. Runs once after startup if the index is empty and
+     * nightly to repair entries lost while Redis was unavailable; sent markers keep it from
+     * re-sending reminders.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    @ClusterJob(name = "task-reminder-index-rebuild", leaseSeconds = 900)
+    @Transactional(readOnly = true)
+    public void rebuildIndex() {
+        List<Object[]> openTasks = taskRepository.findOpenTaskDeadlines();
+        for (Object[] row : openTasks) {
+            reminderIndex.schedule((Long) row[0], (LocalDate) row[1], true);
+        }
+        ClusterJobContext.current().addRowsProcessed(openTasks.size());
+        log.info("✅ [TaskReminderEngine] Reminder index rebuilt from {} open tasks", openTasks.size());
+    }
+
+    @Scheduled(initialDelay = 30000, fixedDelay = Long.MAX_VALUE) // once, 30s after startup
+    @ClusterJob(name = "task-reminder-index-bootstrap", leaseSeconds = 900)
+    @Transactional(readOnly = true)
+    public void bootstrapIndex() {
+        if (reminderIndex.size() == 0) {
+            log.info("🚀 [TaskReminderEngine] Reminder index empty, building from open tasks");
+            rebuildIndex();
+        }
+    }
+
+    /**
+     * Once the run's transaction completes: on commit record the sent markers, on rollback put the
+     * claimed entries back into the index so the next run retries them
+     */
+    private void afterCompletion(List<TaskReminderIndex.DueReminder> claimed, List<SentMarker> sent) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        sent.forEach(marker -> reminderIndex.markSent(marker.taskId, marker.kind, marker.periodKey));
+                    } else if (!claimed.isEmpty()) {
+                        LocalDateTime retryAt = LocalDateTime.now().plusMinutes(RETRY_DELAY_MINUTES);
+                        claimed.forEach(reminder -> reminderIndex.add(reminder.getTaskId(), reminder.getKind(), retryAt));
+                        log.warn("⚠️ [TaskReminderEngine] Run rolled back, {} reminders re-queued for {}", claimed.size(), retryAt);
+                    }
+                } catch (Exception e) {
+                    // The nightly rebuild repairs the index if Redis was unavailable
+                    log.warn("⚠️ [TaskReminderEngine] Could not finish reminder run bookkeeping: {}", e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void processBatch(List<TaskReminderIndex.DueReminder> due, LocalDateTime now, List<SentMarker> sent) {
+        LocalDate today = now.toLocalDate();
+
+        Map<Long, Task> tasks = taskRepository.findForRemindersByIdIn(
+                        due.stream().map(TaskReminderIndex.DueReminder::getTaskId).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+
+        // recipient -> kind -> tasks
+        Map<Long, User> recipients = new HashMap<>();
+        Map<Long, Map<ReminderKind, List<Task>>> byRecipient = new HashMap<>();
+
+        for (TaskReminderIndex.DueReminder reminder : due) {
+            Task task = tasks.get(reminder.getTaskId());
+            ReminderKind kind = reminder.getKind();
+
+            // Task deleted, closed or rescheduled since the entry was written
+            if (task == null || task.getDeadline() == null || !TaskReminderIndex.isOpen(task)
+                    || now.isBefore(kind.fireTime(task.getDeadline()))) {
+                continue;
+            }
+
+            if (kind == ReminderKind.OVERDUE) {
+                // Overdue reminders repeat daily until the task is closed
+                reminderIndex.add(task.getId(), kind, today.plusDays(1).atTime(9, 0));
+            } else {
+                LocalDateTime expiresAt = kind.expiresAt(task.getDeadline());
+                if (expiresAt != null && !now.isBefore(expiresAt)) {
+                    continue;
+                }
+            }
+
+            String periodKey = kind.periodKey(task.getDeadline(), today);
+            if (reminderIndex.isSent(task.getId(), kind, periodKey)) {
+                continue;
+            }
+            sent.add(new SentMarker(task.getId(), kind, periodKey));
+
+            for (User user : recipientsOf(task)) {
+                recipients.putIfAbsent(user.getId(), user);
+                byRecipient.computeIfAbsent(user.getId(), k -> new EnumMap<>(ReminderKind.class))
+                        .computeIfAbsent(kind, k -> new ArrayList<>())
+                        .add(task);
+            }
+        }
+
+        byRecipient.forEach((userId, tasksByKind) -> {
+            User user = recipients.get(userId);
+            tasksByKind.forEach((kind, userTasks) -> {
+                sendEmail(user, kind, userTasks);
+                sendInAppNotification(user, kind, userTasks);
+            });
+        });
+
+        log.info("⏰ [TaskReminderEngine] Processed {} due reminders for {} recipients", due.size(), byRecipient.size());
+    }
+
+    /**
+     * Creator and assignees, each once
+     */
+    private Collection<User> recipientsOf(Task task) {
+        Map<Long, User> users = new LinkedHashMap<>();
+        if (task.getCreator() != null) {
+            users.put(task.getCreator().getId(), task.getCreator());
+        }
+        if (task.getAssignees() != null) {
+            for (TaskAssignee assignee : task.getAssignees()) {
+                if (assignee.getUser() != null) {
+                    users.putIfAbsent(assignee.getUser().getId(), assignee.getUser());
+                }
+            }
+        }
+        return users.values();
+    }
+
+    private void sendEmail(User user, ReminderKind kind, List<Task> userTasks) {
+        String email = user.getEmail();
+        String userName = getUserDisplayName(user);
+        Task first = userTasks.get(0);
+        LocalDateTime deadline = userTasks.stream()
+                .map(Task::getDeadline)
+                .min(Comparator.naturalOrder())
+                .orElse(first.getDeadline())
+                .atTime(23, 59, 59);
+
+        String title;
+        String description;
+        if (userTasks.size() == 1) {
+            title = first.getTitle();
+            description = first.getDescription();
+        } else {
+            title = userTasks.size() + " tasks";
+            description = userTasks.stream()
+                    .map(task -> "• " + task.getTitle() + " (" + task.getDeadline() + ")")
+                    .collect(Collectors.joining("\n"));
+        }
+        String role = first.getCreator() != null && user.getId().equals(first.getCreator().getId()) ? "creator" : "assignee";
+
+        // A queueing failure rolls the run back and re-queues its reminders
+        automatedEmailService.sendTaskDeadlineReminder(
+                email, userName, title, description, deadline, kind.getUrgencyLevel(), role, kind.getSubject());
+    }
+
+    private void sendInAppNotification(User user, ReminderKind kind, List<Task> userTasks) {
+        switch (kind) {
+            case OVERDUE -> overdueTaskNotificationService.createOverdueNotificationForUser(user, userTasks);
+            case DUE_SOON -> overdueTaskNotificationService.createDueSoonNotificationForUser(user, userTasks);
+            default -> { } // the urgent reminder is email only
+        }
+    }
+
+    private String getUserDisplayName(User user) {
+        if (user.getUserProfile() != null) {
+            String firstName = user.getUserProfile().getFirstName();
+            String lastName = user.getUserProfile().getLastName();
+
+            if (firstName != null && !firstName.trim().isEmpty()) {
+                return lastName != null && !lastName.trim().isEmpty()
+                        ? firstName + " " + lastName
+                        : firstName;
+            }
+        }
+
+        // Fallback to email prefix
+        return user.getEmail().split("@")[0];
+    }
+
+    private static final class SentMarker {
+        private final Long taskId;
+        private final ReminderKind kind;
+        private final String periodKey;
+
+        private SentMarker(Long taskId, ReminderKind kind, String periodKey) {
+            this.taskId = taskId;
+            this.kind = kind;
+            this.periodKey = periodKey;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.taskmanagement_backend.services.reminder;
+
+import com.example.taskmanagement_backend.entities.Task;
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Due-time index of task reminders, kept in a Redis sorted set.
+ *
+ * Members are {@code taskId:KIND} scored by fire time (epoch ms). The index is
+ * maintained on task create/update/delete, so the reminder job only touches
+ * entries that are due instead of scanning every task.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TaskReminderIndex {
+
+    private static final String DUE_KEY = "taskmanagement:reminders:due";
+    private static final String SENT_PREFIX = "taskmanagement:reminders:sent:";
+    private static final Duration SENT_TTL = Duration.ofDays(3);
+    private static final Set<String> CLOSED_STATUSES = Set.of("COMPLETED", "DONE", "CANCELLED");
+
+    // Atomically claim up to ARGV[2] entries due at ARGV[1]; safe with several pollers
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> POLL_DUE_SCRIPT = new DefaultRedisScript<>(
+            "local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #items > 0 then redis.call('ZREM', KEYS[1], unpack(items)) end " +
+            "return items", List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Whether reminders still apply to the task (same closed statuses as the overdue queries)
+     */
+    public static boolean isOpen(Task task) {
+        if (task.getStatusKey() != null && CLOSED_STATUSES.contains(task.getStatusKey())) {
+            return false;
+        }
+        TaskStatus status = task.getStatus();
+        return status == null || !CLOSED_STATUSES.contains(status.name());
+    }
+
+    /**
+     * Replace all pending reminders of a task according to its current deadline and status
+     */
+    public void schedule(Long taskId, LocalDate deadline, boolean open) {
+        remove(taskId);
+        if (!open || deadline == null) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (ReminderKind kind : ReminderKind.values()) {
+            LocalDateTime expiresAt = kind.expiresAt(deadline);
+            if (expiresAt != null && !now.isBefore(expiresAt)) {
+                continue;
+            }
+            add(taskId, kind, kind.nextFireTime(deadline, now));
+        }
+    }
+
+    public void add(Long taskId, ReminderKind kind, LocalDateTime fireAt) {
+        redisTemplate.opsForZSet().add(DUE_KEY, member(taskId, kind), toEpochMillis(fireAt));
+    }
+
+    public void remove(Long taskId) {
+        Object[] members = Arrays.stream(ReminderKind.values()).map(kind -> member(taskId, kind)).toArray();
+        redisTemplate.opsForZSet().remove(DUE_KEY, members);
+    }
+
+    /**
+     * Claim up to {@code limit} reminders due at {@code now}. Claimed entries are removed
+     * from the index; recurring reminders are re-added by the engine, and so are all claimed
+     * entries of a run that failed.
+     */
+    public List<DueReminder> pollDue(LocalDateTime now, int limit) {
+        @SuppressWarnings("unchecked")
+        List<String> members = redisTemplate.execute(POLL_DUE_SCRIPT, List.of(DUE_KEY),
+                String.valueOf(toEpochMillis(now)), String.valueOf(limit));
+
+        List<DueReminder> due = new ArrayList<>();
+        if (members == null) {
+            return due;
+        }
+        for (String member : members) {
+            int separator = member.lastIndexOf(':');
+            try {
+                due.add(new DueReminder(Long.valueOf(member.substring(0, separator)),
+                        ReminderKind.valueOf(member.substring(separator + 1))));
+            } catch (Exception e) {
+                log.warn("⚠️ Dropping malformed reminder entry: {}", member);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Whether a reminder was already sent for a period
+     */
+    public boolean isSent(Long taskId, ReminderKind kind, String periodKey) {
+        return Boolean.TRUE.equals(redisTemplate.hasKey(sentKey(taskId, kind, periodKey)));
+    }
+
+    /**
+     * Record that a reminder was sent for a period, once its notifications are committed
+     */
+    public void markSent(Long taskId, ReminderKind kind, String periodKey) {
+        redisTemplate.opsForValue().set(sentKey(taskId, kind, periodKey), "1", SENT_TTL);
+    }
+
+    public long size() {
+        Long size = redisTemplate.opsForZSet().zCard(DUE_KEY);
+        return size != null ? size : 0;
+    }
+
+    private static String member(Long taskId, ReminderKind kind) {
+        return taskId + ":" + kind.name();
+    }
+
+    private static String sentKey(Long taskId, ReminderKind kind, String periodKey) {
+        return SENT_PREFIX + member(taskId, kind) + ":" + periodKey;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DueReminder {
+        private final Long taskId;
+        private final ReminderKind kind;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.taskmanagement_backend.services.reminder;
+
+import com.example.taskmanagement_backend.entities.Task;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+
+/**
+ * JPA listener on {@link Task} that keeps {@link TaskReminderIndex} in sync with every
+ * save/delete, wherever it happens. Index writes run after commit so a rolled back
+ * change never leaves reminders behind.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskReminderIndexListener {
+
+    // Resolved lazily: listeners are created while the EntityManagerFactory is being built
+    private final ObjectProvider<TaskReminderIndex> reminderIndex;
+
+    @PostPersist
+    @PostUpdate
+    public void onTaskSaved(Task task) {
+        Long taskId = task.getId();
+        LocalDate deadline = task.getDeadline();
+        boolean open = TaskReminderIndex.isOpen(task);
+        afterCommit(() -> reminderIndex.getObject().schedule(taskId, deadline, open));
+    }
+
+    @PostRemove
+    public void onTaskRemoved(Task task) {
+        Long taskId = task.getId();
+        afterCommit(() -> reminderIndex.getObject().remove(taskId));
+    }
+
+    private void afterCommit(Runnable action) {
+        Runnable safeAction = () -> {
+            try {
+                action.run();
+            } catch (Exception e) {
+                // The nightly backfill repairs the index if Redis was unavailable
+                log.warn("⚠️ Could not update reminder index: {}", e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    safeAction.run();
+                }
+            });
+        } else {
+            safeAction.run();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.taskmanagement_backend.services.scheduled;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-run context of a {@link com.example.taskmanagement_backend.annotations.ClusterJob}.
+ * Bound to the scheduler thread for the duration of the run.
+ *
+ * Jobs use it to:
+ * - report how many rows they processed ({@link #addRowsProcessed(long)})
+ * - keep their lease alive and stop when it was lost ({@link #checkpoint()})
+ * - select their part of the work when sharded ({@link #owns(Long)}, {@link #idRange(long, long)})
+ */
+@Getter
+public class ClusterJobContext {
+
+    private static final ThreadLocal<ClusterJobContext> CURRENT = new ThreadLocal<>();
+
+    private final ClusterJobCoordinator.JobLease lease;
+    private final ClusterJobCoordinator coordinator;
+    private final AtomicLong rowsProcessed = new AtomicLong();
+
+    public ClusterJobContext(ClusterJobCoordinator.JobLease lease, ClusterJobCoordinator coordinator) {
+        this.lease = lease;
+        this.coordinator = coordinator;
+    }
+
+    /**
+     * Context of the job running on this thread. Outside a cluster job (e.g. a manual
+     * trigger from a controller) a local single-shard context is returned.
+     */
+    public static ClusterJobContext current() {
+        ClusterJobContext context = CURRENT.get();
+        return context != null ? context : new ClusterJobContext(ClusterJobCoordinator.JobLease.local("manual"), null);
+    }
+
+    public static void bind(ClusterJobContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public long getFencingToken() {
+        return lease.getFencingToken();
+    }
+
+    public int getShardIndex() {
+        return lease.getShardIndex();
+    }
+
+    public int getShardCount() {
+        return lease.getShardCount();
+    }
+
+    public void addRowsProcessed(long rows) {
+        rowsProcessed.addAndGet(rows);
+    }
+
+    /**
+     * Whether the given entity id belongs to this node's shard
+     */
+    public boolean owns(Long id) {
+        return getShardCount() <= 1 || id == null || Math.floorMod(id, getShardCount()) == getShardIndex();
+    }
+
+    /**
+     * Contiguous, inclusive id range [from, to] of this node's shard within [minId, maxId]
+     */
+    public long[] idRange(long minId, long maxId) {
+        long span = maxId - minId + 1;
+        long shardSize = (span + getShardCount() - 1) / getShardCount();
+        long from = minId + shardSize * getShardIndex();
+        long to = Math.min(maxId, from + shardSize - 1);
+        return new long[]{from, to};
+    }
+
+    /**
+     * Extend the lease; throws if another node took over the job (fencing token superseded),
+     * so long loops stop instead of duplicating work
+     */
+    public void checkpoint() {
+        if (coordinator != null && !coordinator.extend(lease)) {
+            throw new IllegalStateException("Lease lost for job " + lease.getJobName()
+                    + " (fencing token " + lease.getFencingToken() + ")");
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.taskmanagement_backend.services.scheduled;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Redis-backed coordination for scheduled jobs running on several instances.
+ *
+ * - Leases: SET NX PX on a per-job key, so only one node runs a job at a time
+ * - Fencing: every successful acquisition increments a per-job counter; the token
+ *   is part of the lease value, so a node whose lease expired cannot extend or
+ *   release the lease of the node that took over
+ * - Node registry: live nodes heartbeat into a sorted set, which gives every node
+ *   a stable shard index for sharded jobs
+ * - Windows: SET NX on a per-job key per period-aligned window, so a fixed-rate job
+ *   runs once per period whatever phase each node's trigger has
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterJobCoordinator {
+
+    private static final String KEY_PREFIX = "taskmanagement:jobs:";
+    private static final String NODES_KEY = KEY_PREFIX + "nodes";
+
+    // KEYS[1] = lease key, KEYS[2] = fence counter; ARGV[1] = owner, ARGV[2] = lease ms
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then " +
+            "  local token = redis.call('INCR', KEYS[2]) " +
+            "  redis.call('SET', KEYS[1], ARGV[1] .. ':' .. token, 'PX', ARGV[2]) " +
+            "  return token " +
+            "end " +
+            "return -1", Long.class);
+
+    // KEYS[1] = lease key; ARGV[1] = expected lease value, ARGV[2] = lease ms
+    private static final RedisScript<Long> EXTEND_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0", Long.class);
+
+    // KEYS[1] = lease key; ARGV[1] = expected lease value
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${app.scheduling.cluster.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.scheduling.cluster.fail-open:false}")
+    private boolean failOpen;
+
+    @Value("${app.scheduling.cluster.node-ttl-seconds:30}")
+    private long nodeTtlSeconds;
+
+    @Getter
+    private final String nodeId = resolveNodeId();
+
+    @PostConstruct
+    public void registerNode() {
+        if (enabled) {
+            heartbeat();
+            log.info("✅ Cluster job coordinator started on node {}", nodeId);
+        }
+    }
+
+    @PreDestroy
+    public void unregisterNode() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForZSet().remove(NODES_KEY, nodeId);
+        } catch (Exception e) {
+            log.debug("Could not unregister node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    /**
+     * Keep this node in the live node registry and drop nodes that stopped heartbeating.
+     * Runs on every node by design - it is not a cluster job itself.
+     */
+    @Scheduled(fixedRate = 10000)
+    public void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().add(NODES_KEY, nodeId, now);
+            redisTemplate.opsForZSet().removeRangeByScore(NODES_KEY, 0, now - nodeTtlSeconds * 1000);
+        } catch (Exception e) {
+            log.warn("⚠️ Cluster heartbeat failed for node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Try to become the single runner of a job for the given lease duration
+     */
+    public Optional<JobLease> tryAcquire(String jobName, Duration leaseDuration) {
+        return acquire(jobName, leaseKey(jobName), fenceKey(jobName), leaseDuration, 0, 1);
+    }
+
+    /**
+     * Try to acquire this node's shard of a sharded job. The shard layout is derived
+     * from the live node registry, so every node computes the same shard count.
+     */
+    public Optional<JobLease> tryAcquireShard(String jobName, Duration leaseDuration) {
+        List<String> nodes;
+        try {
+            nodes = liveNodes();
+        } catch (Exception e) {
+            return failOpenLease(jobName, e);
+        }
+
+        int shardIndex = nodes.indexOf(nodeId);
+        if (shardIndex < 0) {
+            // Not registered yet (first heartbeat pending) - let the registered nodes cover the work
+            log.debug("Node {} not in live registry yet, skipping shard of {}", nodeId, jobName);
+            return Optional.empty();
+        }
+
+        String shardName = jobName + ":shard:" + shardIndex + "/" + nodes.size();
+        return acquire(jobName, leaseKey(shardName), fenceKey(shardName), leaseDuration, shardIndex, nodes.size());
+    }
+
+    /**
+     * Extend a lease still held by this node. Returns false when the lease expired and
+     * another node may have taken over - the caller must stop working.
+     */
+    public boolean extend(JobLease lease) {
+        if (lease.isLocal()) {
+            return true;
+        }
+        try {
+            Long result = redisTemplate.execute(EXTEND_SCRIPT, List.of(lease.getLeaseKey()),
+                    lease.getLeaseValue(), String.valueOf(lease.getDuration().toMillis()));
+            return result != null && result > 0;
+        } catch (Exception e) {
+            log.warn("⚠️ Could not extend lease for job {}: {}", lease.getJobName(), e.getMessage());
+            return failOpen;
+        }
+    }
+
+    /**
+     * Release a lease if it is still held by this node
+     */
+    public void release(JobLease lease) {
+        release(lease, Duration.ZERO);
+    }
+
+    /**
+     * Release a lease still held by this node once keepFor has passed. Until then the lease only
+     * expires, so nodes firing the same run a little later still find it taken.
+     */
+    public void release(JobLease lease, Duration keepFor) {
+        if (lease.isLocal()) {
+            return;
+        }
+        try {
+            if (keepFor.toMillis() > 0) {
+                redisTemplate.execute(EXTEND_SCRIPT, List.of(lease.getLeaseKey()),
+                        lease.getLeaseValue(), String.valueOf(keepFor.toMillis()));
+            } else {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(lease.getLeaseKey()), lease.getLeaseValue());
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Could not release lease for job {}: {}", lease.getJobName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Claim the period-aligned window containing nowMillis for a job. Only the first node to claim a
+     * window may run the job in it; the claim expires one period after the window ends, which leaves
+     * room for clock skew between nodes.
+     */
+    public boolean claimWindow(String jobName, Duration period, long nowMillis) {
+        long periodMs = period.toMillis();
+        long window = nowMillis / periodMs;
+        try {
+            Boolean claimed = redisTemplate.opsForValue().setIfAbsent(windowKey(jobName, window), nodeId,
+                    Duration.ofMillis((window + 2) * periodMs - nowMillis));
+            return Boolean.TRUE.equals(claimed);
+        } catch (Exception e) {
+            if (failOpen) {
+                log.warn("⚠️ Redis unavailable for window of job {}, running locally (fail-open): {}", jobName, e.getMessage());
+                return true;
+            }
+            log.warn("⚠️ Redis unavailable for window of job {}, skipping run: {}", jobName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Live nodes in a stable (lexicographic) order shared by every node
+     */
+    public List<String> liveNodes() {
+        long minScore = System.currentTimeMillis() - nodeTtlSeconds * 1000;
+        Set<String> members = redisTemplate.opsForZSet().rangeByScore(NODES_KEY, minScore, Double.MAX_VALUE);
+        List<String> nodes = members != null ? new ArrayList<>(members) : new ArrayList<>();
+        nodes.sort(String::compareTo);
+        return nodes;
+    }
+
+    private Optional<JobLease> acquire(String jobName, String leaseKey, String fenceKey, Duration leaseDuration,
+                                       int shardIndex, int shardCount) {
+        try {
+            Long token = redisTemplate.execute(ACQUIRE_SCRIPT, List.of(leaseKey, fenceKey),
+                    nodeId, String.valueOf(leaseDuration.toMillis()));
+            if (token == null || token < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new JobLease(jobName, leaseKey, nodeId + ":" + token, token,
+                    leaseDuration, shardIndex, shardCount, false));
+        } catch (Exception e) {
+            return failOpenLease(jobName, e);
+        }
+    }
+
+    private Optional<JobLease> failOpenLease(String jobName, Exception e) {
+        if (failOpen) {
+            log.warn("⚠️ Redis unavailable for job {}, running locally (fail-open): {}", jobName, e.getMessage());
+            return Optional.of(JobLease.local(jobName));
+        }
+        log.warn("⚠️ Redis unavailable for job {}, skipping run: {}", jobName, e.getMessage());
+        return Optional.empty();
+    }
+
+    private static String leaseKey(String name) {
+        return KEY_PREFIX + "lease:" + name;
+    }
+
+    private static String fenceKey(String name) {
+        return KEY_PREFIX + "fence:" + name;
+    }
+
+    private static String windowKey(String name, long window) {
+        return KEY_PREFIX + "window:" + name + ":" + window;
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * A lease held by this node for one job (or one shard of a job)
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class JobLease {
+        private final String jobName;
+        private final String leaseKey;
+        private final String leaseValue;
+        private final long fencingToken;
+        private final Duration duration;
+        private final int shardIndex;
+        private final int shardCount;
+        private final boolean local;
+
+        /**
+         * Lease used when coordination is disabled or Redis is down with fail-open
+         */
+        public static JobLease local(String jobName) {
+            return new JobLease(jobName, null, null, 0, Duration.ZERO, 0, 1, true);
+        }
+    }
+}
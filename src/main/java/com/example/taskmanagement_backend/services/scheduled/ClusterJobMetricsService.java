@@ -0,0 +1,122 @@
+package com.example.taskmanagement_backend.services.scheduled;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Run statistics for cluster jobs.
+ *
+ * Counters are kept per node in memory; the last run of every job is also written
+ * to Redis so the admin view shows it regardless of which node ran the job.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClusterJobMetricsService {
+
+    private static final String LAST_RUN_PREFIX = "taskmanagement:jobs:last-run:";
+    private static final Duration LAST_RUN_TTL = Duration.ofDays(7);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Map<String, JobCounters> counters = new ConcurrentHashMap<>();
+
+    public void recordRun(String jobName, String nodeId, long durationMs, long rowsProcessed, boolean success) {
+        JobCounters jobCounters = countersFor(jobName);
+        jobCounters.runs.incrementAndGet();
+        if (!success) {
+            jobCounters.failures.incrementAndGet();
+        }
+        jobCounters.totalDurationMs.addAndGet(durationMs);
+        jobCounters.totalRowsProcessed.addAndGet(rowsProcessed);
+        jobCounters.lastDurationMs.set(durationMs);
+        jobCounters.lastRowsProcessed.set(rowsProcessed);
+
+        try {
+            String key = LAST_RUN_PREFIX + jobName;
+            redisTemplate.opsForHash().putAll(key, Map.of(
+                    "node", nodeId,
+                    "finishedAt", LocalDateTime.now().toString(),
+                    "durationMs", String.valueOf(durationMs),
+                    "rowsProcessed", String.valueOf(rowsProcessed),
+                    "success", String.valueOf(success)
+            ));
+            redisTemplate.expire(key, LAST_RUN_TTL);
+        } catch (Exception e) {
+            log.debug("Could not publish last run of job {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    public void recordSkipped(String jobName) {
+        countersFor(jobName).skipped.incrementAndGet();
+    }
+
+    /**
+     * Local counters per job, sorted by job name
+     */
+    public Map<String, JobStats> getLocalStats() {
+        Map<String, JobStats> stats = new TreeMap<>();
+        counters.forEach((jobName, c) -> {
+            long runs = c.runs.get();
+            stats.put(jobName, JobStats.builder()
+                    .runs(runs)
+                    .skipped(c.skipped.get())
+                    .failures(c.failures.get())
+                    .lastDurationMs(c.lastDurationMs.get())
+                    .averageDurationMs(runs > 0 ? c.totalDurationMs.get() / runs : 0)
+                    .lastRowsProcessed(c.lastRowsProcessed.get())
+                    .totalRowsProcessed(c.totalRowsProcessed.get())
+                    .build());
+        });
+        return stats;
+    }
+
+    /**
+     * Last run of a job anywhere in the cluster, or an empty map if unknown
+     */
+    public Map<Object, Object> getClusterLastRun(String jobName) {
+        try {
+            return redisTemplate.opsForHash().entries(LAST_RUN_PREFIX + jobName);
+        } catch (Exception e) {
+            log.debug("Could not read last run of job {}: {}", jobName, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private JobCounters countersFor(String jobName) {
+        return counters.computeIfAbsent(jobName, k -> new JobCounters());
+    }
+
+    private static class JobCounters {
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalDurationMs = new AtomicLong();
+        private final AtomicLong lastDurationMs = new AtomicLong();
+        private final AtomicLong totalRowsProcessed = new AtomicLong();
+        private final AtomicLong lastRowsProcessed = new AtomicLong();
+    }
+
+    @Data
+    @Builder
+    public static class JobStats {
+        private long runs;
+        private long skipped;
+        private long failures;
+        private long lastDurationMs;
+        private long averageDurationMs;
+        private long lastRowsProcessed;
+        private long totalRowsProcessed;
+    }
+}
@@ -7,7 +7,6 @@ import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
 import com.example.taskmanagement_backend.services.infrastructure.AutomatedEmailService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -23,11 +22,9 @@ public class EmailReminderScheduledService {
     private final AutomatedEmailService automatedEmailService;
 
     /**
-     * Auto-send task deadline reminders
-     * Runs every day at 9 AM to check for tasks due in 1 day
-     * ⏰ SCHEDULE: Every day at 9:00 AM
+     * Send deadline reminders for all tasks due tomorrow (manual trigger)
+     * Scheduled reminders are fired by TaskReminderEngine from the due-time index
      */
-    @Scheduled(cron = "0 0 9 * * ?") // 9 AM daily
     public void sendTaskDeadlineReminders() {
         try {
             log.info("⏰ Starting daily task deadline reminder check...");
@@ -86,11 +83,9 @@ public class EmailReminderScheduledService {
     }
 
     /**
-     * ✅ NEW: Send immediate overdue task notifications
-     * Runs every day at 10 AM to check for overdue tasks
-     * ⏰ SCHEDULE: Every day at 10:00 AM
+     * Send overdue notifications for all overdue tasks (manual trigger)
+     * Scheduled reminders are fired by TaskReminderEngine from the due-time index
      */
-    @Scheduled(cron = "0 0 10 * * ?") // 10 AM daily
     public void sendOverdueTaskNotifications() {
         try {
             log.info("🚨 Starting overdue task notification check...");
@@ -1,5 +1,6 @@
 package com.example.taskmanagement_backend.services.scheduled;
 
+import com.example.taskmanagement_backend.annotations.ClusterJob;
 import com.example.taskmanagement_backend.services.OnlineStatusService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,7 @@ public class OnlineStatusCleanupService {
      * Tự động set offline các users không hoạt động quá 5 phút
      */
     @Scheduled(fixedRate = 10 * 60 * 1000) // 10 phút
+    @ClusterJob(name = "online-status-cleanup", period = "PT10M")
     public void cleanupOfflineUsers() {
         log.debug("🧹 Starting offline users cleanup task...");
         try {
@@ -0,0 +1,87 @@
+package com.example.taskmanagement_backend.agent.moderation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Single-pass lexicon matching of ModerationAutomaton against plain contains() checks
+ */
+class ModerationAutomatonTest {
+
+    @Test
+    void scan_FindsOverlappingAndNestedTermsCaseInsensitive() {
+        ModerationAutomaton automaton = ModerationAutomaton.compile(Map.of(
+            ModerationCategory.TOXIC, List.of("he", "she", "his", "hers"),
+            ModerationCategory.SQL_INJECTION, List.of("SELECT")
+        ));
+
+        ModerationAutomaton.Matches matches = automaton.scan("USHERS select");
+
+        assertEquals(Set.of("she", "he", "hers"), new HashSet<>(matches.terms(ModerationCategory.TOXIC)));
+        assertEquals(List.of("select"), matches.terms(ModerationCategory.SQL_INJECTION));
+        assertFalse(matches.has(ModerationCategory.XSS));
+    }
+
+    @Test
+    void scan_MatchesVietnameseTermsAndTagsEveryCategoryOfATerm() {
+        ModerationAutomaton automaton = ModerationAutomaton.compile(Map.of(
+            ModerationCategory.TOXIC, List.of("lừa", "lừa đảo", "script"),
+            ModerationCategory.SQL_INJECTION, List.of("script")
+        ));
+
+        ModerationAutomaton.Matches matches = automaton.scan("Đây là LỪA ĐẢO, chạy Script");
+
+        assertEquals(List.of("lừa", "lừa đảo", "script"), matches.terms(ModerationCategory.TOXIC));
+        assertTrue(matches.has(ModerationCategory.SQL_INJECTION));
+    }
+
+    @Test
+    void scan_AgreesWithContainsOnDefaultLexicon() {
+        Map<ModerationCategory, List<String>> lists = ModerationLexicon.defaultTerms();
+        ModerationAutomaton automaton = ModerationAutomaton.compile(lists);
+        List<String> vocabulary = new ArrayList<>();
+        lists.values().forEach(vocabulary::addAll);
+        vocabulary.addAll(List.of("task", "dự án", "deadline", "team", " ", "a", "s", "đ", "."));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder message = new StringBuilder();
+            for (int j = random.nextInt(12); j >= 0; j--) {
+                String word = vocabulary.get(random.nextInt(vocabulary.size()));
+                message.append(random.nextBoolean() ? word.toUpperCase(Locale.ROOT) : word);
+                if (random.nextInt(3) == 0) {
+                    message.append(' ');
+                }
+            }
+            String text = message.toString();
+            ModerationAutomaton.Matches matches = automaton.scan(text);
+
+            lists.forEach((category, terms) -> {
+                Set<String> expected = new HashSet<>();
+                terms.stream().filter(text.toLowerCase(Locale.ROOT)::contains).forEach(expected::add);
+                assertEquals(expected, new HashSet<>(matches.terms(category)), category + " in \"" + text + "\"");
+            });
+        }
+    }
+
+    @Test
+    void parse_SectionsReplaceCategoriesAndRejectUnknownOnes() {
+        Map<ModerationCategory, List<String>> sections = ModerationLexicon.parse(List.of(
+            "# custom lists",
+            "[toxic]",
+            "spam",
+            "  lừa đảo  ",
+            "",
+            "[COMPETITOR]",
+            "acme"
+        ));
+
+        assertEquals(List.of("spam", "lừa đảo"), sections.get(ModerationCategory.TOXIC));
+        assertEquals(List.of("acme"), sections.get(ModerationCategory.COMPETITOR));
+        assertThrows(IllegalArgumentException.class, () -> ModerationLexicon.parse(List.of("[NOPE]", "x")));
+        assertThrows(IllegalArgumentException.class, () -> ModerationLexicon.parse(List.of("orphan")));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.taskmanagement_backend.agent.retriever;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recall, filtering, removal and snapshots of the local HNSW index
+ */
+class HnswVectorIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    void search_RecallAgainstBruteForce_Float32() {
+        HnswVectorIndex index = populatedIndex(HnswVectorIndex.Quantization.FLOAT32, 2000);
+
+        HnswVectorIndex.BenchmarkResult result = index.benchmark(100, 10, 7);
+
+        assertEquals(100, result.getQueries());
+        assertTrue(result.getRecall() >= 0.9, "recall@10 was " + result.getRecall());
+    }
+
+    @Test
+    void search_RecallAgainstBruteForce_Int8() {
+        HnswVectorIndex index = populatedIndex(HnswVectorIndex.Quantization.INT8, 2000);
+
+        HnswVectorIndex.BenchmarkResult result = index.benchmark(100, 10, 7);
+
+        assertTrue(result.getRecall() >= 0.9, "recall@10 was " + result.getRecall());
+        assertTrue(index.estimatedBytes() < populatedIndex(HnswVectorIndex.Quantization.FLOAT32, 2000).estimatedBytes());
+    }
+
+    @Test
+    void search_ExactMatchRanksFirst() {
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSION, 8, 100, 32, HnswVectorIndex.Quantization.FLOAT32);
+        Random random = new Random(1);
+        float[] target = null;
+        for (int i = 0; i < 500; i++) {
+            float[] vector = randomVector(random);
+            if (i == 123) {
+                target = vector;
+            }
+            index.add("doc-" + i, vector, Map.of());
+        }
+
+        List<HnswVectorIndex.SearchResult> results = index.search(target, 1, null);
+
+        assertEquals("doc-123", results.get(0).getId());
+        assertEquals(1.0, results.get(0).getScore(), 1e-4);
+    }
+
+    @Test
+    void search_MetadataFilterOnlyReturnsMatchingEntries() {
+        HnswVectorIndex index = populatedIndex(HnswVectorIndex.Quantization.FLOAT32, 1000);
+
+        List<HnswVectorIndex.SearchResult> results =
+                index.search(randomVector(new Random(99)), 5, Map.of("category", "rare"));
+
+        assertEquals(5, results.size());
+        results.forEach(result -> assertEquals("rare", result.getMetadata().get("category")));
+    }
+
+    @Test
+    void remove_AndReplace_AreNotReturned() {
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSION, 8, 100, 32, HnswVectorIndex.Quantization.FLOAT32);
+        Random random = new Random(2);
+        float[] original = randomVector(random);
+        index.add("a", original, Map.of("version", "1"));
+        index.add("b", randomVector(random), Map.of());
+        index.add("a", randomVector(random), Map.of("version", "2"));
+        index.remove("b");
+
+        assertEquals(1, index.size());
+        assertEquals("2", index.get("a").get("version"));
+        assertNull(index.get("b"));
+        index.search(original, 5, null).forEach(result -> assertEquals("a", result.getId()));
+
+        index.compact();
+        assertEquals(1, index.size());
+        assertEquals(0, index.deletedCount());
+    }
+
+    @Test
+    void snapshot_RoundTripPreservesResults() throws Exception {
+        HnswVectorIndex index = populatedIndex(HnswVectorIndex.Quantization.INT8, 500);
+        index.remove("doc-7");
+        float[] query = randomVector(new Random(5));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+        HnswVectorIndex restored = HnswVectorIndex.readFrom(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 64);
+
+        assertEquals(index.size(), restored.size());
+        assertNull(restored.get("doc-7"));
+        assertEquals(ids(index.search(query, 10, null)), ids(restored.search(query, 10, null)));
+    }
+
+    private static HnswVectorIndex populatedIndex(HnswVectorIndex.Quantization quantization, int count) {
+        HnswVectorIndex index = new HnswVectorIndex(DIMENSION, 16, 200, 64, quantization);
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            index.add("doc-" + i, randomVector(random), Map.of("category", i % 20 == 0 ? "rare" : "common"));
+        }
+        return index;
+    }
+
+    private static float[] randomVector(Random random) {
+        float[] vector = new float[DIMENSION];
+        for (int d = 0; d < DIMENSION; d++) {
+            vector[d] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+
+    private static List<String> ids(List<HnswVectorIndex.SearchResult> results) {
+        return results.stream().map(HnswVectorIndex.SearchResult::getId).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bounds, idle eviction and versioned updates of ConversationStateService (local tier only, no Redis)
+ */
+class ConversationStateServiceTest {
+
+    @Test
+    void createOrUpdateState_EvictsLeastRecentlyUsedBeyondMaxEntries() {
+        ConversationStateService service = new ConversationStateService(null, false, 2, 60);
+
+        service.createOrUpdateState("a", ConversationStateService.ConversationType.CREATE_TASK, "COLLECTING_TITLE");
+        service.createOrUpdateState("b", ConversationStateService.ConversationType.CREATE_TASK, "COLLECTING_TITLE");
+        service.getConversationState("a");
+        service.createOrUpdateState("c", ConversationStateService.ConversationType.DELETE_TASK, "SLOT_FILLING");
+
+        assertNotNull(service.getConversationState("a"));
+        assertNull(service.getConversationState("b"));
+        assertNotNull(service.getConversationState("c"));
+        Map<String, Object> stats = service.getStats();
+        assertEquals(2, stats.get("liveStates"));
+        assertEquals(1L, stats.get("sizeEvictions"));
+    }
+
+    @Test
+    void cleanupExpiredStates_DropsIdleStates() {
+        ConversationStateService service = new ConversationStateService(null, false, 10, 0);
+        service.createOrUpdateState("a", ConversationStateService.ConversationType.CREATE_TASK, "COLLECTING_TITLE");
+
+        service.cleanupExpiredStates();
+
+        assertEquals(0, service.getStats().get("liveStates"));
+        assertEquals(1L, service.getStats().get("idleEvictions"));
+        assertNull(service.getConversationState("a"));
+    }
+
+    @Test
+    void updateCollectedData_ConcurrentUpdatesAreNotLost() {
+        ConversationStateService service = new ConversationStateService(null, false, 10, 60);
+        ConversationStateService.ConversationState created =
+            service.createOrUpdateState("a", ConversationStateService.ConversationType.CREATE_TASK, "SLOT_FILLING");
+        assertEquals(1L, created.getVersion());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                String key = "slot" + i;
+                writes.add(CompletableFuture.runAsync(() -> service.updateCollectedData("a", key, key), executor));
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ConversationStateService.ConversationState state = service.getConversationState("a");
+        assertEquals(50, state.getCollectedData().size());
+        assertEquals(51L, state.getVersion());
+        // Snapshots handed out earlier are not changed by later writes
+        assertTrue(created.getCollectedData().isEmpty());
+    }
+
+    @Test
+    void getConversationState_ReturnsSnapshotsOfTheCachedState() {
+        ConversationStateService service = new ConversationStateService(null, false, 10, 60);
+        service.createOrUpdateState("a", ConversationStateService.ConversationType.CREATE_TASK, "SLOT_FILLING");
+
+        ConversationStateService.ConversationState read = service.getConversationState("a");
+        read.getCollectedData().put("title", "changed outside the service");
+        read.setCurrentStep("CHANGED");
+
+        ConversationStateService.ConversationState reread = service.getConversationState("a");
+        assertNotSame(read, reread);
+        assertTrue(reread.getCollectedData().isEmpty());
+        assertEquals("SLOT_FILLING", reread.getCurrentStep());
+    }
+
+    @Test
+    void updateCollectedData_IgnoresUnknownConversations() {
+        ConversationStateService service = new ConversationStateService(null, false, 10, 60);
+
+        service.updateCollectedData("missing", "title", "Write report");
+
+        assertNull(service.getConversationState("missing"));
+        assertEquals(0, service.getStats().get("liveStates"));
+    }
+}
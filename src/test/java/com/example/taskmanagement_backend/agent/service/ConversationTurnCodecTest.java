@@ -0,0 +1,134 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import com.example.taskmanagement_backend.agent.service.ConversationMemoryService.ConversationTurn;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Binary turn encoding and the byte offsets the update-last-turn script relies on
+ */
+class ConversationTurnCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+    private static final String MULTI_BYTE = "Xin chào – 任务 ✅ 🚀 done";
+    // Every byte of the 4-byte length field is non-zero, so a misplaced or reordered byte shows up
+    private static final int LARGE_LENGTH = 0x01020304;
+
+    @Test
+    void roundTrip_EmptyMessages() {
+        assertRoundTrip(new ConversationTurn("", "", TIMESTAMP));
+    }
+
+    @Test
+    void roundTrip_MissingUserOrAiMessage() {
+        assertRoundTrip(new ConversationTurn("question", null, TIMESTAMP));
+        assertRoundTrip(new ConversationTurn(null, "answer", TIMESTAMP));
+    }
+
+    @Test
+    void roundTrip_MultiByteUtf8() {
+        byte[] encoded = assertRoundTrip(new ConversationTurn(MULTI_BYTE, MULTI_BYTE + "!", TIMESTAMP));
+
+        int userBytes = MULTI_BYTE.getBytes(StandardCharsets.UTF_8).length;
+        assertTrue(userBytes > MULTI_BYTE.length());
+        assertEquals(ConversationTurnCodec.HEADER_BYTES + userBytes + Integer.BYTES + userBytes + 1, encoded.length);
+    }
+
+    @Test
+    void roundTrip_LargeMessages() {
+        String large = "x".repeat(LARGE_LENGTH);
+
+        assertRoundTrip(new ConversationTurn(large, MULTI_BYTE, TIMESTAMP));
+        assertRoundTrip(new ConversationTurn(MULTI_BYTE, large, TIMESTAMP));
+    }
+
+    @Test
+    void decode_ReturnsNullForOtherFormats() {
+        assertNull(ConversationTurnCodec.decode(null));
+        assertNull(ConversationTurnCodec.decode(new byte[0]));
+        assertNull(ConversationTurnCodec.decode("{\"userMessage\":\"hi\"}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void updateLastTurnScript_ReadsTheUserLengthWhereTheCodecWritesIt() {
+        int[] positions = scriptUserLengthPositions();
+
+        // Lua positions are 1-based and inclusive
+        assertEquals(ConversationTurnCodec.USER_LENGTH_OFFSET + 1, positions[0]);
+        assertEquals(ConversationTurnCodec.HEADER_BYTES, positions[1]);
+        assertTrue(ConversationMemoryService.UPDATE_LAST_TURN_LUA.contains(
+                "local userEnd = " + ConversationTurnCodec.HEADER_BYTES + " + "));
+    }
+
+    @Test
+    void updateLastTurnScript_AddsAnAiResponseToAUserOnlyTurn() {
+        byte[] last = ConversationTurnCodec.encode(new ConversationTurn(MULTI_BYTE, null, TIMESTAMP));
+
+        ConversationTurn updated = ConversationTurnCodec.decode(applyUpdateScript(last, MULTI_BYTE + " reply"));
+
+        assertEquals(new ConversationTurn(MULTI_BYTE, MULTI_BYTE + " reply", TIMESTAMP), updated);
+    }
+
+    @Test
+    void updateLastTurnScript_ReplacesAnExistingAiResponse() {
+        byte[] last = ConversationTurnCodec.encode(new ConversationTurn(MULTI_BYTE, "a much longer first answer", TIMESTAMP));
+
+        ConversationTurn updated = ConversationTurnCodec.decode(applyUpdateScript(last, ""));
+
+        assertEquals(new ConversationTurn(MULTI_BYTE, "", TIMESTAMP), updated);
+    }
+
+    @Test
+    void updateLastTurnScript_KeepsALargeUserMessage() {
+        String large = "x".repeat(LARGE_LENGTH);
+        byte[] last = ConversationTurnCodec.encode(new ConversationTurn(large, null, TIMESTAMP));
+
+        ConversationTurn updated = ConversationTurnCodec.decode(applyUpdateScript(last, MULTI_BYTE));
+
+        assertEquals(new ConversationTurn(large, MULTI_BYTE, TIMESTAMP), updated);
+    }
+
+    private static byte[] assertRoundTrip(ConversationTurn turn) {
+        byte[] encoded = ConversationTurnCodec.encode(turn);
+        assertEquals(turn, ConversationTurnCodec.decode(encoded));
+        return encoded;
+    }
+
+    /**
+     * Java rendering of the LSET in UPDATE_LAST_TURN_LUA, using the positions taken from the script itself
+     */
+    private static byte[] applyUpdateScript(byte[] last, String aiResponse) {
+        int[] positions = scriptUserLengthPositions();
+        long length = 0;
+        for (int position = positions[0]; position <= positions[1]; position++) {
+            length = length * 256 + (last[position - 1] & 0xFF);
+        }
+        int userEnd = ConversationTurnCodec.HEADER_BYTES + (int) length;
+        int flags = last[1];
+        if (flags % 4 < ConversationTurnCodec.HAS_AI) {
+            flags += ConversationTurnCodec.HAS_AI;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(last[0]);
+        out.write(flags);
+        // string.sub(last, 3, userEnd)
+        out.write(last, 2, userEnd - 2);
+        out.writeBytes(ConversationTurnCodec.aiSection(aiResponse));
+        return out.toByteArray();
+    }
+
+    private static int[] scriptUserLengthPositions() {
+        Matcher matcher = Pattern.compile("local b1, b2, b3, b4 = string\\.byte\\(last, (\\d+), (\\d+)\\)")
+                .matcher(ConversationMemoryService.UPDATE_LAST_TURN_LUA);
+        assertTrue(matcher.find(), "update script no longer reads the user length with string.byte");
+        return new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))};
+    }
+}
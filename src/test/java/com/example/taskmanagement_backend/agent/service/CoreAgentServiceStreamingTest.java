@@ -0,0 +1,85 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import com.example.taskmanagement_backend.agent.dto.ChatRequest;
+import com.example.taskmanagement_backend.agent.dto.ChatResponse;
+import com.example.taskmanagement_backend.agent.tools.MyTaskTools;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Turns that are not streamed token by token still go through the streaming endpoint of CoreAgentService
+ */
+class CoreAgentServiceStreamingTest {
+
+    private final MyTaskTools myTaskTools = mock(MyTaskTools.class);
+    private final RAGService ragService = mock(RAGService.class);
+    private final IntentDetectionService intentDetectionService = mock(IntentDetectionService.class);
+    private final UnifiedAIService unifiedAIService = mock(UnifiedAIService.class);
+    private final AgentPipelineExecutor pipeline = new AgentPipelineExecutor();
+
+    private CoreAgentService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CoreAgentService(unifiedAIService, myTaskTools, mock(UserContextService.class),
+            mock(SessionMemoryService.class), mock(ConversationMemoryService.class), mock(AuditLogService.class),
+            mock(EscalationService.class), mock(MultiTurnConversationHandler.class), ragService, intentDetectionService,
+            mock(SlotFillingService.class), mock(VectorContextService.class), mock(ModerationService.class), pipeline,
+            mock(SemanticResponseCache.class));
+        for (String field : List.of("memoryTimeoutMs", "userContextTimeoutMs", "ragTimeoutMs", "intentTimeoutMs", "moderationTimeoutMs")) {
+            ReflectionTestUtils.setField(service, field, 5000L);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        pipeline.shutdown();
+    }
+
+    @Test
+    void streamUserMessage_ToolTurnRunsWithTheCallersSecurityContext() {
+        Authentication caller = new UsernamePasswordAuthenticationToken("alice@example.com", null, List.of());
+        SecurityContextHolder.getContext().setAuthentication(caller);
+        when(ragService.retrieveContext(anyString(), anyString(), anyLong()))
+            .thenAnswer(invocation -> RAGService.emptyContext(invocation.getArgument(0)));
+        when(intentDetectionService.detectIntent(anyString(), anyString(), anyLong()))
+            .thenReturn(new IntentDetectionService.IntentResult("QUERY", "GET_TASKS", 0.9));
+        AtomicReference<Authentication> seenByTool = new AtomicReference<>();
+        AtomicReference<Thread> toolThread = new AtomicReference<>();
+        when(myTaskTools.getUserTasks(eq(7L), isNull(), isNull(), isNull(), eq(10))).thenAnswer(invocation -> {
+            seenByTool.set(SecurityContextHolder.getContext().getAuthentication());
+            toolThread.set(Thread.currentThread());
+            return "1. Write report";
+        });
+
+        List<ServerSentEvent<Object>> events = service
+            .streamUserMessage("conv-1", 7L, ChatRequest.builder().content("show my tasks").build(), null, null)
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertEquals(1, events.size());
+        assertEquals("done", events.getFirst().event());
+        ChatResponse response = (ChatResponse) events.getFirst().data();
+        assertEquals("QUERY_HANDLED", response.getStatus());
+        assertTrue(response.getContent().contains("1. Write report"));
+        // Executed off the caller's thread, with the caller's authentication
+        assertNotSame(Thread.currentThread(), toolThread.get());
+        assertSame(caller, seenByTool.get());
+        verifyNoInteractions(unifiedAIService);
+    }
+}
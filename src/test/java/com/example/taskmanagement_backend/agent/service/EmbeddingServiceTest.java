@@ -0,0 +1,146 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Embedding cache and request batching of EmbeddingService against a local fake provider
+ */
+class EmbeddingServiceTest {
+
+    private FakeEmbeddingServer embeddingServer;
+    private final List<EmbeddingService> services = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        embeddingServer = new FakeEmbeddingServer(50);
+    }
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(EmbeddingService::shutdown);
+        embeddingServer.close();
+    }
+
+    @Test
+    void generateEmbedding_RepeatedTextIsServedFromCache() {
+        EmbeddingService service = serviceFor(new EmbeddingCache(null, 100, 1, false));
+
+        double[] first = service.generateEmbedding("Create a task for tomorrow");
+        double[] second = service.generateEmbedding("  Create a   task for tomorrow ");
+
+        assertEquals(1, embeddingServer.getRequestCount());
+        assertArrayEquals(first, second, 1e-6);
+        assertArrayEquals(FakeEmbeddingServer.embeddingOf("Create a task for tomorrow"), first, 1e-6);
+
+        Map<String, Object> stats = service.getCacheStats();
+        assertEquals(1L, stats.get("localHits"));
+        assertEquals(1L, stats.get("providerCalls"));
+        assertEquals(1L, stats.get("textsServedFromCache"));
+        assertEquals(0L, stats.get("providerBatchesAvoided"));
+    }
+
+    @Test
+    void generateEmbedding_ConcurrentRequestsShareProviderCalls() throws Exception {
+        EmbeddingService service = serviceFor(new EmbeddingCache(null, 100, 1, false));
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<double[]>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String text = "message " + (i % 8); // every text requested twice
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.generateEmbedding(text);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < threads; i++) {
+                assertArrayEquals(FakeEmbeddingServer.embeddingOf("message " + (i % 8)),
+                        results.get(i).get(10, TimeUnit.SECONDS), 1e-6);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int textsSent = embeddingServer.getRequests().stream().mapToInt(List::size).sum();
+        assertTrue(embeddingServer.getRequestCount() < threads,
+                "expected batched calls, got " + embeddingServer.getRequestCount());
+        assertTrue(textsSent < threads, "expected duplicate texts to be coalesced, sent " + textsSent);
+    }
+
+    @Test
+    void generateEmbeddings_SendsMissesInOneRequestInOrder() {
+        EmbeddingService service = serviceFor(new EmbeddingCache(null, 100, 1, false));
+        service.generateEmbedding("b");
+
+        List<double[]> embeddings = service.generateEmbeddings(List.of("a", "b", "c", "a"));
+
+        assertEquals(2, embeddingServer.getRequestCount());
+        assertEquals(List.of("a", "c"), embeddingServer.getRequests().get(1));
+        assertArrayEquals(FakeEmbeddingServer.embeddingOf("a"), embeddings.get(0), 1e-6);
+        assertArrayEquals(FakeEmbeddingServer.embeddingOf("b"), embeddings.get(1), 1e-6);
+        assertArrayEquals(FakeEmbeddingServer.embeddingOf("c"), embeddings.get(2), 1e-6);
+        assertArrayEquals(embeddings.get(0), embeddings.get(3), 1e-6);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void generateEmbedding_SharedRedisCacheAvoidsProviderCall() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.multiGet(anyCollection())).thenReturn(Arrays.asList((String) null));
+
+        // First node embeds and writes through to Redis
+        serviceFor(new EmbeddingCache(redisTemplate, 100, 1, true)).generateEmbedding("shared text");
+        ArgumentCaptor<String> stored = ArgumentCaptor.forClass(String.class);
+        verify(valueOperations).set(startsWith("taskmanagement:embeddings:"), stored.capture(), eq(Duration.ofHours(1)));
+
+        // Second node with an empty local cache reads it back
+        when(valueOperations.multiGet(anyCollection())).thenReturn(List.of(stored.getValue()));
+        EmbeddingService secondNode = serviceFor(new EmbeddingCache(redisTemplate, 100, 1, true));
+        double[] embedding = secondNode.generateEmbedding("shared text");
+
+        assertEquals(1, embeddingServer.getRequestCount());
+        assertArrayEquals(FakeEmbeddingServer.embeddingOf("shared text"), embedding, 1e-6);
+        assertEquals(1L, secondNode.getCacheStats().get("redisHits"));
+    }
+
+    private EmbeddingService serviceFor(EmbeddingCache cache) {
+        WebClient webClient = WebClient.builder()
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(10 * 1024 * 1024))
+                .build();
+        EmbeddingService service = new EmbeddingService(webClient, cache);
+        ReflectionTestUtils.setField(service, "embeddingApiUrl", embeddingServer.getUrl());
+        ReflectionTestUtils.setField(service, "embeddingApiKey", "test-key");
+        ReflectionTestUtils.setField(service, "embeddingModel", "test-model");
+        ReflectionTestUtils.setField(service, "embeddingMode", "api");
+        ReflectionTestUtils.setField(service, "batchMaxSize", 64);
+        ReflectionTestUtils.setField(service, "batchMaxWaitMs", 20L);
+        ReflectionTestUtils.setField(service, "batchMaxConcurrentCalls", 2);
+        service.init();
+        services.add(service);
+        return service;
+    }
+}
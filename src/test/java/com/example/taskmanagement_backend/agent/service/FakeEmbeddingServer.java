@@ -0,0 +1,87 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process embeddings API (OpenAI-style {@code input} list -> {@code data[].embedding})
+ * for tests. Vectors are deterministic per text; every request's inputs are recorded.
+ */
+class FakeEmbeddingServer implements Closeable {
+
+    static final int DIMENSION = 1024;
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long responseDelayMs;
+    private final List<List<String>> requests = new CopyOnWriteArrayList<>();
+
+    FakeEmbeddingServer(long responseDelayMs) throws IOException {
+        this.responseDelayMs = responseDelayMs;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v1/embeddings", this::handle);
+        this.server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/embeddings";
+    }
+
+    int getRequestCount() {
+        return requests.size();
+    }
+
+    List<List<String>> getRequests() {
+        return requests;
+    }
+
+    static double[] embeddingOf(String text) {
+        Random random = new Random(text.hashCode());
+        double[] vector = new double[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = random.nextGaussian();
+        }
+        return vector;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handle(HttpExchange exchange) throws IOException {
+        Map<String, Object> body = objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        Object input = body.get("input");
+        List<String> texts = input instanceof List<?> list ? (List<String>) list : List.of((String) input);
+        requests.add(texts);
+
+        try {
+            Thread.sleep(responseDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = texts.size() - 1; i >= 0; i--) { // out of order, clients must use "index"
+            data.add(Map.of("index", i, "embedding", embeddingOf(texts.get(i))));
+        }
+        byte[] response = objectMapper.writeValueAsBytes(Map.of("data", data));
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+}
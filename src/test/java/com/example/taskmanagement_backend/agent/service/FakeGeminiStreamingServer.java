@@ -0,0 +1,98 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal in-process Gemini {@code streamGenerateContent?alt=sse} endpoint for tests.
+ * Sends the configured chunks as SSE events with a delay between them, followed by a
+ * final chunk without text (like the real API's finishReason chunk).
+ */
+class FakeGeminiStreamingServer implements Closeable {
+
+    private final HttpServer server;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> chunks;
+    private final long chunkDelayMs;
+    private final int status;
+    private final List<String> requestQueries = new CopyOnWriteArrayList<>();
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+
+    FakeGeminiStreamingServer(List<String> chunks, long chunkDelayMs, int status) throws IOException {
+        this.chunks = chunks;
+        this.chunkDelayMs = chunkDelayMs;
+        this.status = status;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/v1beta/models/test-model:streamGenerateContent", this::handle);
+        this.server.start();
+    }
+
+    String getUrl() {
+        return "http://localhost:" + server.getAddress().getPort()
+            + "/v1beta/models/test-model:streamGenerateContent?alt=sse";
+    }
+
+    int getRequestCount() {
+        return requestBodies.size();
+    }
+
+    List<String> getRequestQueries() {
+        return requestQueries;
+    }
+
+    List<String> getRequestBodies() {
+        return requestBodies;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestQueries.add(exchange.getRequestURI().getQuery());
+        requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+        if (status != 200) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (String chunk : chunks) {
+                writeEvent(out, Map.of("candidates", List.of(Map.of(
+                    "content", Map.of("role", "model", "parts", List.of(Map.of("text", chunk)))))));
+                sleep();
+            }
+            writeEvent(out, Map.of("candidates", List.of(Map.of("finishReason", "STOP"))));
+        }
+    }
+
+    private void writeEvent(OutputStream out, Map<String, Object> payload) throws IOException {
+        out.write(("data: " + objectMapper.writeValueAsString(payload) + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(chunkDelayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Token bucket throughput, per-user fairness and 429 handling of GeminiApiRateLimiterService
+ * (local bucket only, no Redis). The bucket runs on a manual ticker, so the tests count
+ * permits per simulated interval instead of measuring wall-clock time.
+ */
+class GeminiApiRateLimiterServiceTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+    private GeminiApiRateLimiterService limiter;
+
+    @AfterEach
+    void tearDown() {
+        if (limiter != null) {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void acquireAsync_HundredsOfWaitersAreServedAtTheConfiguredRate() throws Exception {
+        limiter = limiter(6000, 5); // 100 permits per second
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(limiter.acquireAsync("user:" + (i % 30), Duration.ofSeconds(60)));
+        }
+
+        // Only the burst while no time passes
+        awaitGranted(5);
+        assertGrantedStays(5);
+
+        // Then exactly the refill of each simulated second, a burst's worth (50 ms) at a time
+        for (int step = 1; step <= 20; step++) {
+            advance(Duration.ofMillis(50));
+            awaitGranted(5 + 5 * step);
+        }
+        assertGrantedStays(105);
+
+        advanceUntilDone(futures, Duration.ofMillis(50));
+        assertEquals(300L, limiter.getStats().get("granted"));
+        assertTrue(futures.stream().allMatch(CompletableFuture::join), "every caller should get a permit");
+        assertEquals(0, limiter.getStats().get("waiting"));
+    }
+
+    @Test
+    void acquireAsync_ChattyUserDoesNotStarveOthers() throws Exception {
+        limiter = limiter(6000, 1);
+        List<CompletableFuture<Boolean>> chatty = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            chatty.add(limiter.acquireAsync("user:chatty", Duration.ofSeconds(60)));
+        }
+        awaitGranted(1);
+        List<CompletableFuture<Boolean>> quiet = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            quiet.add(limiter.acquireAsync("user:quiet", Duration.ofSeconds(60)));
+        }
+        await(() -> limiter.getStats().get("waiting").equals(204));
+
+        // Ten permits: served alternately, so the quiet user gets five of them
+        for (int step = 1; step <= 10; step++) {
+            advance(Duration.ofMillis(10));
+            awaitGranted(1 + step);
+        }
+        CompletableFuture.allOf(quiet.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertTrue(quiet.stream().allMatch(CompletableFuture::join));
+        await(() -> chatty.stream().filter(CompletableFuture::isDone).count() == 6);
+        assertGrantedStays(11);
+
+        advanceUntilDone(chatty, Duration.ofMillis(10));
+        assertTrue(chatty.stream().allMatch(CompletableFuture::join));
+    }
+
+    @Test
+    void reportRateLimitExceeded_HalvesRateAndRejectsCallersThatCannotWaitOutTheBackoff() {
+        limiter = limiter(6000, 5);
+
+        limiter.reportRateLimitExceeded();
+        boolean granted = limiter.acquirePermit("user:1", 2);
+
+        // Rejected up front rather than after waiting out the timeout
+        assertFalse(granted);
+        assertEquals(3000.0, limiter.getStats().get("currentRequestsPerMinute"));
+        assertEquals(1L, limiter.getStats().get("rejectedImmediately"));
+        assertEquals(0L, limiter.getStats().get("timedOut"));
+
+        limiter.reportSuccess();
+        assertFalse(limiter.acquirePermit("user:1", 1));
+        assertEquals(3600.0, limiter.getStats().get("currentRequestsPerMinute"));
+        assertEquals(2L, limiter.getStats().get("rejectedImmediately"));
+    }
+
+    private GeminiApiRateLimiterService limiter(int requestsPerMinute, int burst) {
+        GeminiApiRateLimiterService service = new GeminiApiRateLimiterService(null, ticker::get);
+        ReflectionTestUtils.setField(service, "requestsPerMinute", requestsPerMinute);
+        ReflectionTestUtils.setField(service, "burst", burst);
+        ReflectionTestUtils.setField(service, "minRequestsPerMinute", 1);
+        ReflectionTestUtils.setField(service, "clusterEnabled", false);
+        service.init();
+        return service;
+    }
+
+    private void advance(Duration duration) {
+        ticker.addAndGet(duration.toNanos());
+    }
+
+    /**
+     * Keep advancing the ticker until every future completed; the bucket never holds more than
+     * its burst, so each step releases at most that many permits
+     */
+    private void advanceUntilDone(List<CompletableFuture<Boolean>> futures, Duration step) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!futures.stream().allMatch(CompletableFuture::isDone)) {
+            assertTrue(System.nanoTime() < deadline, "permits were not all granted");
+            advance(step);
+            Thread.sleep(2);
+        }
+    }
+
+    private void awaitGranted(long expected) throws InterruptedException {
+        await(() -> ((Long) limiter.getStats().get("granted")) >= expected);
+        assertEquals(expected, limiter.getStats().get("granted"));
+    }
+
+    /**
+     * No further permit while the ticker stands still, across several dispatcher re-checks
+     */
+    private void assertGrantedStays(long expected) throws InterruptedException {
+        Thread.sleep(100);
+        assertEquals(expected, limiter.getStats().get("granted"));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached");
+            Thread.sleep(5);
+        }
+    }
+}
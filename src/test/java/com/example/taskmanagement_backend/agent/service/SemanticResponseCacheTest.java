@@ -0,0 +1,111 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Scoping, similarity lookup and invalidation of SemanticResponseCache
+ */
+class SemanticResponseCacheTest {
+
+    private static final double[] CREATE_TASK = {1, 0, 0};
+    private static final double[] CREATE_TASK_PARAPHRASE = {0.98, 0.2, 0};
+    private static final double[] PREMIUM = {0, 1, 0};
+
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private SemanticResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(embeddingService.generateEmbedding(anyString())).thenReturn(new double[]{0, 0, 1});
+        when(embeddingService.generateEmbedding("How do I create a task?")).thenReturn(CREATE_TASK);
+        when(embeddingService.generateEmbedding("how can i add a new task")).thenReturn(CREATE_TASK_PARAPHRASE);
+        when(embeddingService.generateEmbedding("What is premium?")).thenReturn(PREMIUM);
+        cache = new SemanticResponseCache(embeddingService, true, 0.92, 60, 10, 100);
+    }
+
+    @Test
+    void lookup_SharesGenericAnswersAcrossUsersOfTheSameAudience() {
+        RAGService.RAGContext context = context(doc("faq_tasks", Map.of("category", "faq")));
+        cache.store(request("How do I create a task?", 1L), "query", context, user(1L, "Alice"),
+            "Open a project and press New task.");
+
+        assertEquals(Optional.of("Open a project and press New task."),
+            cache.lookup("  how do I create a TASK ", "query", context, user(2L, "Bob")));
+        assertEquals(Optional.of("Open a project and press New task."),
+            cache.lookup("how can i add a new task", "query", context, user(3L, "Carol")));
+
+        // Different intent, knowledge or audience is a different prompt
+        assertTrue(cache.lookup("How do I create a task?", "chitchat", context, user(2L, "Bob")).isEmpty());
+        assertTrue(cache.lookup("How do I create a task?", "query", context(), user(2L, "Bob")).isEmpty());
+        UserContextService.UserChatContext premiumUser = user(4L, "Dan");
+        premiumUser.setIsPremium(true);
+        assertTrue(cache.lookup("How do I create a task?", "query", context, premiumUser).isEmpty());
+
+        Map<String, Object> stats = cache.getStats();
+        assertEquals(1L, stats.get("exactHits"));
+        assertEquals(1L, stats.get("semanticHits"));
+        assertEquals(3L, stats.get("misses"));
+        assertTrue((Long) stats.get("estimatedProviderTokensSaved") > 0);
+    }
+
+    @Test
+    void lookup_NeverSharesUserSpecificAnswers() {
+        RAGService.RAGContext withHistory = context(
+            doc("faq_premium", Map.of("category", "faq")),
+            doc("qa_1_1700000000", Map.of("type", "conversation_qa_pair", "user_id", 1L)));
+        RAGService.RAGContext generic = context(doc("faq_premium", Map.of("category", "faq")));
+
+        cache.store(request("What is premium?", 1L), "query", withHistory, user(1L, "Alice"),
+            "Premium unlocks unlimited projects.");
+        cache.store(request("How do I create a task?", 1L), "query", generic, user(1L, "Alice"),
+            "Alice, open a project and press New task.");
+
+        assertTrue(cache.lookup("What is premium?", "query", withHistory, user(2L, "Bob")).isEmpty());
+        assertTrue(cache.lookup("How do I create a task?", "query", generic, user(2L, "Bob")).isEmpty());
+        assertEquals(Optional.of("Premium unlocks unlimited projects."),
+            cache.lookup("What is premium?", "query", withHistory, user(1L, "Alice")));
+        assertEquals(Optional.of("Alice, open a project and press New task."),
+            cache.lookup("How do I create a task?", "query", generic, user(1L, "Alice")));
+        assertEquals(2L, cache.getStats().get("userEntries"));
+    }
+
+    @Test
+    void invalidateAll_DropsEveryEntry() {
+        RAGService.RAGContext context = context(doc("faq_tasks", Map.of("category", "faq")));
+        cache.store(request("How do I create a task?", 1L), "query", context, user(1L, "Alice"), "Press New task.");
+
+        cache.invalidateAll("knowledge base changed");
+
+        assertTrue(cache.lookup("How do I create a task?", "query", context, user(1L, "Alice")).isEmpty());
+        assertEquals(0, cache.getStats().get("entries"));
+    }
+
+    private static UnifiedAIService.UnifiedRequest request(String message, Long userId) {
+        return new UnifiedAIService.UnifiedRequest(message, userId, "=== RAG ENHANCED CONTEXT ===", "You are helpful.", null);
+    }
+
+    private static UserContextService.UserChatContext user(Long id, String firstName) {
+        UserContextService.UserChatContext user = UserContextService.UserChatContext.createDefault(id);
+        user.setFirstName(firstName);
+        return user;
+    }
+
+    private static RAGService.RAGContext context(RAGService.KnowledgeDocument... docs) {
+        RAGService.RAGContext context = RAGService.emptyContext("");
+        context.setRelevantDocuments(List.of(docs));
+        return context;
+    }
+
+    private static RAGService.KnowledgeDocument doc(String id, Map<String, Object> metadata) {
+        return RAGService.KnowledgeDocument.builder().id(id).content("content of " + id).metadata(metadata).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.taskmanagement_backend.agent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token streaming of UnifiedAIService against a local fake Gemini SSE endpoint
+ */
+class UnifiedAIServiceStreamingTest {
+
+    private static final List<String> CHUNKS = List.of("Xin chào! ", "Tôi có thể ", "giúp gì cho bạn?");
+
+    private FakeGeminiStreamingServer geminiServer;
+    private final GeminiApiRateLimiterService rateLimiter = mock(GeminiApiRateLimiterService.class);
+
+    @AfterEach
+    void tearDown() {
+        if (geminiServer != null) {
+            geminiServer.close();
+        }
+    }
+
+    @Test
+    void streamResponse_ForwardsChunksAsTheyArrive() throws Exception {
+        geminiServer = new FakeGeminiStreamingServer(CHUNKS, 200, 200);
+        when(rateLimiter.acquireAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(true));
+        UnifiedAIService service = serviceFor(geminiServer.getUrl(), "test-key");
+
+        List<Long> arrivals = new java.util.concurrent.CopyOnWriteArrayList<>();
+        List<String> received = service.streamResponse(request("Bạn giúp được gì?"))
+            .doOnNext(text -> arrivals.add(System.nanoTime()))
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertEquals(CHUNKS, received);
+        // First chunk reaches the caller while the server is still generating the rest
+        assertTrue(Duration.ofNanos(arrivals.getLast() - arrivals.getFirst()).toMillis() >= 300,
+            "chunks were not delivered incrementally");
+
+        assertEquals("alt=sse&key=test-key", geminiServer.getRequestQueries().getFirst());
+        assertTrue(geminiServer.getRequestBodies().getFirst().contains("Bạn giúp được gì?"));
+        verify(rateLimiter).reportSuccess();
+    }
+
+    @Test
+    void streamResponse_ProviderErrorBeforeFirstChunkFallsBackToSingleAnswer() throws Exception {
+        geminiServer = new FakeGeminiStreamingServer(CHUNKS, 0, 429);
+        when(rateLimiter.acquireAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(true));
+        UnifiedAIService service = serviceFor(geminiServer.getUrl(), "test-key");
+
+        List<String> received = service.streamResponse(request("xin chào"))
+            .collectList()
+            .block(Duration.ofSeconds(10));
+
+        assertEquals(1, received.size());
+        assertFalse(received.getFirst().isBlank());
+        verify(rateLimiter).reportRateLimitExceeded();
+    }
+
+    @Test
+    void streamResponse_RateLimitedOrUnconfiguredDoesNotCallProvider() throws Exception {
+        geminiServer = new FakeGeminiStreamingServer(CHUNKS, 0, 200);
+        when(rateLimiter.acquireAsync(anyString(), any())).thenReturn(CompletableFuture.completedFuture(false));
+
+        List<String> rateLimited = serviceFor(geminiServer.getUrl(), "test-key")
+            .streamResponse(request("xin chào")).collectList().block(Duration.ofSeconds(10));
+        List<String> unconfigured = serviceFor(geminiServer.getUrl(), "")
+            .streamResponse(request("xin chào")).collectList().block(Duration.ofSeconds(10));
+
+        assertEquals(1, rateLimited.size());
+        assertEquals(1, unconfigured.size());
+        assertEquals(0, geminiServer.getRequestCount());
+    }
+
+    private UnifiedAIService serviceFor(String streamUrl, String apiKey) {
+        UnifiedAIService service = new UnifiedAIService(WebClient.builder().build(), rateLimiter);
+        ReflectionTestUtils.setField(service, "geminiApiKey", apiKey);
+        ReflectionTestUtils.setField(service, "geminiStreamUrl", streamUrl);
+        ReflectionTestUtils.setField(service, "geminiApiTimeoutSeconds", 5);
+        return service;
+    }
+
+    private static UnifiedAIService.UnifiedRequest request(String message) {
+        return new UnifiedAIService.UnifiedRequest(message, 1L, "", "You are a friendly AI assistant.", null);
+    }
+}
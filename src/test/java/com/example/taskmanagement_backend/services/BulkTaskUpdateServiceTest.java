@@ -0,0 +1,182 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateItemDto;
+import com.example.taskmanagement_backend.dtos.TaskDto.BulkTaskUpdateResponseDto;
+import com.example.taskmanagement_backend.entities.*;
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import com.example.taskmanagement_backend.repositories.ProjectTaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TasksAssigneeJpaRepository;
+import com.example.taskmanagement_backend.repositories.UserJpaRepository;
+import com.example.taskmanagement_backend.search.services.SearchEventPublisher;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * One load, one progress pass and one side-effect pass per batch in BulkTaskUpdateService
+ */
+@ExtendWith(MockitoExtension.class)
+class BulkTaskUpdateServiceTest {
+
+    @Mock
+    private ProjectTaskJpaRepository projectTaskRepository;
+
+    @Mock
+    private TaskJpaRepository taskRepository;
+
+    @Mock
+    private TasksAssigneeJpaRepository tasksAssigneeRepository;
+
+    @Mock
+    private UserJpaRepository userRepository;
+
+    @Mock
+    private ProgressUpdateService progressUpdateService;
+
+    @Mock
+    private ProjectTaskActivityService projectTaskActivityService;
+
+    @Mock
+    private TaskActivityService taskActivityService;
+
+    @Mock
+    private DashboardService dashboardService;
+
+    @Mock
+    private ProjectDashboardService projectDashboardService;
+
+    @Mock
+    private SearchEventPublisher searchEventPublisher;
+
+    @Mock
+    private ProjectTaskActivityService.ActivityBatch projectTaskActivities;
+
+    @Mock
+    private TaskActivityService.ActivityBatch taskActivities;
+
+    private BulkTaskUpdateService service;
+
+    private final User me = User.builder().id(1L).email("me@example.com").build();
+    private final User other = User.builder().id(2L).email("other@example.com").build();
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkTaskUpdateService(projectTaskRepository, taskRepository, tasksAssigneeRepository,
+                userRepository, progressUpdateService, projectTaskActivityService, taskActivityService,
+                dashboardService, projectDashboardService, searchEventPublisher);
+        // Each test updates either project tasks or personal tasks, and rejected batches stop before their activities
+        lenient().when(projectTaskActivityService.startBatch()).thenReturn(projectTaskActivities);
+        lenient().when(taskActivityService.startBatch()).thenReturn(taskActivities);
+        lenient().when(userRepository.findByEmail("me@example.com")).thenReturn(Optional.of(me));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                org.springframework.security.core.userdetails.User.withUsername("me@example.com")
+                        .password("x").roles("MEMBER").build(), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void updateProjectTasks_AppliesTheWholeBoardMoveWithOneProgressPass() {
+        Project first = Project.builder().id(10L).build();
+        Project second = Project.builder().id(20L).build();
+        List<ProjectTask> tasks = List.of(projectTask(1L, first), projectTask(2L, first), projectTask(3L, second));
+        when(projectTaskRepository.findAllForBulkUpdateByIdIn(anyCollection())).thenReturn(tasks);
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(other));
+
+        BulkTaskUpdateResponseDto response = service.updateProjectTasks(List.of(
+                BulkTaskUpdateItemDto.builder().taskId(1L).status("DONE").build(),
+                BulkTaskUpdateItemDto.builder().taskId(2L).progressPercentage(100).build(),
+                BulkTaskUpdateItemDto.builder().taskId(3L).assigneeId(2L).priority("high").build()));
+
+        assertEquals(3, response.getChangedCount());
+        assertEquals(TaskStatus.DONE, tasks.get(1).getStatus());
+        assertEquals(other, tasks.get(2).getAssignee());
+        verify(projectTaskRepository, times(1)).findAllForBulkUpdateByIdIn(anyCollection());
+        verify(projectTaskRepository, never()).save(any());
+        verify(projectTaskActivities, times(1)).save();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<Long, TaskStatus>> oldStatuses = ArgumentCaptor.forClass(Map.class);
+        verify(progressUpdateService, times(1)).onProjectTasksStatusChanged(eq(tasks), oldStatuses.capture());
+        assertEquals(TaskStatus.TODO, oldStatuses.getValue().get(1L));
+        verify(progressUpdateService, never()).onProjectTaskStatusChanged(any(), any());
+        verify(projectDashboardService, times(1)).invalidateProjectDashboardCaches(Set.of(10L, 20L));
+    }
+
+    @Test
+    void updateProjectTasks_RejectsTheBatchWhenATaskIsMissing() {
+        when(projectTaskRepository.findAllForBulkUpdateByIdIn(anyCollection()))
+                .thenReturn(List.of(projectTask(1L, Project.builder().id(10L).build())));
+
+        assertThrows(EntityNotFoundException.class, () -> service.updateProjectTasks(List.of(
+                BulkTaskUpdateItemDto.builder().taskId(1L).status("DONE").build(),
+                BulkTaskUpdateItemDto.builder().taskId(99L).status("DONE").build())));
+
+        verifyNoInteractions(progressUpdateService, projectDashboardService);
+    }
+
+    @Test
+    void updateMyTasks_ReassignsInOneDeleteAndPublishesOneSearchEvent() {
+        Task first = task(5L, me);
+        Task second = task(6L, me);
+        when(taskRepository.findAllById(anyCollection())).thenReturn(List.of(first, second));
+        when(tasksAssigneeRepository.findWithUserByTaskIdIn(anyCollection())).thenReturn(List.of(
+                TaskAssignee.builder().task(first).user(me).build()));
+        when(userRepository.findAllById(anyCollection())).thenReturn(List.of(other));
+
+        service.updateMyTasks(List.of(
+                BulkTaskUpdateItemDto.builder().taskId(5L).status("DONE").assigneeId(2L).build(),
+                BulkTaskUpdateItemDto.builder().taskId(6L).deadline(LocalDate.of(2030, 1, 1)).build()));
+
+        assertEquals("DONE", first.getStatusKey());
+        verify(tasksAssigneeRepository, times(1)).deleteByTaskIdIn(Set.of(5L));
+        verify(tasksAssigneeRepository, times(1)).saveAll(anyList());
+        verify(taskActivities, times(1)).save();
+        verify(dashboardService, times(1)).invalidateDashboardCaches(Set.of(1L, 2L));
+        verify(searchEventPublisher, times(1)).publishTasksUpdated(Set.of(5L, 6L), 1L);
+        verify(searchEventPublisher, never()).publishTaskUpdated(anyLong(), anyLong());
+    }
+
+    @Test
+    void updateMyTasks_RejectsTasksTheUserCannotEdit() {
+        when(taskRepository.findAllById(anyCollection())).thenReturn(List.of(task(5L, other)));
+        when(tasksAssigneeRepository.findWithUserByTaskIdIn(anyCollection())).thenReturn(List.of());
+
+        assertThrows(SecurityException.class, () -> service.updateMyTasks(List.of(
+                BulkTaskUpdateItemDto.builder().taskId(5L).status("DONE").build())));
+
+        verify(taskActivities, never()).save();
+        verifyNoInteractions(dashboardService, searchEventPublisher);
+    }
+
+    private ProjectTask projectTask(Long id, Project project) {
+        ProjectTask task = new ProjectTask();
+        task.setId(id);
+        task.setProject(project);
+        task.setStatus(TaskStatus.TODO);
+        task.setProgressPercentage(0);
+        return task;
+    }
+
+    private Task task(Long id, User creator) {
+        return Task.builder().id(id).creator(creator).statusKey("TODO").build();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.entities.Post;
+import com.example.taskmanagement_backend.enums.PostPrivacy;
+import com.example.taskmanagement_backend.repositories.PostCommentLikeRepository;
+import com.example.taskmanagement_backend.repositories.PostCommentRepository;
+import com.example.taskmanagement_backend.repositories.PostLikeRepository;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import com.example.taskmanagement_backend.services.feed.TrendingPostService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Idempotent like transitions and batched counter flushes of PostEngagementService
+ */
+@ExtendWith(MockitoExtension.class)
+class PostEngagementServiceTest {
+
+    private static final String PENDING = "taskmanagement:counters:pending";
+    private static final String FLUSHING = "taskmanagement:counters:flushing";
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private PostCommentRepository postCommentRepository;
+
+    @Mock
+    private PostCommentLikeRepository postCommentLikeRepository;
+
+    @Mock
+    private TrendingPostService trendingPostService;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private PostEngagementService service;
+
+    private final Post post = Post.builder().id(10L).privacy(PostPrivacy.PUBLIC).build();
+
+    @BeforeEach
+    void setUp() {
+        // Only recorded deltas go through the hash operations; flushes run scripts
+        lenient().when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        service = new PostEngagementService(postRepository, postLikeRepository, postCommentRepository,
+                postCommentLikeRepository, trendingPostService, redisTemplate);
+    }
+
+    @Test
+    void togglePostLike_LikesAndCountsOnceWhenNotLikedYet() {
+        when(postLikeRepository.insertIfAbsent(10L, 1L)).thenReturn(1);
+
+        assertTrue(service.togglePostLike(post, 1L));
+
+        verify(postLikeRepository, never()).deleteByPostIdAndUserId(anyLong(), anyLong());
+        verify(hashOperations).increment(PENDING, "post-like:10", 1L);
+        verify(trendingPostService).onEngagement(10L, PostPrivacy.PUBLIC, TrendingPostService.LIKE_WEIGHT);
+        verifyNoInteractions(postRepository);
+    }
+
+    @Test
+    void togglePostLike_UnlikesAnExistingLikeAsOfWhenItWasGiven() {
+        LocalDateTime likedAt = LocalDateTime.now().minusDays(1);
+        when(postLikeRepository.findCreatedAtByPostIdAndUserId(10L, 1L)).thenReturn(Optional.of(likedAt));
+        when(postLikeRepository.deleteByPostIdAndUserId(10L, 1L)).thenReturn(1);
+
+        assertFalse(service.togglePostLike(post, 1L));
+
+        verify(postLikeRepository, never()).insertIfAbsent(anyLong(), anyLong());
+        verify(hashOperations).increment(PENDING, "post-like:10", -1L);
+        verify(trendingPostService).onEngagement(10L, PostPrivacy.PUBLIC, -TrendingPostService.LIKE_WEIGHT, likedAt);
+    }
+
+    @Test
+    void setPostLiked_RepeatedLikeDoesNotCountAgain() {
+        when(postLikeRepository.insertIfAbsent(10L, 1L)).thenReturn(0);
+
+        assertFalse(service.setPostLiked(post, 1L, true));
+
+        verifyNoInteractions(hashOperations, trendingPostService);
+    }
+
+    @Test
+    void flushPendingCounters_UpdatesRowsWithTheSameDeltaTogether() {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of(PENDING, FLUSHING)))).thenReturn(List.of(
+                "post-like:1", "1", "post-like:2", "1", "post-like:3", "-2",
+                "post-comment:1", "1", "comment-like:7", "0"));
+
+        service.flushPendingCounters();
+
+        verify(postRepository).addToLikeCounts(argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 2L))), eq(1L));
+        verify(postRepository).addToLikeCounts(List.of(3L), -2L);
+        verify(postRepository).addToCommentCounts(List.of(1L), 1L);
+        verifyNoInteractions(postCommentRepository);
+        verify(redisTemplate).delete(FLUSHING);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.PostDto.PostResponseDto;
+import com.example.taskmanagement_backend.entities.Post;
+import com.example.taskmanagement_backend.entities.PostComment;
+import com.example.taskmanagement_backend.entities.PostLike;
+import com.example.taskmanagement_backend.entities.User;
+import com.example.taskmanagement_backend.repositories.*;
+import com.example.taskmanagement_backend.services.media.ThumbnailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Query budget of PostHydrationService: a page costs the same number of repository/Redis calls whatever its size
+ */
+@ExtendWith(MockitoExtension.class)
+class PostHydrationServiceTest {
+
+    private static final Long VIEWER_ID = 7L;
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private PostLikeRepository postLikeRepository;
+
+    @Mock
+    private PostCommentRepository postCommentRepository;
+
+    @Mock
+    private PostCommentLikeRepository postCommentLikeRepository;
+
+    @Mock
+    private PostAttachmentRepository postAttachmentRepository;
+
+    @Mock
+    private PostEngagementService postEngagementService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    private PostHydrationService service;
+
+    private final User author = User.builder().id(1L).email("author@example.com").build();
+
+    @BeforeEach
+    void setUp() {
+        service = new PostHydrationService(postRepository, postLikeRepository, postCommentRepository,
+                postCommentLikeRepository, postAttachmentRepository, postEngagementService, thumbnailService);
+    }
+
+    @Test
+    void hydratePosts_UsesTheSameNumberOfQueriesForOneAndTwentyPosts() {
+        givenStoredPosts();
+        int singlePostCalls = repositoryCallsFor(1);
+        int pageCalls = repositoryCallsFor(20);
+
+        assertEquals(singlePostCalls, pageCalls);
+        assertTrue(pageCalls <= 14, "page hydration made " + pageCalls + " repository calls");
+    }
+
+    @Test
+    void hydratePosts_FillsFlagsCountsLikesAndCommentsPerPost() {
+        givenStoredPosts();
+        List<Post> page = posts(3);
+
+        List<PostResponseDto> dtos = service.hydratePosts(page, VIEWER_ID);
+
+        assertEquals(List.of(1L, 2L, 3L), dtos.stream().map(PostResponseDto::getId).toList());
+        assertFalse(dtos.get(0).getIsLikedByCurrentUser());
+        assertTrue(dtos.get(1).getIsLikedByCurrentUser());
+        assertEquals(1, dtos.get(0).getLikeCount());
+        assertEquals(2, dtos.get(2).getLikeCount());
+        assertEquals(1, dtos.get(2).getCommentCount());
+        assertEquals(1, dtos.get(2).getRecentLikes().size());
+        assertEquals("comment 2003", dtos.get(2).getTopComments().get(0).getContent());
+        // Top-N likes are limited in SQL, never by loading every like of a post
+        verify(postLikeRepository).findRecentLikeIdsByPostIds(anyCollection(), eq(PostHydrationService.RECENT_POST_LIKES));
+        verify(postLikeRepository, never()).findByPostOrderByCreatedAtDesc(any());
+        verify(postLikeRepository, never()).findByPostIdAndUserId(anyLong(), anyLong());
+        verify(postLikeRepository, never()).countByPost(any());
+        verify(postCommentLikeRepository, never()).countByComment(any());
+    }
+
+    @Test
+    void hydratePosts_EmptyPageMakesNoQueries() {
+        assertTrue(service.hydratePosts(List.of(), VIEWER_ID).isEmpty());
+        verifyNoInteractions(postRepository, postLikeRepository, postCommentRepository,
+                postCommentLikeRepository, postAttachmentRepository, postEngagementService);
+    }
+
+    /**
+     * Posts, likes and comments of whatever page is hydrated
+     */
+    private void givenStoredPosts() {
+        when(postRepository.findAllWithAuthorAndLinksByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(this::post).toList());
+        // Each post has one like (by the viewer on even posts) and one top-level comment in its counters
+        when(postLikeRepository.findLikedPostIds(anyCollection(), eq(VIEWER_ID))).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().filter(id -> id % 2 == 0).toList());
+        // One like of post 3 is not flushed to its counter yet; the comment counters have nothing pending
+        lenient().when(postEngagementService.pendingDeltas(eq(PostEngagementService.Counter.POST_LIKES), anyCollection()))
+                .thenReturn(Map.of(3L, 1L));
+        when(postLikeRepository.findRecentLikeIdsByPostIds(anyCollection(), anyInt())).thenAnswer(invocation ->
+                new ArrayList<Number>(invocation.<Collection<Long>>getArgument(0).stream().map(id -> id + 1000).toList()));
+        when(postLikeRepository.findWithUserByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(id -> PostLike.builder()
+                        .id(id).post(post(id - 1000)).user(author).createdAt(LocalDateTime.now()).build()).toList());
+        when(postCommentRepository.findFirstTopLevelCommentIdsByPostIds(anyCollection(), anyInt())).thenAnswer(invocation ->
+                new ArrayList<Number>(invocation.<Collection<Long>>getArgument(0).stream().map(id -> id + 2000).toList()));
+        when(postCommentRepository.findWithUserByIdIn(anyCollection())).thenAnswer(invocation ->
+                invocation.<Collection<Long>>getArgument(0).stream().map(id -> PostComment.builder()
+                        .id(id).post(post(id - 2000)).user(author).content("comment " + id)
+                        .createdAt(LocalDateTime.now()).build()).toList());
+    }
+
+    private int repositoryCallsFor(int pageSize) {
+        clearInvocations(postRepository, postLikeRepository, postCommentRepository,
+                postCommentLikeRepository, postAttachmentRepository, postEngagementService);
+        service.hydratePosts(posts(pageSize), VIEWER_ID);
+        return mockingDetails(postRepository).getInvocations().size()
+                + mockingDetails(postLikeRepository).getInvocations().size()
+                + mockingDetails(postCommentRepository).getInvocations().size()
+                + mockingDetails(postCommentLikeRepository).getInvocations().size()
+                + mockingDetails(postAttachmentRepository).getInvocations().size()
+                + mockingDetails(postEngagementService).getInvocations().size();
+    }
+
+    private List<Post> posts(int count) {
+        return LongStream.rangeClosed(1, count).mapToObj(this::post).toList();
+    }
+
+    private Post post(long id) {
+        return Post.builder().id(id).author(author).content("post " + id).likeCount(1).commentCount(1)
+                .createdAt(LocalDateTime.now()).build();
+    }
+}
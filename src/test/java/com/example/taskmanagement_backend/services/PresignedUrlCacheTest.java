@@ -0,0 +1,100 @@
+package com.example.taskmanagement_backend.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedGetObjectRequest;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * URL reuse, batch presigning, eviction and invalidation of PresignedUrlCache
+ */
+@ExtendWith(MockitoExtension.class)
+class PresignedUrlCacheTest {
+
+    private static final Duration ONE_HOUR = Duration.ofHours(1);
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    private final AtomicInteger signings = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        // Every signing yields a distinct URL, like a fresh X-Amz-Date/X-Amz-Signature would
+        when(s3Presigner.presignGetObject(any(GetObjectPresignRequest.class))).thenAnswer(invocation -> {
+            GetObjectPresignRequest request = invocation.getArgument(0);
+            PresignedGetObjectRequest presigned = mock(PresignedGetObjectRequest.class);
+            when(presigned.url()).thenReturn(new URL("https://s3.example.com/bucket/"
+                    + request.getObjectRequest().key() + "?sig=" + signings.incrementAndGet()));
+            return presigned;
+        });
+    }
+
+    @Test
+    void getDownloadUrl_ReusesTheUrlWithinTheReuseWindow() {
+        PresignedUrlCache cache = cache(0.5, 100);
+
+        String first = cache.getDownloadUrl("a.pdf", ONE_HOUR);
+
+        assertEquals(first, cache.getDownloadUrl("a.pdf", ONE_HOUR));
+        assertEquals(1, signings.get());
+        // A different validity is a different URL
+        assertNotEquals(first, cache.getDownloadUrl("a.pdf", Duration.ofDays(7)));
+        assertEquals(1L, cache.getStats().get("hits"));
+    }
+
+    @Test
+    void getDownloadUrl_SignsAgainOnceTheReuseWindowHasPassed() {
+        PresignedUrlCache cache = cache(0.0, 100);
+
+        assertNotEquals(cache.getDownloadUrl("a.pdf", ONE_HOUR), cache.getDownloadUrl("a.pdf", ONE_HOUR));
+        assertEquals(2, signings.get());
+    }
+
+    @Test
+    void getDownloadUrls_SignsEachDistinctMissingKeyOnce() {
+        PresignedUrlCache cache = cache(0.5, 100);
+        String cached = cache.getDownloadUrl("a.pdf", ONE_HOUR);
+
+        Map<String, String> urls = cache.getDownloadUrls(List.of("b.pdf", "a.pdf", "c.pdf", "b.pdf"), ONE_HOUR);
+
+        assertEquals(List.of("b.pdf", "a.pdf", "c.pdf"), List.copyOf(urls.keySet()));
+        assertEquals(cached, urls.get("a.pdf"));
+        assertEquals(3, signings.get());
+        assertEquals(urls.get("c.pdf"), cache.getDownloadUrl("c.pdf", ONE_HOUR));
+    }
+
+    @Test
+    void invalidateAndEviction_DropCachedUrls() {
+        PresignedUrlCache cache = cache(0.5, 2);
+        String a = cache.getDownloadUrl("a.pdf", ONE_HOUR);
+        cache.getDownloadUrl("b.pdf", ONE_HOUR);
+        cache.getDownloadUrl("c.pdf", ONE_HOUR);
+
+        // a.pdf was the least recently used entry
+        assertNotEquals(a, cache.getDownloadUrl("a.pdf", ONE_HOUR));
+
+        String c = cache.getDownloadUrl("c.pdf", ONE_HOUR);
+        cache.invalidate("c.pdf");
+        assertNotEquals(c, cache.getDownloadUrl("c.pdf", ONE_HOUR));
+        assertEquals(1L, cache.getStats().get("invalidations"));
+    }
+
+    private PresignedUrlCache cache(double reuseFraction, int maxEntries) {
+        return new PresignedUrlCache(s3Presigner, "bucket", true, reuseFraction, maxEntries);
+    }
+}
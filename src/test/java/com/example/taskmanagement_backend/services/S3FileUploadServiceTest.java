@@ -0,0 +1,181 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.FileUploadDto.FileUploadResponseDto;
+import com.example.taskmanagement_backend.repositories.TaskJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.transfer.s3.S3TransferManager;
+import software.amazon.awssdk.transfer.s3.model.CompletedUpload;
+import software.amazon.awssdk.transfer.s3.model.Upload;
+import software.amazon.awssdk.transfer.s3.model.UploadRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Streaming ingestion of S3FileUploadService: size limits and end-to-end checksum validation
+ */
+@ExtendWith(MockitoExtension.class)
+class S3FileUploadServiceTest {
+
+    private static final byte[] BODY = "streamed straight into multipart parts".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private S3Presigner s3Presigner;
+
+    @Mock
+    private S3TransferManager transferManager;
+
+    @Mock
+    private TaskJpaRepository taskRepository;
+
+    @Mock
+    private TaskActivityService taskActivityService;
+
+    @Mock
+    private PresignedUrlCache presignedUrlCache;
+
+    private S3FileUploadService service;
+
+    private final AtomicReference<UploadRequest> uploadRequest = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() {
+        service = new S3FileUploadService(s3Client, s3Presigner, transferManager, taskRepository, taskActivityService,
+                presignedUrlCache);
+        ReflectionTestUtils.setField(service, "bucketName", "bucket");
+        ReflectionTestUtils.setField(service, "keyPrefix", "task-files/");
+        ReflectionTestUtils.setField(service, "allowedExtensions", ".pdf,.txt");
+        ReflectionTestUtils.setField(service, "streamingMaxFileSize", 1024L);
+
+        // Only successful uploads presign a download URL, and rejected uploads never reach S3
+        lenient().when(presignedUrlCache.getDownloadUrl(anyString(), any())).thenReturn("https://s3.example.com/bucket/key");
+        // Behave like S3: the upload completes once the whole request body has been consumed
+        lenient().when(transferManager.upload(any(UploadRequest.class))).thenAnswer(invocation -> {
+            UploadRequest request = invocation.getArgument(0);
+            uploadRequest.set(request);
+            Upload upload = mock(Upload.class);
+            when(upload.completionFuture()).thenReturn(drain(request).thenApply(bytes -> mock(CompletedUpload.class)));
+            return upload;
+        });
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("me@example.com", null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void uploadStream_UploadsWithPartChecksumsAndAcceptsAMatchingSha256() throws Exception {
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(BODY));
+
+        FileUploadResponseDto response = service.uploadStream("report.pdf", "application/pdf",
+                new ByteArrayInputStream(BODY), (long) BODY.length, sha256, 5L).get();
+
+        assertEquals("SUCCESS", response.getUploadStatus());
+        assertEquals(BODY.length, response.getFileSize());
+        assertEquals(ChecksumAlgorithm.CRC32, uploadRequest.get().putObjectRequest().checksumAlgorithm());
+        verify(s3Client, never()).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void uploadStream_DeletesTheObjectWhenTheSha256DoesNotMatch() throws Exception {
+        String wrongSha256 = HexFormat.of().formatHex(new byte[32]);
+
+        FileUploadResponseDto response = service.uploadStream("report.pdf", "application/pdf",
+                new ByteArrayInputStream(BODY), null, wrongSha256, 5L).get();
+
+        assertEquals("FAILED", response.getUploadStatus());
+        assertNull(response.getFileKey());
+        verify(s3Client).deleteObject(any(DeleteObjectRequest.class));
+    }
+
+    @Test
+    void uploadStream_FailsAChunkedBodyThatGrowsPastTheLimit() throws Exception {
+        ReflectionTestUtils.setField(service, "streamingMaxFileSize", 10L);
+
+        FileUploadResponseDto response = service.uploadStream("report.pdf", "application/pdf",
+                new ByteArrayInputStream(BODY), null, null, 5L).get();
+
+        assertEquals("FAILED", response.getUploadStatus());
+    }
+
+    @Test
+    void uploadStream_RejectsADeclaredLengthOverTheLimitBeforeReading() {
+        assertThrows(IllegalArgumentException.class, () -> service.uploadStream("report.pdf", "application/pdf",
+                new ByteArrayInputStream(BODY), 4096L, null, 5L));
+
+        verifyNoInteractions(transferManager);
+    }
+
+    @Test
+    void uploadStream_RejectsUploadsOverTheConcurrencyLimitWithoutReadingTheBody() throws Exception {
+        ReflectionTestUtils.setField(service, "streamingMaxConcurrentUploads", 0);
+        ByteArrayInputStream body = new ByteArrayInputStream(BODY);
+
+        FileUploadResponseDto response = service.uploadStream("report.pdf", "application/pdf",
+                body, (long) BODY.length, null, 5L).get();
+
+        assertEquals("BUSY", response.getUploadStatus());
+        assertEquals(BODY.length, body.available());
+        verifyNoInteractions(transferManager);
+    }
+
+    private static CompletableFuture<Long> drain(UploadRequest request) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        request.requestBody().subscribe(new Subscriber<ByteBuffer>() {
+            private long bytes;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(ByteBuffer buffer) {
+                bytes += buffer.remaining();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                done.completeExceptionally(error);
+            }
+
+            @Override
+            public void onComplete() {
+                done.complete(bytes);
+            }
+        });
+        return done;
+    }
+}
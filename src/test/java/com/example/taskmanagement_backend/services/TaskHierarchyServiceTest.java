@@ -0,0 +1,133 @@
+package com.example.taskmanagement_backend.services;
+
+import com.example.taskmanagement_backend.dtos.TaskDto.TaskTreeNodeDto;
+import com.example.taskmanagement_backend.entities.Project;
+import com.example.taskmanagement_backend.entities.ProjectTask;
+import com.example.taskmanagement_backend.enums.TaskStatus;
+import com.example.taskmanagement_backend.repositories.ProjectTaskJpaRepository;
+import com.example.taskmanagement_backend.repositories.TeamTaskJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * One-query subtree loading, bottom-up roll-up and cycle-safe moves of TaskHierarchyService
+ */
+@ExtendWith(MockitoExtension.class)
+class TaskHierarchyServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 15);
+
+    @Mock
+    private ProjectTaskJpaRepository projectTaskRepository;
+
+    @Mock
+    private TeamTaskJpaRepository teamTaskRepository;
+
+    private TaskHierarchyService service;
+
+    private final Project project = Project.builder().id(1L).build();
+
+    @BeforeEach
+    void setUp() {
+        service = new TaskHierarchyService(projectTaskRepository, teamTaskRepository, 100);
+    }
+
+    @Test
+    void buildTree_RollsUpProgressCountsAndHoursFromTheLeaves() {
+        // 1 ─┬─ 2 ─┬─ 4 (done, 6h)
+        //    │     └─ 5 (50%, 2h, overdue)
+        //    └─ 3 (0%, not estimated)
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, null, 0, TaskStatus.IN_PROGRESS, 10, null, null));
+        rows.add(row(2L, 1L, 1, TaskStatus.IN_PROGRESS, 0, null, null));
+        rows.add(row(3L, 1L, 1, TaskStatus.TODO, 0, null, null));
+        rows.add(row(4L, 2L, 2, TaskStatus.DONE, 0, 6, null));
+        rows.add(row(5L, 2L, 2, TaskStatus.IN_PROGRESS, 50, 2, Date.valueOf(TODAY.minusDays(1))));
+
+        TaskTreeNodeDto root = TaskHierarchyService.buildTree(1L, rows, TODAY);
+
+        TaskTreeNodeDto two = root.getChildren().get(0);
+        assertEquals(List.of(2L, 3L), root.getChildren().stream().map(TaskTreeNodeDto::getId).toList());
+        assertEquals(List.of(4L, 5L), two.getChildren().stream().map(TaskTreeNodeDto::getId).toList());
+        // (6h * 100 + 2h * 50) / 8h
+        assertEquals(88, two.getSubtreeProgressPercentage());
+        // (8h * 87.5 + 1 * 0) / 9
+        assertEquals(78, root.getSubtreeProgressPercentage());
+        assertEquals(4, root.getDescendantCount());
+        assertEquals(1, root.getCompletedCount());
+        assertEquals(1, root.getOverdueCount());
+        assertEquals(8, root.getSubtreeEstimatedHours());
+    }
+
+    @Test
+    void buildTree_ReturnsNullForAMissingRootAndStopsAtACycle() {
+        assertNull(TaskHierarchyService.buildTree(1L, List.of(), TODAY));
+
+        // 1 -> 2 -> 1: the recursion lists the root again until it reaches the depth limit
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, 2L, 0, TaskStatus.TODO, 0, null, null));
+        rows.add(row(2L, 1L, 1, TaskStatus.TODO, 0, null, null));
+        rows.add(row(1L, 2L, 2, TaskStatus.TODO, 0, null, null));
+
+        TaskTreeNodeDto root = TaskHierarchyService.buildTree(1L, rows, TODAY);
+
+        assertEquals(1, root.getDescendantCount());
+        assertTrue(root.getChildren().get(0).getChildren().isEmpty());
+    }
+
+    @Test
+    void getProjectTaskTree_LoadsTheWholeSubtreeInOneQuery() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row(1L, null, 0, TaskStatus.TODO, 0, null, null));
+        rows.add(row(2L, 1L, 1, TaskStatus.TODO, 0, null, null));
+        when(projectTaskRepository.findSubtreeRows(1L, 100)).thenReturn(rows);
+
+        assertEquals(1, service.getProjectTaskTree(1L).getDescendantCount());
+
+        verify(projectTaskRepository, times(1)).findSubtreeRows(anyLong(), anyInt());
+        verify(projectTaskRepository, never()).findByParentTask(any());
+    }
+
+    @Test
+    void moveProjectTask_RejectsAMoveUnderItsOwnSubtree() {
+        ProjectTask task = ProjectTask.builder().id(1L).project(project).build();
+        ProjectTask grandchild = ProjectTask.builder().id(3L).project(project).build();
+        when(projectTaskRepository.findById(1L)).thenReturn(Optional.of(task));
+        when(projectTaskRepository.findById(3L)).thenReturn(Optional.of(grandchild));
+        when(projectTaskRepository.findAncestorIds(3L, 100)).thenReturn(List.of(3L, 2L, 1L));
+
+        assertThrows(IllegalArgumentException.class, () -> service.moveProjectTask(1L, 3L));
+        verify(projectTaskRepository, never()).save(any());
+    }
+
+    @Test
+    void moveProjectTask_ReparentsOnlyTheMovedTask() {
+        ProjectTask task = ProjectTask.builder().id(2L).project(project).build();
+        ProjectTask newParent = ProjectTask.builder().id(5L).project(project).build();
+        when(projectTaskRepository.findById(2L)).thenReturn(Optional.of(task));
+        when(projectTaskRepository.findById(5L)).thenReturn(Optional.of(newParent));
+        when(projectTaskRepository.findAncestorIds(5L, 100)).thenReturn(List.of(5L, 1L));
+        when(projectTaskRepository.save(any(ProjectTask.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertSame(newParent, service.moveProjectTask(2L, 5L).getParentTask());
+        verify(projectTaskRepository, times(1)).save(task);
+    }
+
+    private static Object[] row(Long id, Long parentId, int depth, TaskStatus status, Integer progress,
+                                Integer estimatedHours, Date deadline) {
+        return new Object[]{id, parentId, depth, "task " + id, status.name(), progress, estimatedHours, null, deadline};
+    }
+}
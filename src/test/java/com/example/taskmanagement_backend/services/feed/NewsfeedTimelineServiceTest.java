@@ -0,0 +1,129 @@
+package com.example.taskmanagement_backend.services.feed;
+
+import com.example.taskmanagement_backend.enums.PostPrivacy;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Cursor reads over merged timeline sets and push routing of NewsfeedTimelineService
+ */
+@ExtendWith(MockitoExtension.class)
+class NewsfeedTimelineServiceTest {
+
+    private static final String TIMELINE_1 = "taskmanagement:feed:timeline:1";
+    private static final String PUBLIC = "taskmanagement:feed:public";
+    private static final String AUTHOR_1 = "taskmanagement:feed:author:1";
+    private static final String AUTHOR_50 = "taskmanagement:feed:author:50";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private PostRepository postRepository;
+
+    private NewsfeedTimelineService service;
+
+    @BeforeEach
+    void setUp() {
+        // Pushes go through scripts and never read a set
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        lenient().when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(true);
+        service = new NewsfeedTimelineService(redisTemplate, postRepository);
+        ReflectionTestUtils.setField(service, "timelineMaxSize", 800);
+        ReflectionTestUtils.setField(service, "sharedMaxSize", 2000);
+        ReflectionTestUtils.setField(service, "fanoutMaxFollowers", 2);
+        ReflectionTestUtils.setField(service, "ttlDays", 7L);
+    }
+
+    @Test
+    void readPostIds_MergesTimelinePublicAndHighFanoutFriendsBelowCursor() {
+        when(setOperations.members("taskmanagement:feed:high-fanout-authors")).thenReturn(Set.of("50", "99"));
+        Map<String, List<Long>> sets = Map.of(
+                TIMELINE_1, List.of(9L, 7L, 4L),
+                PUBLIC, List.of(8L, 7L, 2L),
+                AUTHOR_50, List.of(6L));
+        when(zSetOperations.reverseRangeByScore(anyString(), eq(1.0), anyDouble(), eq(0L), anyLong()))
+                .thenAnswer(invocation -> {
+                    double max = invocation.getArgument(2);
+                    long count = invocation.getArgument(4);
+                    Set<String> ids = new LinkedHashSet<>();
+                    sets.getOrDefault(invocation.<String>getArgument(0), List.of()).stream()
+                            .filter(id -> id <= max).limit(count).forEach(id -> ids.add(String.valueOf(id)));
+                    return ids;
+                });
+
+        NewsfeedTimelineService.TimelineSlice first = service.readPostIds(1L, List.of(50L, 60L), null, 4);
+        assertEquals(List.of(9L, 8L, 7L, 6L), first.getPostIds());
+        assertEquals(6L, first.getNextCursor());
+        assertTrue(first.isHasNext());
+
+        NewsfeedTimelineService.TimelineSlice second = service.readPostIds(1L, List.of(50L, 60L), first.getNextCursor(), 4);
+        assertEquals(List.of(4L, 2L), second.getPostIds());
+        assertFalse(second.isHasNext());
+
+        // Author 99 is not a friend, so their set is never read
+        verify(zSetOperations, never()).reverseRangeByScore(eq("taskmanagement:feed:author:99"),
+                anyDouble(), anyDouble(), anyLong(), anyLong());
+    }
+
+    @Test
+    void readPostIds_SeedsMissingTimelineFromDatabase() {
+        when(redisTemplate.expire(eq(TIMELINE_1), any(Duration.class))).thenReturn(false);
+        when(postRepository.findTimelineSeedIds(eq(1L), eq(List.of(2L)), any(Pageable.class)))
+                .thenReturn(List.of(12L, 10L));
+
+        service.readPostIds(1L, List.of(2L), null, 10);
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(TIMELINE_1)), eq("800"), anyString(), eq("12"), eq("10"));
+        verify(postRepository, never()).findRecentIdsByPrivacy(any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void onPostCreated_PushesToFriendsUnlessTheAuthorHasTooManyFollowers() {
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+
+        service.onPostCreated(100L, 1L, PostPrivacy.FRIENDS, List.of(2L, 3L));
+        service.onPostCreated(101L, 1L, PostPrivacy.FRIENDS, List.of(2L, 3L, 4L));
+        service.onPostCreated(102L, 1L, PostPrivacy.PUBLIC, List.of(2L, 3L));
+
+        verify(redisTemplate, atLeastOnce()).execute(any(RedisScript.class), keys.capture(), anyString(), anyString(), anyString());
+        assertEquals(List.of(
+                List.of(AUTHOR_1),
+                List.of(TIMELINE_1, "taskmanagement:feed:timeline:2", "taskmanagement:feed:timeline:3"),
+                List.of(AUTHOR_1),
+                List.of(TIMELINE_1),
+                List.of(PUBLIC),
+                List.of(TIMELINE_1)), keys.getAllValues());
+        verify(setOperations).remove("taskmanagement:feed:high-fanout-authors", "1");
+        verify(setOperations).add("taskmanagement:feed:high-fanout-authors", "1");
+    }
+}
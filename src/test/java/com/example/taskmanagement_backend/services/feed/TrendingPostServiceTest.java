@@ -0,0 +1,107 @@
+package com.example.taskmanagement_backend.services.feed;
+
+import com.example.taskmanagement_backend.enums.PostPrivacy;
+import com.example.taskmanagement_backend.repositories.PostRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Seeding, event recording and reads of TrendingPostService
+ */
+@ExtendWith(MockitoExtension.class)
+class TrendingPostServiceTest {
+
+    private static final String RANKING = "taskmanagement:feed:trending";
+    private static final String EPOCH = "taskmanagement:feed:trending:epoch";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private PostRepository postRepository;
+
+    private TrendingPostService service;
+
+    @BeforeEach
+    void setUp() {
+        // Only reads use the ranking's set operations
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        service = new TrendingPostService(redisTemplate, postRepository);
+        ReflectionTestUtils.setField(service, "halfLifeHours", 6.0);
+        ReflectionTestUtils.setField(service, "maxSize", 1000);
+        ReflectionTestUtils.setField(service, "minScore", 0.05);
+        ReflectionTestUtils.setField(service, "seedWindowHours", 72L);
+    }
+
+    @Test
+    void readRankedPostIds_SeedsMissingRankingWithWeightedEngagement() {
+        when(redisTemplate.hasKey(EPOCH)).thenReturn(false);
+        when(postRepository.findTrendingSeed(any(LocalDateTime.class), eq(PostPrivacy.PRIVATE), any(Pageable.class)))
+                .thenReturn(List.<Object[]>of(new Object[]{12L, 3, 2, LocalDateTime.now()}));
+        when(zSetOperations.reverseRange(RANKING, 0, 49)).thenReturn(new LinkedHashSet<>(List.of("12", "9")));
+
+        List<Long> ids = service.readRankedPostIds(0, 50);
+
+        assertEquals(List.of(12L, 9L), ids);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(RANKING, EPOCH)), args.capture());
+        List<Object> seedArgs = List.of(args.getValue());
+        // now, half-life ms, max size, then (post id, 3 likes + 2 comments * 2, created ms)
+        assertEquals(String.valueOf(6 * 3_600_000L), seedArgs.get(1));
+        assertEquals("1000", seedArgs.get(2));
+        assertEquals("12", seedArgs.get(3));
+        assertEquals("7.0", seedArgs.get(4));
+    }
+
+    @Test
+    void readRankedPostIds_DoesNotSeedAnExistingRanking() {
+        when(redisTemplate.hasKey(EPOCH)).thenReturn(true);
+        when(zSetOperations.reverseRange(RANKING, 50, 99)).thenReturn(new LinkedHashSet<>());
+
+        assertTrue(service.readRankedPostIds(50, 50).isEmpty());
+        verifyNoInteractions(postRepository);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void onEngagement_RecordsWeightedEventsButNeverRanksPrivatePosts() {
+        service.onEngagement(5L, PostPrivacy.PRIVATE, TrendingPostService.LIKE_WEIGHT);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        service.onEngagement(5L, PostPrivacy.FRIENDS, -TrendingPostService.LIKE_WEIGHT);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(RANKING, EPOCH)),
+                eq("5"), eq("-1.0"), anyString(), eq(String.valueOf(6 * 3_600_000L)), eq("1000"));
+    }
+
+    @Test
+    void onEngagement_WithdrawsEngagementAtTheTimeItWasAdded() {
+        LocalDateTime likedAt = LocalDateTime.now().minusDays(2);
+
+        service.onEngagement(5L, PostPrivacy.PUBLIC, -TrendingPostService.LIKE_WEIGHT, likedAt);
+
+        // Taken now, the withdrawal would weigh 2^8 times what the like added two days ago
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(RANKING, EPOCH)),
+                eq("5"), eq("-1.0"), eq(String.valueOf(Timestamp.valueOf(likedAt).getTime())), anyString(), anyString());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.dtos.EmailDto.SendEmailRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * The welcome email never blocks the registration that sends it
+ */
+@ExtendWith(MockitoExtension.class)
+class AutomatedEmailServiceTest {
+
+    @Mock
+    private EmailTemplateService emailTemplateService;
+
+    @Mock
+    private SmtpEmailService smtpEmailService;
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    private AutomatedEmailService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AutomatedEmailService(emailTemplateService, smtpEmailService, emailOutboxService);
+        when(emailTemplateService.generateWelcomeEmail("Alice", "alice@example.com")).thenReturn("<p>Welcome</p>");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendWelcomeEmail_QueuesOnlyAfterTheRegistrationCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        service.sendWelcomeEmail("alice@example.com", "Alice");
+
+        verifyNoInteractions(emailOutboxService);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(emailOutboxService).enqueueSeparately(any(SendEmailRequestDto.class));
+        verify(emailOutboxService, never()).enqueue(any());
+    }
+
+    @Test
+    void sendWelcomeEmail_SwallowsAQueueingFailure() {
+        when(emailOutboxService.enqueueSeparately(any(SendEmailRequestDto.class)))
+                .thenThrow(new DataAccessResourceFailureException("outbox unavailable"));
+
+        assertDoesNotThrow(() -> service.sendWelcomeEmail("alice@example.com", "Alice"));
+    }
+}
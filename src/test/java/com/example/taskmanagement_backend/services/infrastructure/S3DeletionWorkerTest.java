@@ -0,0 +1,83 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.entities.S3Deletion;
+import com.example.taskmanagement_backend.services.scheduled.ClusterJobCoordinator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Batched DeleteObjects calls and per-key retries of S3DeletionWorker
+ */
+@ExtendWith(MockitoExtension.class)
+class S3DeletionWorkerTest {
+
+    @Mock
+    private S3DeletionQueueService queueService;
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private ClusterJobCoordinator clusterJobCoordinator;
+
+    private S3DeletionWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new S3DeletionWorker(queueService, s3Client, clusterJobCoordinator, "bucket",
+                1000, 300, 7, "task-files/", 24, false);
+        when(clusterJobCoordinator.getNodeId()).thenReturn("node-1");
+    }
+
+    @Test
+    void drain_DeletesAClaimInOneCallAndRetriesOnlyTheKeysS3Rejected() {
+        when(queueService.claimDue("node-1", 1000)).thenReturn(List.of(
+                deletion(1L, "a.pdf"), deletion(2L, "b.pdf"), deletion(3L, "a.pdf"), deletion(4L, "c.pdf")));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+                .errors(S3Error.builder().key("c.pdf").code("AccessDenied").message("Access Denied").build())
+                .build());
+
+        worker.drain();
+
+        ArgumentCaptor<DeleteObjectsRequest> request = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(1)).deleteObjects(request.capture());
+        assertEquals(List.of("a.pdf", "b.pdf", "c.pdf"),
+                request.getValue().delete().objects().stream().map(ObjectIdentifier::key).toList());
+        assertTrue(request.getValue().delete().quiet());
+        verify(queueService).markDeleted(argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 2L, 3L))));
+        verify(queueService).markFailed(Map.of(4L, "AccessDenied: Access Denied"));
+    }
+
+    @Test
+    void drain_RetriesTheWholeClaimWhenTheCallFails() {
+        when(queueService.claimDue("node-1", 1000)).thenReturn(List.of(deletion(1L, "a.pdf"), deletion(2L, "b.pdf")));
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenThrow(SdkClientException.create("timeout"));
+
+        worker.drain();
+
+        verify(queueService).markDeleted(List.of());
+        verify(queueService).markFailed(Map.of(1L, "timeout", 2L, "timeout"));
+    }
+
+    private S3Deletion deletion(Long id, String objectKey) {
+        return S3Deletion.builder().id(id).objectKey(objectKey).build();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.taskmanagement_backend.services.infrastructure;
+
+import com.example.taskmanagement_backend.dtos.EmailDto.SendEmailRequestDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Batch delivery of SmtpEmailService against a local fake SMTP server
+ */
+class SmtpEmailServiceTest {
+
+    private FakeSmtpServer smtpServer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        smtpServer = new FakeSmtpServer(Set.of("rejected@example.org"));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        smtpServer.close();
+    }
+
+    @Test
+    void sendBatch_SendsAllMessagesOverOneConnection() {
+        SmtpEmailService service = serviceFor(smtpServer.getPort());
+
+        Map<Integer, Exception> failures = service.sendBatch(List.of(
+                email("a@example.com", "First"),
+                email("b@example.com", "Second"),
+                email("c@example.com", "Third")));
+
+        assertTrue(failures.isEmpty());
+        assertEquals(1, smtpServer.getConnectionCount());
+        assertEquals(3, smtpServer.getMessages().size());
+        assertTrue(smtpServer.getMessages().get(1).contains("Subject: Second"));
+    }
+
+    @Test
+    void sendBatch_ReportsRejectedMessageByIndex() {
+        SmtpEmailService service = serviceFor(smtpServer.getPort());
+
+        Map<Integer, Exception> failures = service.sendBatch(List.of(
+                email("a@example.com", "First"),
+                email("rejected@example.org", "Second"),
+                email("c@example.com", "Third")));
+
+        assertEquals(Set.of(1), failures.keySet());
+        assertEquals(2, smtpServer.getMessages().size());
+    }
+
+    @Test
+    void sendBatch_FailsEveryMessageWhenServerIsUnreachable() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        SmtpEmailService service = serviceFor(closedPort);
+
+        Map<Integer, Exception> failures = service.sendBatch(List.of(
+                email("a@example.com", "First"),
+                email("b@example.com", "Second")));
+
+        assertEquals(Set.of(0, 1), failures.keySet());
+    }
+
+    private static SmtpEmailService serviceFor(int port) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+        mailSender.getJavaMailProperties().put("mail.smtp.connectiontimeout", "2000");
+        mailSender.getJavaMailProperties().put("mail.smtp.timeout", "2000");
+
+        SmtpEmailService service = new SmtpEmailService(mailSender);
+        ReflectionTestUtils.setField(service, "fromEmail", "noreply@taskflow.test");
+        return service;
+    }
+
+    private static SendEmailRequestDto email(String to, String subject) {
+        return SendEmailRequestDto.builder()
+                .to(List.of(to))
+                .subject(subject)
+                .body("<p>" + subject + "</p>")
+                .isHtml(true)
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.taskmanagement_backend.services.media;
+
+import com.example.taskmanagement_backend.repositories.MessageRepository;
+import com.example.taskmanagement_backend.repositories.PostAttachmentRepository;
+import com.example.taskmanagement_backend.repositories.TaskAttachmentRepository;
+import com.example.taskmanagement_backend.services.PresignedUrlCache;
+import com.example.taskmanagement_backend.services.infrastructure.S3DeletionQueueService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Variant generation, size limits and list-variant selection of ThumbnailService
+ */
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private S3Client s3Client;
+
+    @Mock
+    private PresignedUrlCache presignedUrlCache;
+
+    @Mock
+    private TaskAttachmentRepository taskAttachmentRepository;
+
+    @Mock
+    private PostAttachmentRepository postAttachmentRepository;
+
+    @Mock
+    private MessageRepository messageRepository;
+
+    @Mock
+    private ObjectProvider<S3DeletionQueueService> deletionQueue;
+
+    @Mock
+    private S3DeletionQueueService s3DeletionQueueService;
+
+    private ThumbnailService service;
+
+    @BeforeEach
+    void setUp() {
+        service = service(40_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void generate_StoresOnlyVariantsSmallerThanTheOriginalAndRecordsThem() throws Exception {
+        when(postAttachmentRepository.existsById(9L)).thenReturn(true);
+        when(postAttachmentRepository.updateThumbnails(eq(9L), anyString())).thenReturn(1);
+        givenObject("posts/photo.png", png(600, 300));
+
+        String thumbnails = service.generate(ThumbnailService.Target.POST_ATTACHMENT, 9L, "posts/photo.png");
+
+        ArgumentCaptor<PutObjectRequest> puts = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client, times(2)).putObject(puts.capture(), any(RequestBody.class));
+        assertEquals(List.of("thumbnails/64/posts/photo.png.jpg", "thumbnails/256/posts/photo.png.jpg"),
+                puts.getAllValues().stream().map(PutObjectRequest::key).toList());
+        assertEquals("image/jpeg", puts.getValue().contentType());
+        assertTrue(thumbnails.matches("64:\\d+,256:\\d+"), thumbnails);
+        verify(postAttachmentRepository).updateThumbnails(9L, thumbnails);
+    }
+
+    @Test
+    void generate_SkipsImagesOverThePixelLimitWithoutDecodingThem() throws Exception {
+        service.shutdown();
+        service = service(10_000L);
+        when(postAttachmentRepository.existsById(9L)).thenReturn(true);
+        givenObject("posts/huge.png", png(200, 100));
+
+        assertNull(service.generate(ThumbnailService.Target.POST_ATTACHMENT, 9L, "posts/huge.png"));
+
+        verify(s3Client, never()).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+        verify(postAttachmentRepository, never()).updateThumbnails(anyLong(), anyString());
+        assertEquals(1L, service.getStats().get("skipped"));
+    }
+
+    @Test
+    void generate_SkipsAttachmentsDeletedBeforeGenerationStarts() {
+        when(taskAttachmentRepository.existsByIdAndNotDeleted(4L)).thenReturn(false);
+
+        assertNull(service.generate(ThumbnailService.Target.TASK_ATTACHMENT, 4L, "tasks/photo.png"));
+
+        verifyNoInteractions(s3Client);
+        verify(taskAttachmentRepository, never()).updateThumbnails(anyLong(), anyString());
+        assertEquals(1L, service.getStats().get("skipped"));
+    }
+
+    @Test
+    void generate_QueuesTheVariantsOfAnAttachmentDeletedDuringGeneration() throws Exception {
+        when(postAttachmentRepository.existsById(9L)).thenReturn(true);
+        givenObject("posts/photo.png", png(600, 300));
+        // The row is gone by the time the variants are recorded
+        when(postAttachmentRepository.updateThumbnails(eq(9L), anyString())).thenReturn(0);
+        when(deletionQueue.getObject()).thenReturn(s3DeletionQueueService);
+
+        assertNull(service.generate(ThumbnailService.Target.POST_ATTACHMENT, 9L, "posts/photo.png"));
+
+        verify(s3DeletionQueueService).enqueue(
+                List.of("thumbnails/64/posts/photo.png.jpg", "thumbnails/256/posts/photo.png.jpg"), "thumbnails");
+        assertEquals(1L, service.getStats().get("orphaned"));
+        assertEquals(0L, service.getStats().get("generated"));
+    }
+
+    @Test
+    void listVariant_PicksTheSmallestVariantCoveringTheListSize() {
+        ThumbnailService.Variant variant = service.listVariant("a.png", "64:900,256:8000,1024:60000");
+
+        assertEquals(256, variant.getSize());
+        assertEquals("thumbnails/256/a.png.jpg", variant.getKey());
+        assertEquals(8000L, variant.getBytes());
+        // Only variants too small for the list view, or none at all: serve the original
+        assertNull(service.listVariant("a.png", "64:900"));
+        assertNull(service.listVariant("a.png", ""));
+        assertNull(service.listVariant("a.png", null));
+    }
+
+    @Test
+    void scale_KeepsTheAspectRatio() {
+        BufferedImage scaled = ThumbnailService.scale(new BufferedImage(1000, 250, BufferedImage.TYPE_INT_ARGB), 256);
+
+        assertEquals(256, scaled.getWidth());
+        assertEquals(64, scaled.getHeight());
+    }
+
+    private ThumbnailService service(long maxSourcePixels) {
+        return new ThumbnailService(s3Client, presignedUrlCache, taskAttachmentRepository, postAttachmentRepository,
+                messageRepository, deletionQueue, "bucket", true, "64,256,1024", 256, 1_000_000L, maxSourcePixels, 0.8f, 60, 1, 10);
+    }
+
+    private void givenObject(String key, byte[] data) {
+        when(s3Client.getObject(argThat((GetObjectRequest request) -> request != null && key.equals(request.key()))))
+                .thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().contentLength((long) data.length).build(),
+                        AbortableInputStream.create(new ByteArrayInputStream(data))));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", output);
+        return output.toByteArray();
+    }
+}
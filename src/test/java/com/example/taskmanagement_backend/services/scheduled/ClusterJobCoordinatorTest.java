@@ -0,0 +1,76 @@
+package com.example.taskmanagement_backend.services.scheduled;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Period windows of ClusterJobCoordinator: fixed-rate jobs run once per period whatever the phase of each node
+ */
+class ClusterJobCoordinatorTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    // Shared "Redis": key -> expiry in simulated millis
+    private final Map<String, Long> keys = new ConcurrentHashMap<>();
+    private long now;
+
+    @Test
+    void claimWindow_NodesStartedAtDifferentTimesRunAnHourlyJobOncePerHour() {
+        List<ClusterJobCoordinator> nodes = List.of(node(), node());
+        // fixedRate triggers fire relative to each node's start: 00:07 and 00:41, then every hour
+        long[] starts = {Duration.ofMinutes(7).toMillis(), Duration.ofMinutes(41).toMillis()};
+
+        Map<Long, List<String>> runsPerHour = new TreeMap<>();
+        for (long firing = 0; firing < 6; firing++) {
+            for (int i = 0; i < nodes.size(); i++) {
+                now = starts[i] + firing * HOUR.toMillis();
+                if (nodes.get(i).claimWindow("due-soon", HOUR, now)) {
+                    runsPerHour.computeIfAbsent(now / HOUR.toMillis(), hour -> new ArrayList<>())
+                            .add(nodes.get(i).getNodeId());
+                }
+            }
+        }
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L, 5L), List.copyOf(runsPerHour.keySet()));
+        runsPerHour.values().forEach(runs -> assertEquals(List.of(nodes.get(0).getNodeId()), runs));
+    }
+
+    @Test
+    void claimWindow_ANodeThatFiresAfterTheWindowEndedRunsTheNextOne() {
+        ClusterJobCoordinator first = node();
+        ClusterJobCoordinator second = node();
+
+        now = Duration.ofMinutes(59).toMillis();
+        assertTrue(first.claimWindow("due-soon", HOUR, now));
+        now = Duration.ofMinutes(61).toMillis();
+        assertTrue(second.claimWindow("due-soon", HOUR, now));
+        now = Duration.ofMinutes(119).toMillis();
+        assertFalse(first.claimWindow("due-soon", HOUR, now));
+    }
+
+    @SuppressWarnings("unchecked")
+    private ClusterJobCoordinator node() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(0);
+            long expiresAt = now + invocation.<Duration>getArgument(2).toMillis();
+            keys.entrySet().removeIf(entry -> entry.getValue() <= now);
+            return keys.putIfAbsent(key, expiresAt) == null;
+        });
+        return new ClusterJobCoordinator(redisTemplate);
+    }
+}